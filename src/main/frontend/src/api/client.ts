@@ -46,6 +46,9 @@ export interface Playlist {
   userId?: string
   createdAt?: Date
   updatedAt?: Date
+  /** 詳細取得で全曲を読み切れなかった（期限切れ・途中のエラー）場合に true */
+  truncated?: boolean
+  error?: string
 }
 
 export interface Artist {
@@ -1,7 +1,7 @@
 /**
  * ローカルにキャッシュされたプレイリスト（MongoDB経由）を1件表示する詳細ページ。
  *
- * - 取得: `playlistsApi.getById`
+ * - 取得: `playlistsApi.getById`（`truncated` の場合は一部だけである旨を表示）
  * - 再生: `VideoPlayer` をモーダル表示
  * - 削除: `playlistsApi.removeSong` 後にクエリをinvalidate
  */
@@ -55,6 +55,11 @@ function PlaylistDetailPage() {
         <div className="stats">
           <span>{playlist.songs.length} 曲</span>
         </div>
+        {playlist.truncated && (
+          <div className="truncated-notice">
+            曲の読み込みが途中で打ち切られたため、一部の曲だけを表示しています。再読み込みすると続きを取得できる場合があります。
+          </div>
+        )}
       </div>
 
       {playlist.songs.length === 0 ? (
@@ -0,0 +1,65 @@
+package com.charge0315.yt.client;
+
+/**
+ * AIMD（加算増加・乗算減少）で調整する同時実行数の上限。
+ *
+ * <ul>
+ *   <li>成功して応答時間が {@code latencyThreshold} 以内なら、上限の半分以上を使っているときに限り
+ *       {@code 1/limit} ずつ増やす（上限分の呼び出しが成功するごとに +1）</li>
+ *   <li>スロットリング（429/5xx/rateLimitExceeded/タイムアウト）か応答時間の超過で {@code backoffRatio} 倍に減らす</li>
+ * </ul>
+ *
+ * <p>1回の混雑で何度も減らしすぎないよう、減少は前回の減少より後に開始した呼び出しの結果でのみ行います。
+ * 時刻は呼び出し側から渡します（テストしやすくするため）。</p>
+ */
+final class AimdLimit {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long latencyThresholdNanos;
+
+    private double limit;
+
+    private long lastDecreaseNanos;
+
+    private boolean decreased;
+
+    AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyThresholdNanos) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = Math.min(0.99, Math.max(0.1, backoffRatio));
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * 1回の呼び出し結果を反映します。
+     *
+     * @param startNanos 呼び出しの開始時刻
+     * @param nowNanos 完了時刻
+     * @param throttled スロットリングを示すエラーで終わった場合 {@code true}
+     * @param inFlight 完了時点の実行中の呼び出し数（この呼び出しを含む）
+     */
+    synchronized void onSample(long startNanos, long nowNanos, boolean throttled, int inFlight) {
+        if (throttled || nowNanos - startNanos > latencyThresholdNanos) {
+            if (!decreased || startNanos - lastDecreaseNanos >= 0) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = nowNanos;
+                decreased = true;
+            }
+            return;
+        }
+        // 上限に余裕がある間は増やさない（使われていない上限だけが伸び続けるのを防ぐ）
+        if (inFlight * 2 >= (int) limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+}
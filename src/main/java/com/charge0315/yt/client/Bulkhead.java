@@ -0,0 +1,236 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * 外部APIの接続先ごとの同時実行数の隔壁（バルクヘッド）。
+ *
+ * <p>同時に実行できる呼び出しは {@code maxConcurrent} 本までです。超えた分は {@code maxQueued} 件まで
+ * 最大 {@code maxWait} 待たせ、待ち行列も一杯なら即座に 503 {@code <name>_bulkhead_full} で拒否します
+ * （待ち時間切れは {@code <name>_bulkhead_timeout}）。
+ * 1つの接続先が遅くなっても、他の接続先の呼び出しまで待たされないようにするためのものです。</p>
+ *
+ * <p>許可は呼び出しの完了・エラー・キャンセルのいずれでも必ず返却されます。</p>
+ */
+public final class Bulkhead {
+
+    private static final int WAITING = 0;
+
+    private static final int GRANTED = 1;
+
+    private static final int CANCELLED = 2;
+
+    private final String name;
+
+    private final int maxConcurrent;
+
+    private final int maxQueued;
+
+    private final Duration maxWait;
+
+    private final Counter rejectedFull;
+
+    private final Counter rejectedTimeout;
+
+    private final Timer queueWait;
+
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    private int active;
+
+    Bulkhead(String name, int maxConcurrent, int maxQueued, Duration maxWait, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxWait = maxWait;
+
+        Gauge.builder("outbound.bulkhead.active", this, Bulkhead::active)
+                .description("実行中の呼び出し数")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("outbound.bulkhead.queued", this, Bulkhead::queued)
+                .description("許可待ちの呼び出し数")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("outbound.bulkhead.saturation", this, b -> (double) b.active() / b.maxConcurrent)
+                .description("同時実行数の上限に対する使用率（1.0 で飽和）")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.rejectedFull = rejectedCounter(meterRegistry, "full");
+        this.rejectedTimeout = rejectedCounter(meterRegistry, "timeout");
+        this.queueWait = Timer.builder("outbound.bulkhead.wait")
+                .description("許可が空くまでの待ち時間（待たずに実行できた呼び出しは含まない）")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    private Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("outbound.bulkhead.rejected")
+                .description("バルクヘッドの飽和で拒否した呼び出し数")
+                .tag("name", name)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 許可を得てから {@code call} を購読します。
+     */
+    public <T> Mono<T> call(Supplier<? extends Mono<T>> call) {
+        return Mono.usingWhen(acquire(), permit -> call.get(), Permit::close, (permit, e) -> permit.close(),
+                Permit::close);
+    }
+
+    /**
+     * 許可を得てから {@code call} を購読します（ストリームの終端まで許可を保持します）。
+     */
+    public <T> Flux<T> stream(Supplier<? extends Publisher<T>> call) {
+        return Flux.usingWhen(acquire(), permit -> call.get(), Permit::close, (permit, e) -> permit.close(),
+                Permit::close);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int maxQueued() {
+        return maxQueued;
+    }
+
+    public synchronized int active() {
+        return active;
+    }
+
+    public synchronized int queued() {
+        return waiters.size();
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+                    Permit immediate = null;
+                    Waiter waiter = null;
+                    synchronized (this) {
+                        if (active < maxConcurrent) {
+                            active++;
+                            immediate = new Permit();
+                        } else if (waiters.size() < maxQueued) {
+                            waiter = new Waiter(sink, System.nanoTime());
+                            waiters.addLast(waiter);
+                        }
+                    }
+                    if (immediate != null) {
+                        sink.success(immediate);
+                        return;
+                    }
+                    if (waiter == null) {
+                        rejectedFull.increment();
+                        sink.error(rejected("full"));
+                        return;
+                    }
+                    Waiter registered = waiter;
+                    sink.onCancel(registered::cancel);
+                })
+                .timeout(maxWait, Mono.defer(() -> {
+                    rejectedTimeout.increment();
+                    return Mono.error(rejected("timeout"));
+                }));
+    }
+
+    private ResponseStatusException rejected(String reason) {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, name + "_bulkhead_" + reason);
+    }
+
+    /**
+     * 許可を返却し、待ち行列の先頭（キャンセル済みは飛ばす）へ引き渡します。
+     */
+    private void release() {
+        while (true) {
+            Waiter next;
+            synchronized (this) {
+                next = waiters.pollFirst();
+                if (next == null) {
+                    active--;
+                    return;
+                }
+            }
+            Permit permit = new Permit();
+            next.permit = permit;
+            if (next.state.compareAndSet(WAITING, GRANTED)) {
+                queueWait.record(System.nanoTime() - next.enqueuedNanos, TimeUnit.NANOSECONDS);
+                next.sink.success(permit);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 許可1つ分。返却は1回だけ有効です。
+     */
+    private final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Mono<Void> close() {
+            return Mono.fromRunnable(this::release);
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                Bulkhead.this.release();
+            }
+        }
+    }
+
+    private final class Waiter {
+
+        private final MonoSink<Permit> sink;
+
+        private final long enqueuedNanos;
+
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private volatile Permit permit;
+
+        Waiter(MonoSink<Permit> sink, long enqueuedNanos) {
+            this.sink = sink;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        void cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                synchronized (Bulkhead.this) {
+                    waiters.remove(this);
+                }
+                return;
+            }
+            // 引き渡し直後にキャンセルされた場合は、受け取られなかった許可を返す
+            Permit granted = permit;
+            if (granted != null) {
+                granted.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.charge0315.yt.client;
+
+/**
+ * 直近の呼び出し結果（件数ベースのスライディングウィンドウ）で開閉するサーキットブレーカー。
+ *
+ * <ul>
+ *   <li>{@code CLOSED}: 通常状態。失敗率か遅延率が閾値を超えると {@code OPEN} へ</li>
+ *   <li>{@code OPEN}: 呼び出しを即座に拒否する。{@code openDuration} 経過後に {@code HALF_OPEN} へ</li>
+ *   <li>{@code HALF_OPEN}: 試行呼び出しを {@code halfOpenCalls} 件だけ通し、全て成功すれば {@code CLOSED}、
+ *       1件でも失敗/遅延すれば再び {@code OPEN} へ</li>
+ * </ul>
+ *
+ * <p>時刻は呼び出し側から渡します（テストしやすくするため）。</p>
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int windowSize;
+
+    private final int minimumCalls;
+
+    private final double failureRateThreshold;
+
+    private final double slowCallRateThreshold;
+
+    private final long openDurationNanos;
+
+    private final int halfOpenCalls;
+
+    /** 各要素: 0=成功, 1=失敗, 2=遅延（成功だが閾値超え） */
+    private final byte[] window;
+
+    private int windowPos;
+
+    private int buffered;
+
+    private int failures;
+
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+
+    private long openedAtNanos;
+
+    private int halfOpenPermits;
+
+    private int halfOpenSuccesses;
+
+    private long notPermitted;
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, double slowCallRateThreshold,
+            long openDurationNanos, int halfOpenCalls) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDurationNanos = openDurationNanos;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.window = new byte[this.windowSize];
+    }
+
+    /**
+     * 呼び出してよければ {@code true} を返します（{@code HALF_OPEN} では試行枠を1つ消費します）。
+     */
+    synchronized boolean tryAcquire(long nowNanos) {
+        if (state == State.OPEN && nowNanos - openedAtNanos >= openDurationNanos) {
+            state = State.HALF_OPEN;
+            halfOpenPermits = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && halfOpenPermits < halfOpenCalls) {
+            halfOpenPermits++;
+            return true;
+        }
+        notPermitted++;
+        return false;
+    }
+
+    /**
+     * 結果を判定しない呼び出し（キャンセル/自前のクォータ拒否など）の試行枠を返却します。
+     */
+    synchronized void release() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    synchronized void onSuccess(boolean slow, long nowNanos) {
+        record(slow ? (byte) 2 : (byte) 0, nowNanos);
+    }
+
+    synchronized void onFailure(long nowNanos) {
+        record((byte) 1, nowNanos);
+    }
+
+    private void record(byte outcome, long nowNanos) {
+        if (state == State.HALF_OPEN) {
+            if (outcome != 0) {
+                open(nowNanos);
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                state = State.CLOSED;
+                resetWindow();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+
+        if (buffered == windowSize) {
+            forget(window[windowPos]);
+        } else {
+            buffered++;
+        }
+        window[windowPos] = outcome;
+        windowPos = (windowPos + 1) % windowSize;
+        if (outcome == 1) {
+            failures++;
+        } else if (outcome == 2) {
+            slowCalls++;
+        }
+
+        if (buffered >= minimumCalls
+                && (failureRate() >= failureRateThreshold || slowCallRate() >= slowCallRateThreshold)) {
+            open(nowNanos);
+        }
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == 1) {
+            failures--;
+        } else if (outcome == 2) {
+            slowCalls--;
+        }
+    }
+
+    private void open(long nowNanos) {
+        state = State.OPEN;
+        openedAtNanos = nowNanos;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowPos = 0;
+        buffered = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private double failureRate() {
+        return buffered == 0 ? 0 : (double) failures / buffered;
+    }
+
+    private double slowCallRate() {
+        return buffered == 0 ? 0 : (double) slowCalls / buffered;
+    }
+
+    synchronized State state(long nowNanos) {
+        if (state == State.OPEN && nowNanos - openedAtNanos >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    synchronized YouTubeResilience.BreakerSnapshot snapshot(long nowNanos) {
+        return new YouTubeResilience.BreakerSnapshot(state(nowNanos).name(), buffered,
+                Math.round(failureRate() * 1000) / 1000.0, Math.round(slowCallRate() * 1000) / 1000.0, notPermitted);
+    }
+}
@@ -0,0 +1,129 @@
+package com.charge0315.yt.client;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * YouTube Data API の list レスポンスを、Jackson の非ブロッキングパーサでチャンク単位に解析するパーサ。
+ *
+ * <p>トップレベルの {@code items} 配列の要素を1件ずつ {@link TokenBuffer} に写し取り、
+ * 要素が閉じた時点で指定の型へバインドして返します（レスポンス全体の JsonNode ツリーは作りません）。
+ * トップレベルの {@code nextPageToken} は {@link NextPageToken} として返します。</p>
+ *
+ * <p>1レスポンス（1購読）につき1インスタンスを使います。スレッドセーフではありません。</p>
+ */
+final class JsonItemStreamParser {
+
+    private final ObjectReader itemReader;
+
+    private final JsonParser parser;
+
+    private final ByteArrayFeeder feeder;
+
+    private int depth;
+
+    private String topLevelField;
+
+    private boolean inItems;
+
+    private TokenBuffer item;
+
+    private int itemDepth;
+
+    JsonItemStreamParser(ObjectMapper objectMapper, Class<?> itemType) {
+        this.itemReader = objectMapper.readerFor(itemType);
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * 受信したバイト列を投入し、その時点で確定した要素を返します。
+     */
+    List<Object> feed(byte[] bytes) {
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            return drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 入力の終端を通知し、残りの要素を返します。
+     */
+    List<Object> end() {
+        try {
+            feeder.endOfInput();
+            return drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // no-op
+            }
+        }
+    }
+
+    private List<Object> drain() throws IOException {
+        List<Object> out = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (item != null) {
+                item.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    itemDepth++;
+                } else if (token.isStructEnd()) {
+                    itemDepth--;
+                }
+                if (itemDepth == 0) {
+                    out.add(itemReader.readValue(item.asParser()));
+                    item = null;
+                }
+                continue;
+            }
+
+            if (token == JsonToken.START_OBJECT && inItems && depth == 2) {
+                // items[] の要素開始: 要素が閉じるまでトークンを写し取る
+                item = new TokenBuffer(parser);
+                item.copyCurrentEvent(parser);
+                itemDepth = 1;
+            } else if (token.isStructStart()) {
+                depth++;
+                if (depth == 2 && token == JsonToken.START_ARRAY && "items".equals(topLevelField)) {
+                    inItems = true;
+                }
+            } else if (token.isStructEnd()) {
+                if (depth == 2 && inItems) {
+                    inItems = false;
+                }
+                depth--;
+            } else if (token == JsonToken.FIELD_NAME && depth == 1) {
+                topLevelField = parser.currentName();
+            } else if (token == JsonToken.VALUE_STRING && depth == 1 && "nextPageToken".equals(topLevelField)) {
+                out.add(new NextPageToken(parser.getText()));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * list レスポンスのトップレベル {@code nextPageToken}。
+     */
+    record NextPageToken(String value) {
+    }
+}
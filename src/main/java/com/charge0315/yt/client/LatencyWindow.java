@@ -0,0 +1,44 @@
+package com.charge0315.yt.client;
+
+import java.util.Arrays;
+
+/**
+ * 直近 {@code capacity} 件の応答時間を保持し、パーセンタイルを求めるリングバッファ。
+ */
+final class LatencyWindow {
+
+    private final long[] samples;
+
+    private int pos;
+
+    private int size;
+
+    LatencyWindow(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    synchronized void record(long nanos) {
+        samples[pos] = nanos;
+        pos = (pos + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+    }
+
+    /**
+     * {@code percentile}（0〜1）の応答時間を返します。サンプルが {@code minSamples} 未満なら {@code -1}。
+     */
+    synchronized long percentile(double percentile, int minSamples) {
+        if (size == 0 || size < minSamples) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,264 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.util.RequestContext;
+import com.charge0315.yt.util.RequestContext.Priority;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * リクエストをまたいで1件ずつの ID 取得をまとめ、複数 ID を受け付ける API への1回の呼び出しにする（DataLoader 方式）。
+ *
+ * <p>最初の ID が来てから {@code window} の間（または {@code maxBatchSize} 件に達するまで）に集まった ID を
+ * 重複を除いて {@link BatchFunction} へ渡し、結果を各呼び出し元へ振り分けます。結果に含まれない ID は空で完了します。</p>
+ *
+ * <p>対象は {@code Scope.GLOBAL}（誰が取得しても同じ内容）のリソースに限ります。
+ * まとめた呼び出しは最初の呼び出し元のアクセストークンで送り、1件でも {@code INTERACTIVE} が含まれていれば
+ * その優先度で送ります。ユーザーID（ユーザー単位のクォータの計上先）と期限は載せず、全体の予算だけを計上し、
+ * 期限は呼び出し元ごとに待ち側で適用します。</p>
+ *
+ * <p>ユーザー単位の枠は、受け付け時に呼び出し元ごとに {@link YouTubeQuotaManager#acquireUser} で
+ * {@code costPerLookup}（単独で呼んだ場合と同じコスト）を計上します。枠を超えた呼び出し元はまとめに加えず
+ * {@code 429} で失敗させるので、まとめた呼び出しに居合わせることでユーザー単位の上限を回避することはできません。</p>
+ *
+ * <p>まとめた呼び出しが送信に使ったトークンやユーザーに起因しうるエラー（{@link #isCallerSpecific}）で失敗し、
+ * 別のトークンの呼び出し元が含まれていた場合は、トークンごとに分けて取り直します。1人のトークン失効や
+ * クォータ拒否が、同じ時間枠に居合わせた他のユーザーの失敗にはなりません。</p>
+ *
+ * @param <V> 1件分の結果
+ */
+public final class MicroBatcher<V> {
+
+    /**
+     * まとめた ID の取得処理。戻り値は ID をキーにしたマップです。
+     */
+    @FunctionalInterface
+    public interface BatchFunction<V> {
+
+        Mono<Map<String, V>> load(String accessToken, List<String> ids);
+    }
+
+    private final int maxBatchSize;
+
+    private final Duration window;
+
+    private final BatchFunction<V> batchFunction;
+
+    private final Scheduler scheduler;
+
+    private final YouTubeQuotaManager quotaManager;
+
+    private final int costPerLookup;
+
+    private final DistributionSummary batchSizes;
+
+    private final Counter loads;
+
+    private final Counter splits;
+
+    private Batch pending;
+
+    public MicroBatcher(String name, int maxBatchSize, Duration window, BatchFunction<V> batchFunction,
+            YouTubeQuotaManager quotaManager, int costPerLookup, MeterRegistry meterRegistry) {
+        this(name, maxBatchSize, window, batchFunction, quotaManager, costPerLookup, meterRegistry,
+                Schedulers.parallel());
+    }
+
+    MicroBatcher(String name, int maxBatchSize, Duration window, BatchFunction<V> batchFunction,
+            YouTubeQuotaManager quotaManager, int costPerLookup, MeterRegistry meterRegistry, Scheduler scheduler) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.window = window;
+        this.batchFunction = batchFunction;
+        this.quotaManager = quotaManager;
+        this.costPerLookup = costPerLookup;
+        this.scheduler = scheduler;
+        this.batchSizes = DistributionSummary.builder("youtube.batch.size")
+                .description("1回の呼び出しにまとめた ID 数")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.loads = Counter.builder("youtube.batch.loads")
+                .description("まとめる対象として受け付けた1件ずつの取得数")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.splits = Counter.builder("youtube.batch.splits")
+                .description("送信元のトークン/ユーザーに起因する失敗のため、トークンごとに取り直したまとめ数")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 1件分を取得します（他の呼び出しとまとめて送ります）。
+     */
+    public Mono<V> load(String accessToken, String id) {
+        return Mono.<V>deferContextual(ctx -> Mono.create(sink -> enqueue(accessToken, id, ctx, sink)))
+                .transform(RequestContext::withinDeadline);
+    }
+
+    /**
+     * まとめた呼び出しの失敗のうち、送信に使ったトークンやユーザーに起因しうるもの
+     * （401 / 403 / 自前のクォータ拒否 429）かを判定します。
+     */
+    public static boolean isCallerSpecific(Throwable e) {
+        if (e instanceof WebClientResponseException.Unauthorized || e instanceof WebClientResponseException.Forbidden) {
+            return true;
+        }
+        return e instanceof ResponseStatusException rse
+                && rse.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private void enqueue(String accessToken, String id, ContextView ctx, MonoSink<V> sink) {
+        try {
+            quotaManager.acquireUser(RequestContext.userIdOrNull(ctx), costPerLookup);
+        } catch (RuntimeException e) {
+            sink.error(e);
+            return;
+        }
+        loads.increment();
+        Batch full = null;
+        Batch scheduled = null;
+        synchronized (this) {
+            if (pending == null) {
+                pending = new Batch(accessToken);
+                scheduled = pending;
+            }
+            pending.add(id, new Waiter(accessToken, RequestContext.priority(ctx), sink));
+            if (pending.size() >= maxBatchSize) {
+                full = pending;
+                pending = null;
+            }
+        }
+        if (full != null) {
+            flush(full);
+        } else if (scheduled != null) {
+            Batch batch = scheduled;
+            scheduler.schedule(() -> flushIfPending(batch), window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flushIfPending(Batch batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                // 件数上限で既に送信済み
+                return;
+            }
+            pending = null;
+        }
+        flush(batch);
+    }
+
+    private void flush(Batch batch) {
+        batchSizes.record(batch.size());
+        send(batch, e -> {
+            Map<String, Batch> byToken = batch.splitByToken();
+            if (!isCallerSpecific(e) || byToken.size() <= 1) {
+                batch.fail(e);
+                return;
+            }
+            splits.increment();
+            byToken.values().forEach(part -> send(part, part::fail));
+        });
+    }
+
+    private void send(Batch batch, Consumer<Throwable> onError) {
+        List<String> ids = new ArrayList<>(batch.waiters.keySet());
+        // ユーザーID・期限は載せない（特定のユーザーの枠や期限で他の呼び出し元を失敗させない）
+        Context context = RequestContext.withPriority(Context.empty(), batch.priority);
+        Mono.defer(() -> batchFunction.load(batch.accessToken, ids))
+                .contextWrite(context)
+                .subscribe(batch::complete, onError, () -> batch.complete(Map.of()));
+    }
+
+    private final class Waiter {
+
+        private final String accessToken;
+
+        private final Priority priority;
+
+        private final MonoSink<V> sink;
+
+        Waiter(String accessToken, Priority priority, MonoSink<V> sink) {
+            this.accessToken = accessToken;
+            this.priority = priority;
+            this.sink = sink;
+        }
+    }
+
+    private final class Batch {
+
+        private final String accessToken;
+
+        private final Map<String, List<Waiter>> waiters = new LinkedHashMap<>();
+
+        private Priority priority = Priority.BACKGROUND;
+
+        private boolean done;
+
+        Batch(String accessToken) {
+            this.accessToken = accessToken;
+        }
+
+        void add(String id, Waiter waiter) {
+            waiters.computeIfAbsent(id, k -> new ArrayList<>(1)).add(waiter);
+            if (waiter.priority != Priority.BACKGROUND) {
+                priority = Priority.INTERACTIVE;
+            }
+        }
+
+        int size() {
+            return waiters.size();
+        }
+
+        /**
+         * 呼び出し元のトークンごとに分けたまとめを返します（このまとめ自体は以後使いません）。
+         */
+        Map<String, Batch> splitByToken() {
+            Map<String, Batch> parts = new LinkedHashMap<>();
+            waiters.forEach((id, list) -> list.forEach(waiter -> parts
+                    .computeIfAbsent(waiter.accessToken, Batch::new)
+                    .add(id, waiter)));
+            return parts;
+        }
+
+        void complete(Map<String, V> results) {
+            if (done) {
+                return;
+            }
+            done = true;
+            waiters.forEach((id, list) -> {
+                V value = results.get(id);
+                for (Waiter waiter : list) {
+                    if (value != null) {
+                        waiter.sink.success(value);
+                    } else {
+                        waiter.sink.success();
+                    }
+                }
+            });
+        }
+
+        void fail(Throwable e) {
+            done = true;
+            waiters.values().forEach(list -> list.forEach(waiter -> waiter.sink.error(e)));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 外部APIの接続先（YouTube Data API / Google OAuth / OpenAI）ごとの {@link Bulkhead}。
+ *
+ * <p>接続プール（{@code WebClientConfig}）と同じく接続先単位で分け、
+ * {@code outbound.<接続先>.bulkhead.*} で同時実行数・待ち行列の上限・待ち時間を設定します。
+ * OpenAI の生成待ちやリフレッシュの集中が、画面操作の YouTube 読み取りやログインを詰まらせないようにします。</p>
+ *
+ * <p>飽和状況は {@code outbound.bulkhead.*{name=<接続先>}}（active/queued/saturation/rejected/wait）で確認できます。</p>
+ */
+@Component
+public class OutboundBulkheads {
+
+    private final Bulkhead youtube;
+
+    private final Bulkhead oauth;
+
+    private final Bulkhead openAi;
+
+    public OutboundBulkheads(Environment environment, MeterRegistry meterRegistry) {
+        this.youtube = create(environment, meterRegistry, "youtube", 64, 256, Duration.ofSeconds(2));
+        this.oauth = create(environment, meterRegistry, "oauth", 16, 64, Duration.ofSeconds(2));
+        this.openAi = create(environment, meterRegistry, "openai", 4, 8, Duration.ofSeconds(1));
+    }
+
+    public Bulkhead youtube() {
+        return youtube;
+    }
+
+    public Bulkhead oauth() {
+        return oauth;
+    }
+
+    public Bulkhead openAi() {
+        return openAi;
+    }
+
+    private static Bulkhead create(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            String name,
+            int maxConcurrent,
+            int maxQueued,
+            Duration maxWait) {
+        String prefix = "outbound." + name + ".bulkhead.";
+        return new Bulkhead(
+                name,
+                environment.getProperty(prefix + "max-concurrent", Integer.class, maxConcurrent),
+                environment.getProperty(prefix + "max-queued", Integer.class, maxQueued),
+                environment.getProperty(prefix + "max-wait", Duration.class, maxWait),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,49 @@
+package com.charge0315.yt.client;
+
+/**
+ * 再試行の全体予算。
+ *
+ * <p>最初の呼び出しごとに {@code ratio} 分を積み立て、再試行1回ごとに1を引き出します。
+ * 残高の上限は {@code reserve} で、障害時に再試行が呼び出し数を増幅しないよう、
+ * 再試行の割合を通常トラフィックの {@code ratio} 程度（+ 初期の {@code reserve} 回）に抑えます。</p>
+ */
+final class RetryBudget {
+
+    private final double ratio;
+
+    private final double reserve;
+
+    private double balance;
+
+    private long exhausted;
+
+    RetryBudget(double ratio, int reserve) {
+        this.ratio = Math.max(0.0, ratio);
+        this.reserve = Math.max(1, reserve);
+        this.balance = this.reserve;
+    }
+
+    synchronized void deposit() {
+        balance = Math.min(reserve, balance + ratio);
+    }
+
+    /**
+     * 再試行1回分の残高があれば引き出して {@code true} を返します。
+     */
+    synchronized boolean tryWithdraw() {
+        if (balance < 1.0) {
+            exhausted++;
+            return false;
+        }
+        balance -= 1.0;
+        return true;
+    }
+
+    synchronized double balance() {
+        return balance;
+    }
+
+    synchronized long exhausted() {
+        return exhausted;
+    }
+}
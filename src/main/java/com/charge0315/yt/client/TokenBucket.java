@@ -0,0 +1,60 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+
+/**
+ * 連続補充型のトークンバケット。
+ *
+ * <p>{@code capacity} を上限に、{@code refillPeriod} で満タンになる速度でトークンを補充します。
+ * 時刻は呼び出し側から渡します（テストしやすくするため）。</p>
+ */
+final class TokenBucket {
+
+    private final double capacity;
+
+    private final double refillPerNano;
+
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    TokenBucket(long capacity, Duration refillPeriod, long nowNanos) {
+        this.capacity = capacity;
+        this.refillPerNano = (double) capacity / Math.max(1L, refillPeriod.toNanos());
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * {@code cost} 分のトークンがあれば消費して {@code true} を返します。
+     */
+    synchronized boolean tryConsume(long cost, long nowNanos) {
+        refill(nowNanos);
+        if (tokens < cost) {
+            return false;
+        }
+        tokens -= cost;
+        return true;
+    }
+
+    synchronized double available(long nowNanos) {
+        refill(nowNanos);
+        return tokens;
+    }
+
+    /**
+     * 満タンか（新しく作ったバケットと区別できない状態か）を返します。
+     */
+    synchronized boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= capacity;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package com.charge0315.yt.client;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.charge0315.yt.util.RequestContext;
+import com.charge0315.yt.util.RequestContext.Priority;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * YouTube Data API v3 への HTTP 呼び出しをまとめる低レベルクライアント。
+ *
+ * <p>GET は {@link YouTubeResource#conditional()} なリソースについて {@code If-None-Match} を付けた
+ * 条件付きリクエストとし、{@code 304 Not Modified} の場合は保存済みの値を返します。メモリ上に解析済みの値があればそれを返し、
+ * 本文を解析し直すのは MongoDB から読んだ直後だけです（{@link YouTubeEtagStore}）。
+ * 呼び出し側（{@code YouTubeDataApiService}）は {@code /channels?...} のような相対URIを渡します。</p>
+ *
+ * <p>読み取りは2種類あります。</p>
+ * <ul>
+ *   <li>{@link #get}: レスポンス全体を {@link JsonNode} として返す（フロントへそのまま渡す再生リスト一覧など）</li>
+ *   <li>{@link #streamItems}: 受信中の本文を Jackson の非ブロッキングパーサで解析し、
+ *       {@code items[]} の要素を {@link YouTubeItems} のレコードとして1件ずつ流す</li>
+ * </ul>
+ *
+ * <p>同じリクエストキー（スコープ + URI）・同じ優先度の GET が実行中の場合は、新たに送信せず実行中の結果を共有します
+ * （single-flight）。デプロイ直後やキャッシュ消失時に同じチャンネル/動画へのリクエストが集中しても、
+ * 上流へは1本だけ送られます。</p>
+ *
+ * <p>実際に送信する呼び出しは {@link YouTubeQuotaManager} でクォータを計上してから送ります
+ * （ユーザーID/優先度は Reactor Context から取得）。相乗りした呼び出しはクォータを消費しません。
+ * 共有する呼び出しは最初の呼び出し元のユーザーID・期限を外した Context で実行し、ユーザー単位の枠は
+ * 送信を始めた呼び出し元に1回だけ計上し、期限は呼び出し元ごとに適用します。1人の枠切れや短い期限が
+ * 相乗りした他の呼び出し元を失敗させることはありません。</p>
+ *
+ * <p>各呼び出しは {@link YouTubeResilience} のタイムアウト・サーキットブレーカーを通し、GET は一時的な失敗を再試行します。
+ * 再試行も1回の送信としてクォータを計上します。</p>
+ *
+ * <p>GET は {@link YouTubeHedging} が有効な場合、応答が遅いときに同じリクエストをもう1本送ります（ヘッジ）。
+ * ヘッジは再試行と同じく1回の試行の内側で行うため、ブレーカーからは1回の呼び出しに見えます。</p>
+ *
+ * <p>バルクヘッドと同時実行数の枠はこれらの外側で取得するため、手元での待ち時間は上流の遅延として数えません。
+ * 再試行とヘッジは1つの枠の中で行います。</p>
+ */
+@Component
+public class YouTubeApiClient {
+
+    public static final String BASE_URL = "https://www.googleapis.com/youtube/v3";
+
+    /**
+     * リクエストキー（ETag / 実行中リクエストの共有）のスコープ。
+     *
+     * <ul>
+     *   <li>{@code GLOBAL}: 公開データ。ユーザー（トークン）に関係なく同じ結果になる</li>
+     *   <li>{@code TOKEN}: 非公開データ。ユーザーIDごと（Context にユーザーIDが無い呼び出しはアクセストークンごと）に分離する</li>
+     * </ul>
+     */
+    public enum Scope {
+        GLOBAL,
+        TOKEN
+    }
+
+    private final WebClient webClient;
+
+    private final YouTubeEtagStore etagStore;
+
+    private final YouTubeQuotaManager quotaManager;
+
+    private final YouTubeResilience resilience;
+
+    private final YouTubeHedging hedging;
+
+    private final Bulkhead bulkhead;
+
+    private final YouTubeConcurrencyLimiter limiter;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean coalescingEnabled;
+
+    private final Map<String, Mono<JsonNode>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, Flux<Object>> inFlightStreams = new ConcurrentHashMap<>();
+
+    private final Counter coalescedCounter;
+
+    /** {@link #get} の解析結果（{@link JsonNode}）を {@link YouTubeEtagStore} に残す際の名前。 */
+    private static final String TREE_DECODER = "tree";
+
+    public YouTubeApiClient(
+            @Qualifier("youtubeWebClientBuilder") WebClient.Builder builder,
+            YouTubeEtagStore etagStore,
+            YouTubeQuotaManager quotaManager,
+            YouTubeResilience resilience,
+            YouTubeHedging hedging,
+            OutboundBulkheads bulkheads,
+            YouTubeConcurrencyLimiter limiter,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${youtube.coalescing.enabled:true}") boolean coalescingEnabled) {
+        this.webClient = builder.build();
+        this.etagStore = etagStore;
+        this.quotaManager = quotaManager;
+        this.resilience = resilience;
+        this.hedging = hedging;
+        this.bulkhead = bulkheads.youtube();
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.coalescingEnabled = coalescingEnabled;
+        this.coalescedCounter = Counter.builder("youtube.api.coalesced")
+                .description("実行中の同一リクエストに相乗りした YouTube API 呼び出し数")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("youtube.api.in_flight", Tags.of("mode", "tree"), inFlight);
+        meterRegistry.gaugeMapSize("youtube.api.in_flight", Tags.of("mode", "stream"), inFlightStreams);
+    }
+
+    /**
+     * GET リクエストを送り、JSON を返します。
+     *
+     * <p>同じキーのリクエストが実行中であればその結果を共有します。共有された {@link JsonNode} は
+     * 読み取り専用として扱ってください。</p>
+     */
+    public Mono<JsonNode> get(String accessToken, YouTubeResource resource, Scope scope, URI uri) {
+        URI absolute = absolute(uri);
+        if (!coalescingEnabled) {
+            return Mono.deferContextual(ctx -> Mono.from(fetch(accessToken, resource, absolute,
+                    requestKey(accessToken, scope, absolute, ctx), TREE_DECODER, this::readTree)));
+        }
+        return Mono.<JsonNode>deferContextual(ctx -> {
+                    String key = requestKey(accessToken, scope, absolute, ctx);
+                    Mono<JsonNode> call = Mono.from(fetch(accessToken, resource, absolute, key, TREE_DECODER,
+                            this::readTree));
+                    boolean[] started = {false};
+                    Mono<JsonNode> flight = inFlight.computeIfAbsent(flightKey(key, ctx), k -> {
+                        // ユーザー単位の枠は送信を始める呼び出し元にだけ計上する（枠切れなら登録せずに失敗する）
+                        quotaManager.acquireUser(RequestContext.userIdOrNull(ctx), resource.readCost());
+                        started[0] = true;
+                        return call
+                                .contextWrite(RequestContext::forSharedCall)
+                                // 完了/失敗で実行中テーブルから外す（以降の呼び出しは新たに送信される）
+                                .doFinally(signal -> inFlight.remove(k))
+                                .share();
+                    });
+                    if (!started[0]) {
+                        coalescedCounter.increment();
+                    }
+                    return flight;
+                })
+                // 期限は呼び出し元ごとに適用する（先に打ち切られた呼び出し元がいても共有中の呼び出しは続く）
+                .transform(RequestContext::withinDeadline);
+    }
+
+    /**
+     * GET リクエストを送り、レスポンスの {@code items[]} を {@code itemType} のレコードとして1件ずつ流します。
+     *
+     * <p>本文の受信と並行して解析するため、最初の要素は本文の受信完了を待たずに流れます。
+     * 同じキー・同じ型のリクエストが実行中であれば、その結果（受信済みの要素を含む）を共有します。</p>
+     */
+    public <T> Flux<T> streamItems(String accessToken, YouTubeResource resource, Scope scope, URI uri, Class<T> itemType) {
+        return streamList(accessToken, resource, scope, uri, itemType).ofType(itemType);
+    }
+
+    /**
+     * {@code nextPageToken} をたどって全ページの {@code items[]} を順に流します。
+     *
+     * <p>次のページは前のページの受信が終わり、かつ下流が要素を要求している場合にだけ取得します。
+     * 下流が {@code take(n)} などでキャンセルすると、以降のページは取得しません。</p>
+     *
+     * @param pageUri ページトークン（先頭ページは {@code null}）から相対URIを作る関数
+     */
+    public <T> Flux<T> streamAllPages(
+            String accessToken,
+            YouTubeResource resource,
+            Scope scope,
+            Function<String, URI> pageUri,
+            Class<T> itemType) {
+        return streamPage(accessToken, resource, scope, pageUri, itemType, null);
+    }
+
+    private <T> Flux<T> streamPage(
+            String accessToken,
+            YouTubeResource resource,
+            Scope scope,
+            Function<String, URI> pageUri,
+            Class<T> itemType,
+            String pageToken) {
+        return Flux.defer(() -> {
+            AtomicReference<String> next = new AtomicReference<>();
+            return streamList(accessToken, resource, scope, pageUri.apply(pageToken), itemType)
+                    .doOnNext(o -> {
+                        if (o instanceof JsonItemStreamParser.NextPageToken token) {
+                            next.set(token.value());
+                        }
+                    })
+                    .ofType(itemType)
+                    .concatWith(Flux.defer(() -> {
+                        String token = next.get();
+                        if (!StringUtils.hasText(token) || token.equals(pageToken)) {
+                            return Flux.empty();
+                        }
+                        return streamPage(accessToken, resource, scope, pageUri, itemType, token);
+                    }));
+        });
+    }
+
+    /**
+     * {@code items[]} の要素と、トップレベルの {@code nextPageToken}（{@link JsonItemStreamParser.NextPageToken}）を流します。
+     */
+    Flux<Object> streamList(String accessToken, YouTubeResource resource, Scope scope, URI uri, Class<?> itemType) {
+        URI absolute = absolute(uri);
+        String decoder = "items:" + itemType.getName();
+        if (!coalescingEnabled) {
+            return Flux.deferContextual(ctx -> fetch(accessToken, resource, absolute,
+                    requestKey(accessToken, scope, absolute, ctx), decoder, itemParser(itemType)));
+        }
+        return Flux.<Object>deferContextual(ctx -> {
+                    String key = requestKey(accessToken, scope, absolute, ctx);
+                    Flux<Object> call = fetch(accessToken, resource, absolute, key, decoder, itemParser(itemType));
+                    String streamKey = flightKey(key, ctx) + ":" + itemType.getName();
+                    boolean[] started = {false};
+                    Flux<Object> flight = inFlightStreams.computeIfAbsent(streamKey, k -> {
+                        quotaManager.acquireUser(RequestContext.userIdOrNull(ctx), resource.readCost());
+                        started[0] = true;
+                        return call
+                                .contextWrite(RequestContext::forSharedCall)
+                                .doFinally(signal -> inFlightStreams.remove(k))
+                                .replay()
+                                .refCount();
+                    });
+                    if (!started[0]) {
+                        coalescedCounter.increment();
+                    }
+                    return flight;
+                })
+                .transform(RequestContext::withinDeadlineFlux);
+    }
+
+    /**
+     * 実行中の呼び出しを共有するキー。優先度ごとに分け、{@code BACKGROUND} の呼び出しに
+     * {@code INTERACTIVE} の呼び出しが相乗りして後回しにされないようにします。
+     */
+    private static String flightKey(String key, ContextView ctx) {
+        return key + ":" + RequestContext.priority(ctx);
+    }
+
+    private <R> Flux<R> fetch(
+            String accessToken,
+            YouTubeResource resource,
+            URI absolute,
+            String key,
+            String decoder,
+            Function<Flux<byte[]>, Publisher<R>> bodyHandler) {
+        if (!resource.conditional()) {
+            return withPermits(() -> resilience.execute(resource, true, () -> hedging.hedge(resource,
+                    () -> withQuota(resource, resource.readCost(), webClient
+                            .get()
+                            .uri(absolute)
+                            .headers(h -> h.setBearerAuth(accessToken))
+                            .exchangeToFlux(response -> response.statusCode().isError()
+                                    ? response.<R>createError().flux()
+                                    : Flux.from(bodyHandler.apply(bodyBytes(response))))))));
+        }
+
+        return etagStore
+                .lookup(key)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMapMany(cached -> withPermits(() -> resilience.execute(resource, true,
+                        () -> hedging.hedge(resource, () -> withQuota(resource, resource.readCost(),
+                                conditionalGet(accessToken, absolute, key, cached.orElse(null), decoder, bodyHandler))))));
+    }
+
+    /**
+     * バルクヘッドの許可と同時実行数の枠（優先度順）を得てから {@code call}（タイムアウト・ブレーカー・再試行・ヘッジ込み）を実行します。
+     *
+     * <p>枠の待ち時間は {@link YouTubeResilience} の試行のタイムアウトや遅延判定、{@link YouTubeHedging} の待ち時間に含めません
+     * （手元の混雑だけで、Google が健全なままブレーカーが開いたりヘッジが同じ待ち行列に並んだりしないように）。
+     * 再試行とヘッジは得た枠の中で行います。</p>
+     */
+    private <T> Flux<T> withPermits(Supplier<? extends Publisher<T>> call) {
+        return Flux.deferContextual(ctx -> bulkhead.stream(() -> limiter.stream(RequestContext.priority(ctx), call)));
+    }
+
+    /**
+     * 送信（試行）ごとにクォータを計上し、Google 側のクォータ超過（403 quotaExceeded）を検知します。
+     *
+     * <p>バルクヘッドやリミッターで拒否された呼び出しはここまで来ないため、クォータを消費しません。</p>
+     */
+    private <T> Flux<T> withQuota(YouTubeResource resource, int cost, Publisher<T> call) {
+        return Flux.<T>deferContextual(ctx -> {
+                    Priority priority = RequestContext.priority(ctx);
+                    quotaManager.acquire(resource, cost, RequestContext.userIdOrNull(ctx), priority);
+                    return call;
+                })
+                .doOnError(WebClientResponseException.Forbidden.class, e -> {
+                    String body = e.getResponseBodyAsString();
+                    if (body.contains("quotaExceeded") || body.contains("dailyLimitExceeded")) {
+                        quotaManager.markUpstreamExhausted();
+                    }
+                });
+    }
+
+    private <R> Flux<R> conditionalGet(
+            String accessToken,
+            URI uri,
+            String key,
+            YouTubeEtagStore.CachedResponse cached,
+            String decoder,
+            Function<Flux<byte[]>, Publisher<R>> bodyHandler) {
+        return webClient
+                .get()
+                .uri(uri)
+                .headers(h -> {
+                    h.setBearerAuth(accessToken);
+                    if (cached != null) {
+                        h.setIfNoneMatch(cached.etag());
+                    }
+                })
+                .exchangeToFlux(response -> {
+                    if (cached != null && response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                        // 変更なし: 本文は転送されない。メモリ上に解析済みの値があればそのまま返し、
+                        // 無ければ（MongoDB から読んだ直後）保存済みの本文を同じ経路で解析して、次からはその値を返す
+                        @SuppressWarnings("unchecked")
+                        List<R> decoded = (List<R>) cached.decoded().get(decoder);
+                        if (decoded != null) {
+                            return response.releaseBody().thenMany(Flux.fromIterable(decoded));
+                        }
+                        List<R> values = new ArrayList<>();
+                        return response.releaseBody().thenMany(Flux.defer(() -> Flux.from(bodyHandler.apply(Flux.just(cached.body())))
+                                .doOnNext(values::add)
+                                .doOnComplete(() -> cached.decoded().put(decoder, List.copyOf(values)))));
+                    }
+                    if (response.statusCode().isError()) {
+                        return response.<R>createError().flux();
+                    }
+                    String etag = response.headers().asHttpHeaders().getETag();
+                    if (!StringUtils.hasText(etag)) {
+                        return Flux.from(bodyHandler.apply(bodyBytes(response)));
+                    }
+                    // 解析と並行して本文の写しと解析済みの値を取り、解析の完了時に ETag と一緒に保存する
+                    // （保存は解析結果の後ろに繋いで同じパイプラインで待つ。途中でキャンセルされた本文は保存しない）
+                    ByteArrayOutputStream copy = new ByteArrayOutputStream();
+                    List<R> values = new ArrayList<>();
+                    return Flux.from(bodyHandler.apply(bodyBytes(response).doOnNext(copy::writeBytes)))
+                            .doOnNext(values::add)
+                            .concatWith(Mono.defer(() -> etagStore.save(key, uri, etag, copy.toByteArray(), decoder, values))
+                                    .then(Mono.<R>empty()));
+                });
+    }
+
+    private static Flux<byte[]> bodyBytes(ClientResponse response) {
+        return response
+                .bodyToFlux(DataBuffer.class)
+                .map(buffer -> {
+                    try {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        return bytes;
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                });
+    }
+
+    private Mono<JsonNode> readTree(Flux<byte[]> body) {
+        return body
+                .collect(ByteArrayOutputStream::new, (out, bytes) -> out.writeBytes(bytes))
+                .filter(out -> out.size() > 0)
+                .flatMap(out -> Mono.fromCallable(() -> objectMapper.readTree(out.toByteArray())));
+    }
+
+    private Function<Flux<byte[]>, Publisher<Object>> itemParser(Class<?> itemType) {
+        return body -> Flux.defer(() -> {
+            JsonItemStreamParser parser = new JsonItemStreamParser(objectMapper, itemType);
+            return body
+                    .concatMapIterable(parser::feed)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(parser.end())));
+        });
+    }
+
+    /**
+     * POST リクエスト（JSON 本文）を送り、JSON を返します。
+     */
+    public Mono<JsonNode> post(String accessToken, YouTubeResource resource, URI uri, Object body) {
+        return Mono.from(withPermits(() -> resilience.execute(resource, false, () -> withQuota(resource, YouTubeResource.WRITE_COST, webClient
+                .post()
+                .uri(absolute(uri))
+                .headers(h -> h.setBearerAuth(accessToken))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(JsonNode.class)))));
+    }
+
+    /**
+     * PUT リクエスト（JSON 本文）を送り、JSON を返します。
+     */
+    public Mono<JsonNode> put(String accessToken, YouTubeResource resource, URI uri, Object body) {
+        return Mono.from(withPermits(() -> resilience.execute(resource, false, () -> withQuota(resource, YouTubeResource.WRITE_COST, webClient
+                .put()
+                .uri(absolute(uri))
+                .headers(h -> h.setBearerAuth(accessToken))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(JsonNode.class)))));
+    }
+
+    /**
+     * DELETE リクエストを送ります。
+     */
+    public Mono<Void> delete(String accessToken, YouTubeResource resource, URI uri) {
+        return Mono.from(withPermits(() -> resilience.execute(resource, false, () -> withQuota(resource, YouTubeResource.WRITE_COST, webClient
+                .delete()
+                .uri(absolute(uri))
+                .headers(h -> h.setBearerAuth(accessToken))
+                .retrieve()
+                .bodyToMono(Void.class)))));
+    }
+
+    private static URI absolute(URI uri) {
+        return uri.isAbsolute() ? uri : URI.create(BASE_URL + uri.toString());
+    }
+
+    private static String requestKey(String accessToken, Scope scope, URI uri, ContextView ctx) {
+        return requestKey(accessToken, RequestContext.userIdOrNull(ctx), scope, uri);
+    }
+
+    /**
+     * スコープ + URI からリクエストキーを作ります（ユーザーID・トークンはハッシュ化し、平文では保持しません）。
+     *
+     * <p>{@code TOKEN} スコープはユーザーIDがあればユーザーIDで分けます。トークンで分けると、トークンの更新のたびに
+     * キーが変わって保存済みの ETag が使われず、{@code youtube_etags} に期限切れまで残るためです。</p>
+     */
+    static String requestKey(String accessToken, String userId, Scope scope, URI uri) {
+        String prefix;
+        if (scope == Scope.GLOBAL) {
+            prefix = "global";
+        } else if (userId != null) {
+            prefix = "user:" + sha256Hex(userId);
+        } else {
+            prefix = "token:" + sha256Hex(accessToken != null ? accessToken : "");
+        }
+        return sha256Hex(prefix + " " + uri);
+    }
+
+    static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
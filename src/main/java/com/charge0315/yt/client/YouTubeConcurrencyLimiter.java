@@ -0,0 +1,277 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.util.RequestContext.Priority;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * YouTube Data API 呼び出し全体の同時実行数を、観測した応答時間とスロットリングから自動調整するリミッター。
+ *
+ * <p>上限は {@link AimdLimit} で {@code min-limit}〜{@code max-limit} の間を動きます。
+ * Google がスロットリングを返さず応答時間も悪化しない範囲で、なるべく多く並列に送るためのものです。
+ * バルクヘッド（{@code outbound.youtube.bulkhead}）はその外側の固定の上限と待ち行列の上限として残ります。</p>
+ *
+ * <p>優先度（{@link Priority}）ごとに待ち行列を分け、空きが出たら {@code INTERACTIVE} を先に通します。
+ * {@code BACKGROUND} は画面操作の待ちが無いときだけ、かつ上限の {@code background-share} までしか使いません。
+ * {@code max-wait} を過ぎても順番が来ない呼び出しは 503 {@code youtube_concurrency_limited} で失敗します。</p>
+ */
+@Component
+public class YouTubeConcurrencyLimiter {
+
+    private static final int WAITING = 0;
+
+    private static final int GRANTED = 1;
+
+    private static final int CANCELLED = 2;
+
+    private final boolean enabled;
+
+    private final double backgroundShare;
+
+    private final Duration maxWait;
+
+    private final AimdLimit limit;
+
+    private final Map<Priority, Deque<Waiter>> queues = new EnumMap<>(Priority.class);
+
+    private final Map<Priority, Counter> rejectedCounters = new EnumMap<>(Priority.class);
+
+    private int inFlight;
+
+    private int backgroundInFlight;
+
+    public YouTubeConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${youtube.concurrency.enabled:true}") boolean enabled,
+            @Value("${youtube.concurrency.initial-limit:16}") int initialLimit,
+            @Value("${youtube.concurrency.min-limit:2}") int minLimit,
+            @Value("${youtube.concurrency.max-limit:64}") int maxLimit,
+            @Value("${youtube.concurrency.backoff-ratio:0.7}") double backoffRatio,
+            @Value("${youtube.concurrency.latency-threshold:3s}") Duration latencyThreshold,
+            @Value("${youtube.concurrency.background-share:0.5}") double backgroundShare,
+            @Value("${youtube.concurrency.max-wait:5s}") Duration maxWait) {
+        this.enabled = enabled;
+        this.backgroundShare = Math.min(1.0, Math.max(0.0, backgroundShare));
+        this.maxWait = maxWait;
+        this.limit = new AimdLimit(initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold.toNanos());
+
+        Gauge.builder("youtube.concurrency.limit", limit, AimdLimit::limit)
+                .description("YouTube API の同時実行数の現在の上限")
+                .register(meterRegistry);
+        Gauge.builder("youtube.concurrency.in_flight", this, YouTubeConcurrencyLimiter::inFlight)
+                .description("実行中の YouTube API 呼び出し数")
+                .register(meterRegistry);
+        for (Priority lane : Priority.values()) {
+            queues.put(lane, new ArrayDeque<>());
+            String tag = lane.name().toLowerCase();
+            Gauge.builder("youtube.concurrency.queued", this, l -> l.queued(lane))
+                    .description("同時実行数の上限で待っている呼び出し数")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            rejectedCounters.put(lane, Counter.builder("youtube.concurrency.rejected")
+                    .description("待ち時間の上限を過ぎて拒否した呼び出し数")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 順番が来てから {@code call} を購読し、終端時に結果（応答時間とスロットリングの有無）を上限へ反映します。
+     */
+    public <T> Flux<T> stream(Priority priority, Supplier<? extends Publisher<T>> call) {
+        if (!enabled) {
+            return Flux.defer(call);
+        }
+        Priority lane = priority != null ? priority : Priority.INTERACTIVE;
+        return Flux.usingWhen(acquire(lane), permit -> call.get(), permit -> permit.close(null),
+                (permit, e) -> permit.close(e), Permit::cancel);
+    }
+
+    public int limit() {
+        return limit.limit();
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queued(Priority lane) {
+        return queues.get(lane).size();
+    }
+
+    private Mono<Permit> acquire(Priority lane) {
+        return Mono.<Permit>create(sink -> {
+                    Permit immediate = null;
+                    Waiter waiter = null;
+                    synchronized (this) {
+                        Deque<Waiter> queue = queues.get(lane);
+                        if (queue.isEmpty() && canRun(lane)) {
+                            take(lane);
+                            immediate = new Permit(lane);
+                        } else {
+                            waiter = new Waiter(lane, sink);
+                            queue.addLast(waiter);
+                        }
+                    }
+                    if (immediate != null) {
+                        sink.success(immediate);
+                        return;
+                    }
+                    Waiter registered = waiter;
+                    sink.onCancel(registered::cancel);
+                })
+                .timeout(maxWait, Mono.defer(() -> {
+                    rejectedCounters.get(lane).increment();
+                    return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "youtube_concurrency_limited"));
+                }));
+    }
+
+    /** 呼び出し側でロックを保持していること。 */
+    private boolean canRun(Priority lane) {
+        int current = limit.limit();
+        if (inFlight >= current) {
+            return false;
+        }
+        if (lane == Priority.BACKGROUND) {
+            return queues.get(Priority.INTERACTIVE).isEmpty()
+                    && backgroundInFlight < Math.max(1, (int) (current * backgroundShare));
+        }
+        return true;
+    }
+
+    /** 呼び出し側でロックを保持していること。 */
+    private void take(Priority lane) {
+        inFlight++;
+        if (lane == Priority.BACKGROUND) {
+            backgroundInFlight++;
+        }
+    }
+
+    /**
+     * 枠を返却し、空いた枠（上限が増えた場合は複数）を優先度順に待ち行列へ引き渡します。
+     */
+    private void release(Priority lane) {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (lane == Priority.BACKGROUND) {
+                backgroundInFlight--;
+            }
+            while (true) {
+                Waiter next = null;
+                for (Priority candidate : Priority.values()) {
+                    Deque<Waiter> queue = queues.get(candidate);
+                    if (!queue.isEmpty() && canRun(candidate)) {
+                        next = queue.pollFirst();
+                        break;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                take(next.lane);
+                granted.add(next);
+            }
+        }
+        for (Waiter waiter : granted) {
+            Permit permit = new Permit(waiter.lane);
+            waiter.permit = permit;
+            if (waiter.state.compareAndSet(WAITING, GRANTED)) {
+                waiter.sink.success(permit);
+            } else {
+                // 引き渡す前にキャンセルされていた
+                permit.release(null, false);
+            }
+        }
+    }
+
+    /**
+     * 実行枠1つ分。返却は1回だけ有効です。
+     */
+    private final class Permit {
+
+        private final Priority lane;
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Priority lane) {
+            this.lane = lane;
+        }
+
+        Mono<Void> close(Throwable error) {
+            return Mono.fromRunnable(() -> release(error, true));
+        }
+
+        Mono<Void> cancel() {
+            return Mono.fromRunnable(() -> release(null, false));
+        }
+
+        void release(Throwable error, boolean sample) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            // 期限切れ・クォータ拒否など YouTube の混雑と無関係なエラーは上限に反映しない
+            boolean throttled = error != null && YouTubeResilience.isTransient(error);
+            if (sample && (error == null || throttled)) {
+                limit.onSample(startNanos, System.nanoTime(), throttled, inFlight());
+            }
+            YouTubeConcurrencyLimiter.this.release(lane);
+        }
+    }
+
+    private final class Waiter {
+
+        private final Priority lane;
+
+        private final MonoSink<Permit> sink;
+
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private volatile Permit permit;
+
+        Waiter(Priority lane, MonoSink<Permit> sink) {
+            this.lane = lane;
+            this.sink = sink;
+        }
+
+        void cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                synchronized (YouTubeConcurrencyLimiter.this) {
+                    queues.get(lane).remove(this);
+                }
+                return;
+            }
+            Permit granted = permit;
+            if (granted != null) {
+                granted.release(null, false);
+            }
+        }
+    }
+}
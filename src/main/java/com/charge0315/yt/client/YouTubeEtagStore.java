@@ -0,0 +1,140 @@
+package com.charge0315.yt.client;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.charge0315.yt.mongo.ApiEtagEntry;
+import com.charge0315.yt.mongo.ApiEtagRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * YouTube Data API の ETag と解析済みレスポンスを保持するストア。
+ *
+ * <p>永続化は MongoDB（{@code youtube_etags}）に本文文字列で行い、直近に使われたキーは
+ * 本文のバイト列と解析済みの値（{@link CachedResponse#decoded}）をメモリ上（LRU）に保持します。
+ * {@code 304} の場合はメモリ上の解析済みの値を返し、MongoDB から読んだ直後で解析済みの値が無いときだけ
+ * 保存済みの本文を通常のレスポンスと同じ経路（ストリーミング解析など）で解析し直します。</p>
+ *
+ * <p>MongoDB へ保存するのは繰り返し同じ URI で呼ばれるキーだけです。複数IDのバッチ（{@code id=a,b,...}）や
+ * 2ページ目以降（{@code pageToken}）は組み合わせが毎回変わり、{@code youtube_etags} がトラフィックに比例して
+ * 増えるため、メモリ上の LRU にだけ保持します（{@link #persistable}）。
+ * ストアの読み書きに失敗しても API 呼び出し自体は継続できるよう、エラーは {@code youtube.etag.store}
+ * （{@code result=failed}）に数えたうえで握りつぶします。</p>
+ */
+@Component
+public class YouTubeEtagStore {
+
+    private final ApiEtagRepository apiEtagRepository;
+
+    private final Map<String, CachedResponse> memory;
+
+    private final Counter persisted;
+
+    private final Counter memoryOnly;
+
+    private final Counter failed;
+
+    public YouTubeEtagStore(
+            ApiEtagRepository apiEtagRepository,
+            MeterRegistry meterRegistry,
+            @Value("${youtube.etag.memory-entries:2000}") int memoryEntries) {
+        this.apiEtagRepository = apiEtagRepository;
+        this.persisted = counter(meterRegistry, "persisted");
+        this.memoryOnly = counter(meterRegistry, "memory_only");
+        this.failed = counter(meterRegistry, "failed");
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > memoryEntries;
+            }
+        });
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("youtube.etag.store")
+                .description("ETag の保存（persisted: MongoDB へ保存, memory_only: メモリのみ, failed: 読み書きの失敗）")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 保存済みの ETag とレスポンスを取得します（メモリ → MongoDB の順）。
+     */
+    public Mono<CachedResponse> lookup(String key) {
+        CachedResponse hit = memory.get(key);
+        if (hit != null) {
+            return Mono.just(hit);
+        }
+        return apiEtagRepository
+                .findById(key)
+                .filter(entry -> entry.getEtag() != null && entry.getBody() != null)
+                .map(entry -> new CachedResponse(entry.getEtag(), entry.getBody().getBytes(StandardCharsets.UTF_8),
+                        new ConcurrentHashMap<>()))
+                .doOnNext(cached -> memory.put(key, cached))
+                .onErrorResume(e -> {
+                    failed.increment();
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * ETag とレスポンスを保存します。{@code uri} が {@link #persistable} でなければメモリ上にだけ保持します。
+     * {@code decoded} は {@code decoder} で本文を解析した値で、メモリ上にだけ保持します。
+     */
+    public Mono<Void> save(String key, URI uri, String etag, byte[] body, String decoder, List<?> decoded) {
+        Map<String, List<?>> values = new ConcurrentHashMap<>();
+        values.put(decoder, List.copyOf(decoded));
+        memory.put(key, new CachedResponse(etag, body, values));
+        if (!persistable(uri)) {
+            memoryOnly.increment();
+            return Mono.empty();
+        }
+
+        ApiEtagEntry entry = new ApiEtagEntry();
+        entry.setId(key);
+        entry.setEtag(etag);
+        entry.setBody(new String(body, StandardCharsets.UTF_8));
+        entry.setUpdatedAt(Instant.now());
+        return apiEtagRepository
+                .save(entry)
+                .doOnSuccess(saved -> persisted.increment())
+                .then()
+                .onErrorResume(e -> {
+                    failed.increment();
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * MongoDB へ保存する URI かどうか。ページトークン付きと複数IDのバッチは保存しません。
+     */
+    static boolean persistable(URI uri) {
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(uri).build().getQueryParams();
+        if (params.containsKey("pageToken")) {
+            return false;
+        }
+        List<String> ids = params.getOrDefault("id", List.of());
+        return ids.stream().noneMatch(id -> id.contains(",") || id.toUpperCase().contains("%2C"));
+    }
+
+    /**
+     * 保存済みのレスポンス。{@code decoded} は解析方法の名前ごとの解析済みの値で、メモリ上にだけ保持します
+     * （MongoDB から読んだ直後は空）。
+     */
+    public record CachedResponse(String etag, byte[] body, Map<String, List<?>> decoded) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 冪等な YouTube API の読み取りに対するヘッジリクエスト（遅い応答の裾を削る）。
+ *
+ * <p>最初の応答（要素または完了）が、リソースごとの直近の応答時間の {@code percentile} を過ぎても無い場合に、
+ * 同じリクエストをもう1本送り、先に応答した方を採用して他方はキャンセルします。
+ * 追加の送信は {@link RetryBudget} と同じ積み立て方式で、呼び出し数の {@code max-ratio} 程度に抑えます。</p>
+ *
+ * <p>search.list は1回100ユニットと高価なため対象外です。ヘッジ側の失敗（クォータ拒否など）は無視し、
+ * 元のリクエストの結果を待ちます。</p>
+ */
+@Component
+public class YouTubeHedging {
+
+    private static final int WINDOW_SIZE = 256;
+
+    private final boolean enabled;
+
+    private final double percentile;
+
+    private final long minDelayNanos;
+
+    private final int minSamples;
+
+    private final RetryBudget budget;
+
+    private final Map<YouTubeResource, LatencyWindow> windows = new EnumMap<>(YouTubeResource.class);
+
+    private final Map<YouTubeResource, Counter> firedCounters = new EnumMap<>(YouTubeResource.class);
+
+    private final Map<YouTubeResource, Counter> wonCounters = new EnumMap<>(YouTubeResource.class);
+
+    private final Counter budgetExhaustedCounter;
+
+    public YouTubeHedging(
+            MeterRegistry meterRegistry,
+            @Value("${youtube.hedge.enabled:false}") boolean enabled,
+            @Value("${youtube.hedge.percentile:0.95}") double percentile,
+            @Value("${youtube.hedge.min-delay:50ms}") Duration minDelay,
+            @Value("${youtube.hedge.min-samples:20}") int minSamples,
+            @Value("${youtube.hedge.max-ratio:0.05}") double maxRatio,
+            @Value("${youtube.hedge.budget-reserve:5}") int budgetReserve) {
+        this.enabled = enabled;
+        this.percentile = Math.min(1.0, Math.max(0.0, percentile));
+        this.minDelayNanos = minDelay.toNanos();
+        this.minSamples = Math.max(1, minSamples);
+        this.budget = new RetryBudget(maxRatio, budgetReserve);
+
+        for (YouTubeResource resource : YouTubeResource.values()) {
+            if (!hedgeable(resource)) {
+                continue;
+            }
+            LatencyWindow window = new LatencyWindow(WINDOW_SIZE);
+            windows.put(resource, window);
+            String tag = resource.name().toLowerCase();
+            firedCounters.put(resource, Counter.builder("youtube.api.hedge")
+                    .description("送信したヘッジリクエスト数（outcome=won はヘッジ側が先に応答した数）")
+                    .tag("resource", tag)
+                    .tag("outcome", "fired")
+                    .register(meterRegistry));
+            wonCounters.put(resource, Counter.builder("youtube.api.hedge")
+                    .description("送信したヘッジリクエスト数（outcome=won はヘッジ側が先に応答した数）")
+                    .tag("resource", tag)
+                    .tag("outcome", "won")
+                    .register(meterRegistry));
+            Gauge.builder("youtube.api.hedge.threshold", this, h -> h.thresholdNanos(resource) / 1_000_000.0)
+                    .description("ヘッジを送るまでの待ち時間（ミリ秒、サンプル不足の間は -1）")
+                    .tag("resource", tag)
+                    .register(meterRegistry);
+        }
+        this.budgetExhaustedCounter = Counter.builder("youtube.api.hedge.budget_exhausted")
+                .description("予算不足で送らなかったヘッジリクエスト数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@code call} を実行し、閾値を過ぎても応答が無ければヘッジリクエストを送ります。
+     *
+     * <p>{@code call} は呼ばれるたびに新しいリクエストを表す Publisher を返す必要があります。</p>
+     */
+    public <T> Flux<T> hedge(YouTubeResource resource, Supplier<? extends Publisher<T>> call) {
+        if (!enabled || !hedgeable(resource)) {
+            return Flux.defer(call);
+        }
+        LatencyWindow window = windows.get(resource);
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            budget.deposit();
+            long threshold = thresholdNanos(resource);
+
+            AtomicBoolean primarySignaled = new AtomicBoolean();
+            AtomicBoolean recorded = new AtomicBoolean();
+            Flux<T> primary = Flux.<T>from(call.get())
+                    .doOnEach(signal -> {
+                        if (!signal.isOnError()) {
+                            primarySignaled.set(true);
+                        }
+                    });
+
+            Flux<T> raced = primary;
+            if (threshold >= 0) {
+                Flux<T> hedged = Mono.delay(Duration.ofNanos(threshold)).flatMapMany(t -> {
+                    if (!budget.tryWithdraw()) {
+                        budgetExhaustedCounter.increment();
+                        return Flux.<T>never();
+                    }
+                    firedCounters.get(resource).increment();
+                    AtomicBoolean first = new AtomicBoolean(true);
+                    return Flux.<T>from(call.get())
+                            .doOnEach(signal -> {
+                                if (!signal.isOnError() && first.getAndSet(false) && !primarySignaled.get()) {
+                                    wonCounters.get(resource).increment();
+                                }
+                            })
+                            // ヘッジ側の失敗は採用せず、元のリクエストの応答を待つ
+                            .onErrorResume(e -> Flux.never());
+                });
+                raced = Flux.firstWithSignal(primary, hedged);
+            }
+
+            return raced.doOnEach(signal -> {
+                if (!signal.isOnError() && recorded.compareAndSet(false, true)) {
+                    window.record(System.nanoTime() - start);
+                }
+            });
+        });
+    }
+
+    /**
+     * ヘッジを送るまでの待ち時間（ナノ秒）。サンプル不足または無効の場合は {@code -1}。
+     */
+    long thresholdNanos(YouTubeResource resource) {
+        LatencyWindow window = windows.get(resource);
+        if (window == null) {
+            return -1;
+        }
+        long p = window.percentile(percentile, minSamples);
+        return p < 0 ? -1 : Math.max(minDelayNanos, p);
+    }
+
+    private static boolean hedgeable(YouTubeResource resource) {
+        return resource != YouTubeResource.SEARCH;
+    }
+}
@@ -0,0 +1,146 @@
+package com.charge0315.yt.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * YouTube Data API のレスポンス {@code items[]} の各要素を直接バインドするレコード群。
+ *
+ * <p>{@link YouTubeApiClient#streamItems} で1要素ずつデコードされます（JsonNode のツリーは作りません）。
+ * 項目は {@code fields=} で要求している範囲に合わせています。</p>
+ */
+public final class YouTubeItems {
+
+    private static final Snippet EMPTY_SNIPPET = new Snippet(null, null, null, null, null, null, null, null);
+
+    private YouTubeItems() {
+    }
+
+    /**
+     * {@code snippet} が無い要素でも null チェックなしで読めるよう、空の {@link Snippet} を返します。
+     */
+    public static Snippet snippetOrEmpty(Snippet snippet) {
+        return snippet != null ? snippet : EMPTY_SNIPPET;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Thumbnail(String url) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Thumbnails(@JsonProperty("default") Thumbnail defaultThumbnail, Thumbnail medium, Thumbnail high) {
+
+        /**
+         * default → medium → high の順で最初に見つかった URL を返します。
+         */
+        public String defaultFirst() {
+            return first(defaultThumbnail, medium, high);
+        }
+
+        /**
+         * medium → default の順で最初に見つかった URL を返します。
+         */
+        public String mediumFirst() {
+            return first(medium, defaultThumbnail);
+        }
+
+        private static String first(Thumbnail... candidates) {
+            for (Thumbnail t : candidates) {
+                if (t != null && t.url() != null) {
+                    return t.url();
+                }
+            }
+            return null;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ResourceId(String videoId, String channelId) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Snippet(
+            String title,
+            String description,
+            String channelId,
+            String channelTitle,
+            String videoOwnerChannelTitle,
+            String publishedAt,
+            ResourceId resourceId,
+            Thumbnails thumbnails) {
+
+        public String defaultThumbnail() {
+            return thumbnails != null ? thumbnails.defaultFirst() : null;
+        }
+
+        public String mediumThumbnail() {
+            return thumbnails != null ? thumbnails.mediumFirst() : null;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record SearchId(String videoId, String channelId) {
+    }
+
+    /**
+     * search.list の要素。
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record SearchResult(SearchId id, Snippet snippet) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record RelatedPlaylists(String uploads) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ChannelContentDetails(RelatedPlaylists relatedPlaylists) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ChannelStatistics(String subscriberCount) {
+    }
+
+    /**
+     * channels.list の要素。
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Channel(String id, Snippet snippet, ChannelStatistics statistics, ChannelContentDetails contentDetails) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record VideoContentDetails(String duration) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record VideoStatistics(Long viewCount) {
+    }
+
+    /**
+     * videos.list の要素。
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Video(String id, VideoContentDetails contentDetails, VideoStatistics statistics) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record PlaylistItemContentDetails(String videoId, String videoPublishedAt) {
+    }
+
+    /**
+     * playlistItems.list の要素。
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record PlaylistItem(String id, Snippet snippet, PlaylistItemContentDetails contentDetails) {
+
+        /**
+         * 再生リストアイテムが指す動画ID（snippet.resourceId → contentDetails の順）。
+         */
+        public String videoId() {
+            if (snippet != null && snippet.resourceId() != null && snippet.resourceId().videoId() != null) {
+                return snippet.resourceId().videoId();
+            }
+            return contentDetails != null ? contentDetails.videoId() : null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.charge0315.yt.client;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * YouTube API クォータの消費状況を返す actuator エンドポイント（{@code /actuator/youtubequota}）。
+ */
+@Component
+@Endpoint(id = "youtubequota")
+public class YouTubeQuotaEndpoint {
+
+    private final YouTubeQuotaManager quotaManager;
+
+    public YouTubeQuotaEndpoint(YouTubeQuotaManager quotaManager) {
+        this.quotaManager = quotaManager;
+    }
+
+    @ReadOperation
+    public YouTubeQuotaManager.QuotaSnapshot quota() {
+        return quotaManager.snapshot();
+    }
+}
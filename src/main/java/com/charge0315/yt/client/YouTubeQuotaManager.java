@@ -0,0 +1,272 @@
+package com.charge0315.yt.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.util.RequestContext.Priority;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * YouTube Data API のクォータ（1日あたりのユニット数）を送信前に計上・制御するコンポーネント。
+ *
+ * <ul>
+ *   <li>全体: 太平洋時間の0時にリセットされる日次予算。{@code BACKGROUND} の呼び出しは
+ *       {@code interactive-reserve} の割合を画面操作用に残した上限までしか使えません。</li>
+ *   <li>ユーザー単位: 1日で満タンになる連続補充型のトークンバケット。満タンに戻ったバケットは新しく作るものと
+ *       同じなので、{@link #USER_SWEEP_INTERVAL} ごとにまとめて破棄します（一度しか来ないユーザーの分が残り続けないように）。</li>
+ * </ul>
+ *
+ * <p>予算を超える呼び出しは Google が 403 を返す前に {@code 429 Too Many Requests} で拒否します。
+ * Google から {@code quotaExceeded} が返った場合は、次のリセットまで全体を枯渇扱いにします。</p>
+ */
+@Component
+public class YouTubeQuotaManager {
+
+    /**
+     * YouTube Data API のクォータは太平洋時間の0時にリセットされる。
+     */
+    static final ZoneId QUOTA_ZONE = ZoneId.of("America/Los_Angeles");
+
+    /**
+     * 満タンに戻ったユーザー単位のバケットを破棄する間隔。
+     */
+    static final Duration USER_SWEEP_INTERVAL = Duration.ofHours(1);
+
+    private final boolean enabled;
+
+    private final long dailyLimit;
+
+    private final long perUserDaily;
+
+    private final double interactiveReserve;
+
+    private final Clock clock = Clock.systemUTC();
+
+    private final Object lock = new Object();
+
+    /** {@link #lock} の中でだけ読み書きする。 */
+    private final Map<String, TokenBucket> userBuckets = new HashMap<>();
+
+    private long lastSweepNanos = System.nanoTime();
+
+    private LocalDate windowDate;
+
+    private Instant windowStart;
+
+    private long used;
+
+    private long rejected;
+
+    private boolean upstreamExhausted;
+
+    private final Map<YouTubeResource, Long> usedByResource = new EnumMap<>(YouTubeResource.class);
+
+    private final Map<Priority, Long> usedByPriority = new EnumMap<>(Priority.class);
+
+    public YouTubeQuotaManager(
+            MeterRegistry meterRegistry,
+            @Value("${youtube.quota.enabled:true}") boolean enabled,
+            @Value("${youtube.quota.daily-limit:10000}") long dailyLimit,
+            @Value("${youtube.quota.per-user-daily:2000}") long perUserDaily,
+            @Value("${youtube.quota.interactive-reserve:0.2}") double interactiveReserve) {
+        this.enabled = enabled;
+        this.dailyLimit = dailyLimit;
+        this.perUserDaily = perUserDaily;
+        this.interactiveReserve = Math.min(1.0, Math.max(0.0, interactiveReserve));
+        rollWindow(clock.instant());
+
+        Gauge.builder("youtube.quota.used", this, m -> m.snapshot().used())
+                .description("当日（太平洋時間）に計上した YouTube API クォータ")
+                .register(meterRegistry);
+        Gauge.builder("youtube.quota.remaining", this, m -> m.snapshot().remaining())
+                .description("当日の残りクォータ")
+                .register(meterRegistry);
+        Gauge.builder("youtube.quota.tracked_users", this, YouTubeQuotaManager::trackedUsers)
+                .description("保持しているユーザー単位のバケット数（満タンに戻ったものは破棄）")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@code cost} ユニットを計上します。予算を超える場合は {@code 429} の {@link ResponseStatusException} を投げます。
+     */
+    public void acquire(YouTubeResource resource, int cost, String userId, Priority priority) {
+        if (!enabled) {
+            return;
+        }
+        Priority p = priority != null ? priority : Priority.INTERACTIVE;
+
+        synchronized (lock) {
+            rollWindow(clock.instant());
+
+            if (upstreamExhausted) {
+                throw reject("youtube_quota_exhausted");
+            }
+            if (used + cost > ceiling(p)) {
+                throw reject(p == Priority.BACKGROUND ? "youtube_quota_reserved_for_interactive" : "youtube_quota_exhausted");
+            }
+            consumeUser(userId, cost);
+
+            used += cost;
+            usedByResource.merge(resource, (long) cost, Long::sum);
+            usedByPriority.merge(p, (long) cost, Long::sum);
+        }
+    }
+
+    /**
+     * ユーザー単位の枠だけから {@code cost} ユニットを計上します（全体の予算は計上しません）。
+     *
+     * <p>複数ユーザーで共有する呼び出しは、ユーザーIDなしで {@link #acquire} した上で、
+     * 送信を始めた呼び出し元の枠をこちらで計上します。枠を超える場合は {@code 429} を投げます。</p>
+     */
+    public void acquireUser(String userId, int cost) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            consumeUser(userId, cost);
+        }
+    }
+
+    private void consumeUser(String userId, int cost) {
+        if (userId == null || perUserDaily <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - lastSweepNanos >= USER_SWEEP_INTERVAL.toNanos()) {
+            sweepUserBuckets(now);
+        }
+        TokenBucket bucket = userBuckets.computeIfAbsent(userId,
+                k -> new TokenBucket(perUserDaily, Duration.ofDays(1), now));
+        if (!bucket.tryConsume(cost, now)) {
+            throw reject("youtube_user_quota_exceeded");
+        }
+    }
+
+    /**
+     * 満タンに戻ったユーザー単位のバケットを破棄します（次に来たときは満タンで作り直すので結果は変わりません）。
+     */
+    void sweepUserBuckets(long nowNanos) {
+        synchronized (lock) {
+            userBuckets.values().removeIf(bucket -> bucket.isFull(nowNanos));
+            lastSweepNanos = nowNanos;
+        }
+    }
+
+    int trackedUsers() {
+        synchronized (lock) {
+            return userBuckets.size();
+        }
+    }
+
+    /**
+     * Google から quotaExceeded が返った場合に、次のリセットまで新規呼び出しを止めます。
+     */
+    public void markUpstreamExhausted() {
+        synchronized (lock) {
+            rollWindow(clock.instant());
+            upstreamExhausted = true;
+        }
+    }
+
+    /**
+     * 現在の消費状況と、現在の消費ペースでの枯渇予測時刻を返します。
+     */
+    public QuotaSnapshot snapshot() {
+        Instant now = clock.instant();
+        synchronized (lock) {
+            rollWindow(now);
+            Instant resetAt = windowDate.plusDays(1).atStartOfDay(QUOTA_ZONE).toInstant();
+            long remaining = upstreamExhausted ? 0 : Math.max(0, dailyLimit - used);
+
+            double elapsedHours = Math.max(1, Duration.between(windowStart, now).toSeconds()) / 3600.0;
+            double burnRatePerHour = used / elapsedHours;
+
+            Instant projectedExhaustionAt = null;
+            if (remaining == 0) {
+                projectedExhaustionAt = now;
+            } else if (burnRatePerHour > 0) {
+                Instant projected = now.plusSeconds((long) (remaining / burnRatePerHour * 3600));
+                if (projected.isBefore(resetAt)) {
+                    projectedExhaustionAt = projected;
+                }
+            }
+
+            Map<String, Long> byResource = new LinkedHashMap<>();
+            usedByResource.forEach((k, v) -> byResource.put(k.name(), v));
+            Map<String, Long> byPriority = new LinkedHashMap<>();
+            usedByPriority.forEach((k, v) -> byPriority.put(k.name(), v));
+
+            return new QuotaSnapshot(
+                    enabled,
+                    dailyLimit,
+                    used,
+                    remaining,
+                    windowStart,
+                    resetAt,
+                    Math.round(burnRatePerHour * 10) / 10.0,
+                    projectedExhaustionAt,
+                    upstreamExhausted,
+                    rejected,
+                    byResource,
+                    byPriority);
+        }
+    }
+
+    private long ceiling(Priority priority) {
+        if (priority == Priority.BACKGROUND) {
+            return (long) Math.floor(dailyLimit * (1.0 - interactiveReserve));
+        }
+        return dailyLimit;
+    }
+
+    private ResponseStatusException reject(String reason) {
+        rejected++;
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, reason);
+    }
+
+    private void rollWindow(Instant now) {
+        LocalDate today = now.atZone(QUOTA_ZONE).toLocalDate();
+        if (today.equals(windowDate)) {
+            return;
+        }
+        windowDate = today;
+        windowStart = today.atStartOfDay(QUOTA_ZONE).toInstant();
+        used = 0;
+        rejected = 0;
+        upstreamExhausted = false;
+        usedByResource.clear();
+        usedByPriority.clear();
+    }
+
+    /**
+     * actuator（{@code /actuator/youtubequota}）で返すクォータの状況。
+     */
+    public record QuotaSnapshot(
+            boolean enabled,
+            long dailyLimit,
+            long used,
+            long remaining,
+            Instant windowStart,
+            Instant resetAt,
+            double burnRatePerHour,
+            Instant projectedExhaustionAt,
+            boolean upstreamExhausted,
+            long rejected,
+            Map<String, Long> usedByResource,
+            Map<String, Long> usedByPriority) {
+    }
+}
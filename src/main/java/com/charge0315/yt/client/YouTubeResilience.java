@@ -0,0 +1,293 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.reactivestreams.Publisher;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.util.RequestContext;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * YouTube Data API 呼び出しのタイムアウト・再試行・サーキットブレーカーをまとめるコンポーネント。
+ *
+ * <ul>
+ *   <li>サーキットブレーカー: エンドポイント種別（{@link YouTubeResource}）ごとに1つ。
+ *       失敗率と遅延率（{@code slow-call-threshold} を超えた呼び出しの割合）で開き、
+ *       開いている間は {@code 503 youtube_circuit_open} で即座に失敗させます。</li>
+ *   <li>再試行: 冪等な GET のみ、429/5xx/タイムアウト/接続失敗を指数バックオフ（full jitter）で再試行します。
+ *       {@code Retry-After} がある場合はその時間以上待ち、上限を超える場合は再試行しません。</li>
+ *   <li>再試行予算: 全体で1つの {@link RetryBudget}。障害時に再試行が呼び出し数を増幅しないよう抑えます。</li>
+ * </ul>
+ *
+ * <p>リクエストに期限（{@link RequestContext}）がある場合、各試行のタイムアウトは残り時間まで縮め、
+ * 期限までに終わらない再試行は行いません。期限による打ち切りは上流の失敗として数えません。</p>
+ *
+ * <p>要素を1件でも流した後の失敗は、重複を避けるため再試行しません。
+ * 状態は {@code /actuator/youtuberesilience} とメトリクスで確認できます。</p>
+ */
+@Component
+public class YouTubeResilience {
+
+    private final boolean enabled;
+
+    private final Duration timeout;
+
+    private final long slowCallNanos;
+
+    private final int maxAttempts;
+
+    private final Duration baseDelay;
+
+    private final Duration maxDelay;
+
+    private final Map<YouTubeResource, CircuitBreaker> breakers = new EnumMap<>(YouTubeResource.class);
+
+    private final Map<YouTubeResource, Counter> retryCounters = new EnumMap<>(YouTubeResource.class);
+
+    private final Map<YouTubeResource, Counter> rejectedCounters = new EnumMap<>(YouTubeResource.class);
+
+    private final RetryBudget retryBudget;
+
+    public YouTubeResilience(
+            MeterRegistry meterRegistry,
+            @Value("${youtube.resilience.enabled:true}") boolean enabled,
+            @Value("${youtube.resilience.timeout:10s}") Duration timeout,
+            @Value("${youtube.resilience.slow-call-threshold:3s}") Duration slowCallThreshold,
+            @Value("${youtube.resilience.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${youtube.resilience.slow-call-rate-threshold:0.8}") double slowCallRateThreshold,
+            @Value("${youtube.resilience.window-size:20}") int windowSize,
+            @Value("${youtube.resilience.minimum-calls:10}") int minimumCalls,
+            @Value("${youtube.resilience.open-duration:30s}") Duration openDuration,
+            @Value("${youtube.resilience.half-open-calls:3}") int halfOpenCalls,
+            @Value("${youtube.resilience.retry.max-attempts:3}") int maxAttempts,
+            @Value("${youtube.resilience.retry.base-delay:200ms}") Duration baseDelay,
+            @Value("${youtube.resilience.retry.max-delay:5s}") Duration maxDelay,
+            @Value("${youtube.resilience.retry.budget-ratio:0.1}") double budgetRatio,
+            @Value("${youtube.resilience.retry.budget-reserve:10}") int budgetReserve) {
+        this.enabled = enabled;
+        this.timeout = timeout;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.retryBudget = new RetryBudget(budgetRatio, budgetReserve);
+
+        for (YouTubeResource resource : YouTubeResource.values()) {
+            CircuitBreaker breaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                    slowCallRateThreshold, openDuration.toNanos(), halfOpenCalls);
+            breakers.put(resource, breaker);
+            String tag = resource.name().toLowerCase();
+            Gauge.builder("youtube.circuit.state", breaker, b -> b.state(System.nanoTime()).ordinal())
+                    .description("サーキットブレーカーの状態（0=CLOSED, 1=OPEN, 2=HALF_OPEN）")
+                    .tag("resource", tag)
+                    .register(meterRegistry);
+            retryCounters.put(resource, Counter.builder("youtube.api.retries")
+                    .description("再試行した YouTube API 呼び出し数")
+                    .tag("resource", tag)
+                    .register(meterRegistry));
+            rejectedCounters.put(resource, Counter.builder("youtube.circuit.rejected")
+                    .description("サーキットブレーカーが開いていたため送信しなかった呼び出し数")
+                    .tag("resource", tag)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("youtube.retry.budget", retryBudget, RetryBudget::balance)
+                .description("再試行予算の残高")
+                .register(meterRegistry);
+        Gauge.builder("youtube.retry.budget_exhausted", retryBudget, RetryBudget::exhausted)
+                .description("再試行予算の不足で再試行しなかった回数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@code call} をタイムアウト・サーキットブレーカー・（冪等なら）再試行付きで実行します。
+     *
+     * <p>{@code call} は試行ごとに呼ばれ、新しい Publisher を返す必要があります。</p>
+     */
+    public <T> Flux<T> execute(YouTubeResource resource, boolean idempotent, Supplier<? extends Publisher<T>> call) {
+        if (!enabled) {
+            return Flux.defer(call);
+        }
+        return attempt(resource, idempotent, call, 1)
+                .onErrorMap(TimeoutException.class,
+                        e -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "youtube_timeout", e));
+    }
+
+    private <T> Flux<T> attempt(YouTubeResource resource, boolean idempotent, Supplier<? extends Publisher<T>> call,
+            int attempt) {
+        CircuitBreaker breaker = breakers.get(resource);
+        return Flux.deferContextual(ctx -> {
+            Duration remaining = RequestContext.remaining(ctx);
+            if (remaining != null && remaining.isZero()) {
+                return Flux.error(RequestContext.deadlineExceeded());
+            }
+            long start = System.nanoTime();
+            if (!breaker.tryAcquire(start)) {
+                rejectedCounters.get(resource).increment();
+                return Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "youtube_circuit_open"));
+            }
+            if (attempt == 1) {
+                retryBudget.deposit();
+            }
+
+            // 遅延は最初の要素（要素が無ければ完了）までの時間で判定する
+            AtomicLong latency = new AtomicLong(-1);
+            AtomicBoolean emitted = new AtomicBoolean();
+            AtomicBoolean settled = new AtomicBoolean();
+            Runnable success = () -> {
+                if (settled.compareAndSet(false, true)) {
+                    long nanos = latency.get() >= 0 ? latency.get() : System.nanoTime() - start;
+                    breaker.onSuccess(nanos >= slowCallNanos, System.nanoTime());
+                }
+            };
+
+            return Flux.<T>from(call.get())
+                    .timeout(timeout)
+                    // 期限の残りで打ち切る（期限切れとして返す）
+                    .transform(RequestContext::withinDeadlineFlux)
+                    .doOnNext(v -> {
+                        if (emitted.compareAndSet(false, true)) {
+                            latency.set(System.nanoTime() - start);
+                        }
+                    })
+                    .doOnComplete(success)
+                    .doOnCancel(() -> {
+                        if (emitted.get()) {
+                            success.run();
+                        } else if (settled.compareAndSet(false, true)) {
+                            breaker.release();
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (isTransient(e)) {
+                            if (settled.compareAndSet(false, true)) {
+                                breaker.onFailure(System.nanoTime());
+                            }
+                        } else if (e instanceof WebClientResponseException) {
+                            // 404 などは上流が正常に応答した結果として扱う
+                            success.run();
+                        } else if (settled.compareAndSet(false, true)) {
+                            // 自前のクォータ拒否など、上流の健全性と関係ない失敗
+                            breaker.release();
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        if (!idempotent || emitted.get() || attempt >= maxAttempts || !isTransient(e)) {
+                            return Flux.error(e);
+                        }
+                        Duration delay = retryDelay(attempt, e, Instant.now());
+                        Duration left = RequestContext.remaining(ctx);
+                        if (delay == null || (left != null && left.compareTo(delay) <= 0) || !retryBudget.tryWithdraw()) {
+                            return Flux.error(e);
+                        }
+                        retryCounters.get(resource).increment();
+                        return Mono.delay(delay).thenMany(attempt(resource, idempotent, call, attempt + 1));
+                    });
+        });
+    }
+
+    /**
+     * {@code attempt} 回目の失敗後の待ち時間を返します（再試行しない場合は {@code null}）。
+     *
+     * <p>{@code min(maxDelay, baseDelay * 2^(attempt-1))} を上限とした full jitter に、
+     * {@code Retry-After} を下限として適用します。</p>
+     */
+    Duration retryDelay(int attempt, Throwable e, Instant now) {
+        Duration retryAfter = retryAfter(e, now);
+        if (retryAfter != null && retryAfter.compareTo(maxDelay) > 0) {
+            return null;
+        }
+        long capMillis = Math.min(maxDelay.toMillis(), baseDelay.toMillis() << Math.min(20, attempt - 1));
+        Duration jitter = Duration.ofMillis(ThreadLocalRandom.current().nextLong(capMillis + 1));
+        return retryAfter != null && retryAfter.compareTo(jitter) > 0 ? retryAfter : jitter;
+    }
+
+    /**
+     * 一時的な失敗（再試行対象かつブレーカーの失敗として数えるもの）かを判定します。
+     *
+     * <p>403 は {@code rateLimitExceeded} / {@code userRateLimitExceeded} の場合のみ対象です
+     * （{@code quotaExceeded} は翌日まで回復しないため対象外）。</p>
+     */
+    static boolean isTransient(Throwable e) {
+        if (e instanceof TimeoutException || e instanceof WebClientRequestException) {
+            return true;
+        }
+        if (e instanceof WebClientResponseException w) {
+            int status = w.getStatusCode().value();
+            if (status == HttpStatus.TOO_MANY_REQUESTS.value() || status >= 500) {
+                return true;
+            }
+            return status == HttpStatus.FORBIDDEN.value()
+                    && (w.getResponseBodyAsString().contains("rateLimitExceeded")
+                            || w.getResponseBodyAsString().contains("userRateLimitExceeded"));
+        }
+        return false;
+    }
+
+    /**
+     * {@code Retry-After}（秒数または HTTP-date）を解釈します。無い場合は {@code null}。
+     */
+    static Duration retryAfter(Throwable e, Instant now) {
+        if (!(e instanceof WebClientResponseException w) || w.getHeaders() == null) {
+            return null;
+        }
+        String value = w.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException ignored) {
+            // HTTP-date 形式
+        }
+        try {
+            Instant at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return at.isAfter(now) ? Duration.between(now, at) : Duration.ZERO;
+        } catch (RuntimeException ignored) {
+            return null;
+        }
+    }
+
+    /**
+     * エンドポイント種別ごとのブレーカー状態と再試行予算を返します。
+     */
+    public ResilienceSnapshot snapshot() {
+        long now = System.nanoTime();
+        Map<String, BreakerSnapshot> out = new LinkedHashMap<>();
+        breakers.forEach((resource, breaker) -> out.put(resource.name(), breaker.snapshot(now)));
+        return new ResilienceSnapshot(enabled, out, Math.round(retryBudget.balance() * 10) / 10.0,
+                retryBudget.exhausted());
+    }
+
+    public record BreakerSnapshot(String state, int bufferedCalls, double failureRate, double slowCallRate,
+            long notPermittedCalls) {
+    }
+
+    public record ResilienceSnapshot(boolean enabled, Map<String, BreakerSnapshot> circuitBreakers,
+            double retryBudget, long retryBudgetExhausted) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.charge0315.yt.client;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * YouTube API のサーキットブレーカー状態と再試行予算を返す actuator エンドポイント（{@code /actuator/youtuberesilience}）。
+ */
+@Component
+@Endpoint(id = "youtuberesilience")
+public class YouTubeResilienceEndpoint {
+
+    private final YouTubeResilience resilience;
+
+    public YouTubeResilienceEndpoint(YouTubeResilience resilience) {
+        this.resilience = resilience;
+    }
+
+    @ReadOperation
+    public YouTubeResilience.ResilienceSnapshot resilience() {
+        return resilience.snapshot();
+    }
+}
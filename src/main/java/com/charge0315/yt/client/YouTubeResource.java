@@ -0,0 +1,48 @@
+package com.charge0315.yt.client;
+
+/**
+ * YouTube Data API のリソース（エンドポイント）種別。
+ *
+ * <p>リソースごとに条件付きリクエスト（ETag）の対象とするかと、読み取り1回あたりのクォータコストを定義します。
+ * 検索結果は毎回内容が変わりやすく保存コストに見合わないため、ETag の対象外です。</p>
+ *
+ * <p>コストは YouTube Data API の公開値に合わせています（search.list=100、その他の list=1、
+ * insert/update/delete=50）。</p>
+ */
+public enum YouTubeResource {
+
+    SEARCH("/search", false, 100),
+    CHANNELS("/channels", true, 1),
+    VIDEOS("/videos", true, 1),
+    PLAYLISTS("/playlists", true, 1),
+    PLAYLIST_ITEMS("/playlistItems", true, 1);
+
+    /**
+     * insert/update/delete 1回あたりのクォータコスト。
+     */
+    public static final int WRITE_COST = 50;
+
+    private final String path;
+
+    private final boolean conditional;
+
+    private final int readCost;
+
+    YouTubeResource(String path, boolean conditional, int readCost) {
+        this.path = path;
+        this.conditional = conditional;
+        this.readCost = readCost;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public boolean conditional() {
+        return conditional;
+    }
+
+    public int readCost() {
+        return readCost;
+    }
+}
@@ -0,0 +1,156 @@
+package com.charge0315.yt.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.charge0315.yt.mongo.CachedChannel;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * {@link CachedChannel} の {@code (userId, channelId)} 一意インデックス（{@code user_channel}）を作成するコンポーネント。
+ *
+ * <p>一意インデックスは既存のデータに重複があると作成に失敗するため、自動作成（{@code auto-index-creation}）の対象からは外し、
+ * 起動完了後に非同期で作成します。MongoDB に接続できない間は間隔を空けて再試行し、起動そのものは失敗させません。</p>
+ *
+ * <p>重複が残っている場合、既定では何も削除せず件数をログに出してインデックスの作成を見送ります。
+ * 重複の削除はユーザーデータの削除なので、{@code youtube.mongo.dedupe-cached-channels=true} を指定したときだけ行う移行処理です。
+ * {@code (userId, channelId)} ごとに {@code updatedAt} の新しい1件を残し、残した ID と削除した ID をグループごとにログへ出します。</p>
+ */
+@Component
+public class CachedChannelIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(CachedChannelIndexInitializer.class);
+
+    public static final String INDEX_NAME = "user_channel";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    private final boolean dedupe;
+
+    private final Duration retryInterval;
+
+    private volatile Disposable running;
+
+    public CachedChannelIndexInitializer(
+            ReactiveMongoTemplate mongoTemplate,
+            @Value("${youtube.mongo.dedupe-cached-channels:false}") boolean dedupe,
+            @Value("${youtube.mongo.index-retry-interval:30s}") Duration retryInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.dedupe = dedupe;
+        this.retryInterval = retryInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        running = initialize()
+                .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, retryInterval)
+                        .doBeforeRetry(signal -> log.warn("cached_channels index creation failed (attempt {}), retrying in {}",
+                                signal.totalRetries() + 1, retryInterval, signal.failure())))
+                .subscribe(
+                        name -> log.info("cached_channels index {} is ready", name),
+                        e -> log.error("cached_channels index creation gave up", e));
+    }
+
+    @PreDestroy
+    void stop() {
+        Disposable current = running;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    /**
+     * 重複が無ければ（または移行として削除した後に）一意インデックスを作成し、インデックス名を返します。
+     * 重複が残っていて削除が無効な場合は作成せずに空で完了します。
+     */
+    public Mono<String> initialize() {
+        return duplicateGroups()
+                .collectList()
+                .flatMap(groups -> {
+                    if (groups.isEmpty()) {
+                        return createIndex();
+                    }
+                    long extra = groups.stream().mapToLong(group -> group.ids().size() - 1).sum();
+                    if (!dedupe) {
+                        log.warn("cached_channels has {} duplicated (userId, channelId) pairs ({} extra documents);"
+                                + " unique index {} not created. Set youtube.mongo.dedupe-cached-channels=true to remove"
+                                + " all but the most recently updated document of each pair.",
+                                groups.size(), extra, INDEX_NAME);
+                        return Mono.empty();
+                    }
+                    log.warn("cached_channels dedupe: removing {} documents from {} duplicated (userId, channelId) pairs",
+                            extra, groups.size());
+                    return removeDuplicates(groups).flatMap(removed -> {
+                        log.warn("cached_channels dedupe: removed {} documents", removed);
+                        return createIndex();
+                    });
+                });
+    }
+
+    private Mono<String> createIndex() {
+        return mongoTemplate
+                .indexOps(CachedChannel.class)
+                .ensureIndex(new Index()
+                        .on("userId", Sort.Direction.ASC)
+                        .on("channelId", Sort.Direction.ASC)
+                        .unique()
+                        .named(INDEX_NAME));
+    }
+
+    /**
+     * {@code (userId, channelId)} が重複するグループを返します（ID は {@code updatedAt} の新しい順）。
+     */
+    Flux<DuplicateGroup> duplicateGroups() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                        Aggregation.sort(Sort.Direction.DESC, "updatedAt"),
+                        Aggregation.group("userId", "channelId").push("_id").as("ids"),
+                        // 2件目がある（重複している）グループだけ
+                        Aggregation.match(Criteria.where("ids.1").exists(true)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return mongoTemplate
+                .aggregate(duplicates, mongoTemplate.getCollectionName(CachedChannel.class), Document.class)
+                .map(group -> {
+                    Document key = group.get("_id", Document.class);
+                    return new DuplicateGroup(key.getString("userId"), key.getString("channelId"),
+                            group.getList("ids", Object.class));
+                });
+    }
+
+    private Mono<Long> removeDuplicates(List<DuplicateGroup> groups) {
+        return Flux.fromIterable(groups)
+                .concatMap(group -> {
+                    List<Object> stale = group.ids().subList(1, group.ids().size());
+                    return mongoTemplate
+                            .remove(Query.query(Criteria.where("_id").in(stale)), CachedChannel.class)
+                            .doOnNext(result -> log.warn(
+                                    "cached_channels dedupe: userId={} channelId={} kept={} removed={} ({} deleted)",
+                                    group.userId(), group.channelId(), group.ids().get(0), stale,
+                                    result.getDeletedCount()))
+                            .map(result -> result.getDeletedCount());
+                })
+                .reduce(0L, Long::sum);
+    }
+
+    record DuplicateGroup(String userId, String channelId, List<Object> ids) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.charge0315.yt.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Component;
+
+import com.charge0315.yt.mongo.CachedChannel;
+import com.charge0315.yt.mongo.CachedChannelRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link CachedChannelRepository} の各クエリの実行計画を起動時に検証する {@link ApplicationRunner}。
+ *
+ * <p>{@code youtube.mongo.verify-query-plans=true} の場合だけ有効です。{@link CachedChannel} のインデックスを
+ * 作成済みにしてから、リポジトリの各クエリと同じ条件/並び順で {@code explain} を実行し、
+ * 採用された計画に {@code COLLSCAN}（全件走査）か {@code SORT}（メモリ上の並べ替え）が含まれていれば起動を失敗させます。
+ * インデックスやクエリを変えたときに、ステージング環境や統合テストで有効にして確認する想定です。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "youtube.mongo.verify-query-plans", havingValue = "true")
+public class MongoQueryPlanVerifier implements ApplicationRunner {
+
+    private static final String SAMPLE_USER_ID = "__query_plan_check__";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    private final Duration timeout;
+
+    public MongoQueryPlanVerifier(
+            ReactiveMongoTemplate mongoTemplate,
+            @Value("${youtube.mongo.verify-timeout:30s}") Duration timeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> failures = verify().block(timeout);
+        if (failures != null && !failures.isEmpty()) {
+            throw new IllegalStateException("query_plan_verification_failed: " + String.join("; ", failures));
+        }
+    }
+
+    /**
+     * インデックスを作成してから全クエリを検証し、問題のあったクエリを「名前: ステージ」の形で返します。
+     */
+    public Mono<List<String>> verify() {
+        return ensureIndexes()
+                .thenMany(Flux.fromIterable(checks()))
+                .concatMap(check -> explain(check).map(plan -> {
+                    List<String> stages = problems(plan);
+                    return stages.isEmpty() ? "" : check.name() + ": " + String.join(",", stages);
+                }))
+                .filter(failure -> !failure.isEmpty())
+                .collectList();
+    }
+
+    private Mono<Void> ensureIndexes() {
+        // auto-index-creation は非同期で走るため、検証前に同じ定義で作成を待つ（作成済みなら何もしない）
+        return Flux.fromIterable(IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                        .resolveIndexFor(CachedChannel.class))
+                .concatMap(index -> mongoTemplate.indexOps(CachedChannel.class).ensureIndex(index))
+                .then();
+    }
+
+    private Mono<Document> explain(PlanCheck check) {
+        return mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(CachedChannel.class))
+                .flatMap(collection -> Mono.from(collection
+                        .find(check.filter())
+                        .sort(check.sort())
+                        .explain(Document.class)));
+    }
+
+    /**
+     * リポジトリのクエリと同じ条件/並び順（削除系は同じ条件の検索）。
+     */
+    static List<PlanCheck> checks() {
+        Document notNull = new Document("$ne", null);
+        return List.of(
+                new PlanCheck("findByUserId",
+                        new Document("userId", SAMPLE_USER_ID), null),
+                new PlanCheck("findByUserIdAndIsArtistFalseOrderByChannelTitleAsc",
+                        new Document("userId", SAMPLE_USER_ID).append("isArtist", false),
+                        new Document("channelTitle", 1)),
+                new PlanCheck("findByUserIdAndIsArtistTrueOrderByChannelTitleAsc",
+                        new Document("userId", SAMPLE_USER_ID).append("isArtist", true),
+                        new Document("channelTitle", 1)),
+                new PlanCheck("findByUserIdAndLatestVideoIdNotNullAndLatestVideoPublishedAtNotNullOrderByLatestVideoPublishedAtDesc",
+                        new Document("userId", SAMPLE_USER_ID)
+                                .append("latestVideoId", notNull)
+                                .append("latestVideoPublishedAt", notNull),
+                        new Document("latestVideoPublishedAt", -1)),
+                new PlanCheck("findFirstByUserIdAndChannelId / deleteByUserIdAndChannelId",
+                        new Document("userId", SAMPLE_USER_ID).append("channelId", "UC"), null),
+                new PlanCheck("deleteByUserIdAndId",
+                        new Document("userId", SAMPLE_USER_ID).append("_id", "id"), null),
+                new PlanCheck("findByLatestVideoIdIn",
+                        new Document("latestVideoId", new Document("$in", List.of("v1", "v2"))), null));
+    }
+
+    /**
+     * {@code explain} の結果から、採用された計画（winningPlan）に含まれる {@code COLLSCAN}/{@code SORT} ステージを返します。
+     *
+     * <p>不採用の計画（rejectedPlans）は見ません。SBE の {@code queryPlan} やシャードごとの計画も入れ子として辿ります。</p>
+     */
+    static List<String> problems(Document explain) {
+        List<String> found = new ArrayList<>();
+        Object queryPlanner = explain.get("queryPlanner");
+        if (queryPlanner instanceof Document planner) {
+            collect(planner.get("winningPlan"), found);
+        }
+        return found;
+    }
+
+    private static void collect(Object node, List<String> found) {
+        if (node instanceof Document doc) {
+            Object stage = doc.get("stage");
+            if ("COLLSCAN".equals(stage) || "SORT".equals(stage)) {
+                found.add((String) stage);
+            }
+            doc.forEach((key, value) -> {
+                if (!"rejectedPlans".equals(key)) {
+                    collect(value, found);
+                }
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(child -> collect(child, found));
+        }
+    }
+
+    record PlanCheck(String name, Document filter, Document sort) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.charge0315.yt.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import com.charge0315.yt.util.RequestContext;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * すべての Spring Data リポジトリ（Reactive MongoDB）の呼び出しにリクエストの期限を適用する {@link BeanPostProcessor}。
+ *
+ * <p>リポジトリのプロキシに {@link #DEADLINE_INTERCEPTOR} を追加し、{@link Mono}/{@link Flux} を返すメソッドを
+ * {@link RequestContext#withinDeadline}/{@link RequestContext#withinDeadlineFlux} で包みます。
+ * 呼び出し箇所ごとに包まなくても、リクエストから辿る MongoDB の読み書き（一括更新のフラグメントを含む）が
+ * 期限を超えて走り続けません。期限の無い処理（キャッシュ更新などのバックグラウンド処理）は従来どおりです。</p>
+ */
+@Component
+public class MongoRepositoryDeadlines implements BeanPostProcessor {
+
+    @SuppressWarnings("unchecked")
+    static final MethodInterceptor DEADLINE_INTERCEPTOR = invocation -> {
+        Object result = invocation.proceed();
+        if (result instanceof Mono<?> mono) {
+            return RequestContext.withinDeadline((Mono<Object>) mono);
+        }
+        if (result instanceof Flux<?> flux) {
+            return RequestContext.withinDeadlineFlux((Flux<Object>) flux);
+        }
+        return result;
+    };
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(DEADLINE_INTERCEPTOR)));
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,90 @@
+package com.charge0315.yt.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.charge0315.yt.util.RequestContext;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * セッションの {@code userId} とリクエストの期限を Reactor Context へ載せる {@link WebFilter}。
+ *
+ * <p>サービス層のシグネチャを変えずに、下流の YouTube API 呼び出しでユーザー単位の
+ * クォータ計上ができるようにします。未ログインのリクエストはそのまま通します。</p>
+ *
+ * <p>期限はヘッダー {@code X-Request-Timeout}（ミリ秒、{@code youtube.deadline.max} で頭打ち）、
+ * なければ {@code youtube.deadline.routes} の最初に一致したパス、なければ {@code youtube.deadline.default} です。
+ * {@code 0} は期限なし（エクスポートなど長時間のストリーミング向け）を表します。</p>
+ */
+@Component
+public class RequestContextWebFilter implements WebFilter {
+
+    static final String DEADLINE_HEADER = "X-Request-Timeout";
+
+    private final Duration defaultDeadline;
+
+    private final Duration maxDeadline;
+
+    private final Map<PathPattern, Duration> routeDeadlines = new LinkedHashMap<>();
+
+    public RequestContextWebFilter(
+            Environment environment,
+            @Value("${youtube.deadline.default:30s}") Duration defaultDeadline,
+            @Value("${youtube.deadline.max:60s}") Duration maxDeadline) {
+        this.defaultDeadline = defaultDeadline;
+        this.maxDeadline = maxDeadline;
+        Binder.get(environment)
+                .bind("youtube.deadline.routes", Bindable.mapOf(String.class, Duration.class))
+                .ifBound(routes -> routes.forEach(
+                        (pattern, deadline) -> routeDeadlines.put(PathPatternParser.defaultInstance.parse(pattern), deadline)));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!exchange.getRequest().getPath().value().startsWith("/api/")) {
+            return chain.filter(exchange);
+        }
+        Duration deadline = resolveDeadline(
+                exchange.getRequest().getPath().pathWithinApplication(),
+                exchange.getRequest().getHeaders().getFirst(DEADLINE_HEADER));
+        return exchange.getSession().flatMap(session -> {
+            String userId = session.getAttribute("userId");
+            return chain.filter(exchange)
+                    .contextWrite(ctx -> RequestContext.withDeadline(RequestContext.withUserId(ctx, userId), deadline));
+        });
+    }
+
+    Duration resolveDeadline(PathContainer path, String header) {
+        if (header != null && !header.isBlank()) {
+            try {
+                long millis = Long.parseLong(header.trim());
+                if (millis > 0) {
+                    Duration requested = Duration.ofMillis(millis);
+                    return requested.compareTo(maxDeadline) > 0 ? maxDeadline : requested;
+                }
+            } catch (NumberFormatException ignored) {
+                // 不正な値はルート設定にフォールバック
+            }
+        }
+        for (Map.Entry<PathPattern, Duration> route : routeDeadlines.entrySet()) {
+            if (route.getKey().matches(path)) {
+                return route.getValue();
+            }
+        }
+        return defaultDeadline;
+    }
+}
@@ -1,17 +1,150 @@
 package com.charge0315.yt.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Scope;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
 /**
  * 外部API呼び出し用の {@link WebClient.Builder} を提供します。
+ *
+ * <p>接続先（YouTube Data API / Google OAuth / OpenAI）ごとに接続プールとトランスポート設定を分け、
+ * 1つの接続先の遅延や障害が他の接続先の接続を使い切らないようにします。
+ * 設定は {@code outbound.<接続先>.*} で指定します。</p>
+ *
+ * <ul>
+ *   <li>接続プール: 最大接続数、取得待ちの上限/タイムアウト、アイドル/寿命による破棄、バックグラウンドでの掃除</li>
+ *   <li>トランスポート: 接続/応答タイムアウト、TCP keep-alive、gzip、DNS キャッシュ、TLS セッションの再利用</li>
+ *   <li>HTTP/2: {@code outbound.youtube.http2=true} の場合のみ googleapis へ h2 で多重化（ALPN で h1.1 にフォールバック）</li>
+ * </ul>
+ *
+ * <p>接続プールのメトリクス（{@code reactor.netty.connection.provider.*}: active/idle/pending 接続数と
+ * 取得待ち時間）は Micrometer のグローバルレジストリ経由で {@code /actuator/metrics} に出ます。</p>
  */
 @Configuration
 public class WebClientConfig {
 
+    private final Environment environment;
+
+    public WebClientConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * 接続先を指定しない呼び出し用（既定の Reactor Netty 設定）。
+     */
     @Bean
+    @Primary
+    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
     WebClient.Builder webClientBuilder() {
         return WebClient.builder();
     }
+
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider youtubeConnectionProvider() {
+        return connectionProvider("youtube", 100, 500);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider oauthConnectionProvider() {
+        return connectionProvider("oauth", 20, 100);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider openAiConnectionProvider() {
+        return connectionProvider("openai", 10, 50);
+    }
+
+    /**
+     * YouTube Data API（www.googleapis.com/youtube/v3）用。
+     */
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+    WebClient.Builder youtubeWebClientBuilder(@Qualifier("youtubeConnectionProvider") ConnectionProvider provider) {
+        return builder("youtube", provider, Duration.ofSeconds(15));
+    }
+
+    /**
+     * Google OAuth（oauth2.googleapis.com / userinfo）用。
+     */
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+    WebClient.Builder oauthWebClientBuilder(@Qualifier("oauthConnectionProvider") ConnectionProvider provider) {
+        return builder("oauth", provider, Duration.ofSeconds(10));
+    }
+
+    /**
+     * OpenAI API 用（生成に時間がかかるため応答タイムアウトを長めにする）。
+     */
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+    WebClient.Builder openAiWebClientBuilder(@Qualifier("openAiConnectionProvider") ConnectionProvider provider) {
+        return builder("openai", provider, Duration.ofSeconds(60));
+    }
+
+    private ConnectionProvider connectionProvider(String name, int maxConnections, int pendingAcquireMax) {
+        String prefix = "outbound." + name + ".";
+        return ConnectionProvider.builder(name)
+                .maxConnections(environment.getProperty(prefix + "max-connections", Integer.class, maxConnections))
+                .pendingAcquireMaxCount(environment.getProperty(prefix + "pending-acquire-max", Integer.class,
+                        pendingAcquireMax))
+                .pendingAcquireTimeout(duration(prefix + "pending-acquire-timeout", Duration.ofSeconds(5)))
+                .maxIdleTime(duration(prefix + "max-idle-time", Duration.ofSeconds(30)))
+                .maxLifeTime(duration(prefix + "max-life-time", Duration.ofMinutes(5)))
+                .evictInBackground(duration(prefix + "evict-interval", Duration.ofSeconds(30)))
+                .metrics(true)
+                .build();
+    }
+
+    private WebClient.Builder builder(String name, ConnectionProvider provider, Duration responseTimeout) {
+        String prefix = "outbound." + name + ".";
+        boolean http2 = environment.getProperty(prefix + "http2", Boolean.class, false);
+        int sessionCacheSize = environment.getProperty(prefix + "tls-session-cache-size", Integer.class, 1000);
+        long sessionTimeout = duration(prefix + "tls-session-timeout", Duration.ofHours(1)).toSeconds();
+        Duration dnsTtl = duration(prefix + "dns-cache-ttl", Duration.ofMinutes(5));
+
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (int) duration(prefix + "connect-timeout", Duration.ofSeconds(3)).toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(duration(prefix + "response-timeout", responseTimeout))
+                // Accept-Encoding: gzip を付け、応答を透過的に展開する
+                .compress(true)
+                .resolver(spec -> spec
+                        .cacheMaxTimeToLive(dnsTtl)
+                        .cacheNegativeTimeToLive(Duration.ofSeconds(10)));
+
+        // SslContext を接続先ごとに1つだけ作り、TLS セッション（再ハンドシェイクの省略）を使い回す
+        if (http2) {
+            Http2SslContextSpec ssl = Http2SslContextSpec.forClient()
+                    .configure(b -> b.sessionCacheSize(sessionCacheSize).sessionTimeout(sessionTimeout));
+            httpClient = httpClient
+                    .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                    .secure(spec -> spec.sslContext(ssl));
+        } else {
+            Http11SslContextSpec ssl = Http11SslContextSpec.forClient()
+                    .configure(b -> b.sessionCacheSize(sessionCacheSize).sessionTimeout(sessionTimeout));
+            httpClient = httpClient.secure(spec -> spec.sslContext(ssl));
+        }
+
+        return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient));
+    }
+
+    private Duration duration(String key, Duration defaultValue) {
+        return environment.getProperty(key, Duration.class, defaultValue);
+    }
 }
@@ -44,7 +44,7 @@ public class CacheController {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("ok", false, "error", r.error()));
                 }
-                if (!r.ok() && "mongodb_not_connected".equals(r.error())) {
+                if (!r.ok() && ("mongodb_not_connected".equals(r.error()) || "youtube_unavailable".equals(r.error()))) {
                 return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                     .body(Map.of("ok", false, "error", r.error()));
                 }
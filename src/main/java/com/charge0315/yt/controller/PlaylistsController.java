@@ -1,10 +1,11 @@
 package com.charge0315.yt.controller;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -19,9 +20,13 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.WebSession;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.charge0315.yt.util.JsonStreamWriter;
+import com.charge0315.yt.util.RequestContext;
 import com.charge0315.yt.util.SessionAuth;
 import com.charge0315.yt.service.YouTubeDataApiService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -36,8 +41,11 @@ public class PlaylistsController {
 
     private final YouTubeDataApiService youTubeDataApiService;
 
-    public PlaylistsController(YouTubeDataApiService youTubeDataApiService) {
+    private final ObjectMapper objectMapper;
+
+    public PlaylistsController(YouTubeDataApiService youTubeDataApiService, ObjectMapper objectMapper) {
         this.youTubeDataApiService = youTubeDataApiService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -56,54 +64,63 @@ public class PlaylistsController {
 
     /**
      * 指定した再生リストの詳細（name/songs 等）をフロント互換の形で返します。
+     *
+     * <p>{@code songs} は再生リストのページ取得に合わせて逐次書き出します（全件を集めてから返しません）。
+     * リクエストの期限に達した場合は、それまでに取得できた曲で打ち切り、{@code truncated: true} を返します。
+     * 最初の曲より前の失敗（再生リストが無い、クォータ超過など）はエラーのステータスで返し、
+     * 途中のページで失敗した場合は {@code truncated: true} と {@code error} を返します。</p>
      */
     @GetMapping("/{id}")
-    Mono<ResponseEntity<Map<String, Object>>> detail(@PathVariable("id") String id, WebSession session) {
+    Mono<ResponseEntity<Flux<DataBuffer>>> detail(@PathVariable("id") String id, WebSession session) {
         SessionAuth.requireUserId(session);
         String accessToken = SessionAuth.requireYouTubeAccessToken(session);
         if (id == null || id.isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id_required");
         }
 
-        Mono<com.fasterxml.jackson.databind.JsonNode> playlistMono = youTubeDataApiService.getPlaylist(accessToken, id);
-        Mono<List<YouTubeDataApiService.PlaylistVideo>> itemsMono = youTubeDataApiService.listPlaylistItems(accessToken, id);
-
-        return Mono.zip(playlistMono, itemsMono)
-            .map(tuple -> {
-                com.fasterxml.jackson.databind.JsonNode playlist = tuple.getT1();
-                List<YouTubeDataApiService.PlaylistVideo> items = tuple.getT2();
-
-                String title = playlist.path("snippet").path("title").asText("");
-                String description = playlist.path("snippet").path("description").asText("");
+        return youTubeDataApiService
+            .getPlaylist(accessToken, id)
+            .map(playlist -> {
                 String thumb = playlist.path("snippet").path("thumbnails").path("default").path("url").asText(null);
                 if (thumb == null) {
                     thumb = playlist.path("snippet").path("thumbnails").path("medium").path("url").asText(null);
                 }
 
-                List<Map<String, Object>> songs = items.stream()
-                    .map(v -> Map.<String, Object>of(
-                        "videoId", v.videoId(),
-                        "title", v.title(),
-                        "artist", v.channelTitle() != null ? v.channelTitle() : "不明なアーティスト",
-                        "thumbnail", v.thumbnail(),
-                        "duration", v.duration(),
-                        "addedAt", v.publishedAt()))
-                    .collect(Collectors.toList());
+                Map<String, Object> out = new LinkedHashMap<>();
+                out.put("id", playlist.path("id").asText(id));
+                out.put("_id", playlist.path("id").asText(id));
+                out.put("name", playlist.path("snippet").path("title").asText(""));
+                out.put("description", playlist.path("snippet").path("description").asText(""));
+                out.put("thumbnail", thumb);
+                out.put("createdAt", playlist.path("snippet").path("publishedAt").asText(null));
+                out.put("updatedAt", java.time.Instant.now().toString());
 
-                Map<String, Object> out = Map.of(
-                    "id", playlist.path("id").asText(id),
-                    "_id", playlist.path("id").asText(id),
-                    "name", title,
-                    "description", description,
-                    "thumbnail", thumb,
-                    "songs", songs,
-                    "createdAt", playlist.path("snippet").path("publishedAt").asText(null),
-                    "updatedAt", java.time.Instant.now().toString());
+                Flux<Map<String, Object>> songs = youTubeDataApiService
+                    .streamPlaylistItems(accessToken, id)
+                    .map(PlaylistsController::toSong);
 
-                return ResponseEntity.ok(out);
+                return ResponseEntity
+                    .ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(JsonStreamWriter.objectWithArray(objectMapper, out, "songs", songs,
+                        RequestContext::isDeadlineExceeded));
             });
     }
 
+    /**
+     * フロント互換の曲（song）表現へ変換します。
+     */
+    static Map<String, Object> toSong(YouTubeDataApiService.PlaylistVideo v) {
+        Map<String, Object> song = new LinkedHashMap<>();
+        song.put("videoId", v.videoId());
+        song.put("title", v.title());
+        song.put("artist", v.channelTitle() != null ? v.channelTitle() : "不明なアーティスト");
+        song.put("thumbnail", v.thumbnail());
+        song.put("duration", v.duration());
+        song.put("addedAt", v.publishedAt());
+        return song;
+    }
+
     public record AddSongRequest(String videoId) {
     }
 
@@ -152,42 +169,34 @@ public class PlaylistsController {
 
     /**
      * 再生リストをJSONとしてエクスポートします。
+     *
+     * <p>{@code items} は再生リストのページ取得に合わせて逐次書き出します。
+     * 途中のページで失敗した場合は、そこまでの {@code items} で閉じて {@code error} を付けます。</p>
      */
     @GetMapping("/{id}/export")
-    Mono<ResponseEntity<Map<String, Object>>> export(@PathVariable("id") String id, WebSession session) {
+    Mono<ResponseEntity<Flux<DataBuffer>>> export(@PathVariable("id") String id, WebSession session) {
         SessionAuth.requireUserId(session);
         String accessToken = SessionAuth.requireYouTubeAccessToken(session);
         if (id == null || id.isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id_required");
         }
 
-        Mono<com.fasterxml.jackson.databind.JsonNode> playlistMono = youTubeDataApiService.getPlaylist(accessToken, id);
-        Mono<List<YouTubeDataApiService.PlaylistVideo>> itemsMono = youTubeDataApiService.listPlaylistItems(accessToken,
-                id);
-
-        return Mono.zip(playlistMono, itemsMono)
-                .map(tuple -> {
-                    com.fasterxml.jackson.databind.JsonNode playlist = tuple.getT1();
-                    List<YouTubeDataApiService.PlaylistVideo> items = tuple.getT2();
+        return youTubeDataApiService
+                .getPlaylist(accessToken, id)
+                .map(playlist -> {
+                    Map<String, Object> out = new LinkedHashMap<>();
+                    out.put("playlistId", playlist.path("id").asText(id));
+                    out.put("title", playlist.path("snippet").path("title").asText(""));
+                    out.put("description", playlist.path("snippet").path("description").asText(""));
 
-                    Map<String, Object> out = Map.of(
-                            "playlistId", playlist.path("id").asText(id),
-                            "title", playlist.path("snippet").path("title").asText(""),
-                            "description", playlist.path("snippet").path("description").asText(""),
-                            "items", items.stream().map(v -> Map.of(
-                                    "videoId", v.videoId(),
-                                    "title", v.title(),
-                                    "channelTitle", v.channelTitle(),
-                                    "thumbnail", v.thumbnail(),
-                                    "duration", v.duration(),
-                                    "publishedAt", v.publishedAt()))
-                                    .collect(Collectors.toList()));
+                    Flux<YouTubeDataApiService.PlaylistVideo> items = youTubeDataApiService
+                            .streamPlaylistItems(accessToken, id);
 
                         return ResponseEntity
                             .ok()
                             .contentType(MediaType.APPLICATION_JSON)
                             .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=playlist_" + id + ".json")
-                            .body(out);
+                            .body(JsonStreamWriter.objectWithArray(objectMapper, out, "items", items));
                 });
     }
 
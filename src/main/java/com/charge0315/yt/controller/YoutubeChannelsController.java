@@ -9,10 +9,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.WebSession;
 
+import com.charge0315.yt.service.TimelineService;
 import com.charge0315.yt.service.YouTubeChannelsService;
 import com.charge0315.yt.util.SessionAuth;
 
@@ -78,12 +80,29 @@ public class YoutubeChannelsController {
         return youTubeChannelsService.getLatestVideos(userId, accessToken);
     }
 
+    /**
+     * 登録チャンネルの新着動画を新しい順にページ単位で返します。
+     *
+     * <p>{@code cursor} には前ページの {@code nextCursor} をそのまま渡します（省略時は先頭から）。</p>
+     */
+    @GetMapping("/timeline")
+    Mono<TimelineService.TimelinePage> getTimeline(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            WebSession session) {
+        String userId = SessionAuth.requireUserId(session);
+        return youTubeChannelsService.getTimeline(userId, cursor, limit);
+    }
+
     public record UpdateVideosRequest(List<YouTubeChannelsService.LatestVideo> latestVideos) {
     }
 
     /**
-     * 最新動画情報（表示用キャッシュ）を更新します。
+     * 最新動画情報（表示用キャッシュ）を更新します（非推奨）。
+     *
+     * <p>アップロード履歴のあるチャンネルでは表示に反映されないため {@code 409} を返します。</p>
      */
+    @Deprecated
     @PostMapping("/{id}/update-videos")
     Mono<YouTubeChannelsService.YouTubeChannelEntry> updateVideos(
             @PathVariable("id") String id,
@@ -19,6 +19,7 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.WebSession;
 
 import com.charge0315.yt.util.SessionAuth;
+import com.charge0315.yt.service.ChannelCatalogService;
 import com.charge0315.yt.service.YouTubeDataApiService;
 
 import reactor.core.publisher.Mono;
@@ -37,8 +38,11 @@ public class YoutubeController {
 
     private final YouTubeDataApiService youTubeDataApiService;
 
-    public YoutubeController(YouTubeDataApiService youTubeDataApiService) {
+    private final ChannelCatalogService channelCatalogService;
+
+    public YoutubeController(YouTubeDataApiService youTubeDataApiService, ChannelCatalogService channelCatalogService) {
         this.youTubeDataApiService = youTubeDataApiService;
+        this.channelCatalogService = channelCatalogService;
     }
 
     /**
@@ -174,19 +178,24 @@ public class YoutubeController {
 
         // フロントの一部画面は `channel:<channelId>` を投げて最新動画を取ろうとする。
         // YouTube Search API では q=channel:... が有効でないことが多いので、専用ルートで補完する。
+        // 共有カタログが新しければキャッシュから返し、古い場合もアップロード再生リスト経由（1ユニット）で取得する。
         Matcher matcher = CHANNEL_QUERY.matcher(query);
         if (matcher.matches()) {
             String channelId = matcher.group(1);
-            return youTubeDataApiService
-                    .fetchLatestVideoForChannel(accessToken, channelId)
-                    .map(v -> List.of(new YouTubeDataApiService.VideoSearchResult(
-                            v.videoId(),
-                            v.title(),
-                            null,
-                        channelId,
-                        v.thumbnailUrl(),
-                        null,
-                        v.publishedAt())))
+            return channelCatalogService
+                    .refresh(accessToken, channelId)
+                    .filter(entry -> entry.getLatestVideoId() != null && !entry.getLatestVideoId().isBlank())
+                    .map(entry -> List.of(new YouTubeDataApiService.VideoSearchResult(
+                            entry.getLatestVideoId(),
+                            entry.getLatestVideoTitle(),
+                            entry.getTitle(),
+                            channelId,
+                            entry.getLatestVideoThumbnail(),
+                            entry.getLatestVideoDuration(),
+                            entry.getLatestVideoPublishedAt() != null ? entry.getLatestVideoPublishedAt().toString() : null)))
+                    .onErrorResume(ResponseStatusException.class, e -> e.getStatusCode().value() == HttpStatus.NOT_FOUND.value()
+                            ? Mono.empty()
+                            : Mono.error(e))
                     .defaultIfEmpty(List.of());
         }
 
@@ -10,6 +10,7 @@ import org.springframework.web.server.WebSession;
 import com.charge0315.yt.service.RecommendationsService;
 import com.charge0315.yt.service.YouTubeDataApiService;
 import com.charge0315.yt.service.YouTubeChannelsService;
+import com.charge0315.yt.util.RequestContext;
 import com.charge0315.yt.util.SessionAuth;
 
 import reactor.core.publisher.Flux;
@@ -49,6 +50,9 @@ public class YoutubeRecommendationsController {
 
     /**
      * おすすめチャンネル候補を返します（おすすめ→検索→チャンネル詳細を解決）。
+     *
+     * <p>リクエストの期限までに解決できなかった候補は除き、解決済みの候補だけを返します
+     * （期限切れ以降の候補は上流へ送らずに打ち切られます）。</p>
      */
     @GetMapping("/channels")
     Mono<List<ChannelRecommendation>> channels(WebSession session) {
@@ -70,6 +74,7 @@ public class YoutubeRecommendationsController {
                         search.title(),
                         search.description(),
                         search.thumbnailUrl(),
+                        null,
                         null))))
                 .map(details -> new ChannelRecommendation(
                     details.channelId(),
@@ -77,7 +82,8 @@ public class YoutubeRecommendationsController {
                     details.thumbnailUrl(),
                     details.subscriberCount(),
                     details.description(),
-                    entry.reason())))
+                    entry.reason()))
+                .onErrorResume(RequestContext::isDeadlineExceeded, e -> Flux.empty()))
             .take(5)
             .collectList();
     }
@@ -1,10 +1,13 @@
 package com.charge0315.yt.controller;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,9 +17,13 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.WebSession;
 
+import com.charge0315.yt.util.JsonStreamWriter;
+import com.charge0315.yt.util.RequestContext;
 import com.charge0315.yt.util.SessionAuth;
 import com.charge0315.yt.service.YouTubeDataApiService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -31,8 +38,11 @@ public class YtMusicController {
 
     private final YouTubeDataApiService youTubeDataApiService;
 
-    public YtMusicController(YouTubeDataApiService youTubeDataApiService) {
+    private final ObjectMapper objectMapper;
+
+    public YtMusicController(YouTubeDataApiService youTubeDataApiService, ObjectMapper objectMapper) {
         this.youTubeDataApiService = youTubeDataApiService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -66,9 +76,13 @@ public class YtMusicController {
 
     /**
      * 指定プレイリストの詳細（name/songs 等）を返します（最小互換）。
+     *
+     * <p>{@code songs} は再生リストのページ取得に合わせて逐次書き出します。
+     * リクエストの期限に達した場合は、それまでに取得できた曲で打ち切り、{@code truncated: true} を返します。
+     * 途中のページで失敗した場合は {@code truncated: true} と {@code error} を返します。</p>
      */
     @GetMapping("/playlists/{id}")
-    Mono<ResponseEntity<Map<String, Object>>> playlistDetail(@PathVariable("id") String id, WebSession session) {
+    Mono<ResponseEntity<Flux<DataBuffer>>> playlistDetail(@PathVariable("id") String id, WebSession session) {
         SessionAuth.requireUserId(session);
         if (id == null || id.isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id_required");
@@ -76,42 +90,31 @@ public class YtMusicController {
 
         String accessToken = SessionAuth.requireYouTubeAccessToken(session);
 
-        Mono<com.fasterxml.jackson.databind.JsonNode> playlistMono = youTubeDataApiService.getPlaylist(accessToken, id);
-        Mono<List<YouTubeDataApiService.PlaylistVideo>> itemsMono = youTubeDataApiService.listPlaylistItems(accessToken,
-            id);
-
-        return Mono.zip(playlistMono, itemsMono)
-            .map(tuple -> {
-                com.fasterxml.jackson.databind.JsonNode playlist = tuple.getT1();
-                List<YouTubeDataApiService.PlaylistVideo> items = tuple.getT2();
-
-                String title = playlist.path("snippet").path("title").asText("");
-                String description = playlist.path("snippet").path("description").asText("");
+        return youTubeDataApiService
+            .getPlaylist(accessToken, id)
+            .map(playlist -> {
                 String thumb = playlist.path("snippet").path("thumbnails").path("default").path("url").asText(null);
                 if (thumb == null) {
                 thumb = playlist.path("snippet").path("thumbnails").path("medium").path("url").asText(null);
                 }
 
-                List<Map<String, Object>> songs = items.stream()
-                    .map(v -> Map.<String, Object>of(
-                        "videoId", v.videoId(),
-                        "title", v.title(),
-                        "artist", v.channelTitle() != null ? v.channelTitle() : "不明なアーティスト",
-                        "thumbnail", v.thumbnail(),
-                        "duration", v.duration(),
-                        "addedAt", v.publishedAt()))
-                    .collect(Collectors.toList());
-
-                Map<String, Object> out = Map.of(
-                    "_id", playlist.path("id").asText(id),
-                    "name", title,
-                    "description", description,
-                    "thumbnail", thumb,
-                    "songs", songs,
-                    "createdAt", playlist.path("snippet").path("publishedAt").asText(null),
-                    "updatedAt", java.time.Instant.now().toString());
-
-                return ResponseEntity.ok(out);
+                Map<String, Object> out = new LinkedHashMap<>();
+                out.put("_id", playlist.path("id").asText(id));
+                out.put("name", playlist.path("snippet").path("title").asText(""));
+                out.put("description", playlist.path("snippet").path("description").asText(""));
+                out.put("thumbnail", thumb);
+                out.put("createdAt", playlist.path("snippet").path("publishedAt").asText(null));
+                out.put("updatedAt", java.time.Instant.now().toString());
+
+                Flux<Map<String, Object>> songs = youTubeDataApiService
+                    .streamPlaylistItems(accessToken, id)
+                    .map(PlaylistsController::toSong);
+
+                return ResponseEntity
+                    .ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(JsonStreamWriter.objectWithArray(objectMapper, out, "songs", songs,
+                        RequestContext::isDeadlineExceeded));
             });
     }
 
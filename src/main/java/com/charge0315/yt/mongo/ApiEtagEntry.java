@@ -0,0 +1,59 @@
+package com.charge0315.yt.mongo;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * YouTube Data API の ETag とレスポンス本文を保存するドキュメント。
+ *
+ * <p>条件付きリクエスト（{@code If-None-Match}）で {@code 304 Not Modified} が返った場合に、
+ * 保存済みの本文を再利用します。ID はリクエストキー（スコープ + URI）のハッシュです。</p>
+ */
+@Document("youtube_etags")
+public class ApiEtagEntry {
+
+    @Id
+    private String id;
+
+    private String etag;
+
+    private String body;
+
+    @Indexed(expireAfter = "7d")
+    private Instant updatedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,9 @@
+package com.charge0315.yt.mongo;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * {@link ApiEtagEntry} を操作するReactive MongoDBリポジトリ。
+ */
+public interface ApiEtagRepository extends ReactiveMongoRepository<ApiEtagEntry, String> {
+}
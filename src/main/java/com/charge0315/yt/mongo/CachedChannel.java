@@ -3,14 +3,27 @@ package com.charge0315.yt.mongo;
 import java.time.Instant;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
  * 登録チャンネル/アーティストのキャッシュドキュメント。
  *
  * <p>ユーザーごとの登録状態と、表示に必要なチャンネル情報・最新動画情報を保存します。</p>
+ *
+ * <p>{@link CachedChannelRepository} の各クエリがインデックスだけで絞り込み・並べ替えできるよう、
+ * 複合インデックスを起動時に作成します（{@code spring.data.mongodb.auto-index-creation}）。
+ * {@code (userId, channelId)} の一意インデックス（同じチャンネルの二重登録を防ぐ）は、既存の重複を取り除いてから作る必要があるため
+ * ここでは宣言せず、{@link com.charge0315.yt.config.CachedChannelIndexInitializer} が作成します。
+ * 実際の実行計画は {@code youtube.mongo.verify-query-plans=true} で起動時に検証できます。</p>
  */
 @Document("cached_channels")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_artist_title", def = "{'userId': 1, 'isArtist': 1, 'channelTitle': 1}"),
+        @CompoundIndex(name = "user_latest_published", def = "{'userId': 1, 'latestVideoPublishedAt': -1}")
+})
 public class CachedChannel {
 
     @Id
@@ -24,8 +37,11 @@ public class CachedChannel {
 
     private String subscriberCount;
 
+    private String uploadsPlaylistId; // 最新動画検出用（playlistItems.list で参照）
+
     private Boolean isArtist;
 
+    @Indexed(name = "latest_video", sparse = true)
     private String latestVideoId;
     private String latestVideoTitle;
     private String latestVideoThumbnail;
@@ -36,6 +52,8 @@ public class CachedChannel {
 
     private Integer videoCount;
 
+    private Long catalogHash; // 最後に反映したカタログ表示項目のハッシュ（キャッシュ更新の変更検出用）
+
     private Instant createdAt;
     private Instant updatedAt;
 
@@ -95,6 +113,14 @@ public class CachedChannel {
         this.subscriberCount = subscriberCount;
     }
 
+    public String getUploadsPlaylistId() {
+        return uploadsPlaylistId;
+    }
+
+    public void setUploadsPlaylistId(String uploadsPlaylistId) {
+        this.uploadsPlaylistId = uploadsPlaylistId;
+    }
+
     public Boolean getIsArtist() {
         return isArtist;
     }
@@ -159,6 +185,14 @@ public class CachedChannel {
         this.videoCount = videoCount;
     }
 
+    public Long getCatalogHash() {
+        return catalogHash;
+    }
+
+    public void setCatalogHash(Long catalogHash) {
+        this.catalogHash = catalogHash;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,21 @@
+package com.charge0315.yt.mongo;
+
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link CachedChannelRepository} に追加する一括の部分更新。
+ *
+ * <p>{@code save} はドキュメント全体を1件ずつ置き換えるため、変更のあった項目だけを
+ * {@code $set} する更新を1回の {@code bulkWrite} にまとめて送ります。</p>
+ */
+public interface CachedChannelBulkOperations {
+
+    /**
+     * ドキュメントID → （プロパティ名 → 新しい値）を {@code $set} で一括更新し、更新された件数を返します。
+     *
+     * <p>値が {@code null} のプロパティは {@code null} を設定します。空のマップなら何も送りません。</p>
+     */
+    Mono<Integer> setFields(Map<String, Map<String, Object>> fieldsById);
+}
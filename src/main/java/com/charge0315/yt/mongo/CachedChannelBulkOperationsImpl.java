@@ -0,0 +1,48 @@
+package com.charge0315.yt.mongo;
+
+import java.util.Map;
+
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link CachedChannelBulkOperations} の実装（Spring Data のリポジトリフラグメント）。
+ *
+ * <p>順序に依存しない更新なので {@link BulkMode#UNORDERED} で送ります。</p>
+ */
+class CachedChannelBulkOperationsImpl implements CachedChannelBulkOperations {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    CachedChannelBulkOperationsImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<Integer> setFields(Map<String, Map<String, Object>> fieldsById) {
+        if (fieldsById == null || fieldsById.isEmpty()) {
+            return Mono.just(0);
+        }
+        ReactiveBulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, CachedChannel.class);
+        int operations = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : fieldsById.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                continue;
+            }
+            Update update = new Update();
+            entry.getValue().forEach(update::set);
+            bulk.updateOne(Query.query(Criteria.where("id").is(entry.getKey())), update);
+            operations++;
+        }
+        if (operations == 0) {
+            return Mono.just(0);
+        }
+        return bulk.execute().map(result -> result.getModifiedCount());
+    }
+}
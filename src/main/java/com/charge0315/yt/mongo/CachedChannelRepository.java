@@ -1,7 +1,8 @@
 package com.charge0315.yt.mongo;
 
-import java.time.Instant;
+import java.util.Collection;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 
 import reactor.core.publisher.Flux;
@@ -10,9 +11,12 @@ import reactor.core.publisher.Mono;
 /**
  * {@link CachedChannel} を操作するReactive MongoDBリポジトリ。
  *
- * <p>ユーザーIDや artist フラグでの検索、購読解除（削除）などを提供します。</p>
+ * <p>ユーザーIDや artist フラグでの検索、購読解除（削除）などを提供します。
+ * 変更項目だけの一括更新は {@link CachedChannelBulkOperations} です。
+ * 一覧表示用のクエリは {@code Class<T>} を受け取る射影版を使い、{@link ChannelSummary} などの必要な項目だけを取得します。</p>
  */
-public interface CachedChannelRepository extends ReactiveMongoRepository<CachedChannel, String> {
+public interface CachedChannelRepository
+        extends ReactiveMongoRepository<CachedChannel, String>, CachedChannelBulkOperations {
 
     Mono<CachedChannel> findFirstByUserIdAndChannelId(String userId, String channelId);
 
@@ -22,13 +26,22 @@ public interface CachedChannelRepository extends ReactiveMongoRepository<CachedC
 
     Flux<CachedChannel> findByUserIdAndIsArtistTrueOrderByChannelTitleAsc(String userId);
 
-    Flux<CachedChannel> findByUserIdAndLatestVideoIdNotNullAndLatestVideoPublishedAtNotNullOrderByLatestVideoPublishedAtDesc(
-            String userId);
+    /**
+     * {@link #findByUserIdAndIsArtistFalseOrderByChannelTitleAsc(String)} の射影版（{@code type} の項目だけを取得）。
+     */
+    <T> Flux<T> findByUserIdAndIsArtistFalseOrderByChannelTitleAsc(String userId, Class<T> type);
+
+    /**
+     * {@link #findByUserIdAndIsArtistTrueOrderByChannelTitleAsc(String)} の射影版（{@code type} の項目だけを取得）。
+     */
+    <T> Flux<T> findByUserIdAndIsArtistTrueOrderByChannelTitleAsc(String userId, Class<T> type);
+
+    <T> Flux<T> findByUserIdAndLatestVideoIdNotNullAndLatestVideoPublishedAtNotNullOrderByLatestVideoPublishedAtDesc(
+            String userId, Limit limit, Class<T> type);
+
+    Flux<CachedChannel> findByLatestVideoIdIn(Collection<String> latestVideoIds);
 
     Mono<Long> deleteByUserIdAndChannelId(String userId, String channelId);
 
     Mono<Long> deleteByUserIdAndId(String userId, String id);
-
-    Flux<CachedChannel> findByUserIdAndLatestVideoPublishedAtAfterOrderByLatestVideoPublishedAtDesc(String userId,
-            Instant after);
 }
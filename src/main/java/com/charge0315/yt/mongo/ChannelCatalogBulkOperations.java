@@ -0,0 +1,23 @@
+package com.charge0315.yt.mongo;
+
+import java.util.Collection;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ChannelCatalogRepository} に追加する一括の部分更新。
+ *
+ * <p>{@code saveAll} はカタログ全体を置き換えるため、並行するカタログ更新の結果を古い内容で上書きしてしまいます。
+ * 補完した項目だけを {@code $set} する更新を1回の {@code bulkWrite} にまとめて送ります。</p>
+ */
+public interface ChannelCatalogBulkOperations {
+
+    /**
+     * 最新動画の尺/再生回数（{@code latestVideoDuration}/{@code latestVideoViewCount}）だけを一括更新し、
+     * 更新された件数を返します。
+     *
+     * <p>照合条件に {@code latestVideoId} を含めるため、その間にカタログ更新で最新動画が変わっていれば書き込みません。
+     * 値が空の項目は書き込みません。空なら何も送りません。</p>
+     */
+    Mono<Integer> setLatestVideoDetails(Collection<ChannelCatalogEntry> entries);
+}
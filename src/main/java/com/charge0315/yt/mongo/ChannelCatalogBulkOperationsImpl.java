@@ -0,0 +1,58 @@
+package com.charge0315.yt.mongo;
+
+import java.util.Collection;
+
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.util.StringUtils;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ChannelCatalogBulkOperations} の実装（Spring Data のリポジトリフラグメント）。
+ *
+ * <p>順序に依存しない更新なので {@link BulkMode#UNORDERED} で送ります。</p>
+ */
+class ChannelCatalogBulkOperationsImpl implements ChannelCatalogBulkOperations {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    ChannelCatalogBulkOperationsImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<Integer> setLatestVideoDetails(Collection<ChannelCatalogEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return Mono.just(0);
+        }
+        ReactiveBulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, ChannelCatalogEntry.class);
+        int operations = 0;
+        for (ChannelCatalogEntry entry : entries) {
+            if (!StringUtils.hasText(entry.getChannelId()) || !StringUtils.hasText(entry.getLatestVideoId())) {
+                continue;
+            }
+            Update update = new Update();
+            if (StringUtils.hasText(entry.getLatestVideoDuration())) {
+                update.set("latestVideoDuration", entry.getLatestVideoDuration());
+            }
+            if (entry.getLatestVideoViewCount() != null) {
+                update.set("latestVideoViewCount", entry.getLatestVideoViewCount());
+            }
+            if (update.getUpdateObject().isEmpty()) {
+                continue;
+            }
+            bulk.updateOne(Query.query(Criteria.where("channelId").is(entry.getChannelId())
+                    .and("latestVideoId").is(entry.getLatestVideoId())), update);
+            operations++;
+        }
+        if (operations == 0) {
+            return Mono.just(0);
+        }
+        return bulk.execute().map(result -> result.getModifiedCount());
+    }
+}
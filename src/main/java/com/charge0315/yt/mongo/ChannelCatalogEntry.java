@@ -0,0 +1,161 @@
+package com.charge0315.yt.mongo;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * ユーザー横断で共有するチャンネルカタログのドキュメント。
+ *
+ * <p>チャンネル詳細と最新動画情報を {@code channelId} 単位で1件だけ保持します。
+ * 購読ドキュメント（{@link CachedChannel}）は {@code channelId} でこのカタログを参照します。
+ * 存在しないチャンネルは {@code notFound=true} のネガティブエントリとして保存します。</p>
+ */
+@Document("channel_catalog")
+public class ChannelCatalogEntry {
+
+    @Id
+    private String channelId;
+
+    private String title;
+    private String description;
+    private String thumbnailUrl;
+    private String subscriberCount;
+    private String uploadsPlaylistId;
+
+    private Boolean notFound;
+
+    @Indexed(name = "latest_video", sparse = true)
+    private String latestVideoId;
+    private String latestVideoTitle;
+    private String latestVideoThumbnail;
+    private Instant latestVideoPublishedAt;
+
+    private String latestVideoDuration;
+    private Long latestVideoViewCount;
+
+    private Instant detailsFetchedAt;
+    private Instant latestVideoFetchedAt;
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public void setChannelId(String channelId) {
+        this.channelId = channelId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getSubscriberCount() {
+        return subscriberCount;
+    }
+
+    public void setSubscriberCount(String subscriberCount) {
+        this.subscriberCount = subscriberCount;
+    }
+
+    public String getUploadsPlaylistId() {
+        return uploadsPlaylistId;
+    }
+
+    public void setUploadsPlaylistId(String uploadsPlaylistId) {
+        this.uploadsPlaylistId = uploadsPlaylistId;
+    }
+
+    public Boolean getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(Boolean notFound) {
+        this.notFound = notFound;
+    }
+
+    public String getLatestVideoId() {
+        return latestVideoId;
+    }
+
+    public void setLatestVideoId(String latestVideoId) {
+        this.latestVideoId = latestVideoId;
+    }
+
+    public String getLatestVideoTitle() {
+        return latestVideoTitle;
+    }
+
+    public void setLatestVideoTitle(String latestVideoTitle) {
+        this.latestVideoTitle = latestVideoTitle;
+    }
+
+    public String getLatestVideoThumbnail() {
+        return latestVideoThumbnail;
+    }
+
+    public void setLatestVideoThumbnail(String latestVideoThumbnail) {
+        this.latestVideoThumbnail = latestVideoThumbnail;
+    }
+
+    public Instant getLatestVideoPublishedAt() {
+        return latestVideoPublishedAt;
+    }
+
+    public void setLatestVideoPublishedAt(Instant latestVideoPublishedAt) {
+        this.latestVideoPublishedAt = latestVideoPublishedAt;
+    }
+
+    public String getLatestVideoDuration() {
+        return latestVideoDuration;
+    }
+
+    public void setLatestVideoDuration(String latestVideoDuration) {
+        this.latestVideoDuration = latestVideoDuration;
+    }
+
+    public Long getLatestVideoViewCount() {
+        return latestVideoViewCount;
+    }
+
+    public void setLatestVideoViewCount(Long latestVideoViewCount) {
+        this.latestVideoViewCount = latestVideoViewCount;
+    }
+
+    public Instant getDetailsFetchedAt() {
+        return detailsFetchedAt;
+    }
+
+    public void setDetailsFetchedAt(Instant detailsFetchedAt) {
+        this.detailsFetchedAt = detailsFetchedAt;
+    }
+
+    public Instant getLatestVideoFetchedAt() {
+        return latestVideoFetchedAt;
+    }
+
+    public void setLatestVideoFetchedAt(Instant latestVideoFetchedAt) {
+        this.latestVideoFetchedAt = latestVideoFetchedAt;
+    }
+}
@@ -0,0 +1,19 @@
+package com.charge0315.yt.mongo;
+
+import java.util.Collection;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link ChannelCatalogEntry} を操作するReactive MongoDBリポジトリ。
+ *
+ * <p>ID は {@code channelId} なので、{@code findById}/{@code findAllById} でカタログを引きます。
+ * 補完した項目だけの一括更新は {@link ChannelCatalogBulkOperations} です。</p>
+ */
+public interface ChannelCatalogRepository
+        extends ReactiveMongoRepository<ChannelCatalogEntry, String>, ChannelCatalogBulkOperations {
+
+    Flux<ChannelCatalogEntry> findByLatestVideoIdIn(Collection<String> latestVideoIds);
+}
@@ -0,0 +1,44 @@
+package com.charge0315.yt.mongo;
+
+import java.time.Instant;
+
+/**
+ * {@link CachedChannel} の一覧表示用の読み取りモデル（射影）。
+ *
+ * <p>チャンネル/アーティスト一覧、新着一覧、新着タイムラインの組み立てで使う項目だけを持ちます。
+ * 説明文（数KBになりうる {@code channelDescription}）などは MongoDB から送らせません。
+ * 書き込みには使わないでください（保存すると持っていない項目が消えます）。</p>
+ */
+public record ChannelSummary(
+        String id,
+        String channelId,
+        String channelTitle,
+        String thumbnailUrl,
+        Boolean isArtist,
+        String latestVideoId,
+        String latestVideoTitle,
+        String latestVideoThumbnail,
+        Instant latestVideoPublishedAt,
+        String latestVideoDuration,
+        Long latestVideoViewCount,
+        Integer videoCount) {
+
+    /**
+     * 読み込み済みのドキュメントから作ります（登録直後など、射影せずに取得した場合用）。
+     */
+    public static ChannelSummary of(CachedChannel doc) {
+        return new ChannelSummary(
+                doc.getId(),
+                doc.getChannelId(),
+                doc.getChannelTitle(),
+                doc.getThumbnailUrl(),
+                doc.getIsArtist(),
+                doc.getLatestVideoId(),
+                doc.getLatestVideoTitle(),
+                doc.getLatestVideoThumbnail(),
+                doc.getLatestVideoPublishedAt(),
+                doc.getLatestVideoDuration(),
+                doc.getLatestVideoViewCount(),
+                doc.getVideoCount());
+    }
+}
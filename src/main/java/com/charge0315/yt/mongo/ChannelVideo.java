@@ -0,0 +1,97 @@
+package com.charge0315.yt.mongo;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * チャンネルごとの直近のアップロード動画（ユーザー横断で共有）のドキュメント。
+ *
+ * <p>ID は {@code videoId} です。チャンネルのフィードや新着一覧は
+ * {@code (channelId, publishedAt)} の複合インデックスを使った範囲検索で引きます。
+ * カタログの更新経路（{@code ChannelCatalogService}）だけが書き込み、チャンネルごとに直近 N 件だけを残します。</p>
+ */
+@Document("channel_videos")
+@CompoundIndex(name = "channel_published", def = "{'channelId': 1, 'publishedAt': -1}")
+public class ChannelVideo {
+
+    @Id
+    private String videoId;
+
+    private String channelId;
+
+    private String title;
+    private String thumbnailUrl;
+    private Instant publishedAt;
+
+    private String duration;
+    private Long viewCount;
+
+    private Instant fetchedAt;
+
+    public String getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(String videoId) {
+        this.videoId = videoId;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public void setChannelId(String channelId) {
+        this.channelId = channelId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public Instant getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(Instant publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+
+    public String getDuration() {
+        return duration;
+    }
+
+    public void setDuration(String duration) {
+        this.duration = duration;
+    }
+
+    public Long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(Long viewCount) {
+        this.viewCount = viewCount;
+    }
+
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(Instant fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+}
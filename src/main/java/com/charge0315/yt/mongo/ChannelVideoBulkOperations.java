@@ -0,0 +1,19 @@
+package com.charge0315.yt.mongo;
+
+import java.util.Collection;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ChannelVideoRepository} に追加する一括の upsert。
+ *
+ * <p>{@code saveAll} は1件ずつ置き換えを送るため、新規/変更のあった動画だけを
+ * 1回の {@code bulkWrite} にまとめて送ります。</p>
+ */
+public interface ChannelVideoBulkOperations {
+
+    /**
+     * 動画を videoId で upsert し、追加または更新された件数を返します。空なら何も送りません。
+     */
+    Mono<Integer> upsertAll(Collection<ChannelVideo> videos);
+}
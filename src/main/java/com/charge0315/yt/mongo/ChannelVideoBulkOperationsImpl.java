@@ -0,0 +1,46 @@
+package com.charge0315.yt.mongo;
+
+import java.util.Collection;
+
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ChannelVideoBulkOperations} の実装（Spring Data のリポジトリフラグメント）。
+ *
+ * <p>動画ごとに独立した upsert なので {@link BulkMode#UNORDERED} で送ります。</p>
+ */
+class ChannelVideoBulkOperationsImpl implements ChannelVideoBulkOperations {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    ChannelVideoBulkOperationsImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<Integer> upsertAll(Collection<ChannelVideo> videos) {
+        if (videos == null || videos.isEmpty()) {
+            return Mono.just(0);
+        }
+        ReactiveBulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, ChannelVideo.class);
+        for (ChannelVideo video : videos) {
+            Update update = new Update()
+                    .set("channelId", video.getChannelId())
+                    .set("title", video.getTitle())
+                    .set("thumbnailUrl", video.getThumbnailUrl())
+                    .set("publishedAt", video.getPublishedAt())
+                    .set("duration", video.getDuration())
+                    .set("viewCount", video.getViewCount())
+                    .set("fetchedAt", video.getFetchedAt());
+            bulk.upsert(Query.query(Criteria.where("videoId").is(video.getVideoId())), update);
+        }
+        return bulk.execute().map(result -> result.getUpserts().size() + result.getModifiedCount());
+    }
+}
@@ -0,0 +1,21 @@
+package com.charge0315.yt.mongo;
+
+import java.util.Collection;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * {@link ChannelVideo} を操作するReactive MongoDBリポジトリ。
+ *
+ * <p>いずれも {@code (channelId, publishedAt)} の複合インデックスで引けるクエリです。
+ * 新規/変更分だけの一括 upsert は {@link ChannelVideoBulkOperations} です。</p>
+ */
+public interface ChannelVideoRepository
+        extends ReactiveMongoRepository<ChannelVideo, String>, ChannelVideoBulkOperations {
+
+    Flux<ChannelVideo> findByChannelIdOrderByPublishedAtDesc(String channelId);
+
+    Flux<ChannelVideo> findByChannelIdInOrderByPublishedAtDesc(Collection<String> channelIds);
+}
@@ -0,0 +1,49 @@
+package com.charge0315.yt.mongo;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * ユーザーごとの新着（登録チャンネルの最新動画が新しい順の上位 N 件）を書き込み時に組み立てておくドキュメント。
+ *
+ * <p>ID は {@code userId} です。購読ドキュメント（{@link CachedChannel}）の一覧表示用の項目（{@link ChannelSummary}）を上位 N 件だけ持ち、
+ * {@code /api/artists/new-releases} は ID 指定の1回の読み取りで返します。
+ * 購読の追加/解除、アーティストフラグの変更、キャッシュ更新のたびに作り直します。</p>
+ */
+@Document("new_releases")
+public class NewReleases {
+
+    @Id
+    private String userId;
+
+    private List<ChannelSummary> items;
+
+    private Instant updatedAt;
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public List<ChannelSummary> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ChannelSummary> items) {
+        this.items = items;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,9 @@
+package com.charge0315.yt.mongo;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * {@link NewReleases} を操作するReactive MongoDBリポジトリ（{@code userId} での読み書きのみ）。
+ */
+public interface NewReleasesRepository extends ReactiveMongoRepository<NewReleases, String> {
+}
@@ -0,0 +1,75 @@
+package com.charge0315.yt.mongo;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * 再生リストごとの {@code videoId → playlistItemId} 索引ドキュメント。
+ *
+ * <p>動画の削除（playlistItems.delete）には playlistItemId が必要なため、
+ * 一覧の全ページから作った対応表を保持し、削除時の一覧取得を省きます。
+ * 同じ動画が複数回入っている場合に備え、値は playlistItemId のリストです。</p>
+ *
+ * <p>{@code etag} は索引と一致することを確認済みの再生リストの ETag です。
+ * 自分の追加/削除で索引を更新した直後など、未確認の場合は {@code null} になります。</p>
+ */
+@Document("playlist_item_index")
+public class PlaylistItemIndex {
+
+    @Id
+    private String playlistId;
+
+    private Map<String, List<String>> items;
+
+    private String etag;
+
+    private Instant builtAt;
+
+    @Indexed(expireAfter = "30d")
+    private Instant updatedAt;
+
+    public String getPlaylistId() {
+        return playlistId;
+    }
+
+    public void setPlaylistId(String playlistId) {
+        this.playlistId = playlistId;
+    }
+
+    public Map<String, List<String>> getItems() {
+        return items;
+    }
+
+    public void setItems(Map<String, List<String>> items) {
+        this.items = items;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    public void setBuiltAt(Instant builtAt) {
+        this.builtAt = builtAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,9 @@
+package com.charge0315.yt.mongo;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+/**
+ * {@link PlaylistItemIndex} を操作するReactive MongoDBリポジトリ。
+ */
+public interface PlaylistItemIndexRepository extends ReactiveMongoRepository<PlaylistItemIndex, String> {
+}
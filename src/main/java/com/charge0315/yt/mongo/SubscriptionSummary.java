@@ -0,0 +1,46 @@
+package com.charge0315.yt.mongo;
+
+import java.time.Instant;
+
+/**
+ * {@link CachedChannel} の YouTube チャンネル一覧（{@code /api/youtube/channels}）用の読み取りモデル（射影）。
+ *
+ * <p>説明文はカタログから返すため持ちません。書き込みには使わないでください。</p>
+ */
+public record SubscriptionSummary(
+        String id,
+        String userId,
+        String channelId,
+        String channelTitle,
+        String thumbnailUrl,
+        String subscriberCount,
+        String latestVideoId,
+        String latestVideoTitle,
+        String latestVideoThumbnail,
+        Instant latestVideoPublishedAt,
+        String latestVideoDuration,
+        Long latestVideoViewCount,
+        Instant createdAt,
+        Instant updatedAt) {
+
+    /**
+     * 読み込み済みのドキュメントから作ります（登録/更新直後など、射影せずに取得した場合用）。
+     */
+    public static SubscriptionSummary of(CachedChannel doc) {
+        return new SubscriptionSummary(
+                doc.getId(),
+                doc.getUserId(),
+                doc.getChannelId(),
+                doc.getChannelTitle(),
+                doc.getThumbnailUrl(),
+                doc.getSubscriberCount(),
+                doc.getLatestVideoId(),
+                doc.getLatestVideoTitle(),
+                doc.getLatestVideoThumbnail(),
+                doc.getLatestVideoPublishedAt(),
+                doc.getLatestVideoDuration(),
+                doc.getLatestVideoViewCount(),
+                doc.getCreatedAt(),
+                doc.getUpdatedAt());
+    }
+}
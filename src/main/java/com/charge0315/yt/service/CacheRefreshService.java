@@ -1,58 +1,117 @@
 package com.charge0315.yt.service;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.charge0315.yt.mongo.CachedChannel;
 import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelCatalogEntry;
+import com.charge0315.yt.util.RequestContext;
 
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
  * MongoDB に保存されているチャンネルキャッシュを更新するサービス。
  *
  * <p>{@code /api/cache/refresh} から呼ばれ、登録済みチャンネルの
- * チャンネル詳細・最新動画情報を順次更新します。</p>
+ * チャンネル詳細・最新動画情報を共有カタログ経由でまとめて更新します。</p>
  */
 @Service
 public class CacheRefreshService {
 
     private final CachedChannelRepository cachedChannelRepository;
 
-    private final YouTubeDataApiService youTubeDataApiService;
+    private final ChannelCatalogService channelCatalogService;
 
-    public CacheRefreshService(CachedChannelRepository cachedChannelRepository, YouTubeDataApiService youTubeDataApiService) {
+    private final NewReleasesService newReleasesService;
+
+    public CacheRefreshService(
+            CachedChannelRepository cachedChannelRepository,
+            ChannelCatalogService channelCatalogService,
+            NewReleasesService newReleasesService) {
         this.cachedChannelRepository = cachedChannelRepository;
-        this.youTubeDataApiService = youTubeDataApiService;
+        this.channelCatalogService = channelCatalogService;
+        this.newReleasesService = newReleasesService;
     }
 
     /**
      * 指定ユーザーのチャンネルキャッシュを更新し、チェック/更新件数を返します。
+     *
+     * <p>チャンネル詳細/動画詳細は共有カタログ経由で 50件単位のバッチ取得を行います。
+     * 購読ドキュメントは前回反映したカタログのハッシュと比べて変わったものだけを対象に、変わった項目だけを
+     * {@code $set} する1回の {@code bulkWrite} で書き込みます（変更が無ければ書き込みなし）。
+     * 表示項目に変更があれば新着一覧（{@link NewReleasesService}）も作り直します。
+     * API 呼び出しは {@code BACKGROUND} 優先度で行い、画面操作用のクォータ予約分は使いません。</p>
      */
     public Mono<RefreshResult> refreshUserCache(String userId, String accessToken) {
         if (!StringUtils.hasText(accessToken)) {
-            return Mono.just(new RefreshResult(false, "youtube_access_token_missing", 0, 0));
+            return Mono.just(new RefreshResult(false, "youtube_access_token_missing", 0, 0, 0));
         }
 
-        Flux<CachedChannel> docs = cachedChannelRepository.findByUserId(userId);
-
-        return docs
-                .flatMap(doc -> refreshChannel(doc, accessToken), 3)
-                .reduce(new int[] { 0, 0 }, (acc, changed) -> {
-                    acc[0] += 1; // checked
-                    if (changed) acc[1] += 1; // updated
-                    return acc;
-                })
-                .map(acc -> new RefreshResult(true, null, acc[0], acc[1]))
+        return cachedChannelRepository
+                .findByUserId(userId)
+                .filter(doc -> StringUtils.hasText(doc.getChannelId()))
+                .collectList()
+                .flatMap(docs -> channelCatalogService
+                        .refreshAll(accessToken, docs.stream().map(CachedChannel::getChannelId).toList())
+                        .flatMap(batch -> {
+                            Instant now = Instant.now();
+                            Map<String, Map<String, Object>> updates = new LinkedHashMap<>();
+                            int changed = 0;
+                            int failed = 0;
+                            for (CachedChannel doc : docs) {
+                                if (batch.failed().contains(doc.getChannelId())) {
+                                    failed++;
+                                }
+                                ChannelCatalogEntry entry = batch.entries().get(doc.getChannelId());
+                                if (entry == null || Boolean.TRUE.equals(entry.getNotFound())) {
+                                    continue;
+                                }
+                                // 前回反映したときからカタログが変わっていなければ比較も書き込みもしない
+                                long hash = ChannelCatalogService.catalogHash(entry);
+                                if (doc.getCatalogHash() != null && doc.getCatalogHash() == hash) {
+                                    continue;
+                                }
+                                Map<String, Object> before = ChannelCatalogService.displayFields(doc);
+                                ChannelCatalogService.applyTo(entry, doc);
+                                Map<String, Object> set = ChannelCatalogService.changedFields(before,
+                                        ChannelCatalogService.displayFields(doc));
+                                if (!set.isEmpty()) {
+                                    set.put("updatedAt", now);
+                                    changed++;
+                                }
+                                set.put("catalogHash", hash);
+                                updates.put(doc.getId(), set);
+                            }
+                            // 全件が失敗した場合は YouTube 側の障害（ブレーカー開放など）として失敗を返す
+                            RefreshResult result = failed > 0 && failed == docs.size()
+                                    ? new RefreshResult(false, "youtube_unavailable", docs.size(), changed, failed)
+                                    : new RefreshResult(true, null, docs.size(), changed, failed);
+                            // 新着一覧は表示項目に変更があったときだけ作り直す
+                            Mono<Void> newReleases = changed == 0
+                                    ? Mono.empty()
+                                    : newReleasesService.rebuild(userId);
+                            return cachedChannelRepository
+                                    .setFields(updates)
+                                    .then(newReleases)
+                                    .then(Mono.just(result));
+                        }))
+                .contextWrite(RequestContext::background)
                 .onErrorResume(e -> {
                     if (isMongoUnavailable(e)) {
-                        return Mono.just(new RefreshResult(false, "mongodb_not_connected", 0, 0));
+                        return Mono.just(new RefreshResult(false, "mongodb_not_connected", 0, 0, 0));
+                    }
+                    if (e instanceof ResponseStatusException rse && rse.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                        return Mono.just(new RefreshResult(false, "youtube_quota_exceeded", 0, 0, 0));
                     }
-                    return Mono.just(new RefreshResult(false, "internal_error", 0, 0));
+                    return Mono.just(new RefreshResult(false, "internal_error", 0, 0, 0));
                 });
     }
 
@@ -76,96 +135,10 @@ public class CacheRefreshService {
         return false;
     }
 
-    private Mono<Boolean> refreshChannel(CachedChannel doc, String accessToken) {
-        if (doc == null || !StringUtils.hasText(doc.getChannelId())) {
-            return Mono.just(false);
-        }
-
-        Mono<YouTubeDataApiService.ChannelDetails> detailsMono = youTubeDataApiService.getChannelDetails(accessToken,
-                doc.getChannelId());
-        Mono<YouTubeDataApiService.LatestVideo> latestMono = youTubeDataApiService
-                .fetchLatestVideoForChannel(accessToken, doc.getChannelId())
-                .switchIfEmpty(Mono.just(new YouTubeDataApiService.LatestVideo(null, null, null, null)));
-
-        return Mono.zip(detailsMono, latestMono)
-                .flatMap(tuple -> {
-                    YouTubeDataApiService.ChannelDetails details = tuple.getT1();
-                    YouTubeDataApiService.LatestVideo latest = tuple.getT2();
-
-                    boolean changedByDetails = false;
-                    if (StringUtils.hasText(details.subscriberCount())
-                            && (doc.getSubscriberCount() == null || doc.getSubscriberCount().isBlank())) {
-                        doc.setSubscriberCount(details.subscriberCount());
-                        changedByDetails = true;
-                    }
-
-                    if (!StringUtils.hasText(latest.videoId())) {
-                        // 最新動画が取れない場合は更新しない（既存値は保持）
-                        if (changedByDetails) {
-                            doc.setUpdatedAt(Instant.now());
-                            return cachedChannelRepository.save(doc).thenReturn(true);
-                        }
-                        return Mono.just(false);
-                    }
-
-                    boolean isNewVideo = doc.getLatestVideoId() == null || !doc.getLatestVideoId().equals(latest.videoId());
-                    boolean needsVideoDetails = isNewVideo
-                            || doc.getLatestVideoDuration() == null
-                            || doc.getLatestVideoDuration().isBlank()
-                            || doc.getLatestVideoViewCount() == null;
-
-                    Mono<YouTubeDataApiService.VideoDetails> videoDetailsMono = needsVideoDetails
-                            ? youTubeDataApiService.getVideoDetails(accessToken, latest.videoId())
-                                    .switchIfEmpty(Mono.just(new YouTubeDataApiService.VideoDetails(null, null)))
-                            : Mono.just(new YouTubeDataApiService.VideoDetails(doc.getLatestVideoDuration(), doc.getLatestVideoViewCount()));
-
-                    final boolean detailsChangedFinal = changedByDetails;
-
-                    return videoDetailsMono.flatMap(videoDetails -> {
-                        boolean changed = detailsChangedFinal;
-
-                        if (isNewVideo) {
-                            doc.setLatestVideoId(latest.videoId());
-                            doc.setLatestVideoTitle(latest.title());
-                            doc.setLatestVideoThumbnail(latest.thumbnailUrl());
-                            doc.setLatestVideoPublishedAt(parseInstant(latest.publishedAt()));
-                            doc.setLatestVideoDuration(videoDetails.duration());
-                            doc.setLatestVideoViewCount(videoDetails.viewCount());
-                            changed = true;
-                        } else {
-                            if ((doc.getLatestVideoDuration() == null || doc.getLatestVideoDuration().isBlank())
-                                    && StringUtils.hasText(videoDetails.duration())) {
-                                doc.setLatestVideoDuration(videoDetails.duration());
-                                changed = true;
-                            }
-                            if (doc.getLatestVideoViewCount() == null && videoDetails.viewCount() != null) {
-                                doc.setLatestVideoViewCount(videoDetails.viewCount());
-                                changed = true;
-                            }
-                        }
-
-                        if (!changed) {
-                            return Mono.just(false);
-                        }
-                        doc.setUpdatedAt(Instant.now());
-                        return cachedChannelRepository.save(doc).thenReturn(true);
-                    });
-                })
-                // refresh は失敗しても全体を止めない
-                .onErrorResume(e -> Mono.just(false));
-    }
-
-    private static Instant parseInstant(String value) {
-        if (value == null || value.isBlank()) {
-            return null;
-        }
-        try {
-            return Instant.parse(value);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    public record RefreshResult(boolean ok, String error, int checked, int updated) {
+    /**
+     * 更新結果。{@code failed} は YouTube API の失敗で更新できなかった（既存値のままの）件数で、
+     * 全件失敗の判定にだけ使います（{@code POST /api/cache/refresh} の応答には含めません）。
+     */
+    public record RefreshResult(boolean ok, String error, int checked, int updated, int failed) {
     }
 }
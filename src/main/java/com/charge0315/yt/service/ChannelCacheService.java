@@ -1,112 +1,96 @@
 package com.charge0315.yt.service;
 
-import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.charge0315.yt.mongo.CachedChannel;
 import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelCatalogEntry;
+import com.charge0315.yt.mongo.ChannelSummary;
 
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Flux;
 
 /**
  * チャンネル/アーティストの登録情報を MongoDB にキャッシュし、一覧や新着（最新動画）を提供するサービス。
  *
- * <p>登録時は YouTube Data API からチャンネル詳細と最新動画を取得し、
+ * <p>登録時は共有チャンネルカタログ（{@link ChannelCatalogService}）からチャンネル詳細と最新動画を解決し、
  * 表示に必要な情報（サムネイル、最新動画タイトル/尺/再生回数など）を保存します。</p>
  */
 @Service
 public class ChannelCacheService {
 
-    private final YouTubeDataApiService youTubeDataApiService;
-
     private final CachedChannelRepository cachedChannelRepository;
 
-    public ChannelCacheService(YouTubeDataApiService youTubeDataApiService, CachedChannelRepository cachedChannelRepository) {
-        this.youTubeDataApiService = youTubeDataApiService;
+    private final ChannelCatalogService channelCatalogService;
+
+    private final NewReleasesService newReleasesService;
+
+    private final VideoEnrichmentService videoEnrichmentService;
+
+    public ChannelCacheService(
+            CachedChannelRepository cachedChannelRepository,
+            ChannelCatalogService channelCatalogService,
+            NewReleasesService newReleasesService,
+            VideoEnrichmentService videoEnrichmentService) {
         this.cachedChannelRepository = cachedChannelRepository;
+        this.channelCatalogService = channelCatalogService;
+        this.newReleasesService = newReleasesService;
+        this.videoEnrichmentService = videoEnrichmentService;
     }
 
     /**
      * 登録済みチャンネル一覧（isArtist=false）を取得します。
+     *
+     * <p>購読ドキュメントは一覧に使う項目（{@link ChannelSummary}）だけを取得し、説明文はカタログから返します。</p>
      */
     public Mono<List<CachedChannelEntry>> listChannels(String userId) {
         return cachedChannelRepository
-                .findByUserIdAndIsArtistFalseOrderByChannelTitleAsc(userId)
-                .map(ChannelCacheService::toEntry)
-                .collectList();
+                .findByUserIdAndIsArtistFalseOrderByChannelTitleAsc(userId, ChannelSummary.class)
+                .collectList()
+                .flatMap(docs -> channelCatalogService
+                        .findAll(docs.stream().map(ChannelSummary::channelId).toList())
+                        .map(catalog -> docs.stream()
+                                .map(doc -> toEntry(doc, description(catalog.get(doc.channelId()), null)))
+                                .toList()));
     }
 
     /**
-     * 登録済みアーティスト一覧（isArtist=true）を取得します。
+     * 登録済みアーティスト一覧（isArtist=true）を取得します（一覧に使う項目だけを取得）。
      */
     public Mono<List<CachedChannelEntry>> listArtists(String userId) {
         return cachedChannelRepository
-                .findByUserIdAndIsArtistTrueOrderByChannelTitleAsc(userId)
-                .map(ChannelCacheService::toEntry)
+                .findByUserIdAndIsArtistTrueOrderByChannelTitleAsc(userId, ChannelSummary.class)
+                .map(doc -> toEntry(doc, null))
                 .collectList();
     }
 
     /**
      * チャンネルを登録（購読）し、保存済みエントリを返します。
+     *
+     * <p>チャンネル情報は共有カタログから解決するため、他ユーザーが登録済みのチャンネルなら API を呼びません。</p>
      */
     public Mono<CachedChannelEntry> subscribe(String userId, String accessToken, String channelId) {
         return cachedChannelRepository
                 .findFirstByUserIdAndChannelId(userId, channelId)
-                .map(ChannelCacheService::toEntry)
-                .switchIfEmpty(createAndSave(userId, accessToken, channelId));
+                .flatMap(this::toEntryWithCatalog)
+                .switchIfEmpty(Mono.defer(() -> createAndSave(userId, accessToken, channelId)))
+                // 同時に登録された場合は (userId, channelId) の一意インデックスで弾かれるので、先に保存された方を返す
+                .onErrorResume(DuplicateKeyException.class, e -> cachedChannelRepository
+                        .findFirstByUserIdAndChannelId(userId, channelId)
+                        .flatMap(this::toEntryWithCatalog));
     }
 
     private Mono<CachedChannelEntry> createAndSave(String userId, String accessToken, String channelId) {
-        Mono<YouTubeDataApiService.ChannelDetails> detailsMono = youTubeDataApiService.getChannelDetails(accessToken, channelId);
-        Mono<YouTubeDataApiService.LatestVideo> latestMono = youTubeDataApiService
-                .fetchLatestVideoForChannel(accessToken, channelId)
-                .switchIfEmpty(Mono.just(new YouTubeDataApiService.LatestVideo(null, null, null, null)));
-
-        return Mono.zip(detailsMono, latestMono)
-                .flatMap(tuple -> {
-                    YouTubeDataApiService.ChannelDetails details = tuple.getT1();
-                    YouTubeDataApiService.LatestVideo latest = tuple.getT2();
-
-                    Mono<YouTubeDataApiService.VideoDetails> videoDetailsMono = (latest.videoId() != null
-                            && !latest.videoId().isBlank())
-                                    ? youTubeDataApiService.getVideoDetails(accessToken, latest.videoId())
-                                            .switchIfEmpty(Mono.just(new YouTubeDataApiService.VideoDetails(null, null)))
-                                    : Mono.just(new YouTubeDataApiService.VideoDetails(null, null));
-
-                    return videoDetailsMono.flatMap(videoDetails -> {
-                        CachedChannel doc = new CachedChannel();
-                        doc.setId(UUID.randomUUID().toString());
-                        doc.setUserId(userId);
-                        doc.setChannelId(details.channelId());
-                        doc.setChannelTitle(details.title());
-                        doc.setChannelDescription(details.description());
-                        doc.setThumbnailUrl(details.thumbnailUrl());
-                        doc.setSubscriberCount(details.subscriberCount());
-                        doc.setIsArtist(false);
-                        doc.setVideoCount(0);
-
-                        if (latest.videoId() != null && !latest.videoId().isBlank()) {
-                            doc.setLatestVideoId(latest.videoId());
-                            doc.setLatestVideoTitle(latest.title());
-                            doc.setLatestVideoThumbnail(latest.thumbnailUrl());
-                            doc.setLatestVideoPublishedAt(parseInstant(latest.publishedAt()));
-                            doc.setLatestVideoDuration(videoDetails.duration());
-                            doc.setLatestVideoViewCount(videoDetails.viewCount());
-                        }
-
-                        java.time.Instant now = java.time.Instant.now();
-                        doc.setCreatedAt(now);
-                        doc.setUpdatedAt(now);
-                        return cachedChannelRepository.save(doc);
-                    });
-                })
-                .map(ChannelCacheService::toEntry);
+        return channelCatalogService
+                .resolve(accessToken, channelId)
+                .flatMap(entry -> cachedChannelRepository
+                        .save(ChannelCatalogService.newSubscription(userId, entry))
+                        .flatMap(doc -> newReleasesService.onSubscriptionsChanged(userId).thenReturn(doc))
+                        .map(doc -> toEntry(doc, entry)));
     }
 
     /**
@@ -118,7 +102,8 @@ public class ChannelCacheService {
                 .deleteByUserIdAndId(userId, idOrChannelId)
                 .flatMap(deleted -> deleted != null && deleted > 0
                         ? Mono.<Void>empty()
-                        : cachedChannelRepository.deleteByUserIdAndChannelId(userId, idOrChannelId).then());
+                        : cachedChannelRepository.deleteByUserIdAndChannelId(userId, idOrChannelId).then())
+                .then(newReleasesService.onSubscriptionsChanged(userId));
     }
 
     /**
@@ -133,7 +118,7 @@ public class ChannelCacheService {
                     doc.setUpdatedAt(java.time.Instant.now());
                     return cachedChannelRepository.save(doc);
                 })
-                .then();
+                .then(newReleasesService.onSubscriptionsChanged(userId));
     }
 
     /**
@@ -150,7 +135,7 @@ public class ChannelCacheService {
                     doc.setUpdatedAt(java.time.Instant.now());
                     return cachedChannelRepository.save(doc);
                 })
-                .then();
+                .then(newReleasesService.onSubscriptionsChanged(userId));
     }
 
     /**
@@ -162,83 +147,53 @@ public class ChannelCacheService {
 
     /**
      * 登録アーティストの新着（最新動画）一覧を取得します。
+     *
+     * <p>書き込み時に組み立て済みの {@link NewReleasesService} の一覧を返すだけで、読み取り時に YouTube API の呼び出しや
+     * 保存は行いません。動画詳細が欠けているものは {@link VideoEnrichmentService} に積み、裏で補完された値は次の読み取りから返ります。</p>
      */
     public Mono<List<CachedChannelEntry>> listNewReleases(String userId, String accessToken) {
-        Flux<CachedChannelEntry> flux = cachedChannelRepository
-                .findByUserIdAndLatestVideoIdNotNullAndLatestVideoPublishedAtNotNullOrderByLatestVideoPublishedAtDesc(userId)
-                .flatMap(doc -> backfillLatestVideoDetailsIfNeeded(doc, accessToken))
-                .map(ChannelCacheService::toEntry)
-                .take(20);
-        return flux.collectList();
+        return newReleasesService
+                .find(userId)
+                .doOnNext(docs -> videoEnrichmentService.enqueue(userId, accessToken, docs.stream()
+                        .filter(doc -> VideoEnrichmentService.isMissing(doc.latestVideoId(),
+                                doc.latestVideoDuration(), doc.latestVideoViewCount()))
+                        .map(ChannelSummary::latestVideoId)
+                        .toList()))
+                .map(docs -> docs.stream().map(doc -> toEntry(doc, null)).toList());
     }
 
-    private Mono<CachedChannel> backfillLatestVideoDetailsIfNeeded(CachedChannel doc, String accessToken) {
-        if (doc == null) {
-            return Mono.empty();
-        }
-        if (accessToken == null || accessToken.isBlank()) {
-            return Mono.just(doc);
-        }
-        if (doc.getLatestVideoId() == null || doc.getLatestVideoId().isBlank()) {
-            return Mono.just(doc);
-        }
-        boolean missingDuration = doc.getLatestVideoDuration() == null || doc.getLatestVideoDuration().isBlank();
-        boolean missingViewCount = doc.getLatestVideoViewCount() == null;
-        if (!missingDuration && !missingViewCount) {
-            return Mono.just(doc);
-        }
+    private Mono<CachedChannelEntry> toEntryWithCatalog(CachedChannel doc) {
+        return channelCatalogService
+                .findAll(List.of(doc.getChannelId()))
+                .map(catalog -> toEntry(doc, catalog.get(doc.getChannelId())));
+    }
 
-        return youTubeDataApiService
-                .getVideoDetails(accessToken, doc.getLatestVideoId())
-                .flatMap(details -> {
-                    boolean changed = false;
-                    if ((doc.getLatestVideoDuration() == null || doc.getLatestVideoDuration().isBlank())
-                            && details.duration() != null
-                            && !details.duration().isBlank()) {
-                        doc.setLatestVideoDuration(details.duration());
-                        changed = true;
-                    }
-                    if (doc.getLatestVideoViewCount() == null && details.viewCount() != null) {
-                        doc.setLatestVideoViewCount(details.viewCount());
-                        changed = true;
-                    }
-                    if (!changed) {
-                        return Mono.just(doc);
-                    }
-                    doc.setUpdatedAt(java.time.Instant.now());
-                    return cachedChannelRepository.save(doc);
-                })
-                .switchIfEmpty(Mono.just(doc))
-                // 読み取り時の補完なので、失敗してもレスポンス自体は返す
-                .onErrorResume(e -> Mono.just(doc));
+    private static CachedChannelEntry toEntry(CachedChannel doc, ChannelCatalogEntry catalog) {
+        return toEntry(ChannelSummary.of(doc), description(catalog, doc.getChannelDescription()));
     }
 
-    private static CachedChannelEntry toEntry(CachedChannel doc) {
-        return new CachedChannelEntry(
-                doc.getId(),
-                doc.getChannelId(),
-                doc.getChannelTitle(),
-                doc.getChannelDescription(),
-                doc.getThumbnailUrl(),
-                doc.getIsArtist() != null ? doc.getIsArtist() : false,
-                doc.getLatestVideoId(),
-                doc.getLatestVideoTitle(),
-                doc.getLatestVideoThumbnail(),
-                doc.getLatestVideoPublishedAt() != null ? doc.getLatestVideoPublishedAt().toString() : null,
-                doc.getLatestVideoDuration(),
-                doc.getLatestVideoViewCount(),
-                doc.getVideoCount() != null ? doc.getVideoCount() : 0);
+    /**
+     * 説明文はカタログを正とし、旧形式の購読ドキュメントに残っている値はフォールバックとして扱います。
+     */
+    private static String description(ChannelCatalogEntry catalog, String fallback) {
+        return catalog != null && catalog.getDescription() != null ? catalog.getDescription() : fallback;
     }
 
-    private static java.time.Instant parseInstant(String value) {
-        if (value == null || value.isBlank()) {
-            return null;
-        }
-        try {
-            return java.time.Instant.parse(value);
-        } catch (Exception e) {
-            return null;
-        }
+    private static CachedChannelEntry toEntry(ChannelSummary doc, String description) {
+        return new CachedChannelEntry(
+                doc.id(),
+                doc.channelId(),
+                doc.channelTitle(),
+                description,
+                doc.thumbnailUrl(),
+                doc.isArtist() != null ? doc.isArtist() : false,
+                doc.latestVideoId(),
+                doc.latestVideoTitle(),
+                doc.latestVideoThumbnail(),
+                doc.latestVideoPublishedAt() != null ? doc.latestVideoPublishedAt().toString() : null,
+                doc.latestVideoDuration(),
+                doc.latestVideoViewCount(),
+                doc.videoCount() != null ? doc.videoCount() : 0);
     }
 
     public record CachedChannelEntry(
@@ -0,0 +1,488 @@
+package com.charge0315.yt.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.mongo.CachedChannel;
+import com.charge0315.yt.mongo.ChannelCatalogEntry;
+import com.charge0315.yt.mongo.ChannelCatalogRepository;
+import com.charge0315.yt.util.RequestContext;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ユーザー横断のチャンネルカタログ（{@code channel_catalog}）を管理するサービス。
+ *
+ * <p>チャンネル詳細と最新動画は channelId ごとに1回だけ YouTube Data API から取得し、
+ * 同じチャンネルを購読する他ユーザーの登録/更新ではカタログを再利用します。
+ * {@code channel_not_found} もネガティブエントリとして一定時間保持します。</p>
+ *
+ * <p>最新動画の検出ではアップロード再生リストの先頭を数件まとめて取得し（同じ1ユニット）、
+ * チャンネルごとのアップロード履歴（{@link ChannelVideoService}）にも保存します。</p>
+ */
+@Service
+public class ChannelCatalogService {
+
+    private static final YouTubeDataApiService.LatestVideo EMPTY_LATEST = new YouTubeDataApiService.LatestVideo(null,
+            null, null, null);
+
+    private final YouTubeDataApiService youTubeDataApiService;
+
+    private final ChannelCatalogRepository channelCatalogRepository;
+
+    private final ChannelVideoService channelVideoService;
+
+    private final Duration refreshTtl;
+
+    private final Duration negativeTtl;
+
+    /**
+     * 最新動画の検出（チャンネル単位の呼び出し）を同時に発行する上限。
+     *
+     * <p>実際の同時実行数は {@code YouTubeConcurrencyLimiter} が AIMD で決めるため、ここはその上限
+     * （{@code youtube.concurrency.max-limit}）に合わせ、リミッターより先に頭打ちにしません。</p>
+     */
+    private final int latestVideoFanOut;
+
+    public ChannelCatalogService(
+            YouTubeDataApiService youTubeDataApiService,
+            ChannelCatalogRepository channelCatalogRepository,
+            ChannelVideoService channelVideoService,
+            @Value("${youtube.catalog.refresh-ttl:15m}") Duration refreshTtl,
+            @Value("${youtube.catalog.negative-ttl:6h}") Duration negativeTtl,
+            @Value("${youtube.concurrency.max-limit:64}") int latestVideoFanOut) {
+        this.youTubeDataApiService = youTubeDataApiService;
+        this.channelCatalogRepository = channelCatalogRepository;
+        this.channelVideoService = channelVideoService;
+        this.refreshTtl = refreshTtl;
+        this.negativeTtl = negativeTtl;
+        this.latestVideoFanOut = Math.max(1, latestVideoFanOut);
+    }
+
+    /**
+     * カタログからチャンネルを取得します。未登録（または期限切れのネガティブエントリ）の場合のみ API を呼びます。
+     */
+    public Mono<ChannelCatalogEntry> resolve(String accessToken, String channelId) {
+        return channelCatalogRepository
+                .findById(channelId)
+                .filter(entry -> !Boolean.TRUE.equals(entry.getNotFound()) || isFresh(entry))
+                .switchIfEmpty(Mono.defer(() -> fetchAndSave(accessToken, channelId, null)))
+                .flatMap(ChannelCatalogService::requireFound);
+    }
+
+    /**
+     * カタログの最新動画情報が古い場合のみ API から再取得します（他ユーザーが直近に更新済みなら API 呼び出しなし）。
+     */
+    public Mono<ChannelCatalogEntry> refresh(String accessToken, String channelId) {
+        return channelCatalogRepository
+                .findById(channelId)
+                .flatMap(entry -> isFresh(entry) ? Mono.just(entry) : fetchAndSave(accessToken, channelId, entry))
+                .switchIfEmpty(Mono.defer(() -> fetchAndSave(accessToken, channelId, null)))
+                .flatMap(ChannelCatalogService::requireFound);
+    }
+
+    /**
+     * 複数チャンネルのカタログをまとめて更新します（更新リフレッシュ用のバッチ経路）。
+     *
+     * <p>新しいエントリはそのまま返し、古いものだけを channels.list（50件単位）と
+     * videos.list（50件単位）でまとめて取得して一括保存します。最新動画の検出のみチャンネル単位で呼び出します。
+     * チャンク単位で失敗した場合は既存値を維持して続行し、失敗した channelId を {@link BatchRefresh#failed()} で返します。
+     * 戻り値のエントリにはネガティブエントリも含みます。</p>
+     */
+    public Mono<BatchRefresh> refreshAll(String accessToken, Collection<String> channelIds) {
+        List<String> ids = channelIds == null
+                ? List.of()
+                : channelIds.stream().filter(StringUtils::hasText).distinct().toList();
+        if (ids.isEmpty()) {
+            return Mono.just(new BatchRefresh(Map.of(), Set.of()));
+        }
+
+        return findAll(ids).flatMap(existing -> {
+            List<String> stale = ids.stream()
+                    .filter(id -> existing.get(id) == null || !isFresh(existing.get(id)))
+                    .toList();
+            if (stale.isEmpty()) {
+                return Mono.just(new BatchRefresh(existing, Set.of()));
+            }
+
+            Set<String> failed = ConcurrentHashMap.newKeySet();
+            return Flux.fromIterable(YouTubeDataApiService.partition(stale))
+                    .concatMap(chunk -> youTubeDataApiService
+                            .getChannelDetailsBatch(accessToken, chunk)
+                            .flatMapMany(details -> refreshChunk(accessToken, chunk, details, existing, failed))
+                            // チャンク単位の失敗は既存値を維持して続行（失敗件数として報告する）
+                            .onErrorResume(e -> {
+                                failed.addAll(chunk);
+                                return Flux.empty();
+                            }))
+                    .collectMap(ChannelCatalogEntry::getChannelId)
+                    .map(refreshed -> {
+                        Map<String, ChannelCatalogEntry> merged = new HashMap<>(existing);
+                        merged.putAll(refreshed);
+                        return new BatchRefresh(merged, Set.copyOf(failed));
+                    });
+        });
+    }
+
+    private Flux<ChannelCatalogEntry> refreshChunk(
+            String accessToken,
+            List<String> chunk,
+            Map<String, YouTubeDataApiService.ChannelDetails> details,
+            Map<String, ChannelCatalogEntry> existing,
+            Set<String> failed) {
+        Instant now = Instant.now();
+
+        // channels.list の応答に含まれないチャンネルは削除/非公開とみなしネガティブエントリにする
+        List<ChannelCatalogEntry> entries = new ArrayList<>();
+        for (String id : chunk) {
+            if (!details.containsKey(id)) {
+                entries.add(markNotFound(id, existing.get(id), now));
+            }
+        }
+
+        return Flux.fromIterable(details.values())
+                .flatMap(d -> youTubeDataApiService
+                        .fetchRecentVideosForChannel(accessToken, d.channelId(), d.uploadsPlaylistId(),
+                                channelVideoService.historySize())
+                        .map(uploads -> new FetchedChannel(d, uploads, true))
+                        .onErrorResume(e -> {
+                            failed.add(d.channelId());
+                            return Mono.just(new FetchedChannel(d, List.of(), false));
+                        }),
+                        latestVideoFanOut)
+                .collectList()
+                .flatMapMany(fetched -> {
+                    List<String> videoIds = fetched.stream()
+                            .filter(f -> needsVideoDetails(existing.get(f.details().channelId()), f.latest()))
+                            .map(f -> f.latest().videoId())
+                            .toList();
+
+                    return youTubeDataApiService
+                            .getVideoDetailsBatch(accessToken, videoIds)
+                            .onErrorResume(e -> Mono.just(Map.of()))
+                            .flatMapMany(videoDetails -> {
+                                for (FetchedChannel f : fetched) {
+                                    ChannelCatalogEntry entry = existing.get(f.details().channelId());
+                                    if (entry == null) {
+                                        entry = new ChannelCatalogEntry();
+                                    }
+                                    YouTubeDataApiService.VideoDetails vd = f.latest().videoId() != null
+                                            ? videoDetails.get(f.latest().videoId())
+                                            : null;
+                                    apply(entry, f.details(), f.latest(), f.latestOk(), vd, now);
+                                    entries.add(entry);
+                                }
+                                Map<String, List<YouTubeDataApiService.LatestVideo>> uploads = new HashMap<>();
+                                for (FetchedChannel f : fetched) {
+                                    if (f.latestOk()) {
+                                        uploads.put(f.details().channelId(), f.uploads());
+                                    }
+                                }
+                                return channelCatalogRepository
+                                        .saveAll(entries)
+                                        .collectList()
+                                        .flatMapMany(saved -> channelVideoService
+                                                .record(accessToken, uploads, videoDetails)
+                                                .thenMany(Flux.fromIterable(saved)));
+                            });
+                });
+    }
+
+    /**
+     * 指定 channelId のカタログエントリをまとめて取得します（API は呼びません）。
+     */
+    public Mono<Map<String, ChannelCatalogEntry>> findAll(Collection<String> channelIds) {
+        if (channelIds == null || channelIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return channelCatalogRepository
+                .findAllById(channelIds.stream().filter(StringUtils::hasText).distinct().toList())
+                .collectMap(ChannelCatalogEntry::getChannelId)
+                .transform(RequestContext::withinDeadline);
+    }
+
+    private boolean isFresh(ChannelCatalogEntry entry) {
+        Instant now = Instant.now();
+        if (Boolean.TRUE.equals(entry.getNotFound())) {
+            return entry.getDetailsFetchedAt() != null && entry.getDetailsFetchedAt().plus(negativeTtl).isAfter(now);
+        }
+        return entry.getLatestVideoFetchedAt() != null && entry.getLatestVideoFetchedAt().plus(refreshTtl).isAfter(now);
+    }
+
+    private Mono<ChannelCatalogEntry> fetchAndSave(String accessToken, String channelId, ChannelCatalogEntry existing) {
+        // アップロード再生リストIDはチャンネル詳細から解決するため、詳細→最新動画の順に取得する
+        return youTubeDataApiService
+                .getChannelDetails(accessToken, channelId)
+                .zipWhen(details -> youTubeDataApiService
+                        .fetchRecentVideosForChannel(accessToken, channelId, details.uploadsPlaylistId(),
+                                channelVideoService.historySize())
+                        .defaultIfEmpty(List.of()))
+                .flatMap(tuple -> {
+                    YouTubeDataApiService.ChannelDetails details = tuple.getT1();
+                    List<YouTubeDataApiService.LatestVideo> uploads = tuple.getT2();
+                    YouTubeDataApiService.LatestVideo latest = uploads.isEmpty() ? EMPTY_LATEST : uploads.get(0);
+                    ChannelCatalogEntry entry = existing != null ? existing : new ChannelCatalogEntry();
+
+                    boolean hasLatest = StringUtils.hasText(latest.videoId());
+                    boolean knownVideo = hasLatest
+                            && latest.videoId().equals(entry.getLatestVideoId())
+                            && StringUtils.hasText(entry.getLatestVideoDuration())
+                            && entry.getLatestVideoViewCount() != null;
+
+                    Mono<YouTubeDataApiService.VideoDetails> videoDetailsMono = !hasLatest || knownVideo
+                            ? Mono.just(new YouTubeDataApiService.VideoDetails(entry.getLatestVideoDuration(),
+                                    entry.getLatestVideoViewCount()))
+                            : youTubeDataApiService.getVideoDetails(accessToken, latest.videoId())
+                                    .defaultIfEmpty(new YouTubeDataApiService.VideoDetails(null, null));
+
+                    return videoDetailsMono.flatMap(videoDetails -> {
+                        apply(entry, details, latest, true, videoDetails, Instant.now());
+                        Map<String, YouTubeDataApiService.VideoDetails> known = hasLatest
+                                && StringUtils.hasText(videoDetails.duration())
+                                        ? Map.of(latest.videoId(), videoDetails)
+                                        : Map.of();
+                        return channelCatalogRepository
+                                .save(entry)
+                                .flatMap(saved -> channelVideoService
+                                        .record(accessToken, Map.of(channelId, uploads), known)
+                                        .thenReturn(saved));
+                    });
+                })
+                .onErrorResume(ChannelCatalogService::isChannelNotFound, e -> saveNotFound(channelId, existing));
+    }
+
+    private Mono<ChannelCatalogEntry> saveNotFound(String channelId, ChannelCatalogEntry existing) {
+        return channelCatalogRepository.save(markNotFound(channelId, existing, Instant.now()));
+    }
+
+    private static ChannelCatalogEntry markNotFound(String channelId, ChannelCatalogEntry existing, Instant now) {
+        ChannelCatalogEntry entry = existing != null ? existing : new ChannelCatalogEntry();
+        entry.setChannelId(channelId);
+        entry.setNotFound(true);
+        entry.setDetailsFetchedAt(now);
+        return entry;
+    }
+
+    private static boolean needsVideoDetails(ChannelCatalogEntry entry, YouTubeDataApiService.LatestVideo latest) {
+        if (!StringUtils.hasText(latest.videoId())) {
+            return false;
+        }
+        return entry == null
+                || !latest.videoId().equals(entry.getLatestVideoId())
+                || !StringUtils.hasText(entry.getLatestVideoDuration())
+                || entry.getLatestVideoViewCount() == null;
+    }
+
+    /**
+     * API の取得結果をカタログエントリへ反映します。
+     *
+     * <p>最新動画が取れない場合は既存値を保持し、取得に失敗した場合は次回の更新で再取得されるよう
+     * {@code latestVideoFetchedAt} を進めません。動画詳細が無い場合（既知の動画）は既存の尺/再生回数を維持します。</p>
+     */
+    private static void apply(
+            ChannelCatalogEntry entry,
+            YouTubeDataApiService.ChannelDetails details,
+            YouTubeDataApiService.LatestVideo latest,
+            boolean latestOk,
+            YouTubeDataApiService.VideoDetails videoDetails,
+            Instant now) {
+        entry.setChannelId(details.channelId());
+        entry.setTitle(details.title());
+        entry.setDescription(details.description());
+        entry.setThumbnailUrl(details.thumbnailUrl());
+        entry.setSubscriberCount(details.subscriberCount());
+        if (StringUtils.hasText(details.uploadsPlaylistId())) {
+            entry.setUploadsPlaylistId(details.uploadsPlaylistId());
+        }
+        entry.setNotFound(false);
+        entry.setDetailsFetchedAt(now);
+        if (latestOk) {
+            entry.setLatestVideoFetchedAt(now);
+        }
+
+        if (!StringUtils.hasText(latest.videoId())) {
+            return;
+        }
+        if (!latest.videoId().equals(entry.getLatestVideoId())) {
+            entry.setLatestVideoDuration(null);
+            entry.setLatestVideoViewCount(null);
+        }
+        entry.setLatestVideoId(latest.videoId());
+        entry.setLatestVideoTitle(latest.title());
+        entry.setLatestVideoThumbnail(latest.thumbnailUrl());
+        entry.setLatestVideoPublishedAt(parseInstant(latest.publishedAt()));
+        if (videoDetails != null) {
+            entry.setLatestVideoDuration(videoDetails.duration());
+            entry.setLatestVideoViewCount(videoDetails.viewCount());
+        }
+    }
+
+    private static Mono<ChannelCatalogEntry> requireFound(ChannelCatalogEntry entry) {
+        if (Boolean.TRUE.equals(entry.getNotFound())) {
+            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "channel_not_found"));
+        }
+        return Mono.just(entry);
+    }
+
+    private static boolean isChannelNotFound(Throwable e) {
+        return e instanceof ResponseStatusException rse
+                && rse.getStatusCode().value() == HttpStatus.NOT_FOUND.value()
+                && "channel_not_found".equals(rse.getReason());
+    }
+
+    /**
+     * カタログエントリから新しい購読ドキュメントを作成します。
+     *
+     * <p>説明文/登録者数はカタログのみに保持し、購読ドキュメントには一覧の並び替え・表示に使う項目だけを複製します。</p>
+     */
+    static CachedChannel newSubscription(String userId, ChannelCatalogEntry entry) {
+        Instant now = Instant.now();
+        CachedChannel doc = new CachedChannel();
+        doc.setId(UUID.randomUUID().toString());
+        doc.setUserId(userId);
+        doc.setChannelId(entry.getChannelId());
+        doc.setIsArtist(false);
+        doc.setVideoCount(0);
+        doc.setCreatedAt(now);
+        doc.setUpdatedAt(now);
+        applyTo(entry, doc);
+        doc.setCatalogHash(catalogHash(entry));
+        return doc;
+    }
+
+    /**
+     * カタログの表示用項目を購読ドキュメントへ反映し、変更があったかを返します。
+     */
+    static boolean applyTo(ChannelCatalogEntry entry, CachedChannel doc) {
+        boolean changed = false;
+        if (StringUtils.hasText(entry.getTitle()) && !entry.getTitle().equals(doc.getChannelTitle())) {
+            doc.setChannelTitle(entry.getTitle());
+            changed = true;
+        }
+        if (StringUtils.hasText(entry.getThumbnailUrl()) && !entry.getThumbnailUrl().equals(doc.getThumbnailUrl())) {
+            doc.setThumbnailUrl(entry.getThumbnailUrl());
+            changed = true;
+        }
+        if (StringUtils.hasText(entry.getUploadsPlaylistId())
+                && !entry.getUploadsPlaylistId().equals(doc.getUploadsPlaylistId())) {
+            doc.setUploadsPlaylistId(entry.getUploadsPlaylistId());
+            changed = true;
+        }
+        if (!StringUtils.hasText(entry.getLatestVideoId())) {
+            return changed;
+        }
+        if (!Objects.equals(entry.getLatestVideoId(), doc.getLatestVideoId())
+                || !Objects.equals(entry.getLatestVideoTitle(), doc.getLatestVideoTitle())
+                || !Objects.equals(entry.getLatestVideoThumbnail(), doc.getLatestVideoThumbnail())
+                || !Objects.equals(entry.getLatestVideoPublishedAt(), doc.getLatestVideoPublishedAt())
+                || !Objects.equals(entry.getLatestVideoDuration(), doc.getLatestVideoDuration())
+                || !Objects.equals(entry.getLatestVideoViewCount(), doc.getLatestVideoViewCount())) {
+            doc.setLatestVideoId(entry.getLatestVideoId());
+            doc.setLatestVideoTitle(entry.getLatestVideoTitle());
+            doc.setLatestVideoThumbnail(entry.getLatestVideoThumbnail());
+            doc.setLatestVideoPublishedAt(entry.getLatestVideoPublishedAt());
+            doc.setLatestVideoDuration(entry.getLatestVideoDuration());
+            doc.setLatestVideoViewCount(entry.getLatestVideoViewCount());
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * {@link #applyTo} で購読ドキュメントへ写すカタログ項目のハッシュ（64bit FNV-1a）。
+     *
+     * <p>購読ドキュメントに前回反映時の値を持たせておき、同じならカタログが変わっていないものとして比較も書き込みも省きます。</p>
+     */
+    static long catalogHash(ChannelCatalogEntry entry) {
+        long hash = 0xcbf29ce484222325L;
+        for (Object value : new Object[] {
+                entry.getTitle(), entry.getThumbnailUrl(), entry.getUploadsPlaylistId(),
+                entry.getLatestVideoId(), entry.getLatestVideoTitle(), entry.getLatestVideoThumbnail(),
+                entry.getLatestVideoPublishedAt(), entry.getLatestVideoDuration(), entry.getLatestVideoViewCount() }) {
+            String text = value != null ? value.toString() : "\u0000";
+            for (int i = 0; i < text.length(); i++) {
+                hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+            }
+            // 項目の区切り（"ab"+"c" と "a"+"bc" を区別する）
+            hash = (hash ^ 0xffff) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * {@link #applyTo} が書き換えうる購読ドキュメントの項目（プロパティ名 → 値）。
+     */
+    static Map<String, Object> displayFields(CachedChannel doc) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("channelTitle", doc.getChannelTitle());
+        fields.put("thumbnailUrl", doc.getThumbnailUrl());
+        fields.put("uploadsPlaylistId", doc.getUploadsPlaylistId());
+        fields.put("latestVideoId", doc.getLatestVideoId());
+        fields.put("latestVideoTitle", doc.getLatestVideoTitle());
+        fields.put("latestVideoThumbnail", doc.getLatestVideoThumbnail());
+        fields.put("latestVideoPublishedAt", doc.getLatestVideoPublishedAt());
+        fields.put("latestVideoDuration", doc.getLatestVideoDuration());
+        fields.put("latestVideoViewCount", doc.getLatestVideoViewCount());
+        return fields;
+    }
+
+    /**
+     * 2つの {@link #displayFields} を比べ、値が変わった項目だけを返します（{@code $set} 用）。
+     */
+    static Map<String, Object> changedFields(Map<String, Object> before, Map<String, Object> after) {
+        Map<String, Object> changed = new LinkedHashMap<>();
+        after.forEach((name, value) -> {
+            if (!Objects.equals(before.get(name), value)) {
+                changed.put(name, value);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * {@link #refreshAll} の結果。{@code failed} は API 呼び出しに失敗し、既存値のままの channelId。
+     */
+    public record BatchRefresh(Map<String, ChannelCatalogEntry> entries, Set<String> failed) {
+    }
+
+    /**
+     * チャンネル詳細と直近のアップロード（新しい順）。{@code latestOk=false} はアップロードの取得に失敗したもの。
+     */
+    private record FetchedChannel(
+            YouTubeDataApiService.ChannelDetails details,
+            List<YouTubeDataApiService.LatestVideo> uploads,
+            boolean latestOk) {
+
+        YouTubeDataApiService.LatestVideo latest() {
+            return uploads.isEmpty() ? EMPTY_LATEST : uploads.get(0);
+        }
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
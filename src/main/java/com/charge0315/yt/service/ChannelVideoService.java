@@ -0,0 +1,264 @@
+package com.charge0315.yt.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.charge0315.yt.mongo.ChannelVideo;
+import com.charge0315.yt.mongo.ChannelVideoRepository;
+import com.charge0315.yt.util.RequestContext;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * チャンネルごとの直近のアップロード履歴（{@code channel_videos}）を管理するサービス。
+ *
+ * <p>カタログの更新時にチャンネル単位で1回だけ書き込み、同じチャンネルを購読する全ユーザーで共有します。
+ * チャンネルごとに {@code youtube.channel-videos.history-size} 件を超えた古い動画は削除します。
+ * 読み取りは {@code (channelId, publishedAt)} の複合インデックスを使った1回の範囲検索です。
+ * 保存した動画と削除した古い動画は {@link TimelineService} の構築済みタイムラインへも差分で反映します。</p>
+ */
+@Service
+public class ChannelVideoService {
+
+    /**
+     * 古い履歴の削除（チャンネルごとの検索 + 削除）を同時に流す数。
+     */
+    private static final int TRIM_CONCURRENCY = 4;
+
+    private final ChannelVideoRepository channelVideoRepository;
+
+    private final YouTubeDataApiService youTubeDataApiService;
+
+    private final TimelineService timelineService;
+
+    private final int historySize;
+
+    public ChannelVideoService(
+            ChannelVideoRepository channelVideoRepository,
+            YouTubeDataApiService youTubeDataApiService,
+            TimelineService timelineService,
+            @Value("${youtube.channel-videos.history-size:10}") int historySize) {
+        this.channelVideoRepository = channelVideoRepository;
+        this.youTubeDataApiService = youTubeDataApiService;
+        this.timelineService = timelineService;
+        this.historySize = Math.max(1, Math.min(50, historySize));
+    }
+
+    /**
+     * チャンネルごとに保持する件数（アップロード一覧の取得件数としても使います）。
+     */
+    public int historySize() {
+        return historySize;
+    }
+
+    /**
+     * 取得したアップロード一覧を保存し、チャンネルごとに直近 {@code historySize} 件だけを残します。
+     *
+     * <p>尺/再生回数は {@code known}（カタログ更新で取得済みの分）と保存済みの値を使い、
+     * どちらにも無い動画だけを videos.list（50件単位）で取得します。
+     * 書き込むのは新規または表示項目の変わった動画だけで、1回の bulkWrite（upsert）にまとめます。
+     * 古い履歴の削除は新しい動画が入ったチャンネルだけを対象にします。
+     * 履歴は補助的な情報なので、保存に失敗してもエラーにはしません。</p>
+     */
+    public Mono<Void> record(
+            String accessToken,
+            Map<String, List<YouTubeDataApiService.LatestVideo>> uploadsByChannel,
+            Map<String, YouTubeDataApiService.VideoDetails> known) {
+        Map<String, ChannelVideo> incoming = new LinkedHashMap<>();
+        Instant now = Instant.now();
+        uploadsByChannel.forEach((channelId, uploads) -> {
+            for (YouTubeDataApiService.LatestVideo upload : uploads) {
+                Instant publishedAt = parseInstant(upload.publishedAt());
+                if (!StringUtils.hasText(upload.videoId()) || publishedAt == null) {
+                    continue;
+                }
+                ChannelVideo video = new ChannelVideo();
+                video.setVideoId(upload.videoId());
+                video.setChannelId(channelId);
+                video.setTitle(upload.title());
+                video.setThumbnailUrl(upload.thumbnailUrl());
+                video.setPublishedAt(publishedAt);
+                video.setFetchedAt(now);
+                incoming.put(upload.videoId(), video);
+            }
+        });
+        if (incoming.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return channelVideoRepository
+                .findAllById(incoming.keySet())
+                .collectMap(ChannelVideo::getVideoId)
+                .flatMap(existing -> {
+                    List<String> missing = new ArrayList<>();
+                    for (ChannelVideo video : incoming.values()) {
+                        YouTubeDataApiService.VideoDetails details = known.get(video.getVideoId());
+                        ChannelVideo stored = existing.get(video.getVideoId());
+                        if (details != null) {
+                            video.setDuration(details.duration());
+                            video.setViewCount(details.viewCount());
+                            continue;
+                        }
+                        if (stored != null) {
+                            // 取得し直さない項目は保存済みの値を引き継ぐ（変更なしと判定させるため）
+                            video.setDuration(stored.getDuration());
+                            video.setViewCount(stored.getViewCount());
+                        }
+                        if (stored == null || !StringUtils.hasText(stored.getDuration())) {
+                            missing.add(video.getVideoId());
+                        }
+                    }
+                    return youTubeDataApiService
+                            .getVideoDetailsBatch(accessToken, missing)
+                            .onErrorResume(e -> Mono.just(Map.of()))
+                            .flatMap(fetched -> {
+                                fetched.forEach((videoId, details) -> {
+                                    ChannelVideo video = incoming.get(videoId);
+                                    if (video != null) {
+                                        video.setDuration(details.duration());
+                                        video.setViewCount(details.viewCount());
+                                    }
+                                });
+                                List<ChannelVideo> changed = new ArrayList<>();
+                                Set<String> channelsWithNewVideos = new LinkedHashSet<>();
+                                for (ChannelVideo video : incoming.values()) {
+                                    ChannelVideo stored = existing.get(video.getVideoId());
+                                    if (stored == null) {
+                                        channelsWithNewVideos.add(video.getChannelId());
+                                    }
+                                    if (stored == null || !sameContent(stored, video)) {
+                                        changed.add(video);
+                                    }
+                                }
+                                return channelVideoRepository
+                                        .upsertAll(changed)
+                                        .doOnNext(written -> publishToTimelines(changed))
+                                        .thenMany(Flux.fromIterable(channelsWithNewVideos))
+                                        .flatMap(this::trim, TRIM_CONCURRENCY)
+                                        .then();
+                            });
+                })
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * 表示に使う項目が保存済みの動画と同じかどうか（{@code fetchedAt} は比べません）。
+     */
+    static boolean sameContent(ChannelVideo stored, ChannelVideo incoming) {
+        return Objects.equals(stored.getChannelId(), incoming.getChannelId())
+                && Objects.equals(stored.getTitle(), incoming.getTitle())
+                && Objects.equals(stored.getThumbnailUrl(), incoming.getThumbnailUrl())
+                && Objects.equals(millis(stored.getPublishedAt()), millis(incoming.getPublishedAt()))
+                && Objects.equals(stored.getDuration(), incoming.getDuration())
+                && Objects.equals(stored.getViewCount(), incoming.getViewCount());
+    }
+
+    /**
+     * 指定チャンネルの履歴を新しい順にまとめて取得します（チャンネルごとに最大 {@code historySize} 件）。
+     */
+    public Mono<Map<String, List<ChannelVideo>>> findRecent(Collection<String> channelIds) {
+        List<String> ids = channelIds == null
+                ? List.of()
+                : channelIds.stream().filter(StringUtils::hasText).distinct().toList();
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return channelVideoRepository
+                .findByChannelIdInOrderByPublishedAtDesc(ids)
+                .<Map<String, List<ChannelVideo>>>collect(LinkedHashMap::new, (out, video) -> {
+                    List<ChannelVideo> videos = out.computeIfAbsent(video.getChannelId(), k -> new ArrayList<>());
+                    if (videos.size() < historySize) {
+                        videos.add(video);
+                    }
+                })
+                .transform(RequestContext::withinDeadline);
+    }
+
+    /**
+     * 履歴にある動画のうち、欠けている duration/viewCount だけを補って保存します（{@link VideoEnrichmentService} から）。
+     */
+    public Mono<Void> applyDetails(Map<String, YouTubeDataApiService.VideoDetails> details) {
+        if (details == null || details.isEmpty()) {
+            return Mono.empty();
+        }
+        return channelVideoRepository
+                .findAllById(details.keySet())
+                .filter(video -> fillMissing(video, details.get(video.getVideoId())))
+                .collectList()
+                .filter(changed -> !changed.isEmpty())
+                .flatMap(changed -> channelVideoRepository
+                        .upsertAll(changed)
+                        .doOnNext(written -> publishToTimelines(changed)))
+                .then();
+    }
+
+    private static boolean fillMissing(ChannelVideo video, YouTubeDataApiService.VideoDetails details) {
+        if (details == null) {
+            return false;
+        }
+        boolean changed = false;
+        if (!StringUtils.hasText(video.getDuration()) && StringUtils.hasText(details.duration())) {
+            video.setDuration(details.duration());
+            changed = true;
+        }
+        if (video.getViewCount() == null && details.viewCount() != null) {
+            video.setViewCount(details.viewCount());
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * 保存した動画を、そのチャンネルを含むタイムラインへ差分で反映します。
+     */
+    private void publishToTimelines(List<ChannelVideo> saved) {
+        Map<String, List<ChannelVideo>> byChannel = new LinkedHashMap<>();
+        for (ChannelVideo video : saved) {
+            byChannel.computeIfAbsent(video.getChannelId(), k -> new ArrayList<>()).add(video);
+        }
+        byChannel.forEach(timelineService::onUploads);
+    }
+
+    private Mono<Void> trim(String channelId) {
+        return channelVideoRepository
+                .findByChannelIdOrderByPublishedAtDesc(channelId)
+                .skip(historySize)
+                .map(ChannelVideo::getVideoId)
+                .collectList()
+                .flatMap(stale -> stale.isEmpty()
+                        ? Mono.empty()
+                        : channelVideoRepository
+                                .deleteAllById(stale)
+                                .doOnSuccess(done -> timelineService.onTrimmed(channelId, stale)));
+    }
+
+    /**
+     * MongoDB の日時はミリ秒精度なので、比較もミリ秒で行います。
+     */
+    private static Long millis(Instant value) {
+        return value != null ? value.toEpochMilli() : null;
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
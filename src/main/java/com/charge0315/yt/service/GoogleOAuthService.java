@@ -12,6 +12,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
@@ -20,6 +21,8 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.charge0315.yt.client.Bulkhead;
+import com.charge0315.yt.client.OutboundBulkheads;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -36,12 +39,17 @@ public class GoogleOAuthService {
 
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final Bulkhead bulkhead;
 
     private volatile ClientSecrets cachedClientSecrets;
 
-    public GoogleOAuthService(WebClient.Builder builder, ObjectMapper objectMapper) {
+    public GoogleOAuthService(
+            @Qualifier("oauthWebClientBuilder") WebClient.Builder builder,
+            ObjectMapper objectMapper,
+            OutboundBulkheads bulkheads) {
         this.webClient = builder.build();
         this.objectMapper = objectMapper;
+        this.bulkhead = bulkheads.oauth();
     }
 
     public URI buildAuthorizationUri(ServerWebExchange exchange) {
@@ -94,13 +102,13 @@ public class GoogleOAuthService {
         form.add("redirect_uri", redirectUri);
         form.add("grant_type", "authorization_code");
 
-        return webClient
+        return bulkhead.call(() -> webClient
                 .post()
                 .uri("https://oauth2.googleapis.com/token")
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED)
                 .bodyValue(form)
                 .retrieve()
-                .bodyToMono(JsonNode.class)
+                .bodyToMono(JsonNode.class))
                 .map(json -> {
                     String accessToken = text(json, "access_token");
                     String refreshToken = text(json, "refresh_token");
@@ -111,12 +119,12 @@ public class GoogleOAuthService {
     }
 
     public Mono<UserInfo> fetchUserInfo(String accessToken) {
-        return webClient
+        return bulkhead.call(() -> webClient
                 .get()
                 .uri("https://www.googleapis.com/oauth2/v2/userinfo")
                 .headers(h -> h.setBearerAuth(accessToken))
                 .retrieve()
-                .bodyToMono(JsonNode.class)
+                .bodyToMono(JsonNode.class))
                 .map(json -> new UserInfo(
                         text(json, "id"),
                         text(json, "email"),
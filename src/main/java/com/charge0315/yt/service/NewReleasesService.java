@@ -0,0 +1,92 @@
+package com.charge0315.yt.service;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelSummary;
+import com.charge0315.yt.mongo.NewReleases;
+import com.charge0315.yt.mongo.NewReleasesRepository;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * ユーザーごとの新着一覧（{@link NewReleases}）を書き込み時に組み立てて保持するサービス。
+ *
+ * <p>読み取り（{@link #find}）は {@code new_releases} の ID 指定1回だけで、YouTube API の呼び出しも書き込みも行いません。
+ * 作り直し（{@link #rebuild}）は購読ドキュメントを公開日時の新しい順に {@code youtube.new-releases.size} 件だけ引いて丸ごと置き換えます。
+ * 購読の追加/解除、アーティストフラグの変更、キャッシュ更新の後に呼びます。
+ * 購読そのものが変わった場合は、タイムライン（{@link TimelineService}）の作り直しも合わせて行う
+ * {@link #onSubscriptionsChanged} を使います。</p>
+ */
+@Service
+public class NewReleasesService {
+
+    private final CachedChannelRepository cachedChannelRepository;
+
+    private final NewReleasesRepository newReleasesRepository;
+
+    private final TimelineService timelineService;
+
+    private final int size;
+
+    public NewReleasesService(
+            CachedChannelRepository cachedChannelRepository,
+            NewReleasesRepository newReleasesRepository,
+            TimelineService timelineService,
+            @Value("${youtube.new-releases.size:20}") int size) {
+        this.cachedChannelRepository = cachedChannelRepository;
+        this.newReleasesRepository = newReleasesRepository;
+        this.timelineService = timelineService;
+        this.size = Math.max(1, size);
+    }
+
+    /**
+     * 組み立て済みの新着一覧を返します。
+     *
+     * <p>まだ一度も組み立てていないユーザー（この仕組みより前からのユーザー）に限り、その場で1回だけ組み立てます。</p>
+     */
+    public Mono<List<ChannelSummary>> find(String userId) {
+        return newReleasesRepository
+                .findById(userId)
+                .map(view -> view.getItems() != null ? view.getItems() : List.<ChannelSummary>of())
+                .switchIfEmpty(Mono.defer(() -> save(userId)));
+    }
+
+    /**
+     * 購読の追加/解除やアーティストフラグの変更の後に呼び、タイムラインを作り直させて新着一覧を組み直します。
+     */
+    public Mono<Void> onSubscriptionsChanged(String userId) {
+        return Mono.defer(() -> {
+            timelineService.invalidate(userId);
+            return rebuild(userId);
+        });
+    }
+
+    /**
+     * 新着一覧を作り直します。失敗しても呼び出し元の書き込みは失敗させません（次の作り直しで追いつきます）。
+     */
+    public Mono<Void> rebuild(String userId) {
+        return save(userId)
+                .then()
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private Mono<List<ChannelSummary>> save(String userId) {
+        return cachedChannelRepository
+                .findByUserIdAndLatestVideoIdNotNullAndLatestVideoPublishedAtNotNullOrderByLatestVideoPublishedAtDesc(
+                        userId, Limit.of(size), ChannelSummary.class)
+                .collectList()
+                .flatMap(items -> {
+                    NewReleases view = new NewReleases();
+                    view.setUserId(userId);
+                    view.setItems(items);
+                    view.setUpdatedAt(Instant.now());
+                    return newReleasesRepository.save(view).thenReturn(items);
+                });
+    }
+}
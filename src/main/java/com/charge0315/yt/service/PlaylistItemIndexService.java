@@ -0,0 +1,202 @@
+package com.charge0315.yt.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.charge0315.yt.client.YouTubeApiClient;
+import com.charge0315.yt.client.YouTubeApiClient.Scope;
+import com.charge0315.yt.client.YouTubeItems;
+import com.charge0315.yt.client.YouTubeResource;
+import com.charge0315.yt.mongo.PlaylistItemIndex;
+import com.charge0315.yt.mongo.PlaylistItemIndexRepository;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 再生リストごとの {@code videoId → playlistItemId} 索引（{@code playlist_item_index}）を管理するサービス。
+ *
+ * <p>索引は playlistItems.list の全ページから作り、以降は自分の追加/削除で差分更新します。
+ * 外部（YouTube アプリ等）での変更は、再生リスト取得時に ETag と itemCount を照合して検出し、
+ * 不一致なら索引を破棄して次回の利用時に作り直します。
+ * 索引はキャッシュなので、保存/更新の失敗は呼び出し元へ伝えません（削除時の 404 で再構築されます）。</p>
+ */
+@Service
+public class PlaylistItemIndexService {
+
+    private static final String FIELDS_PLAYLIST_ITEM_IDS = "nextPageToken,items(id,snippet/resourceId/videoId)";
+
+    private static final int PAGE_SIZE = 50;
+
+    private final YouTubeApiClient youTubeApiClient;
+
+    private final PlaylistItemIndexRepository repository;
+
+    private final Duration rebuildInterval;
+
+    public PlaylistItemIndexService(
+            YouTubeApiClient youTubeApiClient,
+            PlaylistItemIndexRepository repository,
+            @Value("${youtube.playlist.index-rebuild-interval:1m}") Duration rebuildInterval) {
+        this.youTubeApiClient = youTubeApiClient;
+        this.repository = repository;
+        this.rebuildInterval = rebuildInterval;
+    }
+
+    /**
+     * 動画に対応する playlistItemId を返します。
+     *
+     * <p>索引が無ければ作成します。索引に無い動画は、索引が {@code youtube.playlist.index-rebuild-interval}
+     * より古い場合のみ作り直して探し直します（見つからなければ empty）。</p>
+     */
+    public Mono<String> findItemId(String accessToken, String playlistId, String videoId) {
+        return repository
+                .findById(playlistId)
+                .onErrorResume(e -> Mono.empty())
+                .switchIfEmpty(Mono.defer(() -> rebuild(accessToken, playlistId)))
+                .flatMap(index -> {
+                    String itemId = firstItemId(index, videoId);
+                    if (itemId != null) {
+                        return Mono.just(itemId);
+                    }
+                    if (index.getBuiltAt() != null && index.getBuiltAt().isAfter(Instant.now().minus(rebuildInterval))) {
+                        return Mono.empty();
+                    }
+                    return rebuild(accessToken, playlistId).mapNotNull(rebuilt -> firstItemId(rebuilt, videoId));
+                });
+    }
+
+    /**
+     * 再生リストの全ページを取得して索引を作り直します。
+     */
+    public Mono<PlaylistItemIndex> rebuild(String accessToken, String playlistId) {
+        return youTubeApiClient
+                .streamAllPages(accessToken, YouTubeResource.PLAYLIST_ITEMS, Scope.TOKEN, pageToken -> UriComponentsBuilder
+                        .fromPath("/playlistItems")
+                        .queryParam("part", "snippet")
+                        .queryParam("playlistId", playlistId)
+                        .queryParam("maxResults", PAGE_SIZE)
+                        .queryParam("fields", FIELDS_PLAYLIST_ITEM_IDS)
+                        .queryParamIfPresent("pageToken", java.util.Optional.ofNullable(pageToken))
+                        .build(true)
+                        .toUri(), YouTubeItems.PlaylistItem.class)
+                .filter(item -> item.id() != null && item.videoId() != null)
+                .<Map<String, List<String>>>collect(LinkedHashMap::new,
+                        (out, item) -> out.computeIfAbsent(item.videoId(), k -> new ArrayList<>()).add(item.id()))
+                .flatMap(items -> {
+                    Instant now = Instant.now();
+                    PlaylistItemIndex index = new PlaylistItemIndex();
+                    index.setPlaylistId(playlistId);
+                    index.setItems(items);
+                    index.setBuiltAt(now);
+                    index.setUpdatedAt(now);
+                    return repository.save(index).onErrorReturn(index);
+                });
+    }
+
+    /**
+     * 自分が追加した動画を索引へ反映します（索引が未作成なら何もしません）。
+     */
+    public Mono<Void> recordAdded(String playlistId, String videoId, String playlistItemId) {
+        if (!StringUtils.hasText(videoId) || !StringUtils.hasText(playlistItemId)) {
+            return Mono.empty();
+        }
+        return update(playlistId, items -> items.computeIfAbsent(videoId, k -> new ArrayList<>()).add(playlistItemId));
+    }
+
+    /**
+     * 自分が削除した playlistItem を索引から取り除きます。
+     */
+    public Mono<Void> recordRemoved(String playlistId, String videoId, String playlistItemId) {
+        return update(playlistId, items -> {
+            List<String> ids = items.get(videoId);
+            if (ids != null) {
+                ids.remove(playlistItemId);
+                if (ids.isEmpty()) {
+                    items.remove(videoId);
+                }
+            }
+        });
+    }
+
+    private Mono<Void> update(String playlistId, java.util.function.Consumer<Map<String, List<String>>> change) {
+        return repository
+                .findById(playlistId)
+                .flatMap(index -> {
+                    Map<String, List<String>> items = new LinkedHashMap<>();
+                    if (index.getItems() != null) {
+                        index.getItems().forEach((videoId, ids) -> items.put(videoId, new ArrayList<>(ids)));
+                    }
+                    change.accept(items);
+                    index.setItems(items);
+                    // 自分の書き込みで再生リストの ETag も変わるため、次回の照合で改めて確定させる
+                    index.setEtag(null);
+                    index.setUpdatedAt(Instant.now());
+                    return repository.save(index);
+                })
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * 取得した再生リストの ETag / itemCount と索引を照合します。
+     *
+     * <p>不一致なら索引を破棄し、一致すれば（未確認の場合）ETag を確定させます。</p>
+     */
+    public Mono<Void> validate(String playlistId, String etag, Long itemCount) {
+        if (!StringUtils.hasText(etag)) {
+            return Mono.empty();
+        }
+        return repository
+                .findById(playlistId)
+                .flatMap(index -> {
+                    if (!isConsistent(index, etag, itemCount)) {
+                        return repository.deleteById(playlistId);
+                    }
+                    if (index.getEtag() == null) {
+                        index.setEtag(etag);
+                        index.setUpdatedAt(Instant.now());
+                        return repository.save(index).then();
+                    }
+                    return Mono.<Void>empty();
+                })
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * 索引が再生リストの現状と一致するとみなせるかを判定します。
+     *
+     * <p>ETag を確定済みなら ETag の一致で、未確認なら件数の一致で判定します。</p>
+     */
+    static boolean isConsistent(PlaylistItemIndex index, String etag, Long itemCount) {
+        if (index.getEtag() != null) {
+            return index.getEtag().equals(etag);
+        }
+        return itemCount == null || itemCount == size(index);
+    }
+
+    static String firstItemId(PlaylistItemIndex index, String videoId) {
+        if (index.getItems() == null) {
+            return null;
+        }
+        List<String> ids = index.getItems().get(videoId);
+        return ids == null ? null : ids.stream().filter(Objects::nonNull).findFirst().orElse(null);
+    }
+
+    static long size(PlaylistItemIndex index) {
+        if (index.getItems() == null) {
+            return 0;
+        }
+        return index.getItems().values().stream().mapToLong(List::size).sum();
+    }
+}
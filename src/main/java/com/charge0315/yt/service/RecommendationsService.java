@@ -10,11 +10,16 @@ import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.charge0315.yt.client.Bulkhead;
+import com.charge0315.yt.client.OutboundBulkheads;
 import com.charge0315.yt.mongo.CachedChannel;
 import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelCatalogEntry;
+import com.charge0315.yt.util.RequestContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -33,16 +38,24 @@ import reactor.core.publisher.Mono;
 public class RecommendationsService {
 
     private final CachedChannelRepository cachedChannelRepository;
+    private final ChannelCatalogService channelCatalogService;
     private final WebClient openAiClient;
+    private final Bulkhead openAiBulkhead;
     private final String openAiApiKey;
     private final String openAiModel;
     private final ObjectMapper objectMapper;
 
-    public RecommendationsService(CachedChannelRepository cachedChannelRepository, WebClient.Builder webClientBuilder) {
+    public RecommendationsService(
+            CachedChannelRepository cachedChannelRepository,
+            ChannelCatalogService channelCatalogService,
+            @Qualifier("openAiWebClientBuilder") WebClient.Builder webClientBuilder,
+            OutboundBulkheads bulkheads) {
         this.cachedChannelRepository = cachedChannelRepository;
+        this.channelCatalogService = channelCatalogService;
         this.openAiClient = webClientBuilder
             .baseUrl("https://api.openai.com/v1")
             .build();
+        this.openAiBulkhead = bulkheads.openAi();
         this.openAiApiKey = System.getenv("OPENAI_API_KEY");
         String model = System.getenv("OPENAI_MODEL");
         this.openAiModel = (model != null && !model.isBlank()) ? model : "gpt-4o-mini";
@@ -53,12 +66,31 @@ public class RecommendationsService {
         return cachedChannelRepository
                 .findByUserId(userId)
                 .collectList()
+                .transform(RequestContext::withinDeadline)
+                .flatMap(this::withCatalogDescriptions)
                 .flatMap(channels -> maybeBuildOpenAiRecommendations(channels)
                     .onErrorResume(e -> Mono.empty())
                     .filter(list -> list != null && !list.isEmpty())
                     .defaultIfEmpty(buildRecommendations(channels)));
     }
 
+    /**
+     * 説明文は共有カタログにのみ保存されるため、スコアリング用にメモリ上の購読ドキュメントへ補完します（保存はしない）。
+     */
+    private Mono<List<CachedChannel>> withCatalogDescriptions(List<CachedChannel> channels) {
+        return channelCatalogService
+                .findAll(channels.stream().map(CachedChannel::getChannelId).toList())
+                .map(catalog -> {
+                    for (CachedChannel ch : channels) {
+                        ChannelCatalogEntry entry = catalog.get(ch.getChannelId());
+                        if (entry != null && ch.getChannelDescription() == null) {
+                            ch.setChannelDescription(entry.getDescription());
+                        }
+                    }
+                    return channels;
+                });
+    }
+
     private Mono<List<RecommendationEntry>> maybeBuildOpenAiRecommendations(List<CachedChannel> cachedChannels) {
         if (cachedChannels == null || cachedChannels.size() < 3) {
             return Mono.empty();
@@ -98,13 +130,15 @@ public class RecommendationsService {
                 Map.of("role", "user", "content", userPrompt)),
             "temperature", 0.7);
 
-        return openAiClient
-            .post()
-            .uri("/chat/completions")
-            .headers(h -> h.setBearerAuth(openAiApiKey))
-            .bodyValue(req)
-            .retrieve()
-            .bodyToMono(JsonNode.class)
+        // 同時実行の上限で待たされた時間も期限に含め、飽和時は即座にルールベースのフォールバックへ回す
+        return openAiBulkhead.call(() -> openAiClient
+                .post()
+                .uri("/chat/completions")
+                .headers(h -> h.setBearerAuth(openAiApiKey))
+                .bodyValue(req)
+                .retrieve()
+                .bodyToMono(JsonNode.class))
+            .transform(RequestContext::withinDeadline)
             .map(json -> json.path("choices").path(0).path("message").path("content").asText(""))
             .map(this::extractJsonArray)
             .flatMap(content -> {
@@ -0,0 +1,211 @@
+package com.charge0315.yt.service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.charge0315.yt.util.RequestContext;
+import com.charge0315.yt.util.RequestContext.Priority;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * search.list（1回100ユニット）の結果をユーザー間で共有するキャッシュ。
+ *
+ * <p>キーは種別（video/channel）と正規化したクエリ（NFKC、小文字化、空白の圧縮）です。
+ * 取得は常に {@code fetch-size} 件以上で行い（クォータは件数によらず同じ）、
+ * それより小さい {@code maxResults} の要求は保存済みの結果の先頭から返します。</p>
+ *
+ * <ul>
+ *   <li>{@code ttl} 以内: そのまま返す</li>
+ *   <li>{@code ttl} 〜 {@code ttl + stale-ttl}: 古い結果をすぐ返し、裏で1回だけ取り直す（{@code BACKGROUND} 優先度）</li>
+ *   <li>それ以降/未取得: 取得して保存する</li>
+ * </ul>
+ *
+ * <p>件数の上限（{@code max-entries}）を超えた分は最後に使われたのが古い順に捨てます。
+ * ヒット率は {@code youtube.search.cache.hit_ratio{type}} で確認できます。</p>
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final boolean enabled;
+
+    private final Duration ttl;
+
+    private final Duration staleTtl;
+
+    private final int fetchSize;
+
+    private final Map<String, Entry> entries;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public SearchResultCache(
+            MeterRegistry meterRegistry,
+            @Value("${youtube.search-cache.enabled:true}") boolean enabled,
+            @Value("${youtube.search-cache.ttl:10m}") Duration ttl,
+            @Value("${youtube.search-cache.stale-ttl:1h}") Duration staleTtl,
+            @Value("${youtube.search-cache.max-entries:1000}") int maxEntries,
+            @Value("${youtube.search-cache.fetch-size:25}") int fetchSize) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.staleTtl = staleTtl;
+        this.fetchSize = Math.max(1, Math.min(50, fetchSize));
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        meterRegistry.gaugeMapSize("youtube.search.cache.entries", Tags.empty(), entries);
+    }
+
+    /**
+     * キャッシュから先頭 {@code maxResults} 件を返します。無い場合は {@code loader}（呼び出し元のクエリ, 取得件数）で取得します。
+     *
+     * <p>正規化はキャッシュのキーにだけ使い、YouTube へは呼び出し元のクエリをそのまま渡します
+     * （小文字化や NFKC で {@code -Term} のような演算子や全角の入力の意味を変えないため）。</p>
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<List<T>> get(
+            String type,
+            String query,
+            int maxResults,
+            BiFunction<String, Integer, Mono<List<T>>> loader) {
+        if (!enabled) {
+            return loader.apply(query, maxResults);
+        }
+        String key = type + ":" + normalize(query);
+        Stats typeStats = stats.computeIfAbsent(type, this::register);
+        Entry entry = entries.get(key);
+        Instant now = Instant.now();
+
+        if (entry != null && entry.covers(maxResults)) {
+            if (entry.fetchedAt.plus(ttl).isAfter(now)) {
+                typeStats.hits.increment();
+                return Mono.just((List<T>) entry.take(maxResults));
+            }
+            if (entry.fetchedAt.plus(ttl).plus(staleTtl).isAfter(now)) {
+                typeStats.stale.increment();
+                return Mono.deferContextual(ctx -> {
+                    refreshInBackground(key, entry, query, loader, RequestContext.userIdOrNull(ctx));
+                    return Mono.just((List<T>) entry.take(maxResults));
+                });
+            }
+        }
+
+        typeStats.misses.increment();
+        int size = Math.max(maxResults, fetchSize);
+        return loader.apply(query, size)
+                .doOnNext(results -> entries.put(key, new Entry(List.copyOf(results), size, Instant.now())))
+                .map(results -> results.size() > maxResults ? results.subList(0, maxResults) : results);
+    }
+
+    /**
+     * 期限切れの結果を返した後に、裏で1回だけ取り直します。失敗時は古い結果のまま次の要求で再試行します。
+     */
+    private <T> void refreshInBackground(
+            String key,
+            Entry stale,
+            String query,
+            BiFunction<String, Integer, Mono<List<T>>> loader,
+            String userId) {
+        if (!stale.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        // 呼び出し元の期限は引き継がず、クォータの計上先だけ引き継ぐ
+        Context context = RequestContext.withPriority(RequestContext.withUserId(Context.empty(), userId),
+                Priority.BACKGROUND);
+        loader.apply(query, stale.fetched)
+                .contextWrite(context)
+                .subscribe(
+                        results -> entries.put(key, new Entry(List.copyOf(results), stale.fetched, Instant.now())),
+                        e -> stale.refreshing.set(false));
+    }
+
+    static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        String nfkc = Normalizer.normalize(query, Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(nfkc.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    private Stats register(String type) {
+        Stats s = new Stats(counter(type, "hit"), counter(type, "stale"), counter(type, "miss"));
+        Gauge.builder("youtube.search.cache.hit_ratio", s, Stats::hitRatio)
+                .description("検索キャッシュのヒット率（古い結果を返した分を含む）")
+                .tag("type", type)
+                .register(meterRegistry);
+        return s;
+    }
+
+    private Counter counter(String type, String result) {
+        return Counter.builder("youtube.search.cache")
+                .description("検索キャッシュの参照結果")
+                .tag("type", type)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Stats(Counter hits, Counter stale, Counter misses) {
+
+        double hitRatio() {
+            double served = hits.count() + stale.count();
+            double total = served + misses.count();
+            return total == 0 ? 0.0 : served / total;
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<?> results;
+
+        /** 取得時に要求した件数 */
+        private final int fetched;
+
+        private final Instant fetchedAt;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(List<?> results, int fetched, Instant fetchedAt) {
+            this.results = results;
+            this.fetched = fetched;
+            this.fetchedAt = fetchedAt;
+        }
+
+        /**
+         * 要求件数を満たせるか（取得時に結果が要求件数に満たなかった場合は、それが全件なので満たせる）。
+         */
+        boolean covers(int maxResults) {
+            return results.size() >= maxResults || results.size() < fetched;
+        }
+
+        List<?> take(int maxResults) {
+            return results.size() > maxResults ? results.subList(0, maxResults) : results;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.charge0315.yt.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelSummary;
+import com.charge0315.yt.mongo.ChannelVideo;
+import com.charge0315.yt.mongo.ChannelVideoRepository;
+import com.charge0315.yt.service.YouTubeChannelsService.LatestVideo;
+import com.charge0315.yt.util.RequestContext;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * ユーザーごとの登録チャンネルの新着動画タイムライン（新しい順）をメモリ上に保持するサービス。
+ *
+ * <p>初回の参照時に、チャンネルごとに新しい順で保存されているアップロード履歴（{@code channel_videos}）を
+ * k-way マージして並べ、以降は {@code cursor}/{@code limit} のページを二分探索 + O(limit) で返します。
+ * カタログ更新で新しいアップロードが見つかると {@link #onUploads} で該当チャンネルを購読している
+ * タイムラインへ挿入し、参照のたびに作り直すことはしません。履歴から削除された古い動画は
+ * {@link #onTrimmed} で同じように取り除きます。</p>
+ *
+ * <p>購読の追加/解除やアーティストフラグ・最新動画の変更では {@link #invalidate} で作り直させます。
+ * {@code invalidate} より前に始まった構築の結果は世代（generation）を比べて捨て、古いタイムラインを保持しません。
+ * 他の経路の変更に備えて {@code ttl} で期限切れにし、
+ * 保持するユーザー数は {@code max-users}（LRU）、1ユーザーあたりの件数は {@code max-items} までです。</p>
+ */
+@Service
+public class TimelineService {
+
+    /**
+     * 新しい順。同時刻は videoId 順（カーソルの位置を一意に決めるため）。
+     */
+    static final Comparator<TimelineItem> ORDER = Comparator.comparingLong(TimelineItem::publishedAtMillis).reversed()
+            .thenComparing(TimelineItem::videoId);
+
+    private static final int DEFAULT_LIMIT = 50;
+
+    private static final int MAX_LIMIT = 200;
+
+    private final CachedChannelRepository cachedChannelRepository;
+
+    private final ChannelVideoRepository channelVideoRepository;
+
+    private final Duration ttl;
+
+    private final int maxItems;
+
+    private final Map<String, Timeline> timelines;
+
+    /** channelId → そのチャンネルを含むタイムラインの userId */
+    private final Map<String, Set<String>> subscribers = new ConcurrentHashMap<>();
+
+    /** 構築の開始と invalidate に振る通し番号 */
+    private final AtomicLong generationSeq = new AtomicLong();
+
+    /** userId → 最後に invalidate された世代（max-users 件の LRU。あふれた分は evictedGeneration で代表する） */
+    private final Map<String, Long> generations;
+
+    /** LRU からあふれた世代の最大値（あふれたユーザーは安全側に倒してこの世代で invalidate されたものとみなす） */
+    private long evictedGeneration;
+
+    public TimelineService(
+            CachedChannelRepository cachedChannelRepository,
+            ChannelVideoRepository channelVideoRepository,
+            @Value("${youtube.timeline.ttl:10m}") Duration ttl,
+            @Value("${youtube.timeline.max-users:1000}") int maxUsers,
+            @Value("${youtube.timeline.max-items:500}") int maxItems) {
+        this.cachedChannelRepository = cachedChannelRepository;
+        this.channelVideoRepository = channelVideoRepository;
+        this.ttl = ttl;
+        this.maxItems = Math.max(1, maxItems);
+        this.timelines = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Timeline> eldest) {
+                if (size() <= maxUsers) {
+                    return false;
+                }
+                unregister(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        });
+        this.generations = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() <= maxUsers) {
+                    return false;
+                }
+                evictedGeneration = Math.max(evictedGeneration, eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * タイムラインの1ページを返します。{@code cursor} は前のページの {@code nextCursor}（先頭ページは {@code null}）です。
+     */
+    public Mono<TimelinePage> page(String userId, String cursor, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(MAX_LIMIT, limit));
+        TimelineItem after = decodeCursor(cursor);
+        return timeline(userId).map(timeline -> timeline.page(after, size));
+    }
+
+    /**
+     * タイムライン全体（最大 {@code max-items} 件）を返します。
+     */
+    public Mono<List<LatestVideo>> all(String userId) {
+        return timeline(userId).map(timeline -> timeline.page(null, maxItems).items());
+    }
+
+    /**
+     * カタログ更新で保存したアップロードを、そのチャンネルを含むタイムラインへ反映します（既存の動画は置き換え）。
+     */
+    public void onUploads(String channelId, Collection<ChannelVideo> videos) {
+        Set<String> userIds = subscribers.get(channelId);
+        if (userIds == null || userIds.isEmpty() || videos.isEmpty()) {
+            return;
+        }
+        for (String userId : List.copyOf(userIds)) {
+            Timeline timeline = timelines.get(userId);
+            if (timeline != null) {
+                timeline.upsert(channelId, videos);
+            }
+        }
+    }
+
+    /**
+     * 履歴（{@code channel_videos}）から削除したアップロードを、そのチャンネルを含むタイムラインから取り除きます。
+     */
+    public void onTrimmed(String channelId, Collection<String> videoIds) {
+        Set<String> userIds = subscribers.get(channelId);
+        if (userIds == null || userIds.isEmpty() || videoIds.isEmpty()) {
+            return;
+        }
+        for (String userId : List.copyOf(userIds)) {
+            Timeline timeline = timelines.get(userId);
+            if (timeline != null) {
+                timeline.remove(videoIds);
+            }
+        }
+    }
+
+    /**
+     * 購読の変更後に呼び、次の参照で作り直させます。
+     */
+    public void invalidate(String userId) {
+        synchronized (timelines) {
+            generations.put(userId, generationSeq.incrementAndGet());
+            Timeline removed = timelines.remove(userId);
+            if (removed != null) {
+                unregister(userId, removed);
+            }
+        }
+    }
+
+    private Mono<Timeline> timeline(String userId) {
+        Timeline cached = timelines.get(userId);
+        if (cached != null && cached.builtAt.plus(ttl).isAfter(Instant.now())) {
+            return Mono.just(cached);
+        }
+        return Mono.defer(() -> {
+            long startedAt = generationSeq.incrementAndGet();
+            return build(userId).doOnNext(timeline -> store(userId, timeline, startedAt));
+        });
+    }
+
+    /**
+     * 構築したタイムラインを保持します。構築中に {@link #invalidate} された場合は、この呼び出しの応答には使うが保持はしません。
+     */
+    private void store(String userId, Timeline timeline, long startedAt) {
+        synchronized (timelines) {
+            Long invalidatedAt = generations.get(userId);
+            if ((invalidatedAt != null ? invalidatedAt : evictedGeneration) > startedAt) {
+                return;
+            }
+            Timeline previous = timelines.put(userId, timeline);
+            if (previous != null) {
+                unregister(userId, previous);
+            }
+            timeline.channels.keySet().forEach(channelId -> subscribers
+                    .computeIfAbsent(channelId, k -> ConcurrentHashMap.newKeySet())
+                    .add(userId));
+        }
+    }
+
+    private Mono<Timeline> build(String userId) {
+        return cachedChannelRepository
+                .findByUserIdAndIsArtistFalseOrderByChannelTitleAsc(userId, ChannelSummary.class)
+                .filter(doc -> StringUtils.hasText(doc.channelId()))
+                .collectMap(ChannelSummary::channelId)
+                .flatMap(docs -> channelVideoRepository
+                        .findByChannelIdInOrderByPublishedAtDesc(docs.keySet())
+                        .collectList()
+                        .map(videos -> {
+                            Timeline timeline = new Timeline(docs);
+                            Map<String, List<TimelineItem>> byChannel = new HashMap<>();
+                            for (ChannelVideo video : videos) {
+                                TimelineItem item = timeline.toItem(video.getChannelId(), video);
+                                if (item != null) {
+                                    byChannel.computeIfAbsent(video.getChannelId(), k -> new ArrayList<>()).add(item);
+                                }
+                            }
+                            // 履歴がまだ無いチャンネルは購読ドキュメントの最新1件を使う
+                            docs.forEach((channelId, doc) -> {
+                                if (!byChannel.containsKey(channelId)) {
+                                    TimelineItem item = timeline.fromSubscription(doc);
+                                    if (item != null) {
+                                        byChannel.put(channelId, List.of(item));
+                                    }
+                                }
+                            });
+                            timeline.items.addAll(merge(byChannel.values(), maxItems));
+                            timeline.items.forEach(item -> timeline.videoIds.add(item.videoId()));
+                            return timeline;
+                        }))
+                .transform(RequestContext::withinDeadline);
+    }
+
+    private void unregister(String userId, Timeline timeline) {
+        timeline.channels.keySet().forEach(channelId -> {
+            Set<String> userIds = subscribers.get(channelId);
+            if (userIds != null) {
+                userIds.remove(userId);
+            }
+        });
+    }
+
+    /**
+     * それぞれ新しい順に並んだチャンネルごとのリストを、ヒープで k-way マージして先頭 {@code limit} 件を返します。
+     */
+    static List<TimelineItem> merge(Collection<List<TimelineItem>> lists, int limit) {
+        PriorityQueue<Head> heap = new PriorityQueue<>(Math.max(1, lists.size()),
+                (a, b) -> ORDER.compare(a.list.get(a.index), b.list.get(b.index)));
+        for (List<TimelineItem> list : lists) {
+            if (!list.isEmpty()) {
+                heap.add(new Head(list, 0));
+            }
+        }
+        List<TimelineItem> out = new ArrayList<>();
+        while (!heap.isEmpty() && out.size() < limit) {
+            Head head = heap.poll();
+            out.add(head.list.get(head.index));
+            if (head.index + 1 < head.list.size()) {
+                heap.add(new Head(head.list, head.index + 1));
+            }
+        }
+        return out;
+    }
+
+    static String encodeCursor(TimelineItem item) {
+        String raw = item.publishedAtMillis() + ":" + item.videoId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static TimelineItem decodeCursor(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            return new TimelineItem(Long.parseLong(raw.substring(0, sep)), raw.substring(sep + 1), null);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid_cursor");
+        }
+    }
+
+    /**
+     * タイムラインの1件。並び替え用の時刻はミリ秒で持ち、比較のたびに文字列を解析しません。
+     */
+    record TimelineItem(long publishedAtMillis, String videoId, LatestVideo video) {
+    }
+
+    /**
+     * タイムラインのページ。{@code nextCursor} は次のページが無い場合 {@code null}。
+     */
+    public record TimelinePage(List<LatestVideo> items, String nextCursor) {
+    }
+
+    private record Head(List<TimelineItem> list, int index) {
+    }
+
+    private final class Timeline {
+
+        private final Map<String, ChannelSummary> channels;
+
+        private final List<TimelineItem> items = new ArrayList<>();
+
+        private final Set<String> videoIds = new HashSet<>();
+
+        private final Instant builtAt = Instant.now();
+
+        Timeline(Map<String, ChannelSummary> channels) {
+            this.channels = channels;
+        }
+
+        synchronized TimelinePage page(TimelineItem after, int limit) {
+            int from = 0;
+            if (after != null) {
+                // after より後ろ（古い側）の最初の位置
+                int pos = Collections.binarySearch(items, after, ORDER);
+                from = pos >= 0 ? pos + 1 : -pos - 1;
+            }
+            int to = Math.min(items.size(), from + limit);
+            List<LatestVideo> page = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                page.add(items.get(i).video());
+            }
+            String next = to < items.size() && to > from ? encodeCursor(items.get(to - 1)) : null;
+            return new TimelinePage(page, next);
+        }
+
+        synchronized void upsert(String channelId, Collection<ChannelVideo> videos) {
+            for (ChannelVideo video : videos) {
+                TimelineItem item = toItem(channelId, video);
+                if (item == null) {
+                    continue;
+                }
+                if (videoIds.contains(item.videoId())) {
+                    items.removeIf(existing -> existing.videoId().equals(item.videoId()));
+                }
+                int pos = Collections.binarySearch(items, item, ORDER);
+                items.add(pos >= 0 ? pos : -pos - 1, item);
+                videoIds.add(item.videoId());
+            }
+            while (items.size() > maxItems) {
+                videoIds.remove(items.remove(items.size() - 1).videoId());
+            }
+        }
+
+        synchronized void remove(Collection<String> removed) {
+            Set<String> ids = new HashSet<>(removed);
+            if (items.removeIf(item -> ids.contains(item.videoId()))) {
+                videoIds.removeAll(ids);
+            }
+        }
+
+        TimelineItem toItem(String channelId, ChannelVideo video) {
+            ChannelSummary doc = channels.get(channelId);
+            if (doc == null || video.getPublishedAt() == null || !StringUtils.hasText(video.getVideoId())) {
+                return null;
+            }
+            return new TimelineItem(video.getPublishedAt().toEpochMilli(), video.getVideoId(), new LatestVideo(
+                    video.getVideoId(),
+                    video.getTitle(),
+                    video.getPublishedAt().toString(),
+                    video.getThumbnailUrl(),
+                    video.getDuration(),
+                    video.getViewCount(),
+                    doc.channelTitle(),
+                    doc.channelId(),
+                    doc.thumbnailUrl()));
+        }
+
+        TimelineItem fromSubscription(ChannelSummary doc) {
+            if (!StringUtils.hasText(doc.latestVideoId()) || doc.latestVideoPublishedAt() == null) {
+                return null;
+            }
+            return new TimelineItem(doc.latestVideoPublishedAt().toEpochMilli(), doc.latestVideoId(),
+                    new LatestVideo(
+                            doc.latestVideoId(),
+                            doc.latestVideoTitle(),
+                            doc.latestVideoPublishedAt().toString(),
+                            doc.latestVideoThumbnail(),
+                            doc.latestVideoDuration(),
+                            doc.latestVideoViewCount(),
+                            doc.channelTitle(),
+                            doc.channelId(),
+                            doc.thumbnailUrl()));
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.charge0315.yt.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.mongo.CachedChannel;
+import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelCatalogEntry;
+import com.charge0315.yt.mongo.ChannelCatalogRepository;
+import com.charge0315.yt.util.RequestContext;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 一覧の読み取りで見つかった「動画詳細（duration/viewCount）が欠けた動画」を裏で補完するサービス。
+ *
+ * <p>一覧 API は MongoDB の値をそのまま返し、欠けている動画IDを {@link #enqueue} で積むだけにします
+ * （YouTube API の待ち時間や失敗を GET リクエストに載せないため）。
+ * 積まれた ID は videoId で重複を除き、{@code youtube.enrichment.delay} ごとに videos.list（50件単位）で
+ * {@code BACKGROUND} 優先度としてまとめて取得します。</p>
+ *
+ * <p>取得した値は購読ドキュメント・共有カタログ・アップロード履歴の欠けている項目だけに書き込み、
+ * 新着一覧の作り直しとタイムラインへの反映を行います。次の読み取りから新しい値が返ります。
+ * 取得を試みた動画は {@code youtube.enrichment.retry-after} の間は再度積みません（非公開動画などで毎回呼ばないため）。</p>
+ *
+ * <p>取得に失敗したバッチは {@code youtube.enrichment.videos}（{@code result=failed}）に件数を数えます。
+ * 5xx・429・タイムアウトなど一時的な失敗なら「試みた」記録を消し、次の読み取りで再び積めるようにします。
+ * 認証切れやクォータ超過は retry-after まで積み直しません。
+ * 補完は同時に1回だけ流し、終わった時点で待ちがあれば次を予約します。</p>
+ */
+@Service
+public class VideoEnrichmentService {
+
+    private static final int MAX_ATTEMPTED = 10_000;
+
+    private final YouTubeDataApiService youTubeDataApiService;
+
+    private final CachedChannelRepository cachedChannelRepository;
+
+    private final ChannelCatalogRepository channelCatalogRepository;
+
+    private final ChannelVideoService channelVideoService;
+
+    private final NewReleasesService newReleasesService;
+
+    private final Scheduler scheduler;
+
+    private final boolean enabled;
+
+    private final Duration delay;
+
+    private final int maxPending;
+
+    private final Duration retryAfter;
+
+    /** videoId → 取得に使う呼び出し元（キュー順を保つ） */
+    private final Map<String, Requester> pending = new LinkedHashMap<>();
+
+    /** videoId → 最後に取得を試みた時刻 */
+    private final Map<String, Instant> attempted = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+            return size() > MAX_ATTEMPTED;
+        }
+    };
+
+    /** 予約済み、または補完を流している間は true */
+    private boolean scheduled;
+
+    private volatile Disposable draining;
+
+    private final Counter enqueued;
+
+    private final Counter dropped;
+
+    private final Counter enriched;
+
+    private final Counter failed;
+
+    @Autowired
+    public VideoEnrichmentService(
+            YouTubeDataApiService youTubeDataApiService,
+            CachedChannelRepository cachedChannelRepository,
+            ChannelCatalogRepository channelCatalogRepository,
+            ChannelVideoService channelVideoService,
+            NewReleasesService newReleasesService,
+            MeterRegistry meterRegistry,
+            @Value("${youtube.enrichment.enabled:true}") boolean enabled,
+            @Value("${youtube.enrichment.delay:2s}") Duration delay,
+            @Value("${youtube.enrichment.max-pending:1000}") int maxPending,
+            @Value("${youtube.enrichment.retry-after:10m}") Duration retryAfter) {
+        this(youTubeDataApiService, cachedChannelRepository, channelCatalogRepository, channelVideoService,
+                newReleasesService, meterRegistry, Schedulers.parallel(), enabled, delay, maxPending, retryAfter);
+    }
+
+    VideoEnrichmentService(
+            YouTubeDataApiService youTubeDataApiService,
+            CachedChannelRepository cachedChannelRepository,
+            ChannelCatalogRepository channelCatalogRepository,
+            ChannelVideoService channelVideoService,
+            NewReleasesService newReleasesService,
+            MeterRegistry meterRegistry,
+            Scheduler scheduler,
+            boolean enabled,
+            Duration delay,
+            int maxPending,
+            Duration retryAfter) {
+        this.youTubeDataApiService = youTubeDataApiService;
+        this.cachedChannelRepository = cachedChannelRepository;
+        this.channelCatalogRepository = channelCatalogRepository;
+        this.channelVideoService = channelVideoService;
+        this.newReleasesService = newReleasesService;
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.delay = delay;
+        this.maxPending = Math.max(1, maxPending);
+        this.retryAfter = retryAfter;
+        Gauge.builder("youtube.enrichment.pending", this, s -> s.pendingSize())
+                .description("補完待ちの動画数")
+                .register(meterRegistry);
+        this.enqueued = counter(meterRegistry, "enqueued");
+        this.dropped = counter(meterRegistry, "dropped");
+        this.enriched = counter(meterRegistry, "enriched");
+        this.failed = counter(meterRegistry, "failed");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("youtube.enrichment.videos")
+                .description("動画詳細の裏での補完（enqueued: 受付, dropped: 上限超過で破棄, enriched: 取得できた件数, failed: 補完に失敗した件数）")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 動画詳細の補完を積みます（待たずに戻ります）。
+     *
+     * <p>取得待ち・取得中・最近試みた動画は無視します。アクセストークンが無い場合は何もしません。</p>
+     */
+    public void enqueue(String userId, String accessToken, Collection<String> videoIds) {
+        if (!enabled || !StringUtils.hasText(accessToken) || videoIds == null || videoIds.isEmpty()) {
+            return;
+        }
+        boolean schedule = false;
+        synchronized (this) {
+            Instant now = Instant.now();
+            for (String videoId : videoIds) {
+                if (!StringUtils.hasText(videoId) || pending.containsKey(videoId)) {
+                    continue;
+                }
+                Instant last = attempted.get(videoId);
+                if (last != null && last.plus(retryAfter).isAfter(now)) {
+                    continue;
+                }
+                if (pending.size() >= maxPending) {
+                    dropped.increment();
+                    continue;
+                }
+                pending.put(videoId, new Requester(userId, accessToken));
+                // 取得中の重複を防ぐため、積んだ時点で「試みた」扱いにする
+                attempted.put(videoId, now);
+                enqueued.increment();
+            }
+            if (!scheduled && !pending.isEmpty()) {
+                scheduled = true;
+                schedule = true;
+            }
+        }
+        if (schedule) {
+            scheduler.schedule(this::drain, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized int pendingSize() {
+        return pending.size();
+    }
+
+    private void drain() {
+        Map<Requester, List<String>> batches = new LinkedHashMap<>();
+        synchronized (this) {
+            pending.forEach((videoId, requester) -> batches
+                    .computeIfAbsent(requester, k -> new ArrayList<>())
+                    .add(videoId));
+            pending.clear();
+        }
+        draining = Flux.fromIterable(batches.entrySet())
+                .concatMap(batch -> youTubeDataApiService
+                        .getVideoDetailsBatch(batch.getKey().accessToken(), batch.getValue())
+                        .contextWrite(ctx -> RequestContext.background(
+                                RequestContext.withUserId(ctx, batch.getKey().userId())))
+                        .flatMap(this::apply)
+                        .onErrorResume(e -> {
+                            failed(batch.getValue(), e);
+                            return Mono.empty();
+                        }))
+                .doFinally(signal -> drained())
+                .subscribe();
+    }
+
+    /**
+     * 補完が終わったら、その間に積まれた分があれば次を予約します。
+     */
+    private void drained() {
+        boolean again;
+        synchronized (this) {
+            again = !pending.isEmpty();
+            scheduled = again;
+        }
+        if (again) {
+            scheduler.schedule(this::drain, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void failed(List<String> videoIds, Throwable e) {
+        failed.increment(videoIds.size());
+        if (!isTransient(e)) {
+            // 認証切れやクォータ超過は retry-after の間は積み直さない
+            return;
+        }
+        synchronized (this) {
+            videoIds.forEach(attempted::remove);
+        }
+    }
+
+    /**
+     * 次の読み取りで積み直してよい一時的な失敗（5xx・429・タイムアウト・接続失敗）かどうか。
+     */
+    static boolean isTransient(Throwable e) {
+        if (e instanceof TimeoutException || e instanceof WebClientRequestException) {
+            return true;
+        }
+        if (e instanceof WebClientResponseException w) {
+            int status = w.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        // クライアント側のタイムアウト（504）・ブレーカー/同時実行数の制限（503）
+        return e instanceof ResponseStatusException r && r.getStatusCode().is5xxServerError();
+    }
+
+    @PreDestroy
+    void stop() {
+        Disposable current = draining;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    private Mono<Void> apply(Map<String, YouTubeDataApiService.VideoDetails> details) {
+        if (details.isEmpty()) {
+            return Mono.empty();
+        }
+        enriched.increment(details.size());
+        Mono<Void> subscriptions = cachedChannelRepository
+                .findByLatestVideoIdIn(details.keySet())
+                .filter(doc -> fillMissing(doc, details.get(doc.getLatestVideoId())))
+                .collectList()
+                .filter(changed -> !changed.isEmpty())
+                .flatMap(changed -> {
+                    Set<String> userIds = new HashSet<>();
+                    Map<String, Map<String, Object>> updates = new LinkedHashMap<>();
+                    for (CachedChannel doc : changed) {
+                        userIds.add(doc.getUserId());
+                        Map<String, Object> set = new LinkedHashMap<>();
+                        set.put("latestVideoDuration", doc.getLatestVideoDuration());
+                        set.put("latestVideoViewCount", doc.getLatestVideoViewCount());
+                        set.put("updatedAt", doc.getUpdatedAt());
+                        updates.put(doc.getId(), set);
+                    }
+                    // 補った2項目だけを bulkWrite で書き込む（他の項目は並行する更新を上書きしない）
+                    return cachedChannelRepository
+                            .setFields(updates)
+                            .thenMany(Flux.fromIterable(userIds))
+                            .flatMap(newReleasesService::rebuild, 4)
+                            .then();
+                });
+        // カタログの値はキャッシュ更新時に購読ドキュメントへ写されるため、カタログ側も埋めておく
+        // （補った2項目だけを latestVideoId 一致を条件に書き込み、並行するカタログ更新を上書きしない）
+        Mono<Void> catalog = channelCatalogRepository
+                .findByLatestVideoIdIn(details.keySet())
+                .filter(entry -> fillMissing(entry, details.get(entry.getLatestVideoId())))
+                .collectList()
+                .filter(changed -> !changed.isEmpty())
+                .flatMap(changed -> channelCatalogRepository.setLatestVideoDetails(changed).then());
+        return Mono.when(subscriptions, catalog, channelVideoService.applyDetails(details));
+    }
+
+    private static boolean fillMissing(CachedChannel doc, YouTubeDataApiService.VideoDetails details) {
+        if (details == null) {
+            return false;
+        }
+        boolean changed = false;
+        if (!StringUtils.hasText(doc.getLatestVideoDuration()) && StringUtils.hasText(details.duration())) {
+            doc.setLatestVideoDuration(details.duration());
+            changed = true;
+        }
+        if (doc.getLatestVideoViewCount() == null && details.viewCount() != null) {
+            doc.setLatestVideoViewCount(details.viewCount());
+            changed = true;
+        }
+        if (changed) {
+            doc.setUpdatedAt(Instant.now());
+        }
+        return changed;
+    }
+
+    private static boolean fillMissing(ChannelCatalogEntry entry, YouTubeDataApiService.VideoDetails details) {
+        if (details == null) {
+            return false;
+        }
+        boolean changed = false;
+        if (!StringUtils.hasText(entry.getLatestVideoDuration()) && StringUtils.hasText(details.duration())) {
+            entry.setLatestVideoDuration(details.duration());
+            changed = true;
+        }
+        if (entry.getLatestVideoViewCount() == null && details.viewCount() != null) {
+            entry.setLatestVideoViewCount(details.viewCount());
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * 補完の対象（動画IDがあり、duration/viewCount のどちらかが欠けている）かどうか。
+     */
+    static boolean isMissing(String videoId, String duration, Long viewCount) {
+        return StringUtils.hasText(videoId) && (!StringUtils.hasText(duration) || viewCount == null);
+    }
+
+    /**
+     * 補完を積んだ呼び出し元。同じトークンの動画を1回の videos.list にまとめます。
+     */
+    private record Requester(String userId, String accessToken) {
+    }
+}
@@ -3,8 +3,8 @@ package com.charge0315.yt.service;
 import java.time.Instant;
 import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -12,6 +12,9 @@ import org.springframework.web.server.ResponseStatusException;
 
 import com.charge0315.yt.mongo.CachedChannel;
 import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelCatalogEntry;
+import com.charge0315.yt.mongo.ChannelVideo;
+import com.charge0315.yt.mongo.SubscriptionSummary;
 
 import reactor.core.publisher.Mono;
 
@@ -19,32 +22,66 @@ import reactor.core.publisher.Mono;
  * YouTubeチャンネル管理（フロント互換）用サービス。
  *
  * <p>MongoDB の {@link CachedChannel} を基点に、フロントのチャンネル一覧/購読操作が
- * 期待する形へ整形して返します。必要に応じて YouTube Data API を呼び、
- * 最新動画情報などを補完します。</p>
+ * 期待する形へ整形して返します。説明文/登録者数は共有チャンネルカタログから補います。
+ * 読み取りでは YouTube Data API を呼ばず、欠けている動画詳細は {@link VideoEnrichmentService} が裏で補完します。</p>
+ *
+ * <p>{@code latestVideos} はチャンネルごとのアップロード履歴（{@link ChannelVideoService}）から
+ * 1回の範囲検索で返し、履歴がまだ無いチャンネルは購読ドキュメントの最新1件を返します。</p>
  */
 @Service
 public class YouTubeChannelsService {
 
-    private final YouTubeDataApiService youTubeDataApiService;
-
     private final CachedChannelRepository cachedChannelRepository;
 
-    public YouTubeChannelsService(YouTubeDataApiService youTubeDataApiService, CachedChannelRepository cachedChannelRepository) {
-        this.youTubeDataApiService = youTubeDataApiService;
+    private final ChannelCatalogService channelCatalogService;
+
+    private final ChannelVideoService channelVideoService;
+
+    private final TimelineService timelineService;
+
+    private final NewReleasesService newReleasesService;
+
+    private final VideoEnrichmentService videoEnrichmentService;
+
+    public YouTubeChannelsService(
+            CachedChannelRepository cachedChannelRepository,
+            ChannelCatalogService channelCatalogService,
+            ChannelVideoService channelVideoService,
+            TimelineService timelineService,
+            NewReleasesService newReleasesService,
+            VideoEnrichmentService videoEnrichmentService) {
         this.cachedChannelRepository = cachedChannelRepository;
+        this.channelCatalogService = channelCatalogService;
+        this.channelVideoService = channelVideoService;
+        this.timelineService = timelineService;
+        this.newReleasesService = newReleasesService;
+        this.videoEnrichmentService = videoEnrichmentService;
     }
 
     public Mono<List<YouTubeChannelEntry>> getAll(String userId) {
         return getAll(userId, null);
     }
 
+    /**
+     * 登録チャンネル一覧を返します。
+     *
+     * <p>MongoDB の値だけで応答し、動画詳細が欠けている動画は {@link VideoEnrichmentService} に積んで裏で補完します。</p>
+     */
     public Mono<List<YouTubeChannelEntry>> getAll(String userId, String accessToken) {
         // youtubeChannels は通常チャンネル（isArtist=false）を対象にする
         return cachedChannelRepository
-                .findByUserIdAndIsArtistFalseOrderByChannelTitleAsc(userId)
-                .flatMap(doc -> backfillLatestVideoDetailsIfNeeded(doc, accessToken))
-                .map(YouTubeChannelsService::toEntry)
-                .collectList();
+                .findByUserIdAndIsArtistFalseOrderByChannelTitleAsc(userId, SubscriptionSummary.class)
+                .collectList()
+                .flatMap(docs -> {
+                    List<String> channelIds = docs.stream().map(SubscriptionSummary::channelId).toList();
+                    return Mono.zip(channelCatalogService.findAll(channelIds), channelVideoService.findRecent(channelIds))
+                            .map(t -> docs.stream()
+                                    .map(doc -> toEntry(doc, t.getT1().get(doc.channelId()), null,
+                                            t.getT2().get(doc.channelId())))
+                                    .toList());
+                })
+                .doOnNext(entries -> enrichLater(userId, accessToken,
+                        entries.stream().flatMap(entry -> entry.latestVideos().stream()).toList()));
     }
 
     public Mono<YouTubeChannelEntry> subscribe(String userId, String accessToken, SubscribeRequest req) {
@@ -55,123 +92,82 @@ public class YouTubeChannelsService {
         // 既に登録済みならそれを返す
         Mono<YouTubeChannelEntry> existing = cachedChannelRepository
                 .findFirstByUserIdAndChannelId(userId, req.channelId())
-                .map(YouTubeChannelsService::toEntry);
-
-        Mono<YouTubeDataApiService.ChannelDetails> detailsMono = youTubeDataApiService.getChannelDetails(accessToken,
-                req.channelId());
-        Mono<YouTubeDataApiService.LatestVideo> latestMono = youTubeDataApiService
-                .fetchLatestVideoForChannel(accessToken, req.channelId());
-
-        Mono<YouTubeChannelEntry> created = Mono
-                .zip(detailsMono, latestMono.defaultIfEmpty(new YouTubeDataApiService.LatestVideo(null, null, null, null)))
-                .flatMap(tuple -> {
-                    YouTubeDataApiService.ChannelDetails details = tuple.getT1();
-                    YouTubeDataApiService.LatestVideo latest = tuple.getT2();
-
-                    Mono<YouTubeDataApiService.VideoDetails> videoDetailsMono = StringUtils.hasText(latest.videoId())
-                            ? youTubeDataApiService.getVideoDetails(accessToken, latest.videoId())
-                                    .switchIfEmpty(Mono.just(new YouTubeDataApiService.VideoDetails(null, null)))
-                            : Mono.just(new YouTubeDataApiService.VideoDetails(null, null));
-
-                    return videoDetailsMono.flatMap(videoDetails -> {
-                        String id = UUID.randomUUID().toString();
-                        Instant now = Instant.now();
-
-                        CachedChannel doc = new CachedChannel();
-                        doc.setId(id);
-                        doc.setUserId(userId);
-                        doc.setChannelId(details.channelId());
-                        doc.setChannelTitle(details.title());
-                        doc.setChannelDescription(details.description());
-                        doc.setThumbnailUrl(details.thumbnailUrl());
-                        doc.setSubscriberCount(details.subscriberCount());
-                        doc.setIsArtist(false);
-                        doc.setVideoCount(0);
-                        doc.setCreatedAt(now);
-                        doc.setUpdatedAt(now);
-
-                        if (StringUtils.hasText(latest.videoId())) {
-                            doc.setLatestVideoId(latest.videoId());
-                            doc.setLatestVideoTitle(latest.title());
-                            doc.setLatestVideoThumbnail(latest.thumbnailUrl());
-                            doc.setLatestVideoPublishedAt(parseInstant(latest.publishedAt()));
-                            doc.setLatestVideoDuration(videoDetails.duration());
-                            doc.setLatestVideoViewCount(videoDetails.viewCount());
-                        }
-
-                        return cachedChannelRepository.save(doc);
-                    });
-                })
-                .map(YouTubeChannelsService::toEntry);
-
-        return existing.switchIfEmpty(created);
+                .flatMap(doc -> channelCatalogService
+                        .findAll(List.of(doc.getChannelId()))
+                        .map(catalog -> toEntry(doc, catalog.get(doc.getChannelId()))));
+
+        // チャンネル情報は共有カタログから解決する（他ユーザーが登録済みなら API 呼び出しなし）
+        Mono<YouTubeChannelEntry> created = Mono.defer(() -> channelCatalogService
+                .resolve(accessToken, req.channelId())
+                .flatMap(entry -> cachedChannelRepository
+                        .save(ChannelCatalogService.newSubscription(userId, entry))
+                        .flatMap(doc -> newReleasesService.onSubscriptionsChanged(userId).thenReturn(doc))
+                        .map(doc -> toEntry(doc, entry))));
+
+        // 同時に登録された場合は (userId, channelId) の一意インデックスで弾かれるので、先に保存された方を返す
+        return existing
+                .switchIfEmpty(created)
+                .onErrorResume(DuplicateKeyException.class, e -> existing);
     }
 
     public Mono<Void> unsubscribe(String userId, String id) {
-        return cachedChannelRepository.deleteByUserIdAndId(userId, id).then();
+        return cachedChannelRepository
+                .deleteByUserIdAndId(userId, id)
+                .then(newReleasesService.onSubscriptionsChanged(userId));
     }
 
     public Mono<List<LatestVideo>> getLatestVideos(String userId) {
         return getLatestVideos(userId, null);
     }
 
+    /**
+     * 登録チャンネルの新着動画を新しい順に返します（{@link TimelineService} の構築済みタイムラインから）。
+     */
     public Mono<List<LatestVideo>> getLatestVideos(String userId, String accessToken) {
-        return getAll(userId, accessToken)
-                .map(channels -> channels.stream()
-                        .flatMap(ch -> ch.latestVideos().stream())
-                        .sorted(Comparator.comparing(YouTubeChannelsService::parseInstantSafe).reversed())
-                        .toList());
+        return timelineService.all(userId).doOnNext(videos -> enrichLater(userId, accessToken, videos));
     }
 
-    private Mono<CachedChannel> backfillLatestVideoDetailsIfNeeded(CachedChannel doc, String accessToken) {
-        if (doc == null) {
-            return Mono.empty();
-        }
-        if (!StringUtils.hasText(accessToken)) {
-            return Mono.just(doc);
-        }
-        if (!StringUtils.hasText(doc.getLatestVideoId())) {
-            return Mono.just(doc);
-        }
-        boolean missingDuration = doc.getLatestVideoDuration() == null || doc.getLatestVideoDuration().isBlank();
-        boolean missingViewCount = doc.getLatestVideoViewCount() == null;
-        if (!missingDuration && !missingViewCount) {
-            return Mono.just(doc);
-        }
+    /**
+     * 新着動画タイムラインの1ページを返します。
+     */
+    public Mono<TimelineService.TimelinePage> getTimeline(String userId, String cursor, Integer limit) {
+        return timelineService.page(userId, cursor, limit);
+    }
 
-        return youTubeDataApiService
-                .getVideoDetails(accessToken, doc.getLatestVideoId())
-                .flatMap(details -> {
-                    boolean changed = false;
-                    if ((doc.getLatestVideoDuration() == null || doc.getLatestVideoDuration().isBlank())
-                            && StringUtils.hasText(details.duration())) {
-                        doc.setLatestVideoDuration(details.duration());
-                        changed = true;
-                    }
-                    if (doc.getLatestVideoViewCount() == null && details.viewCount() != null) {
-                        doc.setLatestVideoViewCount(details.viewCount());
-                        changed = true;
-                    }
-                    if (!changed) {
-                        return Mono.just(doc);
-                    }
-                    doc.setUpdatedAt(Instant.now());
-                    return cachedChannelRepository.save(doc);
-                })
-                .switchIfEmpty(Mono.just(doc))
-                // 読み取り時の補完なので、失敗してもレスポンス自体は返す
-                .onErrorResume(e -> Mono.just(doc));
+    private void enrichLater(String userId, String accessToken, List<LatestVideo> videos) {
+        List<String> missing = videos.stream()
+                .filter(v -> VideoEnrichmentService.isMissing(v.videoId(), v.duration(), v.viewCount()))
+                .map(LatestVideo::videoId)
+                .toList();
+        videoEnrichmentService.enqueue(userId, accessToken, missing);
     }
 
+    /**
+     * 購読ドキュメントの最新動画（{@code latestVideo*}）を書き換えます（非推奨）。
+     *
+     * <p>一覧やタイムラインはチャンネルのアップロード履歴（{@code channel_videos}）があればそちらを優先するため、
+     * 履歴のあるチャンネルでは書き換えても表示に反映されません。その場合は書き込まずに
+     * {@code 409 latest_videos_managed_by_history} を返します。履歴の無いチャンネルでも次のキャッシュ更新で
+     * カタログの値に戻ります。</p>
+     */
     public Mono<YouTubeChannelEntry> updateVideos(String userId, String id, List<LatestVideo> latestVideos) {
         List<LatestVideo> safe = latestVideos != null ? latestVideos : List.of();
         // cached_channels は「最新1件」しか持たないため、渡された配列から一番新しいものを反映する
+        // （共有のアップロード履歴はカタログ更新経路だけが書き込み、ユーザーの入力では変更しない）
         return cachedChannelRepository
                 .findById(id)
                 .filter(doc -> userId.equals(doc.getUserId()))
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "not_found")))
+                .flatMap(doc -> channelVideoService
+                        .findRecent(List.of(doc.getChannelId()))
+                        .flatMap(history -> history.containsKey(doc.getChannelId())
+                                ? Mono.<CachedChannel>error(new ResponseStatusException(HttpStatus.CONFLICT,
+                                        "latest_videos_managed_by_history"))
+                                : Mono.just(doc)))
                 .flatMap(doc -> {
                     doc.setUpdatedAt(Instant.now());
+                    // 次のキャッシュ更新でカタログの値を反映し直させる
+                    doc.setCatalogHash(null);
                     LatestVideo newest = safe.stream()
                             .max(Comparator.comparing(YouTubeChannelsService::parseInstantSafe))
                             .orElse(null);
@@ -192,7 +188,12 @@ public class YouTubeChannelsService {
                     }
                     return cachedChannelRepository.save(doc);
                 })
-                .map(YouTubeChannelsService::toEntry);
+                // タイムラインは履歴の無いチャンネルで latestVideo* を使うため作り直させる
+                .flatMap(doc -> newReleasesService.onSubscriptionsChanged(userId).thenReturn(doc))
+                // 一覧（getAll）と同じくカタログの説明文/登録者数で返す
+                .flatMap(doc -> channelCatalogService
+                        .findAll(List.of(doc.getChannelId()))
+                        .map(catalog -> toEntry(doc, catalog.get(doc.getChannelId()))));
     }
 
     private static Instant parseInstantSafe(LatestVideo v) {
@@ -214,32 +215,51 @@ public class YouTubeChannelsService {
         }
     }
 
-    private static YouTubeChannelEntry toEntry(CachedChannel doc) {
-        // cached_channels は latestVideo* を1件だけ持つので、latestVideos は 0 or 1 件にマップ
-        List<LatestVideo> latest = (doc.getLatestVideoId() != null && !doc.getLatestVideoId().isBlank())
+    private static YouTubeChannelEntry toEntry(CachedChannel doc, ChannelCatalogEntry catalog) {
+        return toEntry(SubscriptionSummary.of(doc), catalog, doc.getChannelDescription(), null);
+    }
+
+    /**
+     * {@code fallbackDescription} は旧形式の購読ドキュメントに残っている説明文（一覧の射影では取得しないため {@code null}）。
+     */
+    private static YouTubeChannelEntry toEntry(SubscriptionSummary doc, ChannelCatalogEntry catalog,
+            String fallbackDescription, List<ChannelVideo> history) {
+        // 共有のアップロード履歴があればそれを、無ければ cached_channels の latestVideo*（0 or 1 件）を使う
+        List<LatestVideo> latest = history != null && !history.isEmpty()
+                ? history.stream().map(video -> new LatestVideo(
+                        video.getVideoId(),
+                        video.getTitle(),
+                        video.getPublishedAt() != null ? video.getPublishedAt().toString() : null,
+                        video.getThumbnailUrl(),
+                        video.getDuration(),
+                        video.getViewCount(),
+                        doc.channelTitle(),
+                        doc.channelId(),
+                        doc.thumbnailUrl())).toList()
+                : StringUtils.hasText(doc.latestVideoId())
                 ? List.of(new LatestVideo(
-                        doc.getLatestVideoId(),
-                        doc.getLatestVideoTitle(),
-                        doc.getLatestVideoPublishedAt() != null ? doc.getLatestVideoPublishedAt().toString() : null,
-                        doc.getLatestVideoThumbnail(),
-                doc.getLatestVideoDuration(),
-                doc.getLatestVideoViewCount(),
-                        doc.getChannelTitle(),
-                        doc.getChannelId(),
-                        doc.getThumbnailUrl()))
+                        doc.latestVideoId(),
+                        doc.latestVideoTitle(),
+                        doc.latestVideoPublishedAt() != null ? doc.latestVideoPublishedAt().toString() : null,
+                        doc.latestVideoThumbnail(),
+                        doc.latestVideoDuration(),
+                        doc.latestVideoViewCount(),
+                        doc.channelTitle(),
+                        doc.channelId(),
+                        doc.thumbnailUrl()))
                 : List.of();
 
         return new YouTubeChannelEntry(
-                doc.getId(),
-                doc.getChannelTitle(),
-                doc.getChannelId(),
-                doc.getThumbnailUrl(),
-                doc.getChannelDescription(),
-            doc.getSubscriberCount(),
+                doc.id(),
+                doc.channelTitle(),
+                doc.channelId(),
+                doc.thumbnailUrl(),
+                catalog != null && catalog.getDescription() != null ? catalog.getDescription() : fallbackDescription,
+                catalog != null && catalog.getSubscriberCount() != null ? catalog.getSubscriberCount() : doc.subscriberCount(),
                 latest,
-                doc.getUserId(),
-                doc.getCreatedAt() != null ? doc.getCreatedAt().toString() : null,
-                doc.getUpdatedAt() != null ? doc.getUpdatedAt().toString() : null);
+                doc.userId(),
+                doc.createdAt() != null ? doc.createdAt().toString() : null,
+                doc.updatedAt() != null ? doc.updatedAt().toString() : null);
     }
 
     public record SubscribeRequest(
@@ -1,20 +1,30 @@
 package com.charge0315.yt.service;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.charge0315.yt.client.MicroBatcher;
+import com.charge0315.yt.client.YouTubeApiClient;
+import com.charge0315.yt.client.YouTubeApiClient.Scope;
+import com.charge0315.yt.client.YouTubeItems;
+import com.charge0315.yt.client.YouTubeQuotaManager;
+import com.charge0315.yt.client.YouTubeResource;
+import com.charge0315.yt.util.RequestContext;
 import com.fasterxml.jackson.databind.JsonNode;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -26,59 +36,136 @@ import reactor.core.publisher.Mono;
 @Service
 public class YouTubeDataApiService {
 
-    private final WebClient webClient;
+    /**
+     * channels.list / videos.list の id パラメータに指定できる最大件数。
+     */
+    public static final int MAX_IDS_PER_REQUEST = 50;
+
+    /*
+     * fields= による部分レスポンス指定（呼び出し箇所ごと）。
+     * マッパーとフロントが実際に読む項目だけに絞り、転送量と JSON 解析コストを減らします。
+     * 読む項目を増やす場合は、対応するマスクも合わせて更新してください。
+     */
+
+    private static final String THUMBS = "thumbnails(default/url,medium/url,high/url)";
+
+    private static final String FIELDS_SEARCH_VIDEOS =
+            "items(id/videoId,snippet(title,channelTitle,channelId,publishedAt," + THUMBS + "))";
+
+    private static final String FIELDS_SEARCH_CHANNELS =
+            "items(id/channelId,snippet(title,description," + THUMBS + "))";
+
+    private static final String FIELDS_SEARCH_LATEST =
+            "items(id/videoId,snippet(title,publishedAt," + THUMBS + "))";
+
+    private static final String FIELDS_CHANNEL_DETAILS =
+            "items(id,snippet(title,description," + THUMBS + "),statistics/subscriberCount,"
+                    + "contentDetails/relatedPlaylists/uploads)";
+
+    private static final String FIELDS_LATEST_UPLOAD =
+            "items(snippet(title,publishedAt,resourceId/videoId," + THUMBS + "),contentDetails(videoId,videoPublishedAt))";
+
+    private static final String FIELDS_VIDEO_DETAILS = "items(id,contentDetails/duration,statistics/viewCount)";
+
+    private static final String FIELDS_DURATIONS = "items(id,contentDetails/duration)";
+
+    // フロント（PlaylistsPage / YouTubePlaylistsPage）は id, snippet.title/description/channelId/thumbnails,
+    // contentDetails.itemCount を参照する
+    private static final String FIELDS_PLAYLISTS =
+            "nextPageToken,items(id,snippet(title,description,channelId," + THUMBS + "),contentDetails/itemCount)";
+
+    // etag / itemCount は再生リスト索引（PlaylistItemIndexService）の照合に使う
+    private static final String FIELDS_PLAYLIST =
+            "items(id,etag,snippet(title,description,publishedAt," + THUMBS + "),contentDetails/itemCount)";
+
+    private static final String FIELDS_PLAYLIST_ITEMS =
+            "nextPageToken,items(snippet(title,videoOwnerChannelTitle,channelTitle,publishedAt,resourceId/videoId," + THUMBS + "),"
+                    + "contentDetails/videoId)";
+
+    private static final String FIELDS_ID_ONLY = "id";
+
+    /**
+     * playlistItems.list の1ページあたりの最大件数。
+     */
+    private static final int PLAYLIST_ITEMS_PAGE_SIZE = 50;
 
-    public YouTubeDataApiService(WebClient.Builder builder) {
-        this.webClient = builder
-                .baseUrl("https://www.googleapis.com/youtube/v3")
-                .build();
+    private final YouTubeApiClient youTubeApiClient;
+
+    private final PlaylistItemIndexService playlistItemIndexService;
+
+    private final int playlistMaxItems;
+
+    private final int durationConcurrency;
+
+    private final MicroBatcher<ChannelDetails> channelDetailsLoader;
+
+    private final MicroBatcher<VideoDetails> videoDetailsLoader;
+
+    private final SearchResultCache searchResultCache;
+
+    public YouTubeDataApiService(
+            YouTubeApiClient youTubeApiClient,
+            PlaylistItemIndexService playlistItemIndexService,
+            SearchResultCache searchResultCache,
+            YouTubeQuotaManager quotaManager,
+            MeterRegistry meterRegistry,
+            @Value("${youtube.playlist.max-items:5000}") int playlistMaxItems,
+            @Value("${youtube.playlist.duration-concurrency:4}") int durationConcurrency,
+            @Value("${youtube.batch.window:5ms}") Duration batchWindow) {
+        this.youTubeApiClient = youTubeApiClient;
+        this.playlistItemIndexService = playlistItemIndexService;
+        this.searchResultCache = searchResultCache;
+        this.playlistMaxItems = playlistMaxItems;
+        this.durationConcurrency = Math.max(1, durationConcurrency);
+        this.channelDetailsLoader = new MicroBatcher<>("channels", MAX_IDS_PER_REQUEST, batchWindow,
+                this::getChannelDetailsBatch, quotaManager, YouTubeResource.CHANNELS.readCost(), meterRegistry);
+        this.videoDetailsLoader = new MicroBatcher<>("videos", MAX_IDS_PER_REQUEST, batchWindow,
+                this::getVideoDetailsBatch, quotaManager, YouTubeResource.VIDEOS.readCost(), meterRegistry);
     }
 
     /**
      * 動画を検索し、フロントで扱いやすい検索結果（duration/publishedAt 等を含む）を返します。
+     *
+     * <p>結果は {@link SearchResultCache} でユーザー間で共有します（キャッシュのキーは正規化したクエリ、
+     * YouTube へ送るのは呼び出し元のクエリです）。</p>
      */
     public Mono<List<VideoSearchResult>> searchVideos(String accessToken, String query, int maxResults) {
-        return webClient
-                .get()
-                .uri(uriBuilder -> UriComponentsBuilder
+        // 正規化されるのはキャッシュのキーだけで、loader には呼び出し元のクエリがそのまま渡る（ここで正規化しない）
+        return searchResultCache.get("video", query, maxResults,
+                (callerQuery, size) -> fetchSearchVideos(accessToken, callerQuery, size));
+    }
+
+    private Mono<List<VideoSearchResult>> fetchSearchVideos(String accessToken, String query, int maxResults) {
+        return youTubeApiClient
+                .streamItems(accessToken, YouTubeResource.SEARCH, Scope.GLOBAL, UriComponentsBuilder
                         .fromPath("/search")
                         .queryParam("part", "snippet")
                         .queryParam("type", "video")
                         .queryParam("order", "relevance")
                         .queryParam("maxResults", maxResults)
                 .queryParam("q", query)
+                        .queryParam("fields", FIELDS_SEARCH_VIDEOS)
                         .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .flatMap(json -> {
-                    List<VideoSearchResult> base = new ArrayList<>();
-                    List<String> ids = new ArrayList<>();
-
-                    JsonNode items = json.get("items");
-                    if (items != null && items.isArray()) {
-                        for (JsonNode item : items) {
-                            String videoId = item.path("id").path("videoId").asText(null);
-                            String title = item.path("snippet").path("title").asText(null);
-                            String channelTitle = item.path("snippet").path("channelTitle").asText(null);
-                            String channelId = item.path("snippet").path("channelId").asText(null);
-                            String publishedAt = item.path("snippet").path("publishedAt").asText(null);
-                            String thumbnail = item.path("snippet").path("thumbnails").path("default").path("url").asText(null);
-                            if (thumbnail == null) {
-                                thumbnail = item.path("snippet").path("thumbnails").path("medium").path("url").asText(null);
-                            }
-                            if (videoId != null) {
-                                base.add(new VideoSearchResult(videoId, title, channelTitle, channelId, thumbnail, null, publishedAt));
-                                ids.add(videoId);
-                            }
-                        }
-                    }
-
-                    if (ids.isEmpty()) {
+                        .toUri(), YouTubeItems.SearchResult.class)
+                .filter(item -> item.id() != null && item.id().videoId() != null)
+                .map(item -> {
+                    YouTubeItems.Snippet snippet = YouTubeItems.snippetOrEmpty(item.snippet());
+                    return new VideoSearchResult(
+                            item.id().videoId(),
+                            snippet.title(),
+                            snippet.channelTitle(),
+                            snippet.channelId(),
+                            snippet.defaultThumbnail(),
+                            null,
+                            snippet.publishedAt());
+                })
+                .collectList()
+                .flatMap(base -> {
+                    if (base.isEmpty()) {
                         return Mono.just(base);
                     }
 
+                    List<String> ids = base.stream().map(VideoSearchResult::videoId).toList();
                     return fetchDurations(accessToken, ids)
                             .map(durationMap -> base.stream()
                                     .map(v -> new VideoSearchResult(
@@ -95,175 +182,235 @@ public class YouTubeDataApiService {
 
     /**
      * チャンネルを検索し、候補一覧を返します。
+     *
+     * <p>結果は {@link SearchResultCache} でユーザー間で共有します。</p>
      */
     public Mono<List<ChannelSearchResult>> searchChannels(String accessToken, String query, int maxResults) {
-        return webClient
-                .get()
-                .uri(uriBuilder -> UriComponentsBuilder
+        // 正規化されるのはキャッシュのキーだけで、loader には呼び出し元のクエリがそのまま渡る（ここで正規化しない）
+        return searchResultCache.get("channel", query, maxResults,
+                (callerQuery, size) -> fetchSearchChannels(accessToken, callerQuery, size));
+    }
+
+    private Mono<List<ChannelSearchResult>> fetchSearchChannels(String accessToken, String query, int maxResults) {
+        return youTubeApiClient
+                .streamItems(accessToken, YouTubeResource.SEARCH, Scope.GLOBAL, UriComponentsBuilder
                         .fromPath("/search")
                         .queryParam("part", "snippet")
                         .queryParam("type", "channel")
                         .queryParam("order", "relevance")
                         .queryParam("maxResults", maxResults)
                         .queryParam("q", query)
+                        .queryParam("fields", FIELDS_SEARCH_CHANNELS)
                         .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .map(json -> {
-                    List<ChannelSearchResult> out = new ArrayList<>();
-                    JsonNode items = json.get("items");
-                    if (items != null && items.isArray()) {
-                        for (JsonNode item : items) {
-                            String channelId = item.path("id").path("channelId").asText(null);
-                            String title = item.path("snippet").path("title").asText(null);
-                            String description = item.path("snippet").path("description").asText(null);
-                            String thumbnail = item.path("snippet").path("thumbnails").path("default").path("url").asText(null);
-                            if (thumbnail == null) {
-                                thumbnail = item.path("snippet").path("thumbnails").path("medium").path("url").asText(null);
-                            }
-                            if (thumbnail == null) {
-                                thumbnail = item.path("snippet").path("thumbnails").path("high").path("url").asText(null);
-                            }
-                            if (channelId != null) {
-                                out.add(new ChannelSearchResult(channelId, title, description, thumbnail));
-                            }
-                        }
-                    }
-                    return out;
-                });
+                        .toUri(), YouTubeItems.SearchResult.class)
+                .filter(item -> item.id() != null && item.id().channelId() != null)
+                .map(item -> {
+                    YouTubeItems.Snippet snippet = YouTubeItems.snippetOrEmpty(item.snippet());
+                    return new ChannelSearchResult(
+                            item.id().channelId(),
+                            snippet.title(),
+                            snippet.description(),
+                            snippet.defaultThumbnail());
+                })
+                .collectList();
     }
 
     /**
-     * チャンネル詳細（タイトル/説明/サムネイル/登録者数）を取得します。
+     * チャンネル詳細（タイトル/説明/サムネイル/登録者数/アップロード再生リストID）を取得します。
+     *
+     * <p>同時期に来た他のリクエストの1件取得と {@code youtube.batch.window} の間まとめ、
+     * channels.list（最大50件）1回で取得します。まとめた呼び出しは最初の呼び出し元のトークンで送り、
+     * そのトークンの失効（401/403）やクォータ拒否（429）で失敗した場合は、{@link MicroBatcher} が
+     * 呼び出し元のトークンごとに取り直します。ユーザー単位の枠は呼び出し元ごとに1件分を計上します。</p>
      */
     public Mono<ChannelDetails> getChannelDetails(String accessToken, String channelId) {
-        return webClient
-                .get()
-                .uri(uriBuilder -> UriComponentsBuilder
-                        .fromPath("/channels")
-                        .queryParam("part", "snippet,statistics")
-                        .queryParam("id", channelId)
-                        .queryParam("maxResults", 1)
+        if (!StringUtils.hasText(channelId)) {
+            return Mono.error(() -> channelNotFound());
+        }
+        return channelDetailsLoader
+                .load(accessToken, channelId)
+                .switchIfEmpty(Mono.error(() -> channelNotFound()));
+    }
+
+    private static org.springframework.web.server.ResponseStatusException channelNotFound() {
+        return new org.springframework.web.server.ResponseStatusException(
+                org.springframework.http.HttpStatus.NOT_FOUND, "channel_not_found");
+    }
+
+    /**
+     * 複数チャンネルの詳細を channels.list（1リクエスト最大50件）でまとめて取得します。
+     *
+     * <p>戻り値は channelId をキーにしたマップです。存在しないチャンネルはマップに含まれません。</p>
+     */
+    public Mono<Map<String, ChannelDetails>> getChannelDetailsBatch(String accessToken, List<String> channelIds) {
+        List<String> ids = distinctIds(channelIds);
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        return Flux.fromIterable(partition(ids))
+                .concatMap(chunk -> youTubeApiClient
+                        .streamItems(accessToken, YouTubeResource.CHANNELS, Scope.GLOBAL, UriComponentsBuilder
+                                .fromPath("/channels")
+                                .queryParam("part", "snippet,statistics,contentDetails")
+                                .queryParam("id", String.join(",", chunk))
+                                .queryParam("maxResults", chunk.size())
+                                .queryParam("fields", FIELDS_CHANNEL_DETAILS)
+                                .build(true)
+                                .toUri(), YouTubeItems.Channel.class))
+                .map(YouTubeDataApiService::toChannelDetails)
+                .filter(details -> details.channelId() != null)
+                .collectMap(ChannelDetails::channelId);
+    }
+
+    private static ChannelDetails toChannelDetails(YouTubeItems.Channel item) {
+        YouTubeItems.Snippet snippet = YouTubeItems.snippetOrEmpty(item.snippet());
+        String subscriberCount = item.statistics() != null ? item.statistics().subscriberCount() : null;
+        String uploadsPlaylistId = item.contentDetails() != null && item.contentDetails().relatedPlaylists() != null
+                ? item.contentDetails().relatedPlaylists().uploads()
+                : null;
+        return new ChannelDetails(item.id(), snippet.title(), snippet.description(), snippet.defaultThumbnail(),
+                subscriberCount, uploadsPlaylistId);
+    }
+
+    /**
+     * 指定チャンネルの最新動画（1件）を取得します。
+     *
+     * <p>アップロード再生リストIDが分かっている場合は playlistItems.list（1ユニット）で取得し、
+     * 不明な場合や再生リストが見つからない場合のみ search.list（100ユニット）へフォールバックします。</p>
+     */
+    public Mono<LatestVideo> fetchLatestVideoForChannel(String accessToken, String channelId, String uploadsPlaylistId) {
+        return fetchRecentVideosForChannel(accessToken, channelId, uploadsPlaylistId, 1)
+                .flatMap(videos -> videos.isEmpty() ? Mono.empty() : Mono.just(videos.get(0)));
+    }
+
+    /**
+     * 指定チャンネルの直近のアップロードを新しい順に最大 {@code limit} 件（50件まで）取得します。
+     *
+     * <p>playlistItems.list は件数によらず1ユニットです。アップロード再生リストが使えない場合は
+     * {@link #fetchLatestVideoForChannel} と同じく search.list で最新1件だけを取得します。</p>
+     */
+    public Mono<List<LatestVideo>> fetchRecentVideosForChannel(
+            String accessToken,
+            String channelId,
+            String uploadsPlaylistId,
+            int limit) {
+        if (!StringUtils.hasText(uploadsPlaylistId)) {
+            return searchLatestVideoForChannel(accessToken, channelId).map(List::of).defaultIfEmpty(List.of());
+        }
+        return fetchRecentUploads(accessToken, uploadsPlaylistId, limit)
+                .onErrorResume(WebClientResponseException.NotFound.class,
+                        e -> searchLatestVideoForChannel(accessToken, channelId).map(List::of).defaultIfEmpty(List.of()));
+    }
+
+    /**
+     * アップロード再生リストの先頭（新しいアップロード）から {@code limit} 件を取得します。
+     */
+    private Mono<List<LatestVideo>> fetchRecentUploads(String accessToken, String uploadsPlaylistId, int limit) {
+        return youTubeApiClient
+                .streamItems(accessToken, YouTubeResource.PLAYLIST_ITEMS, Scope.GLOBAL, UriComponentsBuilder
+                        .fromPath("/playlistItems")
+                        .queryParam("part", "snippet,contentDetails")
+                        .queryParam("playlistId", uploadsPlaylistId)
+                        .queryParam("maxResults", Math.max(1, Math.min(PLAYLIST_ITEMS_PAGE_SIZE, limit)))
+                        .queryParam("fields", FIELDS_LATEST_UPLOAD)
                         .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .map(json -> {
-                    JsonNode items = json.get("items");
-                    if (items == null || !items.isArray() || items.isEmpty()) {
-                        throw new org.springframework.web.server.ResponseStatusException(
-                                org.springframework.http.HttpStatus.NOT_FOUND, "channel_not_found");
-                    }
-                    JsonNode item = items.get(0);
-                    String id = item.path("id").asText(null);
-                    String title = item.path("snippet").path("title").asText(null);
-                    String description = item.path("snippet").path("description").asText(null);
-                    String thumbnail = item.path("snippet").path("thumbnails").path("default").path("url").asText(null);
-                    if (thumbnail == null) {
-                        thumbnail = item.path("snippet").path("thumbnails").path("medium").path("url").asText(null);
-                    }
-                    if (thumbnail == null) {
-                        thumbnail = item.path("snippet").path("thumbnails").path("high").path("url").asText(null);
+                        .toUri(), YouTubeItems.PlaylistItem.class)
+                .filter(item -> item.videoId() != null)
+                .map(item -> {
+                    YouTubeItems.Snippet snippet = YouTubeItems.snippetOrEmpty(item.snippet());
+                    String publishedAt = item.contentDetails() != null ? item.contentDetails().videoPublishedAt() : null;
+                    if (publishedAt == null) {
+                        publishedAt = snippet.publishedAt();
                     }
-                    String subscriberCount = item.path("statistics").path("subscriberCount").asText(null);
-                    return new ChannelDetails(id, title, description, thumbnail, subscriberCount);
-                });
+                    return new LatestVideo(item.videoId(), snippet.title(), snippet.mediumThumbnail(), publishedAt);
+                })
+                .collectList();
     }
 
     /**
-     * 指定チャンネルの最新動画（1件）を取得します。
+     * search.list（order=date）で指定チャンネルの最新動画を取得します（フォールバック用・100ユニット）。
      */
-    public Mono<LatestVideo> fetchLatestVideoForChannel(String accessToken, String channelId) {
-        return webClient
-                .get()
-                .uri(uriBuilder -> UriComponentsBuilder
+    private Mono<LatestVideo> searchLatestVideoForChannel(String accessToken, String channelId) {
+        return youTubeApiClient
+                .streamItems(accessToken, YouTubeResource.SEARCH, Scope.GLOBAL, UriComponentsBuilder
                         .fromPath("/search")
                         .queryParam("part", "snippet")
                         .queryParam("type", "video")
                         .queryParam("order", "date")
                         .queryParam("maxResults", 1)
                         .queryParam("channelId", channelId)
+                        .queryParam("fields", FIELDS_SEARCH_LATEST)
                         .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .flatMap(json -> {
-                    JsonNode items = json.get("items");
-                    if (items == null || !items.isArray() || items.isEmpty()) {
-                        return Mono.empty();
-                    }
-                    JsonNode item = items.get(0);
-                    String videoId = item.path("id").path("videoId").asText(null);
-                    String title = item.path("snippet").path("title").asText(null);
-                    String publishedAt = item.path("snippet").path("publishedAt").asText(null);
-                    String thumbnail = item.path("snippet").path("thumbnails").path("medium").path("url").asText(null);
-                    if (thumbnail == null) {
-                        thumbnail = item.path("snippet").path("thumbnails").path("default").path("url").asText(null);
-                    }
-                    if (videoId == null) {
-                        return Mono.empty();
-                    }
-                    return Mono.just(new LatestVideo(videoId, title, thumbnail, publishedAt));
+                        .toUri(), YouTubeItems.SearchResult.class)
+                .next()
+                .filter(item -> item.id() != null && item.id().videoId() != null)
+                .map(item -> {
+                    YouTubeItems.Snippet snippet = YouTubeItems.snippetOrEmpty(item.snippet());
+                    return new LatestVideo(item.id().videoId(), snippet.title(), snippet.mediumThumbnail(), snippet.publishedAt());
                 });
     }
 
     /**
      * 動画詳細（duration/viewCount）を取得します。
+     *
+     * <p>{@link #getChannelDetails} と同じく、他のリクエストの1件取得とまとめて videos.list 1回で取得します。</p>
      */
     public Mono<VideoDetails> getVideoDetails(String accessToken, String videoId) {
         if (!StringUtils.hasText(videoId)) {
             return Mono.empty();
         }
 
-        return webClient
-                .get()
-                .uri(uriBuilder -> UriComponentsBuilder
-                        .fromPath("/videos")
-                        .queryParam("part", "contentDetails,statistics")
-                        .queryParam("id", videoId)
-                        .queryParam("maxResults", 1)
-                        .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .flatMap(json -> {
-                    JsonNode items = json.get("items");
-                    if (items == null || !items.isArray() || items.isEmpty()) {
-                        return Mono.empty();
-                    }
-                    JsonNode item = items.get(0);
-                    String duration = item.path("contentDetails").path("duration").asText(null);
-                    Long viewCount = item.path("statistics").path("viewCount").isMissingNode()
-                            ? null
-                            : item.path("statistics").path("viewCount").asLong();
-                    return Mono.just(new VideoDetails(duration, viewCount));
-                });
+        return videoDetailsLoader.load(accessToken, videoId);
+    }
+
+    /**
+     * 複数動画の詳細（duration/viewCount）を videos.list（1リクエスト最大50件）でまとめて取得します。
+     *
+     * <p>戻り値は videoId をキーにしたマップです。取得できなかった動画はマップに含まれません。</p>
+     */
+    public Mono<Map<String, VideoDetails>> getVideoDetailsBatch(String accessToken, List<String> videoIds) {
+        List<String> ids = distinctIds(videoIds);
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        return Flux.fromIterable(partition(ids))
+                .concatMap(chunk -> youTubeApiClient
+                        .streamItems(accessToken, YouTubeResource.VIDEOS, Scope.GLOBAL, UriComponentsBuilder
+                                .fromPath("/videos")
+                                .queryParam("part", "contentDetails,statistics")
+                                .queryParam("id", String.join(",", chunk))
+                                .queryParam("maxResults", chunk.size())
+                                .queryParam("fields", FIELDS_VIDEO_DETAILS)
+                                .build(true)
+                                .toUri(), YouTubeItems.Video.class))
+                .filter(item -> item.id() != null)
+                .collectMap(YouTubeItems.Video::id, YouTubeDataApiService::toVideoDetails);
+    }
+
+    private static VideoDetails toVideoDetails(YouTubeItems.Video item) {
+        String duration = item.contentDetails() != null ? item.contentDetails().duration() : null;
+        Long viewCount = item.statistics() != null ? item.statistics().viewCount() : null;
+        return new VideoDetails(duration, viewCount);
     }
 
     /**
      * 自分の再生リスト一覧を取得します（nextPageToken を含む）。
      */
     public Mono<PlaylistsResponse> listPlaylists(String accessToken, String pageToken) {
-        return webClient
-                .get()
-                .uri(uriBuilder -> UriComponentsBuilder
+        return youTubeApiClient
+                .get(accessToken, YouTubeResource.PLAYLISTS, Scope.TOKEN, UriComponentsBuilder
                         .fromPath("/playlists")
-                        .queryParam("part", "snippet,contentDetails,status")
+                        .queryParam("part", "snippet,contentDetails")
                         .queryParam("mine", "true")
                         .queryParam("maxResults", 25)
                         .queryParamIfPresent("pageToken", pageToken == null || pageToken.isBlank()
                                 ? java.util.Optional.empty()
                                 : java.util.Optional.of(pageToken))
+                        .queryParam("fields", FIELDS_PLAYLISTS)
                         .build(true)
                         .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
                 .map(json -> {
                     List<Object> items = new ArrayList<>();
                     JsonNode rawItems = json.get("items");
@@ -280,20 +427,19 @@ public class YouTubeDataApiService {
 
     /**
      * 指定した再生リストのメタ情報（snippet 等）を取得します。
+     *
+     * <p>取得した ETag / itemCount で再生リスト索引を照合し、外部で変更されていれば索引を破棄します。</p>
      */
     public Mono<JsonNode> getPlaylist(String accessToken, String playlistId) {
-        return webClient
-                .get()
-                .uri(uriBuilder -> UriComponentsBuilder
+        return youTubeApiClient
+                .get(accessToken, YouTubeResource.PLAYLISTS, Scope.TOKEN, UriComponentsBuilder
                         .fromPath("/playlists")
-                        .queryParam("part", "snippet,contentDetails,status")
+                        .queryParam("part", "snippet,contentDetails")
                         .queryParam("id", playlistId)
                         .queryParam("maxResults", 1)
+                        .queryParam("fields", FIELDS_PLAYLIST)
                         .build(true)
                         .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
                 .map(json -> {
                     JsonNode items = json.get("items");
                     if (items == null || !items.isArray() || items.isEmpty()) {
@@ -301,11 +447,17 @@ public class YouTubeDataApiService {
                                 org.springframework.http.HttpStatus.NOT_FOUND, "playlist_not_found");
                     }
                     return items.get(0);
-                });
+                })
+                .flatMap(item -> playlistItemIndexService
+                        .validate(playlistId, item.path("etag").asText(null),
+                                item.path("contentDetails").hasNonNull("itemCount")
+                                        ? item.path("contentDetails").path("itemCount").asLong()
+                                        : null)
+                        .thenReturn(item));
     }
 
         public record ChannelDetails(String channelId, String title, String description, String thumbnailUrl,
-            String subscriberCount) {
+            String subscriberCount, String uploadsPlaylistId) {
         }
 
         public record LatestVideo(String videoId, String title, String thumbnailUrl, String publishedAt) {
@@ -331,18 +483,12 @@ public class YouTubeDataApiService {
                 "snippet", snippet,
                 "status", status);
 
-        return webClient
-                .post()
-                .uri(uriBuilder -> UriComponentsBuilder
+        return youTubeApiClient
+                .post(accessToken, YouTubeResource.PLAYLISTS, UriComponentsBuilder
                         .fromPath("/playlists")
                         .queryParam("part", "snippet,contentDetails,status")
                         .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
-                .bodyValue(body)
-                .retrieve()
-                .bodyToMono(JsonNode.class);
+                        .toUri(), body);
     }
 
     /**
@@ -366,101 +512,87 @@ public class YouTubeDataApiService {
             body.put("status", Map.of("privacyStatus", privacyStatus));
         }
 
-        return webClient
-                .put()
-                .uri(uriBuilder -> UriComponentsBuilder
+        return youTubeApiClient
+                .put(accessToken, YouTubeResource.PLAYLISTS, UriComponentsBuilder
                         .fromPath("/playlists")
                         .queryParam("part", "snippet,contentDetails,status")
                         .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
-                .bodyValue(body)
-                .retrieve()
-                .bodyToMono(JsonNode.class);
+                        .toUri(), body);
     }
 
     /**
      * YouTube上の再生リストを削除します。
      */
     public Mono<Void> deletePlaylist(String accessToken, String playlistId) {
-        return webClient
-                .delete()
-                .uri(uriBuilder -> UriComponentsBuilder
+        return youTubeApiClient
+                .delete(accessToken, YouTubeResource.PLAYLISTS, UriComponentsBuilder
                         .fromPath("/playlists")
                         .queryParam("id", playlistId)
                         .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(Void.class);
+                        .toUri());
     }
 
     /**
      * 指定した再生リストの動画アイテム一覧を取得します（duration を補完）。
+     *
+     * <p>全件をメモリに集めるため、レスポンスを逐次返せる呼び出し元は {@link #streamPlaylistItems} を使ってください。</p>
      */
     public Mono<List<PlaylistVideo>> listPlaylistItems(String accessToken, String playlistId) {
-        return webClient
-                .get()
-                .uri(uriBuilder -> UriComponentsBuilder
+        return streamPlaylistItems(accessToken, playlistId).collectList();
+    }
+
+    /**
+     * 指定した再生リストの動画アイテムを、{@code nextPageToken} をたどって先頭から順に流します（duration を補完）。
+     *
+     * <p>duration は50件ごとに videos.list で補完し、補完リクエストは {@code youtube.playlist.duration-concurrency}
+     * 件まで並行します（順序は維持）。件数は {@code youtube.playlist.max-items} で打ち切ります。
+     * リクエストの期限までに補完できなかった分は duration なしで流します。
+     * 下流の要求に応じて次のページを取得するため、巨大な再生リストでも全件をメモリに載せません。</p>
+     */
+    public Flux<PlaylistVideo> streamPlaylistItems(String accessToken, String playlistId) {
+        return youTubeApiClient
+                .streamAllPages(accessToken, YouTubeResource.PLAYLIST_ITEMS, Scope.TOKEN, pageToken -> UriComponentsBuilder
                         .fromPath("/playlistItems")
                         .queryParam("part", "snippet,contentDetails")
                         .queryParam("playlistId", playlistId)
-                        .queryParam("maxResults", 50)
+                        .queryParam("maxResults", PLAYLIST_ITEMS_PAGE_SIZE)
+                        .queryParam("fields", FIELDS_PLAYLIST_ITEMS)
+                        .queryParamIfPresent("pageToken", java.util.Optional.ofNullable(pageToken))
                         .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .flatMap(json -> {
-                    List<PlaylistVideo> videos = new ArrayList<>();
-                    Set<String> videoIds = new HashSet<>();
-                    JsonNode items = json.get("items");
-                    if (items != null && items.isArray()) {
-                        for (JsonNode item : items) {
-                            String vid = item.path("snippet").path("resourceId").path("videoId").asText(null);
-                            if (vid == null) {
-                                vid = item.path("contentDetails").path("videoId").asText(null);
-                            }
-                            if (vid == null) {
-                                continue;
-                            }
-
-                            String title = item.path("snippet").path("title").asText(null);
-                            String channelTitle = item.path("snippet").path("videoOwnerChannelTitle").asText(null);
-                            if (channelTitle == null) {
-                                channelTitle = item.path("snippet").path("channelTitle").asText(null);
-                            }
-                            String thumbnail = item.path("snippet").path("thumbnails").path("default").path("url").asText(null);
-                            if (thumbnail == null) {
-                                thumbnail = item.path("snippet").path("thumbnails").path("medium").path("url").asText(null);
-                            }
-                            String publishedAt = item.path("snippet").path("publishedAt").asText(null);
-
-                            videos.add(new PlaylistVideo(vid, title, channelTitle, thumbnail, null, publishedAt));
-                            videoIds.add(vid);
-                        }
-                    }
+                        .toUri(), YouTubeItems.PlaylistItem.class)
+                .filter(item -> item.videoId() != null)
+                .take(playlistMaxItems)
+                .map(YouTubeDataApiService::toPlaylistVideo)
+                .buffer(MAX_IDS_PER_REQUEST)
+                .flatMapSequential(chunk -> withDurations(accessToken, chunk), durationConcurrency)
+                .flatMapIterable(chunk -> chunk);
+    }
 
-                    if (videoIds.isEmpty()) {
-                        return Mono.just(videos);
-                    }
+    private Mono<List<PlaylistVideo>> withDurations(String accessToken, List<PlaylistVideo> videos) {
+        List<String> videoIds = videos.stream().map(PlaylistVideo::videoId).distinct().toList();
+        return fetchDurations(accessToken, videoIds)
+                // 期限までに補完できなければ duration なしで返す（部分的な結果）
+                .onErrorResume(RequestContext::isDeadlineExceeded, e -> Mono.just(Map.of()))
+                .map(durations -> videos.stream()
+                        .map(v -> new PlaylistVideo(
+                                v.videoId(),
+                                v.title(),
+                                v.channelTitle(),
+                                v.thumbnail(),
+                                durations.get(v.videoId()),
+                                v.publishedAt()))
+                        .collect(Collectors.toList()));
+    }
 
-                    return fetchDurations(accessToken, new ArrayList<>(videoIds))
-                            .map(durations -> videos.stream()
-                                    .map(v -> new PlaylistVideo(
-                                            v.videoId(),
-                                            v.title(),
-                                            v.channelTitle(),
-                                            v.thumbnail(),
-                                            durations.get(v.videoId()),
-                                            v.publishedAt()))
-                                    .collect(Collectors.toList()));
-                });
+    private static PlaylistVideo toPlaylistVideo(YouTubeItems.PlaylistItem item) {
+        YouTubeItems.Snippet snippet = YouTubeItems.snippetOrEmpty(item.snippet());
+        String channelTitle = snippet.videoOwnerChannelTitle() != null ? snippet.videoOwnerChannelTitle() : snippet.channelTitle();
+        return new PlaylistVideo(item.videoId(), snippet.title(), channelTitle, snippet.defaultThumbnail(), null,
+                snippet.publishedAt());
     }
 
     /**
-     * 指定した再生リストへ動画を追加します。
+     * 指定した再生リストへ動画を追加します（作成された playlistItemId を再生リスト索引へ反映）。
      */
     public Mono<Void> addVideoToPlaylist(String accessToken, String playlistId, String videoId) {
         Map<String, Object> body = Map.of(
@@ -470,100 +602,76 @@ public class YouTubeDataApiService {
                                 "kind", "youtube#video",
                                 "videoId", videoId)));
 
-        return webClient
-                .post()
-                .uri(uriBuilder -> UriComponentsBuilder
+        return youTubeApiClient
+                .post(accessToken, YouTubeResource.PLAYLIST_ITEMS, UriComponentsBuilder
                         .fromPath("/playlistItems")
                         .queryParam("part", "snippet")
+                        .queryParam("fields", FIELDS_ID_ONLY)
                         .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
-                .bodyValue(body)
-                .retrieve()
-                .bodyToMono(JsonNode.class)
+                        .toUri(), body)
+                .flatMap(json -> playlistItemIndexService.recordAdded(playlistId, videoId, json.path("id").asText(null)))
                 .then();
     }
 
     /**
      * 指定した再生リストから動画を削除します。
+     *
+     * <p>playlistItemId は再生リスト索引から引くため、通常は playlistItems.delete の1回だけで済みます。
+     * 索引が古く 404 が返った場合は、索引を作り直して1回だけ再試行します。</p>
      */
     public Mono<Void> removeVideoFromPlaylist(String accessToken, String playlistId, String videoId) {
-        // playlistItemId が必要なので、playlistItems から videoId に一致するものを探して削除
-        return webClient
-                .get()
-                .uri(uriBuilder -> UriComponentsBuilder
+        return playlistItemIndexService
+                .findItemId(accessToken, playlistId, videoId)
+                .flatMap(itemId -> deletePlaylistItem(accessToken, playlistId, videoId, itemId)
+                        .onErrorResume(WebClientResponseException.NotFound.class, e -> playlistItemIndexService
+                                .rebuild(accessToken, playlistId)
+                                .mapNotNull(index -> PlaylistItemIndexService.firstItemId(index, videoId))
+                                .flatMap(retryId -> deletePlaylistItem(accessToken, playlistId, videoId, retryId))))
+                .then();
+    }
+
+    private Mono<Void> deletePlaylistItem(String accessToken, String playlistId, String videoId, String playlistItemId) {
+        return youTubeApiClient
+                .delete(accessToken, YouTubeResource.PLAYLIST_ITEMS, UriComponentsBuilder
                         .fromPath("/playlistItems")
-                        .queryParam("part", "snippet")
-                        .queryParam("playlistId", playlistId)
-                        .queryParam("maxResults", 50)
+                        .queryParam("id", playlistItemId)
                         .build(true)
                         .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .flatMap(json -> {
-                    String playlistItemId = null;
-                    JsonNode items = json.get("items");
-                    if (items != null && items.isArray()) {
-                        for (JsonNode item : items) {
-                            String vid = item.path("snippet").path("resourceId").path("videoId").asText(null);
-                            if (videoId.equals(vid)) {
-                                playlistItemId = item.path("id").asText(null);
-                                break;
-                            }
-                        }
-                    }
+                .then(playlistItemIndexService.recordRemoved(playlistId, videoId, playlistItemId));
+    }
 
-                    if (playlistItemId == null) {
-                        return Mono.empty();
-                    }
+    private static List<String> distinctIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return ids.stream().filter(StringUtils::hasText).distinct().toList();
+    }
 
-                    final String idToDelete = playlistItemId;
-
-                    return webClient
-                            .delete()
-                            .uri(uriBuilder -> UriComponentsBuilder
-                                    .fromPath("/playlistItems")
-                                    .queryParam("id", idToDelete)
-                                    .build(true)
-                                    .toUri())
-                            .headers(h -> h.setBearerAuth(accessToken))
-                            .retrieve()
-                            .bodyToMono(Void.class);
-                })
-                .then();
+    /**
+     * ID リストを channels.list / videos.list の上限（50件）ごとに分割します。
+     */
+    static List<List<String>> partition(List<String> ids) {
+        List<List<String>> out = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IDS_PER_REQUEST) {
+            out.add(ids.subList(i, Math.min(ids.size(), i + MAX_IDS_PER_REQUEST)));
+        }
+        return out;
     }
 
     private Mono<Map<String, String>> fetchDurations(String accessToken, List<String> videoIds) {
-        // videos.list は最大50
-        List<String> ids = videoIds.size() > 50 ? videoIds.subList(0, 50) : videoIds;
-
-        return webClient
-                .get()
-                .uri(uriBuilder -> UriComponentsBuilder
-                        .fromPath("/videos")
-                        .queryParam("part", "contentDetails")
-                        .queryParam("id", String.join(",", ids))
-                        .build(true)
-                        .toUri())
-                .headers(h -> h.setBearerAuth(accessToken))
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .map(json -> {
-                    Map<String, String> out = new HashMap<>();
-                    JsonNode items = json.get("items");
-                    if (items != null && items.isArray()) {
-                        for (JsonNode item : items) {
-                            String id = item.path("id").asText(null);
-                            String duration = item.path("contentDetails").path("duration").asText(null);
-                            if (id != null) {
-                                out.put(id, duration);
-                            }
-                        }
-                    }
-                    return out;
-                });
+        // videos.list は最大50件なので、それを超える場合は分割して取得する
+        return Flux.fromIterable(partition(videoIds))
+                .concatMap(ids -> youTubeApiClient
+                        .streamItems(accessToken, YouTubeResource.VIDEOS, Scope.GLOBAL, UriComponentsBuilder
+                                .fromPath("/videos")
+                                .queryParam("part", "contentDetails")
+                                .queryParam("id", String.join(",", ids))
+                                .queryParam("fields", FIELDS_DURATIONS)
+                                .build(true)
+                                .toUri(), YouTubeItems.Video.class))
+                .filter(item -> item.id() != null)
+                .<Map<String, String>>collect(HashMap::new, (out, item) -> out.put(item.id(),
+                        item.contentDetails() != null ? item.contentDetails().duration() : null));
     }
 
         /**
@@ -0,0 +1,155 @@
+package com.charge0315.yt.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 配列を1要素ずつ書き出す JSON レスポンスを組み立てるヘルパー。
+ *
+ * <p>{@code {"name": ..., "songs": [ ... ]}} のような「メタ情報 + 大きな配列」の形を、
+ * 配列の要素が届いた順に {@link DataBuffer} として返します。配列全体をメモリに集めずに
+ * レスポンスを開始できます。</p>
+ *
+ * <p>配列の途中で打ち切る場合（リクエストの期限切れなど）は、配列の後ろに {@code "truncated": true} を付けて
+ * 閉じられる形も用意しています（ステータスは 200 のままなので、クライアントはこの値で欠けを判断します）。</p>
+ *
+ * <p>先頭部分は配列の最初の要素（または完了）が届いてから書き出します。WebFlux は最初のバッファを書くまで
+ * ステータスを確定しないため、最初の要素より前のエラー（再生リストが無い 404、クォータ超過の 429 など）は
+ * そのままエラーのステータスで返ります。先頭部分を書いた後のエラーはそこまでの要素で配列を閉じ、
+ * {@code "error"} にエラーの理由を書きます。</p>
+ */
+public final class JsonStreamWriter {
+
+    private static final DataBufferFactory BUFFER_FACTORY = DefaultDataBufferFactory.sharedInstance;
+
+    private JsonStreamWriter() {
+    }
+
+    /**
+     * {@code fields} をプロパティに持ち、最後のプロパティ {@code arrayField} に {@code elements} を並べた JSON を返します。
+     */
+    public static Flux<DataBuffer> objectWithArray(
+            ObjectMapper objectMapper,
+            Map<String, ?> fields,
+            String arrayField,
+            Flux<?> elements) {
+        return write(objectMapper, fields, arrayField, elements, e -> false, false);
+    }
+
+    /**
+     * {@link #objectWithArray(ObjectMapper, Map, String, Flux)} と同じ形で、配列の後ろに {@code truncated} を付けます。
+     *
+     * <p>{@code elements} が {@code truncateOn} に一致するエラーで終わった場合は、そこまでの要素で配列を閉じて
+     * {@code "truncated": true} を書きます。それ以外のエラーは、先頭部分を書く前ならそのまま伝え、
+     * 書いた後なら {@code "truncated": true} と {@code "error"} を書いて閉じます。</p>
+     */
+    public static Flux<DataBuffer> objectWithArray(
+            ObjectMapper objectMapper,
+            Map<String, ?> fields,
+            String arrayField,
+            Flux<?> elements,
+            Predicate<? super Throwable> truncateOn) {
+        return write(objectMapper, fields, arrayField, elements, truncateOn, true);
+    }
+
+    private static <T> Flux<DataBuffer> write(
+            ObjectMapper objectMapper,
+            Map<String, ?> fields,
+            String arrayField,
+            Flux<T> elements,
+            Predicate<? super Throwable> truncateOn,
+            boolean withTruncated) {
+        return Flux.defer(() -> {
+            boolean[] truncated = {false};
+            String[] error = {null};
+            Flux<T> bounded = elements.onErrorResume(truncateOn, e -> {
+                truncated[0] = true;
+                return Flux.empty();
+            });
+            return bounded.<DataBuffer>switchOnFirst((first, all) -> {
+                if (first.isOnError()) {
+                    // まだ何も書いていないので、エラーのステータスで返せるようにそのまま伝える
+                    return Flux.error(first.getThrowable());
+                }
+                Flux<T> rest = all.onErrorResume(e -> {
+                    error[0] = errorReason(e);
+                    return Flux.empty();
+                });
+                return Flux.concat(
+                        Mono.fromCallable(() -> BUFFER_FACTORY.wrap(head(objectMapper, fields, arrayField))),
+                        body(objectMapper, rest),
+                        Mono.fromCallable(() -> BUFFER_FACTORY.wrap(
+                                close(objectMapper, withTruncated, truncated[0] || error[0] != null, error[0]))));
+            });
+        });
+    }
+
+    private static Flux<DataBuffer> body(ObjectMapper objectMapper, Flux<?> elements) {
+        boolean[] first = {true};
+        return elements.map(element -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!first[0]) {
+                out.write(',');
+            }
+            first[0] = false;
+            out.writeBytes(toJson(objectMapper, element));
+            return BUFFER_FACTORY.wrap(out.toByteArray());
+        });
+    }
+
+    private static byte[] head(ObjectMapper objectMapper, Map<String, ?> fields, String arrayField) {
+        // {"a":1,"b":2} → {"a":1,"b":2,"arrayField":[
+        String object = new String(toJson(objectMapper, fields), StandardCharsets.UTF_8);
+        String open = object.substring(0, object.length() - 1);
+        String separator = fields.isEmpty() ? "" : ",";
+        String key = new String(toJson(objectMapper, arrayField), StandardCharsets.UTF_8);
+        return (open + separator + key + ":[").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] close(ObjectMapper objectMapper, boolean withTruncated, boolean truncated, String error) {
+        // ] → ],"truncated":true,"error":"..."}
+        StringBuilder out = new StringBuilder("]");
+        if (withTruncated) {
+            out.append(",\"truncated\":").append(truncated);
+        }
+        if (error != null) {
+            out.append(",\"error\":").append(new String(toJson(objectMapper, error), StandardCharsets.UTF_8));
+        }
+        return out.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 配列の途中で失敗した理由をクライアント向けの短い文字列にします。
+     */
+    static String errorReason(Throwable e) {
+        if (e instanceof ResponseStatusException rse && rse.getReason() != null) {
+            return rse.getReason();
+        }
+        if (e instanceof WebClientResponseException w) {
+            return "youtube_http_" + w.getStatusCode().value();
+        }
+        return "stream_failed";
+    }
+
+    private static byte[] toJson(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
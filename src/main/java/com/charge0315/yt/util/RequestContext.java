@@ -0,0 +1,151 @@
+package com.charge0315.yt.util;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Reactor Context に載せるリクエスト単位の情報（ユーザーID/優先度/期限）を扱うヘルパー。
+ *
+ * <p>{@code RequestContextWebFilter} がセッションの {@code userId} とリクエストの期限を設定し、
+ * バックグラウンド処理（キャッシュ更新など）は {@link #background()} で優先度を下げます。
+ * YouTube API クライアント側はここから読み取ってクォータ計上に使います。</p>
+ *
+ * <p>期限は {@link System#nanoTime()} 基準の絶対時刻で保持し、下流の呼び出しは {@link #remaining} の残り時間で
+ * タイムアウトを縮めます。期限切れは {@code 504 deadline_exceeded} の {@link ResponseStatusException} です。</p>
+ */
+public final class RequestContext {
+
+    private static final String USER_ID_KEY = RequestContext.class.getName() + ".userId";
+
+    private static final String PRIORITY_KEY = RequestContext.class.getName() + ".priority";
+
+    private static final String DEADLINE_KEY = RequestContext.class.getName() + ".deadline";
+
+    public static final String DEADLINE_EXCEEDED = "deadline_exceeded";
+
+    /**
+     * 外部API呼び出しの優先度。
+     *
+     * <ul>
+     *   <li>{@code INTERACTIVE}: 画面操作に応じた呼び出し（既定）</li>
+     *   <li>{@code BACKGROUND}: キャッシュ更新など、遅れても困らない呼び出し</li>
+     * </ul>
+     */
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    private RequestContext() {
+    }
+
+    public static Context withUserId(Context context, String userId) {
+        if (userId == null || userId.isBlank()) {
+            return context;
+        }
+        return context.put(USER_ID_KEY, userId);
+    }
+
+    public static Context withPriority(Context context, Priority priority) {
+        return context.put(PRIORITY_KEY, priority);
+    }
+
+    /**
+     * {@code contextWrite(RequestContext::background)} 用。
+     */
+    public static Context background(Context context) {
+        return withPriority(context, Priority.BACKGROUND);
+    }
+
+    /**
+     * 複数の呼び出し元で共有する呼び出し用に、ユーザーIDと期限を外した Context を返します
+     * （優先度は残します）。ユーザー単位のクォータと期限は呼び出し元ごとに適用してください。
+     */
+    public static Context forSharedCall(Context context) {
+        return context.delete(USER_ID_KEY).delete(DEADLINE_KEY);
+    }
+
+    public static String userIdOrNull(ContextView context) {
+        return context.getOrDefault(USER_ID_KEY, null);
+    }
+
+    public static Priority priority(ContextView context) {
+        return context.getOrDefault(PRIORITY_KEY, Priority.INTERACTIVE);
+    }
+
+    /**
+     * 現在から {@code budget} 後を期限として設定します（既存の期限の方が早ければそちらを維持）。
+     */
+    public static Context withDeadline(Context context, Duration budget) {
+        if (budget == null || budget.isZero() || budget.isNegative()) {
+            return context;
+        }
+        long deadline = System.nanoTime() + budget.toNanos();
+        Long existing = context.getOrDefault(DEADLINE_KEY, null);
+        if (existing != null && existing - deadline < 0) {
+            return context;
+        }
+        return context.put(DEADLINE_KEY, deadline);
+    }
+
+    /**
+     * 期限までの残り時間を返します（期限なしは {@code null}、期限切れは {@link Duration#ZERO}）。
+     */
+    public static Duration remaining(ContextView context) {
+        Long deadline = context.getOrDefault(DEADLINE_KEY, null);
+        if (deadline == null) {
+            return null;
+        }
+        long nanos = deadline - System.nanoTime();
+        return nanos > 0 ? Duration.ofNanos(nanos) : Duration.ZERO;
+    }
+
+    /**
+     * {@code mono} を期限までに打ち切ります（期限切れなら購読せずに失敗させます）。
+     */
+    public static <T> Mono<T> withinDeadline(Mono<T> mono) {
+        return Mono.deferContextual(ctx -> {
+            Duration remaining = remaining(ctx);
+            if (remaining == null) {
+                return mono;
+            }
+            if (remaining.isZero()) {
+                return Mono.error(deadlineExceeded());
+            }
+            return mono.timeout(remaining, Mono.error(RequestContext::deadlineExceeded));
+        });
+    }
+
+    /**
+     * {@code flux} を期限までに打ち切ります（期限切れなら購読せずに失敗させます）。
+     */
+    public static <T> Flux<T> withinDeadlineFlux(Flux<T> flux) {
+        return Flux.deferContextual(ctx -> {
+            Duration remaining = remaining(ctx);
+            if (remaining == null) {
+                return flux;
+            }
+            if (remaining.isZero()) {
+                return Flux.error(deadlineExceeded());
+            }
+            return flux.take(remaining).concatWith(Flux.defer(() -> remaining(ctx).isZero()
+                    ? Flux.error(deadlineExceeded())
+                    : Flux.empty()));
+        });
+    }
+
+    public static ResponseStatusException deadlineExceeded() {
+        return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, DEADLINE_EXCEEDED);
+    }
+
+    public static boolean isDeadlineExceeded(Throwable e) {
+        return e instanceof ResponseStatusException rse && DEADLINE_EXCEEDED.equals(rse.getReason());
+    }
+}
@@ -0,0 +1,69 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bulkhead のテスト。
+ */
+class BulkheadTest {
+
+    @Test
+    @DisplayName("同時実行数と待ち行列が一杯なら即座に 503 で拒否されること")
+    void call_shouldRejectWhenSaturated() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Bulkhead bulkhead = new Bulkhead("test", 1, 0, Duration.ofSeconds(1), registry);
+        Disposable running = bulkhead.call(Mono::never).subscribe();
+
+        assertThatThrownBy(() -> bulkhead.call(() -> Mono.just("x")).block())
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("test_bulkhead_full");
+        assertThat(registry.get("outbound.bulkhead.rejected").tag("reason", "full").counter().count()).isEqualTo(1.0);
+
+        running.dispose();
+        assertThat(bulkhead.active()).isZero();
+    }
+
+    @Test
+    @DisplayName("待ち行列の呼び出しは前の呼び出しの完了後に実行されること")
+    void call_shouldRunQueuedCallAfterRelease() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, Duration.ofSeconds(5), new SimpleMeterRegistry());
+        Sinks.One<String> first = Sinks.one();
+        bulkhead.call(first::asMono).subscribe();
+
+        Mono<String> queued = bulkhead.call(() -> Mono.just("second")).cache();
+        queued.subscribe();
+        assertThat(bulkhead.queued()).isEqualTo(1);
+
+        first.tryEmitValue("first");
+        assertThat(queued.block(Duration.ofSeconds(1))).isEqualTo("second");
+        assertThat(bulkhead.active()).isZero();
+        assertThat(bulkhead.queued()).isZero();
+    }
+
+    @Test
+    @DisplayName("待ち時間を過ぎた呼び出しは拒否され、待ち行列から外れること")
+    void call_shouldTimeOutWhileQueued() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, Duration.ofMillis(50), new SimpleMeterRegistry());
+        Disposable running = bulkhead.call(Mono::never).subscribe();
+
+        assertThatThrownBy(() -> bulkhead.call(() -> Mono.just("x")).block())
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("test_bulkhead_timeout");
+        assertThat(bulkhead.queued()).isZero();
+
+        running.dispose();
+        assertThat(bulkhead.active()).isZero();
+    }
+}
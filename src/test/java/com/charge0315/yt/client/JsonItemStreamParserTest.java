@@ -0,0 +1,56 @@
+package com.charge0315.yt.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JsonItemStreamParser（items[] の逐次デコード）のテスト。
+ */
+class JsonItemStreamParserTest {
+
+    private static final String BODY = """
+            {"kind":"youtube#playlistItemListResponse","nextPageToken":"NEXT",
+             "pageInfo":{"totalResults":2,"items":[1]},
+             "items":[
+               {"id":"pi-1","snippet":{"title":"曲1","thumbnails":{"default":{"url":"https://example.com/1.jpg"}},
+                 "resourceId":{"videoId":"video-1"}}},
+               {"id":"pi-2","snippet":{"title":"曲2","tags":["a",{"b":1}]},"contentDetails":{"videoId":"video-2"}}
+             ]}
+            """;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 7, 4096})
+    @DisplayName("本文がどの位置で分割されても items[] の要素と nextPageToken を取り出せること")
+    void feed_shouldDecodeItemsRegardlessOfChunkBoundaries(int chunkSize) {
+        JsonItemStreamParser parser = new JsonItemStreamParser(new ObjectMapper(), YouTubeItems.PlaylistItem.class);
+        byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+
+        List<Object> out = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            out.addAll(parser.feed(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + chunkSize))));
+        }
+        out.addAll(parser.end());
+
+        assertThat(out).hasSize(3);
+        assertThat(out.get(0)).isEqualTo(new JsonItemStreamParser.NextPageToken("NEXT"));
+
+        YouTubeItems.PlaylistItem first = (YouTubeItems.PlaylistItem) out.get(1);
+        assertThat(first.id()).isEqualTo("pi-1");
+        assertThat(first.videoId()).isEqualTo("video-1");
+        assertThat(first.snippet().title()).isEqualTo("曲1");
+        assertThat(first.snippet().defaultThumbnail()).isEqualTo("https://example.com/1.jpg");
+
+        YouTubeItems.PlaylistItem second = (YouTubeItems.PlaylistItem) out.get(2);
+        assertThat(second.videoId()).isEqualTo("video-2");
+    }
+}
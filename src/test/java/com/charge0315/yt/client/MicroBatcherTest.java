@@ -0,0 +1,129 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.util.RequestContext;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * MicroBatcher のテスト。
+ */
+class MicroBatcherTest {
+
+    @Test
+    @DisplayName("同じ時間枠の1件取得が重複を除いて1回の呼び出しにまとまること")
+    void load_shouldBatchConcurrentLookups() {
+        List<List<String>> calls = new CopyOnWriteArrayList<>();
+        MicroBatcher<String> batcher = new MicroBatcher<>("test", 50, Duration.ofMillis(20), (token, ids) -> {
+            calls.add(ids);
+            return Mono.just(ids.stream().filter(id -> !id.equals("missing"))
+                    .collect(Collectors.toMap(id -> id, id -> "value-" + id)));
+        }, unlimitedQuota(), 1, new SimpleMeterRegistry());
+
+        List<String> results = Mono.zip(
+                batcher.load("token-a", "a"),
+                batcher.load("token-b", "b"),
+                batcher.load("token-a", "a"),
+                batcher.load("token-b", "missing").defaultIfEmpty("none"))
+                .map(t -> List.of(t.getT1(), t.getT2(), t.getT3(), t.getT4()))
+                .block(Duration.ofSeconds(1));
+
+        assertThat(results).containsExactly("value-a", "value-b", "value-a", "none");
+        assertThat(calls).containsExactly(List.of("a", "b", "missing"));
+    }
+
+    @Test
+    @DisplayName("件数上限に達した時点で時間枠を待たずに送信すること")
+    void load_shouldFlushWhenBatchIsFull() {
+        List<List<String>> calls = new CopyOnWriteArrayList<>();
+        MicroBatcher<String> batcher = new MicroBatcher<>("test", 2, Duration.ofSeconds(10), (token, ids) -> {
+            calls.add(ids);
+            return Mono.just(Map.of(ids.get(0), "first", ids.get(1), "second"));
+        }, unlimitedQuota(), 1, new SimpleMeterRegistry());
+
+        List<String> results = Mono.zip(batcher.load("token", "x"), batcher.load("token", "y"))
+                .map(t -> List.of(t.getT1(), t.getT2()))
+                .block(Duration.ofSeconds(1));
+
+        assertThat(results).containsExactly("first", "second");
+        assertThat(calls).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("最初のユーザーのトークンでまとめた呼び出しが失敗しても、他のユーザーは自分のトークンで取得できること")
+    void load_firstUsersTokenFails_shouldRetryPerTokenAndIsolateOtherUsers() {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        List<String> chargedUsers = new CopyOnWriteArrayList<>();
+        MicroBatcher<String> batcher = new MicroBatcher<>("test", 50, Duration.ofMillis(20), (token, ids) ->
+                Mono.<Map<String, String>>deferContextual(ctx -> {
+                    calls.add(token + ":" + String.join(",", ids));
+                    chargedUsers.add(String.valueOf(RequestContext.userIdOrNull(ctx)));
+                    if (token.equals("token-a")) {
+                        return Mono.error(WebClientResponseException.create(401, "Unauthorized",
+                                HttpHeaders.EMPTY, new byte[0], null));
+                    }
+                    return Mono.just(ids.stream().collect(Collectors.toMap(id -> id, id -> "value-" + id)));
+                }), unlimitedQuota(), 1, new SimpleMeterRegistry());
+
+        List<String> results = Mono.zip(
+                batcher.load("token-a", "a")
+                        .contextWrite(ctx -> RequestContext.withUserId(ctx, "user-a"))
+                        .onErrorResume(WebClientResponseException.Unauthorized.class, e -> Mono.just("unauthorized")),
+                batcher.load("token-b", "b")
+                        .contextWrite(ctx -> RequestContext.withUserId(ctx, "user-b")))
+                .map(t -> List.of(t.getT1(), t.getT2()))
+                .block(Duration.ofSeconds(1));
+
+        assertThat(results).containsExactly("unauthorized", "value-b");
+        assertThat(calls.get(0)).isEqualTo("token-a:a,b");
+        assertThat(calls.subList(1, calls.size())).containsExactlyInAnyOrder("token-a:a", "token-b:b");
+        // まとめた呼び出しはどのユーザーの枠にも計上しない
+        assertThat(chargedUsers).containsOnly("null");
+    }
+
+    @Test
+    @DisplayName("呼び出し元ごとにユーザー単位の枠を計上し、枠を超えたユーザーだけを 429 で拒否すること")
+    void load_shouldChargeEachCallersPerUserQuota() {
+        YouTubeQuotaManager quotaManager = new YouTubeQuotaManager(new SimpleMeterRegistry(), true, 10000, 1, 0.2);
+        quotaManager.acquireUser("user-a", 1);
+        List<List<String>> calls = new CopyOnWriteArrayList<>();
+        MicroBatcher<String> batcher = new MicroBatcher<>("test", 50, Duration.ofMillis(20), (token, ids) -> {
+            calls.add(ids);
+            return Mono.just(ids.stream().collect(Collectors.toMap(id -> id, id -> "value-" + id)));
+        }, quotaManager, 1, new SimpleMeterRegistry());
+
+        List<String> results = Mono.zip(
+                batcher.load("token-a", "a")
+                        .contextWrite(ctx -> RequestContext.withUserId(ctx, "user-a"))
+                        .onErrorResume(MicroBatcher::isCallerSpecific, e -> Mono.just("rejected")),
+                batcher.load("token-b", "b")
+                        .contextWrite(ctx -> RequestContext.withUserId(ctx, "user-b")))
+                .map(t -> List.of(t.getT1(), t.getT2()))
+                .block(Duration.ofSeconds(1));
+
+        assertThat(results).containsExactly("rejected", "value-b");
+        // 拒否した呼び出し元はまとめに加えない
+        assertThat(calls).containsExactly(List.of("b"));
+        // user-b も自分の1件分を計上済み
+        assertThatThrownBy(() -> quotaManager.acquireUser("user-b", 1)).isInstanceOf(ResponseStatusException.class);
+    }
+
+    private static YouTubeQuotaManager unlimitedQuota() {
+        return new YouTubeQuotaManager(new SimpleMeterRegistry(), true, 10000, 0, 0.2);
+    }
+}
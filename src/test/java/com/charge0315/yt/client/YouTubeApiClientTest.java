@@ -0,0 +1,235 @@
+package com.charge0315.yt.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.util.RequestContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * YouTubeApiClient（リクエストキー生成 / 実行中リクエストの共有）のテスト。
+ */
+class YouTubeApiClientTest {
+
+    private static final URI URI_CHANNELS = URI.create(YouTubeApiClient.BASE_URL + "/channels?part=snippet&id=UC_1");
+
+    @Test
+    @DisplayName("GLOBAL スコープではトークンが違っても同じキーになること")
+    void requestKey_globalScope_shouldIgnoreToken() {
+        String a = YouTubeApiClient.requestKey("token-a", null, YouTubeApiClient.Scope.GLOBAL, URI_CHANNELS);
+        String b = YouTubeApiClient.requestKey("token-b", null, YouTubeApiClient.Scope.GLOBAL, URI_CHANNELS);
+
+        assertThat(a).isEqualTo(b);
+    }
+
+    @Test
+    @DisplayName("TOKEN スコープではトークンごとに別のキーになり、トークンを平文で含まないこと")
+    void requestKey_tokenScope_shouldSeparateTokens() {
+        String a = YouTubeApiClient.requestKey("token-a", null, YouTubeApiClient.Scope.TOKEN, URI_CHANNELS);
+        String b = YouTubeApiClient.requestKey("token-b", null, YouTubeApiClient.Scope.TOKEN, URI_CHANNELS);
+
+        assertThat(a).isNotEqualTo(b);
+        assertThat(a).doesNotContain("token-a");
+        assertThat(a).hasSize(64);
+    }
+
+    @Test
+    @DisplayName("TOKEN スコープでユーザーIDがあれば、トークンが更新されても同じキーになること")
+    void requestKey_tokenScopeWithUserId_shouldSurviveTokenRotation() {
+        String before = YouTubeApiClient.requestKey("token-old", "user-1", YouTubeApiClient.Scope.TOKEN, URI_CHANNELS);
+        String after = YouTubeApiClient.requestKey("token-new", "user-1", YouTubeApiClient.Scope.TOKEN, URI_CHANNELS);
+        String other = YouTubeApiClient.requestKey("token-new", "user-2", YouTubeApiClient.Scope.TOKEN, URI_CHANNELS);
+
+        assertThat(before).isEqualTo(after);
+        assertThat(other).isNotEqualTo(after);
+        assertThat(after).doesNotContain("user-1");
+    }
+
+    @Test
+    @DisplayName("304 の場合はメモリ上の解析済みの値を返し、本文を解析し直さないこと")
+    void get_notModified_shouldReuseDecodedValueFromMemory() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            if (upstreamCalls.incrementAndGet() == 1) {
+                return Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .header("ETag", "\"v1\"")
+                        .body("{\"items\":[]}")
+                        .build());
+            }
+            assertThat(request.headers().getIfNoneMatch()).containsExactly("\"v1\"");
+            return Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        YouTubeApiClient client = new YouTubeApiClient(builder, new YouTubeEtagStore(null, registry, 10),
+                new YouTubeQuotaManager(registry, true, 10000, 2000, 0.2),
+                YouTubeResilienceTest.resilience(registry),
+                new YouTubeHedging(registry, false, 0.95, Duration.ofMillis(50), 20, 0.05, 5),
+                new OutboundBulkheads(new MockEnvironment(), registry),
+                YouTubeConcurrencyLimiterTest.limiter(registry), new ObjectMapper(), registry, true);
+        // 複数IDのバッチは MongoDB へ保存しない（メモリ上にだけ保持する）
+        URI uri = URI.create("/channels?part=snippet&id=UC_1,UC_2");
+
+        JsonNode first = client.get("token", YouTubeResource.CHANNELS, YouTubeApiClient.Scope.GLOBAL, uri).block();
+        JsonNode second = client.get("token", YouTubeResource.CHANNELS, YouTubeApiClient.Scope.GLOBAL, uri).block();
+
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("同じキーの GET が同時に呼ばれた場合は上流へ1回だけ送信されること")
+    void get_concurrentIdenticalRequests_shouldBeCoalesced() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(50)).thenReturn(ClientResponse.create(HttpStatus.OK)
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"items\":[]}")
+                    .build());
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        YouTubeQuotaManager quotaManager = new YouTubeQuotaManager(registry, true, 10000, 2000, 0.2);
+        YouTubeApiClient client = new YouTubeApiClient(builder, null, quotaManager,
+                YouTubeResilienceTest.resilience(registry),
+                new YouTubeHedging(registry, false, 0.95, Duration.ofMillis(50), 20, 0.05, 5),
+                new OutboundBulkheads(new MockEnvironment(), registry),
+                YouTubeConcurrencyLimiterTest.limiter(registry), new ObjectMapper(), registry, true);
+        URI uri = URI.create("/search?part=snippet&q=test");
+
+        List<JsonNode> results = Mono.zip(
+                client.get("token-a", YouTubeResource.SEARCH, YouTubeApiClient.Scope.GLOBAL, uri),
+                client.get("token-b", YouTubeResource.SEARCH, YouTubeApiClient.Scope.GLOBAL, uri),
+                client.get("token-a", YouTubeResource.SEARCH, YouTubeApiClient.Scope.GLOBAL, uri))
+                .map(t -> List.of(t.getT1(), t.getT2(), t.getT3()))
+                .block();
+
+        assertThat(results).hasSize(3);
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        // 相乗りした呼び出しはクォータを消費しない
+        assertThat(quotaManager.snapshot().used()).isEqualTo(100);
+
+        // 完了後は新たに送信される
+        client.get("token-a", YouTubeResource.SEARCH, YouTubeApiClient.Scope.GLOBAL, uri).block();
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("相乗りした呼び出し元のユーザー単位の枠は消費せず、送信を始めた呼び出し元にだけ計上すること")
+    void get_coalescedCallers_shouldChargeOnlyTheFlightStarter() {
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> Mono.delay(Duration.ofMillis(50))
+                .thenReturn(ClientResponse.create(HttpStatus.OK)
+                        .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .body("{\"items\":[]}")
+                        .build()));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        YouTubeQuotaManager quotaManager = new YouTubeQuotaManager(registry, true, 10000, 100, 0.2);
+        YouTubeApiClient client = new YouTubeApiClient(builder, null, quotaManager,
+                YouTubeResilienceTest.resilience(registry),
+                new YouTubeHedging(registry, false, 0.95, Duration.ofMillis(50), 20, 0.05, 5),
+                new OutboundBulkheads(new MockEnvironment(), registry),
+                YouTubeConcurrencyLimiterTest.limiter(registry), new ObjectMapper(), registry, true);
+        URI uri = URI.create("/search?part=snippet&q=test");
+
+        Mono.zip(
+                client.get("token-a", YouTubeResource.SEARCH, YouTubeApiClient.Scope.GLOBAL, uri)
+                        .contextWrite(ctx -> RequestContext.withUserId(ctx, "user-a")),
+                client.get("token-b", YouTubeResource.SEARCH, YouTubeApiClient.Scope.GLOBAL, uri)
+                        .contextWrite(ctx -> RequestContext.withUserId(ctx, "user-b")))
+                .block();
+
+        assertThatThrownBy(() -> quotaManager.acquireUser("user-a", 100)).isInstanceOf(ResponseStatusException.class);
+        quotaManager.acquireUser("user-b", 100);
+        assertThat(registry.get("youtube.api.coalesced").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("先に送信した呼び出し元の期限が切れても、相乗りした別の期限の呼び出し元は結果を受け取れること")
+    void get_coalescedCallersWithDifferentDeadlines_shouldApplyDeadlinePerCaller() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(200)).thenReturn(ClientResponse.create(HttpStatus.OK)
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"items\":[]}")
+                    .build());
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        YouTubeQuotaManager quotaManager = new YouTubeQuotaManager(registry, true, 10000, 2000, 0.2);
+        YouTubeApiClient client = new YouTubeApiClient(builder, null, quotaManager,
+                YouTubeResilienceTest.resilience(registry),
+                new YouTubeHedging(registry, false, 0.95, Duration.ofMillis(50), 20, 0.05, 5),
+                new OutboundBulkheads(new MockEnvironment(), registry),
+                YouTubeConcurrencyLimiterTest.limiter(registry), new ObjectMapper(), registry, true);
+        URI uri = URI.create("/search?part=snippet&q=test");
+
+        Mono<Throwable> shortDeadline = client
+                .get("token-a", YouTubeResource.SEARCH, YouTubeApiClient.Scope.GLOBAL, uri)
+                .contextWrite(ctx -> RequestContext.withUserId(RequestContext.withDeadline(ctx, Duration.ofMillis(20)), "user-a"))
+                .then(Mono.<Throwable>empty())
+                .onErrorResume(Mono::just);
+        Mono<JsonNode> longDeadline = client
+                .get("token-b", YouTubeResource.SEARCH, YouTubeApiClient.Scope.GLOBAL, uri)
+                .contextWrite(ctx -> RequestContext.withUserId(RequestContext.withDeadline(ctx, Duration.ofSeconds(5)), "user-b"));
+
+        var results = Mono.zip(shortDeadline, longDeadline).block();
+
+        assertThat(RequestContext.isDeadlineExceeded(results.getT1())).isTrue();
+        assertThat(results.getT2().path("items").isArray()).isTrue();
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("同時実行数の枠を待った時間は試行のタイムアウトに含めないこと")
+    void get_timeQueuedForPermits_shouldNotCountTowardsAttemptTimeout() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.delay(Duration.ofMillis(80)).thenReturn(ClientResponse.create(HttpStatus.OK)
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"items\":[]}")
+                    .build());
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        YouTubeQuotaManager quotaManager = new YouTubeQuotaManager(registry, true, 10000, 2000, 0.2);
+        // 1本ずつしか送らず、1回の試行は 100ms で打ち切る
+        YouTubeResilience resilience = new YouTubeResilience(registry, true, Duration.ofMillis(100),
+                Duration.ofSeconds(3), 0.5, 0.8, 20, 10, Duration.ofSeconds(30), 3, 1, Duration.ofMillis(1),
+                Duration.ofSeconds(5), 0.1, 10);
+        YouTubeConcurrencyLimiter limiter = new YouTubeConcurrencyLimiter(registry, true, 1, 1, 1, 0.7,
+                Duration.ofSeconds(3), 0.5, Duration.ofSeconds(5));
+        YouTubeApiClient client = new YouTubeApiClient(builder, null, quotaManager, resilience,
+                new YouTubeHedging(registry, false, 0.95, Duration.ofMillis(50), 20, 0.05, 5),
+                new OutboundBulkheads(new MockEnvironment(), registry), limiter, new ObjectMapper(), registry, true);
+
+        // 2本目は 1本目の完了（約80ms）まで枠を待ち、その後 80ms で応答する（合計は 100ms を超える）
+        var results = Mono.zip(
+                client.get("token", YouTubeResource.SEARCH, YouTubeApiClient.Scope.GLOBAL, URI.create("/search?q=a")),
+                client.get("token", YouTubeResource.SEARCH, YouTubeApiClient.Scope.GLOBAL, URI.create("/search?q=b")))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(results).isNotNull();
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(resilience.snapshot().circuitBreakers().get(YouTubeResource.SEARCH.name()).failureRate())
+                .isZero();
+    }
+}
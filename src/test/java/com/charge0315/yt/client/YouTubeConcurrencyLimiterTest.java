@@ -0,0 +1,80 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.charge0315.yt.util.RequestContext.Priority;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * YouTubeConcurrencyLimiter / AimdLimit のテスト。
+ */
+class YouTubeConcurrencyLimiterTest {
+
+    static YouTubeConcurrencyLimiter limiter(MeterRegistry registry) {
+        return new YouTubeConcurrencyLimiter(registry, true, 16, 2, 64, 0.7, Duration.ofSeconds(3), 0.5,
+                Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("成功が続くと上限が増え、スロットリングで乗算的に減ること")
+    void aimdLimit_shouldIncreaseAdditivelyAndDecreaseMultiplicatively() {
+        AimdLimit limit = new AimdLimit(10, 2, 20, 0.5, Duration.ofSeconds(1).toNanos());
+        for (int i = 0; i < 11; i++) {
+            limit.onSample(0, 1_000, false, 10);
+        }
+        assertThat(limit.limit()).isEqualTo(11);
+
+        limit.onSample(2_000, 3_000, true, 10);
+        assertThat(limit.limit()).isEqualTo(5);
+
+        // 減少より前に開始した呼び出しの失敗では重ねて減らさない
+        limit.onSample(1_500, 3_500, true, 5);
+        assertThat(limit.limit()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("空きが出たら BACKGROUND より INTERACTIVE を先に通すこと")
+    void stream_shouldPreferInteractiveLane() {
+        YouTubeConcurrencyLimiter limiter = new YouTubeConcurrencyLimiter(new SimpleMeterRegistry(), true, 1, 1, 1,
+                0.7, Duration.ofSeconds(3), 1.0, Duration.ofSeconds(5));
+        Sinks.One<String> first = Sinks.one();
+        List<String> order = new CopyOnWriteArrayList<>();
+        limiter.stream(Priority.INTERACTIVE, first::asMono).subscribe();
+
+        limiter.stream(Priority.BACKGROUND, () -> Flux.just("background")).subscribe(order::add);
+        limiter.stream(Priority.INTERACTIVE, () -> Flux.just("interactive")).subscribe(order::add);
+        assertThat(limiter.queued(Priority.BACKGROUND)).isEqualTo(1);
+        assertThat(limiter.queued(Priority.INTERACTIVE)).isEqualTo(1);
+
+        first.tryEmitValue("first");
+        assertThat(order).containsExactly("interactive", "background");
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("429 で終わった呼び出しは上限を下げること")
+    void stream_shouldBackOffOnThrottling() {
+        YouTubeConcurrencyLimiter limiter = limiter(new SimpleMeterRegistry());
+
+        limiter.stream(Priority.INTERACTIVE, () -> Flux.<String>error(WebClientResponseException.create(
+                HttpStatus.TOO_MANY_REQUESTS.value(), "Too Many Requests", null, null, null)))
+                .onErrorResume(e -> Flux.empty())
+                .blockLast();
+
+        assertThat(limiter.limit()).isEqualTo(11);
+        assertThat(limiter.inFlight()).isZero();
+    }
+}
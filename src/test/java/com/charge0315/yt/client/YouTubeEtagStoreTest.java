@@ -0,0 +1,46 @@
+package com.charge0315.yt.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * YouTubeEtagStore（MongoDB へ保存するキーの選別）のテスト。
+ */
+class YouTubeEtagStoreTest {
+
+    @Test
+    @DisplayName("単一IDの URI は保存し、複数IDのバッチとページトークン付きは保存しないこと")
+    void persistable_shouldSkipBatchAndPagedUris() {
+        assertThat(YouTubeEtagStore.persistable(uri("/channels?part=snippet&id=UC_1"))).isTrue();
+        assertThat(YouTubeEtagStore.persistable(uri("/playlistItems?part=snippet&playlistId=PL_1"))).isTrue();
+        assertThat(YouTubeEtagStore.persistable(uri("/videos?part=snippet&id=v1,v2"))).isFalse();
+        assertThat(YouTubeEtagStore.persistable(uri("/videos?part=snippet&id=v1%2Cv2"))).isFalse();
+        assertThat(YouTubeEtagStore.persistable(uri("/playlistItems?part=snippet&playlistId=PL_1&pageToken=CAUQAA")))
+                .isFalse();
+    }
+
+    @Test
+    @DisplayName("保存しないキーもメモリ上からは引けること（MongoDB には触れない）")
+    void save_memoryOnly_shouldBeServedFromMemory() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        YouTubeEtagStore store = new YouTubeEtagStore(null, registry, 10);
+
+        store.save("key", uri("/videos?part=snippet&id=v1,v2"), "\"etag\"", "{}".getBytes(StandardCharsets.UTF_8),
+                "tree", List.of()).block();
+
+        assertThat(store.lookup("key").block().etag()).isEqualTo("\"etag\"");
+        assertThat(registry.get("youtube.etag.store").tag("result", "memory_only").counter().count()).isEqualTo(1.0);
+    }
+
+    private static URI uri(String path) {
+        return URI.create(YouTubeApiClient.BASE_URL + path);
+    }
+}
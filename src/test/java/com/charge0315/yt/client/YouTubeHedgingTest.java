@@ -0,0 +1,63 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * YouTubeHedging（ヘッジリクエスト）のテスト。
+ */
+class YouTubeHedgingTest {
+
+    @Test
+    @DisplayName("応答時間のパーセンタイルはサンプルが揃うまで -1 を返すこと")
+    void latencyWindow_shouldRequireMinimumSamples() {
+        LatencyWindow window = new LatencyWindow(10);
+        for (long i = 1; i <= 4; i++) {
+            window.record(i * 10);
+        }
+
+        assertThat(window.percentile(0.5, 5)).isEqualTo(-1);
+        window.record(50);
+        assertThat(window.percentile(0.5, 5)).isEqualTo(30);
+        assertThat(window.percentile(0.95, 5)).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("閾値を過ぎても応答が無い場合はヘッジを送り、先に応答した方を採用すること")
+    void hedge_shouldUseFasterResponse() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        YouTubeHedging hedging = new YouTubeHedging(registry, true, 0.95, Duration.ofMillis(10), 1, 0.05, 5);
+
+        // 1回目で応答時間のサンプルを作る（サンプル不足の間はヘッジしない）
+        assertThat(hedging.hedge(YouTubeResource.VIDEOS, () -> Mono.just("warmup")).blockLast()).isEqualTo("warmup");
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = hedging
+                .hedge(YouTubeResource.VIDEOS, () -> calls.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofSeconds(5)).thenReturn("slow")
+                        : Mono.just("fast"))
+                .blockLast(Duration.ofSeconds(2));
+
+        assertThat(result).isEqualTo("fast");
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(registry.get("youtube.api.hedge").tag("resource", "videos").tag("outcome", "won").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("search.list はヘッジしないこと")
+    void hedge_shouldSkipSearch() {
+        YouTubeHedging hedging = new YouTubeHedging(new SimpleMeterRegistry(), true, 0.95, Duration.ofMillis(10), 1,
+                0.05, 5);
+
+        assertThat(hedging.thresholdNanos(YouTubeResource.SEARCH)).isEqualTo(-1);
+    }
+}
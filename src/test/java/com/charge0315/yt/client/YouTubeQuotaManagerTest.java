@@ -0,0 +1,86 @@
+package com.charge0315.yt.client;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.util.RequestContext.Priority;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * YouTubeQuotaManager（クォータ計上・拒否）のテスト。
+ */
+class YouTubeQuotaManagerTest {
+
+    @Test
+    @DisplayName("バックグラウンド呼び出しは画面操作用の予約分を使えないこと")
+    void acquire_background_shouldNotUseInteractiveReserve() {
+        YouTubeQuotaManager manager = new YouTubeQuotaManager(new SimpleMeterRegistry(), true, 1000, 0, 0.2);
+
+        for (int i = 0; i < 8; i++) {
+            manager.acquire(YouTubeResource.SEARCH, 100, null, Priority.BACKGROUND);
+        }
+
+        assertThatThrownBy(() -> manager.acquire(YouTubeResource.SEARCH, 100, null, Priority.BACKGROUND))
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+
+        // 画面操作は残り（予約分）を使える
+        manager.acquire(YouTubeResource.SEARCH, 100, null, Priority.INTERACTIVE);
+        manager.acquire(YouTubeResource.SEARCH, 100, null, Priority.INTERACTIVE);
+
+        YouTubeQuotaManager.QuotaSnapshot snapshot = manager.snapshot();
+        assertThat(snapshot.used()).isEqualTo(1000);
+        assertThat(snapshot.remaining()).isZero();
+        assertThat(snapshot.rejected()).isEqualTo(1);
+        assertThat(snapshot.usedByPriority()).containsEntry("BACKGROUND", 800L).containsEntry("INTERACTIVE", 200L);
+    }
+
+    @Test
+    @DisplayName("ユーザー単位の上限を超えると他ユーザーに影響せず拒否されること")
+    void acquire_perUser_shouldRejectOnlyThatUser() {
+        YouTubeQuotaManager manager = new YouTubeQuotaManager(new SimpleMeterRegistry(), true, 10000, 150, 0.2);
+
+        manager.acquire(YouTubeResource.SEARCH, 100, "user-1", Priority.INTERACTIVE);
+
+        assertThatThrownBy(() -> manager.acquire(YouTubeResource.SEARCH, 100, "user-1", Priority.INTERACTIVE))
+                .isInstanceOf(ResponseStatusException.class);
+        manager.acquire(YouTubeResource.SEARCH, 100, "user-2", Priority.INTERACTIVE);
+
+        assertThat(manager.snapshot().used()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("満タンに戻ったユーザー単位のバケットは破棄され、使用中のバケットは残ること")
+    void sweepUserBuckets_shouldDropOnlyRefilledBuckets() {
+        YouTubeQuotaManager manager = new YouTubeQuotaManager(new SimpleMeterRegistry(), true, 10000, 150, 0.2);
+        manager.acquireUser("user-1", 100);
+        manager.acquireUser("user-2", 100);
+
+        manager.sweepUserBuckets(System.nanoTime());
+        assertThat(manager.trackedUsers()).isEqualTo(2);
+
+        manager.sweepUserBuckets(System.nanoTime() + Duration.ofDays(1).toNanos());
+        assertThat(manager.trackedUsers()).isZero();
+    }
+
+    @Test
+    @DisplayName("Google 側でクォータ超過になった後は送信前に拒否されること")
+    void markUpstreamExhausted_shouldRejectFurtherCalls() {
+        YouTubeQuotaManager manager = new YouTubeQuotaManager(new SimpleMeterRegistry(), true, 10000, 0, 0.2);
+
+        manager.markUpstreamExhausted();
+
+        assertThatThrownBy(() -> manager.acquire(YouTubeResource.CHANNELS, 1, null, Priority.INTERACTIVE))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(manager.snapshot().remaining()).isZero();
+        assertThat(manager.snapshot().projectedExhaustionAt()).isNotNull();
+    }
+}
@@ -0,0 +1,145 @@
+package com.charge0315.yt.client;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * YouTubeResilience / CircuitBreaker（再試行とサーキットブレーカー）のテスト。
+ */
+class YouTubeResilienceTest {
+
+    /**
+     * テスト用の設定（再試行の待ち時間を短くしたもの）。
+     */
+    static YouTubeResilience resilience(MeterRegistry registry) {
+        return new YouTubeResilience(registry, true, Duration.ofSeconds(10), Duration.ofSeconds(3), 0.5, 0.8,
+                20, 10, Duration.ofSeconds(30), 3, 3, Duration.ofMillis(1), Duration.ofSeconds(5), 0.1, 10);
+    }
+
+    @Test
+    @DisplayName("503 は再試行され、成功した結果が返ること")
+    void execute_shouldRetryTransientErrors() {
+        YouTubeResilience resilience = resilience(new SimpleMeterRegistry());
+        AtomicInteger attempts = new AtomicInteger();
+
+        List<String> result = resilience
+                .execute(YouTubeResource.VIDEOS, true, () -> attempts.incrementAndGet() == 1
+                        ? Mono.<String>error(error(503, null))
+                        : Mono.just("ok"))
+                .collectList()
+                .block();
+
+        assertThat(result).containsExactly("ok");
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("書き込みと 404 は再試行されないこと")
+    void execute_shouldNotRetryWritesOrClientErrors() {
+        YouTubeResilience resilience = resilience(new SimpleMeterRegistry());
+        AtomicInteger attempts = new AtomicInteger();
+
+        Flux<String> write = resilience.execute(YouTubeResource.PLAYLIST_ITEMS, false, () -> {
+            attempts.incrementAndGet();
+            return Mono.error(error(503, null));
+        });
+        assertThatThrownBy(write::blockLast).isInstanceOf(WebClientResponseException.class);
+        assertThat(attempts.get()).isEqualTo(1);
+
+        Flux<String> notFound = resilience.execute(YouTubeResource.VIDEOS, true, () -> {
+            attempts.incrementAndGet();
+            return Mono.error(error(404, null));
+        });
+        assertThatThrownBy(notFound::blockLast).isInstanceOf(WebClientResponseException.NotFound.class);
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Retry-After は秒数/HTTP-date の両方を解釈し、上限を超える場合は再試行しないこと")
+    void retryDelay_shouldHonorRetryAfter() {
+        YouTubeResilience resilience = resilience(new SimpleMeterRegistry());
+        Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        assertThat(YouTubeResilience.retryAfter(error(429, "2"), now)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(YouTubeResilience.retryAfter(error(503, "Wed, 01 Jan 2025 00:00:03 GMT"), now))
+                .isEqualTo(Duration.ofSeconds(3));
+
+        assertThat(resilience.retryDelay(1, error(429, "2"), now)).isGreaterThanOrEqualTo(Duration.ofSeconds(2));
+        assertThat(resilience.retryDelay(1, error(429, "60"), now)).isNull();
+    }
+
+    @Test
+    @DisplayName("失敗率が閾値を超えると開き、待機後の試行が成功すると閉じること")
+    void circuitBreaker_shouldOpenAndRecover() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, 1.0, 1_000, 1);
+        long now = 0;
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(breaker.tryAcquire(now)).isTrue();
+            breaker.onSuccess(false, now);
+            assertThat(breaker.tryAcquire(now)).isTrue();
+            breaker.onFailure(now);
+        }
+        assertThat(breaker.state(now)).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire(now + 500)).isFalse();
+
+        // 待機後は試行1件だけ通す
+        assertThat(breaker.tryAcquire(now + 1_000)).isTrue();
+        assertThat(breaker.tryAcquire(now + 1_000)).isFalse();
+        breaker.onSuccess(false, now + 1_000);
+        assertThat(breaker.state(now + 1_000)).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("ブレーカーが開いている間は送信せずに 503 で失敗すること")
+    void execute_shouldRejectWhenOpen() {
+        YouTubeResilience resilience = new YouTubeResilience(new SimpleMeterRegistry(), true, Duration.ofSeconds(10),
+                Duration.ofSeconds(3), 0.5, 0.8, 2, 2, Duration.ofMinutes(1), 1, 1, Duration.ofMillis(1),
+                Duration.ofSeconds(5), 0.1, 10);
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            Flux<String> failing = resilience.execute(YouTubeResource.SEARCH, true, () -> {
+                attempts.incrementAndGet();
+                return Mono.error(error(500, null));
+            });
+            assertThatThrownBy(failing::blockLast).isInstanceOf(WebClientResponseException.class);
+        }
+
+        Flux<String> rejected = resilience.execute(YouTubeResource.SEARCH, true, () -> {
+            attempts.incrementAndGet();
+            return Mono.just("ok");
+        });
+        assertThatThrownBy(rejected::blockLast)
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("youtube_circuit_open");
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(resilience.snapshot().circuitBreakers().get("SEARCH").state()).isEqualTo("OPEN");
+    }
+
+    private static WebClientResponseException error(int status, String retryAfter) {
+        HttpHeaders headers = new HttpHeaders();
+        if (retryAfter != null) {
+            headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+        }
+        return WebClientResponseException.create(status, "error", headers, new byte[0], StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,47 @@
+package com.charge0315.yt.config;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MongoQueryPlanVerifier のテスト。
+ */
+class MongoQueryPlanVerifierTest {
+
+    @Test
+    @DisplayName("インデックスで絞り込み・並べ替えできる計画は問題なしとすること")
+    void problems_shouldAcceptIndexScan() {
+        Document explain = explain(new Document("stage", "FETCH")
+                .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "user_artist_title")));
+
+        assertThat(MongoQueryPlanVerifier.problems(explain)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("入れ子の COLLSCAN とメモリ上の SORT を検出すること")
+    void problems_shouldDetectNestedCollScanAndSort() {
+        Document explain = explain(new Document("queryPlan", new Document("stage", "SORT")
+                .append("inputStage", new Document("stage", "COLLSCAN"))));
+
+        assertThat(MongoQueryPlanVerifier.problems(explain)).containsExactly("SORT", "COLLSCAN");
+    }
+
+    @Test
+    @DisplayName("不採用の計画は見ないこと")
+    void problems_shouldIgnoreRejectedPlans() {
+        Document explain = explain(new Document("stage", "IXSCAN"));
+        explain.get("queryPlanner", Document.class)
+                .append("rejectedPlans", List.of(new Document("stage", "COLLSCAN")));
+
+        assertThat(MongoQueryPlanVerifier.problems(explain)).isEmpty();
+    }
+
+    private static Document explain(Document winningPlan) {
+        return new Document("queryPlanner", new Document("winningPlan", winningPlan));
+    }
+}
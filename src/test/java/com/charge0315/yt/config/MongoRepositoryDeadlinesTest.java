@@ -0,0 +1,62 @@
+package com.charge0315.yt.config;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import com.charge0315.yt.util.RequestContext;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * MongoRepositoryDeadlines（リポジトリ呼び出しへの期限の適用）のテスト。
+ */
+class MongoRepositoryDeadlinesTest {
+
+    interface SampleRepository {
+
+        Mono<String> findOne();
+
+        Flux<String> findAll();
+    }
+
+    private final SampleRepository repository = proxy(new SampleRepository() {
+        @Override
+        public Mono<String> findOne() {
+            return Mono.delay(Duration.ofSeconds(5)).thenReturn("late");
+        }
+
+        @Override
+        public Flux<String> findAll() {
+            return Flux.just("a", "b");
+        }
+    });
+
+    @Test
+    @DisplayName("期限を過ぎたリポジトリ呼び出しは deadline_exceeded で打ち切られること")
+    void repositoryCall_shouldFailAfterDeadline() {
+        Mono<String> call = repository.findOne()
+                .contextWrite(ctx -> RequestContext.withDeadline(ctx, Duration.ofMillis(50)));
+
+        assertThatThrownBy(call::block).satisfies(e -> assertThat(RequestContext.isDeadlineExceeded(e)).isTrue());
+    }
+
+    @Test
+    @DisplayName("期限の無い呼び出しはそのまま流れること")
+    void repositoryCall_shouldPassThroughWithoutDeadline() {
+        assertThat(repository.findAll().collectList().block()).containsExactly("a", "b");
+    }
+
+    private static SampleRepository proxy(SampleRepository target) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.addInterface(SampleRepository.class);
+        factory.addAdvice(MongoRepositoryDeadlines.DEADLINE_INTERCEPTOR);
+        return (SampleRepository) factory.getProxy();
+    }
+}
@@ -0,0 +1,86 @@
+package com.charge0315.yt.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.service.YouTubeDataApiService;
+import com.charge0315.yt.service.YouTubeDataApiService.PlaylistVideo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * PlaylistsController（再生リスト詳細の逐次書き出し）のテスト。
+ *
+ * <p>YouTubeDataApiService をモックし、セッションにログイン済みの属性を入れたうえで呼び出します。</p>
+ */
+class PlaylistsControllerTest {
+
+    private static final String TOKEN = "token-1";
+
+    private static final String PLAYLIST_ID = "PL_1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private YouTubeDataApiService youTubeDataApiService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        youTubeDataApiService = mock(YouTubeDataApiService.class);
+        doReturn(Mono.just(objectMapper.readTree("{\"id\":\"PL_1\",\"snippet\":{\"title\":\"My list\"}}")))
+                .when(youTubeDataApiService).getPlaylist(TOKEN, PLAYLIST_ID);
+        webTestClient = WebTestClient
+                .bindToController(new PlaylistsController(youTubeDataApiService, objectMapper))
+                .webFilter((exchange, chain) -> exchange.getSession()
+                        .doOnNext(session -> {
+                            session.getAttributes().put("userId", "user-1");
+                            session.getAttributes().put("youtubeAccessToken", TOKEN);
+                        })
+                        .then(chain.filter(exchange)))
+                .build();
+    }
+
+    @Test
+    @DisplayName("最初のページで失敗した場合は 200 を返さず、エラーのステータスで返すこと")
+    void detail_firstPageFails_shouldReturnErrorStatus() {
+        doReturn(Flux.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "youtube_user_quota_exceeded")))
+                .when(youTubeDataApiService).streamPlaylistItems(TOKEN, PLAYLIST_ID);
+
+        webTestClient
+                .get()
+                .uri("/api/playlists/" + PLAYLIST_ID)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    @DisplayName("途中のページで失敗した場合は、そこまでの曲で閉じた JSON に truncated と error を付けること")
+    void detail_laterPageFails_shouldCloseArrayWithError() {
+        doReturn(Flux.concat(
+                Flux.just(new PlaylistVideo("v1", "Song 1", "Artist", null, "PT3M", "2024-01-01T00:00:00Z")),
+                Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "youtube_circuit_open"))))
+                .when(youTubeDataApiService).streamPlaylistItems(TOKEN, PLAYLIST_ID);
+
+        webTestClient
+                .get()
+                .uri("/api/playlists/" + PLAYLIST_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("My list")
+                .jsonPath("$.songs.length()").isEqualTo(1)
+                .jsonPath("$.songs[0].videoId").isEqualTo("v1")
+                .jsonPath("$.truncated").isEqualTo(true)
+                .jsonPath("$.error").isEqualTo("youtube_circuit_open");
+    }
+}
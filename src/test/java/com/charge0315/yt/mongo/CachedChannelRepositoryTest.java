@@ -6,9 +6,18 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.charge0315.yt.config.CachedChannelIndexInitializer;
+import com.charge0315.yt.config.MongoQueryPlanVerifier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -23,6 +32,12 @@ class CachedChannelRepositoryTest {
     @Autowired
     private CachedChannelRepository repository;
 
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private CachedChannelIndexInitializer indexInitializer;
+
     private static final String TEST_USER_ID = "test-user-repo";
     private static final String TEST_CHANNEL_ID_1 = "UC_channel_1";
     private static final String TEST_CHANNEL_ID_2 = "UC_channel_2";
@@ -36,6 +51,8 @@ class CachedChannelRepositoryTest {
     @AfterEach
     void tearDown() {
         repository.deleteAll().block();
+        // 重複のテストで外した一意インデックスを戻す
+        indexInitializer.initialize().block();
     }
 
     @Test
@@ -112,6 +129,22 @@ class CachedChannelRepositoryTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("一覧用の射影クエリは必要な項目だけを取得すること")
+    void shouldProjectListFields() {
+        repository.save(createTestChannel(TEST_USER_ID, TEST_CHANNEL_ID_1, "Channel 1")).block();
+
+        StepVerifier.create(repository.findByUserIdAndIsArtistFalseOrderByChannelTitleAsc(TEST_USER_ID,
+                        ChannelSummary.class))
+                .assertNext(found -> {
+                    assertThat(found.id()).isNotNull();
+                    assertThat(found.channelId()).isEqualTo(TEST_CHANNEL_ID_1);
+                    assertThat(found.channelTitle()).isEqualTo("Channel 1");
+                    assertThat(found.latestVideoId()).isEqualTo("test-video");
+                })
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("チャンネルを削除できること")
     void shouldDeleteChannel() {
@@ -152,6 +185,49 @@ class CachedChannelRepositoryTest {
         assertThat(updated.getLatestVideoId()).isEqualTo("new-video-123");
     }
 
+    @Test
+    @DisplayName("setFields は指定した項目だけを書き換え、実際に変わった件数を返すこと")
+    void shouldSetOnlyListedFields() {
+        CachedChannel channel1 = repository.save(createTestChannel(TEST_USER_ID, TEST_CHANNEL_ID_1, "Channel 1"))
+                .block();
+        CachedChannel channel2 = repository.save(createTestChannel(TEST_USER_ID, TEST_CHANNEL_ID_2, "Channel 2"))
+                .block();
+
+        Map<String, Object> changed = new HashMap<>();
+        changed.put("latestVideoId", "new-video");
+        changed.put("latestVideoTitle", null);
+        // channel2 は同じ値なので modified に数えられない
+        Map<String, Object> unchanged = Map.of("channelTitle", "Channel 2");
+
+        StepVerifier.create(repository.setFields(Map.of(
+                        channel1.getId(), changed,
+                        channel2.getId(), unchanged)))
+                .expectNext(1)
+                .verifyComplete();
+
+        CachedChannel updated = repository.findById(channel1.getId()).block();
+        assertThat(updated.getLatestVideoId()).isEqualTo("new-video");
+        assertThat(updated.getLatestVideoTitle()).isNull();
+        assertThat(updated.getChannelTitle()).isEqualTo("Channel 1");
+        assertThat(updated.getLatestVideoThumbnail()).isEqualTo("https://example.com/video-thumb.jpg");
+        assertThat(updated.getUserId()).isEqualTo(TEST_USER_ID);
+
+        CachedChannel untouched = repository.findById(channel2.getId()).block();
+        assertThat(untouched.getLatestVideoId()).isEqualTo("test-video");
+        assertThat(untouched.getChannelTitle()).isEqualTo("Channel 2");
+    }
+
+    @Test
+    @DisplayName("setFields は空の指定なら何も送らず 0 を返すこと")
+    void shouldSkipEmptySetFields() {
+        StepVerifier.create(repository.setFields(Map.of()))
+                .expectNext(0)
+                .verifyComplete();
+        StepVerifier.create(repository.setFields(Map.of("some-id", Map.of())))
+                .expectNext(0)
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("存在しないIDでの検索は空の結果を返すこと")
     void shouldReturnEmptyForNonExistentId() {
@@ -166,6 +242,75 @@ class CachedChannelRepositoryTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("(userId, channelId) の二重登録は一意インデックスで弾かれること")
+    void shouldRejectDuplicateSubscription() {
+        indexInitializer.initialize().block();
+        repository.save(createTestChannel(TEST_USER_ID, TEST_CHANNEL_ID_1, "Channel")).block();
+
+        StepVerifier.create(repository.save(createTestChannel(TEST_USER_ID, TEST_CHANNEL_ID_1, "Channel")))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("重複の削除が無効なら重複を残したまま一意インデックスの作成を見送ること")
+    void shouldKeepDuplicatesWhenDedupeIsDisabled() {
+        insertDuplicatesWithoutUniqueIndex();
+
+        StepVerifier.create(new CachedChannelIndexInitializer(mongoTemplate, false, Duration.ofSeconds(1)).initialize())
+                .verifyComplete();
+
+        StepVerifier.create(repository.findByUserId(TEST_USER_ID).count())
+                .expectNext(3L)
+                .verifyComplete();
+        StepVerifier.create(mongoTemplate.indexOps(CachedChannel.class).getIndexInfo()
+                        .filter(index -> CachedChannelIndexInitializer.INDEX_NAME.equals(index.getName()))
+                        .count())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("重複の削除が有効なら updatedAt の新しい1件を残して取り除いてから一意インデックスを作ること")
+    void shouldRemoveDuplicatesBeforeCreatingUniqueIndexWhenDedupeIsEnabled() {
+        insertDuplicatesWithoutUniqueIndex();
+
+        StepVerifier.create(new CachedChannelIndexInitializer(mongoTemplate, true, Duration.ofSeconds(1)).initialize())
+                .expectNext(CachedChannelIndexInitializer.INDEX_NAME)
+                .verifyComplete();
+
+        StepVerifier.create(repository.findByUserId(TEST_USER_ID).map(CachedChannel::getChannelTitle).collectList())
+                .assertNext(titles -> assertThat(titles).containsExactlyInAnyOrder("Newer", "Other"))
+                .verifyComplete();
+        StepVerifier.create(repository.save(createTestChannel(TEST_USER_ID, TEST_CHANNEL_ID_2, "Other")))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+    }
+
+    /**
+     * 一意インデックス導入前のデータ（同じ (userId, channelId) が2件）を再現します。
+     */
+    private void insertDuplicatesWithoutUniqueIndex() {
+        mongoTemplate.indexOps(CachedChannel.class)
+                .dropIndex(CachedChannelIndexInitializer.INDEX_NAME)
+                .onErrorResume(e -> Mono.empty())
+                .block();
+        CachedChannel older = createTestChannel(TEST_USER_ID, TEST_CHANNEL_ID_1, "Older");
+        older.setUpdatedAt(Instant.now().minusSeconds(60));
+        repository.save(older).block();
+        repository.save(createTestChannel(TEST_USER_ID, TEST_CHANNEL_ID_1, "Newer")).block();
+        repository.save(createTestChannel(TEST_USER_ID, TEST_CHANNEL_ID_2, "Other")).block();
+    }
+
+    @Test
+    @DisplayName("各クエリの実行計画に COLLSCAN やメモリ上の SORT が無いこと")
+    void shouldUseIndexesForAllQueries() {
+        StepVerifier.create(new MongoQueryPlanVerifier(mongoTemplate, Duration.ofSeconds(30)).verify())
+                .assertNext(failures -> assertThat(failures).isEmpty())
+                .verifyComplete();
+    }
+
     /**
      * テスト用のCachedChannelオブジェクトを作成します。
      */
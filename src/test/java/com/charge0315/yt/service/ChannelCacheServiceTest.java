@@ -0,0 +1,114 @@
+package com.charge0315.yt.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.charge0315.yt.mongo.CachedChannel;
+import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelVideo;
+import com.charge0315.yt.mongo.ChannelVideoRepository;
+import com.charge0315.yt.service.YouTubeChannelsService.LatestVideo;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ChannelCacheService（購読の変更とタイムラインの整合）のテスト。
+ */
+@SpringBootTest
+class ChannelCacheServiceTest {
+
+    @Autowired
+    private ChannelCacheService channelCacheService;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private CachedChannelRepository cachedChannelRepository;
+
+    @Autowired
+    private ChannelVideoRepository channelVideoRepository;
+
+    private static final String TEST_USER_ID = "test-user-cache-service";
+
+    @BeforeEach
+    void setUp() {
+        cachedChannelRepository.deleteAll().block();
+        channelVideoRepository.deleteAll().block();
+        timelineService.invalidate(TEST_USER_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cachedChannelRepository.deleteAll().block();
+        channelVideoRepository.deleteAll().block();
+        timelineService.invalidate(TEST_USER_ID);
+    }
+
+    @Test
+    @DisplayName("登録解除したチャンネルの動画は直後のタイムラインに含まれず、以後のアップロードも入らないこと")
+    void unsubscribe_shouldRemoveChannelFromTimeline() {
+        cachedChannelRepository.save(createTestChannel("UC_keep")).block();
+        cachedChannelRepository.save(createTestChannel("UC_drop")).block();
+        channelVideoRepository.saveAll(List.of(
+                createVideo("UC_keep", "keep-1", 200),
+                createVideo("UC_drop", "drop-1", 100))).blockLast();
+
+        // 構築済みのタイムラインがある状態で解除する
+        assertThat(timelineService.page(TEST_USER_ID, null, 50).block().items())
+                .extracting(LatestVideo::videoId)
+                .containsExactly("keep-1", "drop-1");
+
+        channelCacheService.unsubscribe(TEST_USER_ID, "UC_drop").block();
+        timelineService.onUploads("UC_drop", List.of(createVideo("UC_drop", "drop-2", 300)));
+
+        assertThat(timelineService.page(TEST_USER_ID, null, 50).block().items())
+                .extracting(LatestVideo::videoId)
+                .containsExactly("keep-1");
+    }
+
+    @Test
+    @DisplayName("アーティストにしたチャンネルは直後のタイムラインから外れること")
+    void setArtistFlag_shouldRemoveChannelFromTimeline() {
+        cachedChannelRepository.save(createTestChannel("UC_keep")).block();
+        cachedChannelRepository.save(createTestChannel("UC_artist")).block();
+        channelVideoRepository.saveAll(List.of(
+                createVideo("UC_keep", "keep-1", 200),
+                createVideo("UC_artist", "artist-1", 100))).blockLast();
+        timelineService.page(TEST_USER_ID, null, 50).block();
+
+        channelCacheService.setArtistFlag(TEST_USER_ID, "UC_artist", true).block();
+
+        assertThat(timelineService.page(TEST_USER_ID, null, 50).block().items())
+                .extracting(LatestVideo::videoId)
+                .containsExactly("keep-1");
+    }
+
+    private CachedChannel createTestChannel(String channelId) {
+        CachedChannel channel = new CachedChannel();
+        channel.setUserId(TEST_USER_ID);
+        channel.setChannelId(channelId);
+        channel.setChannelTitle(channelId);
+        channel.setIsArtist(false);
+        channel.setCreatedAt(Instant.now());
+        channel.setUpdatedAt(Instant.now());
+        return channel;
+    }
+
+    private ChannelVideo createVideo(String channelId, String videoId, long epochSecond) {
+        ChannelVideo video = new ChannelVideo();
+        video.setVideoId(videoId);
+        video.setChannelId(channelId);
+        video.setTitle(videoId);
+        video.setPublishedAt(Instant.ofEpochSecond(epochSecond));
+        video.setFetchedAt(Instant.now());
+        return video;
+    }
+}
@@ -0,0 +1,96 @@
+package com.charge0315.yt.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.charge0315.yt.mongo.CachedChannel;
+import com.charge0315.yt.mongo.ChannelCatalogEntry;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ChannelCatalogService（カタログ→購読ドキュメントの反映）のテスト。
+ */
+class ChannelCatalogServiceTest {
+
+    @Test
+    @DisplayName("新規購読ドキュメントには表示用項目だけが複製されること")
+    void newSubscription_shouldCopyDisplayFieldsOnly() {
+        ChannelCatalogEntry entry = createEntry("UC_catalog_1", "video-1");
+
+        CachedChannel doc = ChannelCatalogService.newSubscription("user-1", entry);
+
+        assertThat(doc.getId()).isNotNull();
+        assertThat(doc.getUserId()).isEqualTo("user-1");
+        assertThat(doc.getChannelId()).isEqualTo("UC_catalog_1");
+        assertThat(doc.getChannelTitle()).isEqualTo("Catalog Channel");
+        assertThat(doc.getThumbnailUrl()).isEqualTo("https://example.com/thumb.jpg");
+        assertThat(doc.getLatestVideoId()).isEqualTo("video-1");
+        assertThat(doc.getIsArtist()).isFalse();
+        // 説明文/登録者数はカタログのみに保持する
+        assertThat(doc.getChannelDescription()).isNull();
+        assertThat(doc.getSubscriberCount()).isNull();
+    }
+
+    @Test
+    @DisplayName("カタログと同じ内容なら変更なしと判定されること")
+    void applyTo_shouldReturnFalseWhenUnchanged() {
+        ChannelCatalogEntry entry = createEntry("UC_catalog_1", "video-1");
+        CachedChannel doc = ChannelCatalogService.newSubscription("user-1", entry);
+
+        assertThat(ChannelCatalogService.applyTo(entry, doc)).isFalse();
+
+        entry.setLatestVideoId("video-2");
+        assertThat(ChannelCatalogService.applyTo(entry, doc)).isTrue();
+        assertThat(doc.getLatestVideoId()).isEqualTo("video-2");
+    }
+
+    @Test
+    @DisplayName("カタログのハッシュは表示項目が変わったときだけ変わること")
+    void catalogHash_shouldChangeOnlyWithDisplayFields() {
+        ChannelCatalogEntry entry = createEntry("UC_catalog_1", "video-1");
+        CachedChannel doc = ChannelCatalogService.newSubscription("user-1", entry);
+
+        assertThat(doc.getCatalogHash()).isEqualTo(ChannelCatalogService.catalogHash(entry));
+
+        entry.setDescription("説明文は購読ドキュメントへ写さない");
+        assertThat(ChannelCatalogService.catalogHash(entry)).isEqualTo(doc.getCatalogHash());
+
+        entry.setLatestVideoViewCount(1234L);
+        assertThat(ChannelCatalogService.catalogHash(entry)).isNotEqualTo(doc.getCatalogHash());
+    }
+
+    @Test
+    @DisplayName("変更された項目だけが $set の対象になること")
+    void changedFields_shouldContainOnlyModifiedFields() {
+        ChannelCatalogEntry entry = createEntry("UC_catalog_1", "video-1");
+        CachedChannel doc = ChannelCatalogService.newSubscription("user-1", entry);
+        var before = ChannelCatalogService.displayFields(doc);
+
+        entry.setLatestVideoViewCount(1234L);
+        ChannelCatalogService.applyTo(entry, doc);
+
+        assertThat(ChannelCatalogService.changedFields(before, ChannelCatalogService.displayFields(doc)))
+                .containsOnlyKeys("latestVideoViewCount")
+                .containsEntry("latestVideoViewCount", 1234L);
+    }
+
+    private ChannelCatalogEntry createEntry(String channelId, String videoId) {
+        ChannelCatalogEntry entry = new ChannelCatalogEntry();
+        entry.setChannelId(channelId);
+        entry.setTitle("Catalog Channel");
+        entry.setDescription("Catalog Description");
+        entry.setThumbnailUrl("https://example.com/thumb.jpg");
+        entry.setSubscriberCount("1000");
+        entry.setNotFound(false);
+        entry.setLatestVideoId(videoId);
+        entry.setLatestVideoTitle("Latest Video");
+        entry.setLatestVideoThumbnail("https://example.com/video-thumb.jpg");
+        entry.setLatestVideoPublishedAt(Instant.parse("2025-01-01T00:00:00Z"));
+        entry.setLatestVideoDuration("PT3M");
+        entry.setLatestVideoViewCount(100L);
+        return entry;
+    }
+}
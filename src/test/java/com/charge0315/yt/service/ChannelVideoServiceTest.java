@@ -0,0 +1,163 @@
+package com.charge0315.yt.service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.charge0315.yt.mongo.ChannelVideo;
+import com.charge0315.yt.mongo.ChannelVideoRepository;
+import com.charge0315.yt.service.YouTubeDataApiService.LatestVideo;
+import com.charge0315.yt.service.YouTubeDataApiService.VideoDetails;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ChannelVideoService（アップロード履歴の保存と読み取り）のテスト。
+ */
+class ChannelVideoServiceTest {
+
+    private final ChannelVideoRepository repository = mock(ChannelVideoRepository.class);
+
+    private final YouTubeDataApiService youTubeDataApiService = mock(YouTubeDataApiService.class);
+
+    private final TimelineService timelineService = mock(TimelineService.class);
+
+    private final ChannelVideoService service = new ChannelVideoService(repository, youTubeDataApiService,
+            timelineService, 2);
+
+    @Test
+    @DisplayName("新規か内容の変わった動画だけを書き込み、新しい動画が入ったチャンネルだけを削除対象にすること")
+    @SuppressWarnings("unchecked")
+    void record_shouldWriteOnlyChangedVideosAndTrimOnlyChannelsWithNewUploads() {
+        when(repository.findAllById(any(Iterable.class))).thenReturn(Flux.just(
+                stored("UC_same", "v-same", "Title", "PT1M", 10L),
+                stored("UC_changed", "v-changed", "Old title", "PT1M", 10L)));
+        when(repository.upsertAll(any())).thenReturn(Mono.just(2));
+        when(repository.findByChannelIdOrderByPublishedAtDesc(anyString())).thenReturn(Flux.empty());
+        when(youTubeDataApiService.getVideoDetailsBatch(any(), anyList())).thenReturn(Mono.just(Map.of()));
+
+        service.record("token", Map.of(
+                        "UC_same", List.of(upload("v-same", "Title")),
+                        "UC_changed", List.of(upload("v-changed", "New title")),
+                        "UC_new", List.of(upload("v-new", "Fresh"))),
+                Map.of(
+                        "v-same", new VideoDetails("PT1M", 10L),
+                        "v-changed", new VideoDetails("PT1M", 10L),
+                        "v-new", new VideoDetails("PT2M", 5L)))
+                .block();
+
+        ArgumentCaptor<Collection<ChannelVideo>> written = ArgumentCaptor.forClass(Collection.class);
+        verify(repository).upsertAll(written.capture());
+        assertThat(written.getValue()).extracting(ChannelVideo::getVideoId)
+                .containsExactlyInAnyOrder("v-changed", "v-new");
+        verify(repository).findByChannelIdOrderByPublishedAtDesc("UC_new");
+        verify(repository, never()).findByChannelIdOrderByPublishedAtDesc("UC_same");
+        verify(repository, never()).findByChannelIdOrderByPublishedAtDesc("UC_changed");
+    }
+
+    @Test
+    @DisplayName("尺が分からない動画だけを videos.list で取得し、保存済みの値は引き継ぐこと")
+    @SuppressWarnings("unchecked")
+    void record_shouldFetchOnlyVideosWithoutDuration() {
+        when(repository.findAllById(any(Iterable.class))).thenReturn(Flux.just(
+                stored("UC_1", "v-known", "Known", "PT3M", 7L)));
+        when(repository.upsertAll(any())).thenReturn(Mono.just(1));
+        when(repository.findByChannelIdOrderByPublishedAtDesc(anyString())).thenReturn(Flux.empty());
+        when(youTubeDataApiService.getVideoDetailsBatch(any(), anyList()))
+                .thenReturn(Mono.just(Map.of("v-unknown", new VideoDetails("PT4M", 1L))));
+
+        service.record("token", Map.of("UC_1", List.of(upload("v-known", "Known"), upload("v-unknown", "Unknown"))),
+                Map.of()).block();
+
+        verify(youTubeDataApiService).getVideoDetailsBatch("token", List.of("v-unknown"));
+        ArgumentCaptor<Collection<ChannelVideo>> written = ArgumentCaptor.forClass(Collection.class);
+        verify(repository).upsertAll(written.capture());
+        assertThat(written.getValue()).singleElement().satisfies(video -> {
+            assertThat(video.getVideoId()).isEqualTo("v-unknown");
+            assertThat(video.getDuration()).isEqualTo("PT4M");
+        });
+    }
+
+    @Test
+    @DisplayName("historySize を超えて削除した古い動画を構築済みタイムラインからも取り除くこと")
+    @SuppressWarnings("unchecked")
+    void record_shouldRemoveTrimmedVideosFromTimelines() {
+        when(repository.findAllById(any(Iterable.class))).thenReturn(Flux.empty());
+        when(repository.upsertAll(any())).thenReturn(Mono.just(1));
+        when(repository.findByChannelIdOrderByPublishedAtDesc("UC_1")).thenReturn(Flux.just(
+                stored("UC_1", "v3", "v3", "PT1M", 1L),
+                stored("UC_1", "v2", "v2", "PT1M", 1L),
+                stored("UC_1", "v1", "v1", "PT1M", 1L)));
+        when(repository.deleteAllById(any())).thenReturn(Mono.empty());
+        when(youTubeDataApiService.getVideoDetailsBatch(any(), anyList())).thenReturn(Mono.just(Map.of()));
+
+        service.record("token", Map.of("UC_1", List.of(upload("v3", "v3"))),
+                Map.of("v3", new VideoDetails("PT1M", 1L))).block();
+
+        verify(repository).deleteAllById(List.of("v1"));
+        verify(timelineService).onTrimmed("UC_1", List.of("v1"));
+    }
+
+    @Test
+    @DisplayName("findRecent はチャンネルごとに新しい順で historySize 件までにまとめること")
+    void findRecent_shouldGroupByChannelAndCap() {
+        when(repository.findByChannelIdInOrderByPublishedAtDesc(any())).thenReturn(Flux.just(
+                stored("UC_a", "a3", "a3", null, null),
+                stored("UC_b", "b1", "b1", null, null),
+                stored("UC_a", "a2", "a2", null, null),
+                stored("UC_a", "a1", "a1", null, null)));
+
+        Map<String, List<ChannelVideo>> recent = service.findRecent(List.of("UC_a", "UC_b", "")).block();
+
+        assertThat(recent).containsOnlyKeys("UC_a", "UC_b");
+        assertThat(recent.get("UC_a")).extracting(ChannelVideo::getVideoId).containsExactly("a3", "a2");
+        assertThat(recent.get("UC_b")).extracting(ChannelVideo::getVideoId).containsExactly("b1");
+    }
+
+    @Test
+    @DisplayName("fetchedAt 以外が同じなら変更なしと判定すること（日時はミリ秒で比較）")
+    void sameContent_shouldIgnoreFetchedAtAndSubMillis() {
+        ChannelVideo a = stored("UC_1", "v1", "Title", "PT1M", 1L);
+        ChannelVideo b = stored("UC_1", "v1", "Title", "PT1M", 1L);
+        b.setFetchedAt(Instant.now());
+        b.setPublishedAt(a.getPublishedAt().plusNanos(1));
+
+        assertThat(ChannelVideoService.sameContent(a, b)).isTrue();
+
+        b.setViewCount(2L);
+        assertThat(ChannelVideoService.sameContent(a, b)).isFalse();
+    }
+
+    private static LatestVideo upload(String videoId, String title) {
+        return new LatestVideo(videoId, title, "https://example.com/" + videoId + ".jpg", "2024-01-01T00:00:00Z");
+    }
+
+    private static ChannelVideo stored(String channelId, String videoId, String title, String duration,
+            Long viewCount) {
+        ChannelVideo video = new ChannelVideo();
+        video.setVideoId(videoId);
+        video.setChannelId(channelId);
+        video.setTitle(title);
+        video.setThumbnailUrl("https://example.com/" + videoId + ".jpg");
+        video.setPublishedAt(Instant.parse("2024-01-01T00:00:00Z"));
+        video.setDuration(duration);
+        video.setViewCount(viewCount);
+        video.setFetchedAt(Instant.EPOCH);
+        return video;
+    }
+}
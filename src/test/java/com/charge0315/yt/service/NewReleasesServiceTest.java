@@ -0,0 +1,113 @@
+package com.charge0315.yt.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.charge0315.yt.mongo.CachedChannel;
+import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelSummary;
+import com.charge0315.yt.mongo.NewReleasesRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * NewReleasesService（書き込み時に組み立てる新着一覧）のテスト。
+ */
+@SpringBootTest(properties = "youtube.new-releases.size=2")
+class NewReleasesServiceTest {
+
+    @Autowired
+    private NewReleasesService newReleasesService;
+
+    @Autowired
+    private CachedChannelRepository cachedChannelRepository;
+
+    @Autowired
+    private NewReleasesRepository newReleasesRepository;
+
+    private static final String TEST_USER_ID = "test-user-new-releases";
+
+    @BeforeEach
+    void setUp() {
+        cachedChannelRepository.deleteAll().block();
+        newReleasesRepository.deleteAll().block();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cachedChannelRepository.deleteAll().block();
+        newReleasesRepository.deleteAll().block();
+    }
+
+    @Test
+    @DisplayName("公開日時の新しい順に size 件だけを保持し、最新動画の無い購読と他ユーザーは含めないこと")
+    void rebuild_shouldKeepNewestTopN() {
+        cachedChannelRepository.saveAll(List.of(
+                createTestChannel(TEST_USER_ID, "UC_old", 100, false),
+                createTestChannel(TEST_USER_ID, "UC_newest", 300, false),
+                createTestChannel(TEST_USER_ID, "UC_middle", 200, true),
+                createTestChannel(TEST_USER_ID, "UC_no_video", null, false),
+                createTestChannel("other-user", "UC_other", 400, false))).blockLast();
+
+        newReleasesService.rebuild(TEST_USER_ID).block();
+
+        assertThat(newReleasesRepository.findById(TEST_USER_ID).block().getItems())
+                .extracting(ChannelSummary::channelId)
+                .containsExactly("UC_newest", "UC_middle");
+    }
+
+    @Test
+    @DisplayName("アーティストかどうかで絞り込まず、作り直し後の isArtist を反映すること")
+    void rebuild_shouldReflectArtistFlagWithoutFiltering() {
+        CachedChannel channel = cachedChannelRepository.save(createTestChannel(TEST_USER_ID, "UC_1", 100, false))
+                .block();
+        newReleasesService.rebuild(TEST_USER_ID).block();
+
+        channel.setIsArtist(true);
+        cachedChannelRepository.save(channel).block();
+        newReleasesService.rebuild(TEST_USER_ID).block();
+
+        // 元の一覧（/api/artists/new-releases）と同じく、全購読の最新動画を対象にする
+        assertThat(newReleasesService.find(TEST_USER_ID).block())
+                .singleElement()
+                .satisfies(item -> assertThat(item.isArtist()).isTrue());
+    }
+
+    @Test
+    @DisplayName("まだ組み立てていないユーザーは初回の読み取りで1回だけ組み立てて保存すること")
+    void find_shouldBuildOnFirstRead() {
+        cachedChannelRepository.save(createTestChannel(TEST_USER_ID, "UC_1", 100, false)).block();
+
+        List<ChannelSummary> first = newReleasesService.find(TEST_USER_ID).block();
+        // 保存済みの一覧を返す（購読ドキュメントの変更は次の作り直しまで反映しない）
+        cachedChannelRepository.save(createTestChannel(TEST_USER_ID, "UC_2", 200, false)).block();
+        List<ChannelSummary> second = newReleasesService.find(TEST_USER_ID).block();
+
+        assertThat(first).extracting(ChannelSummary::channelId).containsExactly("UC_1");
+        assertThat(newReleasesRepository.findById(TEST_USER_ID).block()).isNotNull();
+        assertThat(second).extracting(ChannelSummary::channelId).containsExactly("UC_1");
+    }
+
+    private CachedChannel createTestChannel(String userId, String channelId, Integer publishedEpochSecond,
+            boolean isArtist) {
+        CachedChannel channel = new CachedChannel();
+        channel.setUserId(userId);
+        channel.setChannelId(channelId);
+        channel.setChannelTitle(channelId);
+        channel.setIsArtist(isArtist);
+        if (publishedEpochSecond != null) {
+            channel.setLatestVideoId("video-" + channelId);
+            channel.setLatestVideoPublishedAt(Instant.ofEpochSecond(publishedEpochSecond));
+        }
+        channel.setCreatedAt(Instant.now());
+        channel.setUpdatedAt(Instant.now());
+        return channel;
+    }
+}
@@ -0,0 +1,53 @@
+package com.charge0315.yt.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.charge0315.yt.mongo.PlaylistItemIndex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PlaylistItemIndexService（再生リスト索引の照合/参照）のテスト。
+ */
+class PlaylistItemIndexServiceTest {
+
+    @Test
+    @DisplayName("ETag 確定済みの索引は ETag の一致で、未確認の索引は件数の一致で照合されること")
+    void isConsistent_shouldUseEtagOrItemCount() {
+        PlaylistItemIndex index = createIndex();
+
+        // 未確認（etag=null）: 同じ動画の重複も件数に含める
+        assertThat(PlaylistItemIndexService.isConsistent(index, "etag-1", 3L)).isTrue();
+        assertThat(PlaylistItemIndexService.isConsistent(index, "etag-1", 4L)).isFalse();
+
+        index.setEtag("etag-1");
+        assertThat(PlaylistItemIndexService.isConsistent(index, "etag-1", 99L)).isTrue();
+        assertThat(PlaylistItemIndexService.isConsistent(index, "etag-2", 3L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("videoId から先頭の playlistItemId を引けること")
+    void firstItemId_shouldReturnFirstEntry() {
+        PlaylistItemIndex index = createIndex();
+
+        assertThat(PlaylistItemIndexService.firstItemId(index, "video-1")).isEqualTo("item-1");
+        assertThat(PlaylistItemIndexService.firstItemId(index, "video-2")).isEqualTo("item-2");
+        assertThat(PlaylistItemIndexService.firstItemId(index, "video-x")).isNull();
+    }
+
+    private PlaylistItemIndex createIndex() {
+        Map<String, List<String>> items = new LinkedHashMap<>();
+        items.put("video-1", List.of("item-1", "item-3"));
+        items.put("video-2", List.of("item-2"));
+
+        PlaylistItemIndex index = new PlaylistItemIndex();
+        index.setPlaylistId("PL_test");
+        index.setItems(items);
+        return index;
+    }
+}
@@ -0,0 +1,81 @@
+package com.charge0315.yt.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SearchResultCache のテスト。
+ */
+class SearchResultCacheTest {
+
+    @Test
+    @DisplayName("クエリは NFKC・小文字化・空白の圧縮で正規化されること")
+    void normalize_shouldFoldWidthCaseAndWhitespace() {
+        assertThat(SearchResultCache.normalize("  ＹＯＡＳＯＢＩ　 Live ")).isEqualTo("yoasobi live");
+    }
+
+    @Test
+    @DisplayName("大きい件数で取得した結果から小さい件数の要求に応えること")
+    void get_shouldServeSmallerRequestsFromLargerResult() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SearchResultCache cache = new SearchResultCache(registry, true, Duration.ofMinutes(10), Duration.ofHours(1),
+                100, 25);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Integer> first = cache.<Integer>get("video", "Query", 20, (q, size) -> {
+            loads.incrementAndGet();
+            return Mono.just(IntStream.range(0, size).boxed().toList());
+        }).block();
+        List<Integer> second = cache.<Integer>get("video", "query ", 10, (q, size) -> {
+            loads.incrementAndGet();
+            return Mono.just(List.of());
+        }).block();
+
+        assertThat(first).hasSize(20);
+        assertThat(second).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertThat(loads).hasValue(1);
+        assertThat(registry.get("youtube.search.cache.hit_ratio").tag("type", "video").gauge().value())
+                .isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("正規化はキーにだけ使い、loader には呼び出し元のクエリをそのまま渡すこと")
+    void get_shouldPassOriginalQueryToLoader() {
+        SearchResultCache cache = new SearchResultCache(new SimpleMeterRegistry(), true, Duration.ofMinutes(10),
+                Duration.ofHours(1), 100, 25);
+        List<String> loaded = new ArrayList<>();
+
+        cache.<String>get("video", "ＹＯＡＳＯＢＩ -Live", 5, (q, size) -> {
+            loaded.add(q);
+            return Mono.just(List.of("r"));
+        }).block();
+
+        assertThat(loaded).containsExactly("ＹＯＡＳＯＢＩ -Live");
+    }
+
+    @Test
+    @DisplayName("ttl を過ぎた結果は古いまま返し、裏で取り直すこと")
+    void get_shouldServeStaleWhileRevalidating() {
+        SearchResultCache cache = new SearchResultCache(new SimpleMeterRegistry(), true, Duration.ZERO,
+                Duration.ofHours(1), 100, 25);
+        cache.<String>get("channel", "q", 1, (q, size) -> Mono.just(List.of("old"))).block();
+
+        List<String> stale = cache.<String>get("channel", "q", 1, (q, size) -> Mono.just(List.of("new"))).block();
+        List<String> refreshed = cache.<String>get("channel", "q", 1, (q, size) -> Mono.just(List.of("newer")))
+                .block();
+
+        assertThat(stale).containsExactly("old");
+        assertThat(refreshed).containsExactly("new");
+    }
+}
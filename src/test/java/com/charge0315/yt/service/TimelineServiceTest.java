@@ -0,0 +1,107 @@
+package com.charge0315.yt.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelSummary;
+import com.charge0315.yt.mongo.ChannelVideo;
+import com.charge0315.yt.mongo.ChannelVideoRepository;
+import com.charge0315.yt.service.TimelineService.TimelineItem;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * TimelineService のテスト。
+ */
+class TimelineServiceTest {
+
+    @Test
+    @DisplayName("チャンネルごとのリストを新しい順にマージし、先頭 limit 件で打ち切ること")
+    void merge_shouldInterleaveByPublishedAtAndStopAtLimit() {
+        List<TimelineItem> a = List.of(item(500, "a1"), item(300, "a2"), item(100, "a3"));
+        List<TimelineItem> b = List.of(item(400, "b1"), item(300, "b2"));
+        List<TimelineItem> c = List.of();
+
+        List<TimelineItem> merged = TimelineService.merge(List.of(a, b, c), 4);
+
+        assertThat(merged).extracting(TimelineItem::videoId).containsExactly("a1", "b1", "a2", "b2");
+    }
+
+    @Test
+    @DisplayName("カーソルは公開時刻と videoId を往復できること")
+    void cursor_shouldRoundTrip() {
+        TimelineItem decoded = TimelineService.decodeCursor(TimelineService.encodeCursor(item(1_700_000_000_000L, "v:1")));
+
+        assertThat(decoded.publishedAtMillis()).isEqualTo(1_700_000_000_000L);
+        assertThat(decoded.videoId()).isEqualTo("v:1");
+        assertThat(TimelineService.decodeCursor(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("不正なカーソルは 400 invalid_cursor になること")
+    void decodeCursor_shouldRejectGarbage() {
+        assertThatThrownBy(() -> TimelineService.decodeCursor("not*base64"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("invalid_cursor");
+    }
+
+    @Test
+    @DisplayName("構築中に invalidate された場合、その結果は保持されず次の参照で作り直されること")
+    void invalidate_duringBuild_shouldDropStaleResult() {
+        CachedChannelRepository cachedChannelRepository = mock(CachedChannelRepository.class);
+        ChannelVideoRepository channelVideoRepository = mock(ChannelVideoRepository.class);
+        Sinks.Empty<Void> gate = Sinks.empty();
+        doReturn(Flux.just(summary("UC_1")))
+                .when(cachedChannelRepository)
+                .findByUserIdAndIsArtistFalseOrderByChannelTitleAsc("user-1", ChannelSummary.class);
+        doReturn(gate.asMono().thenMany(Flux.just(video("UC_1", "v1"))))
+                .when(channelVideoRepository)
+                .findByChannelIdInOrderByPublishedAtDesc(any());
+        TimelineService service = new TimelineService(cachedChannelRepository, channelVideoRepository,
+                Duration.ofMinutes(10), 10, 50);
+
+        Mono<TimelineService.TimelinePage> first = service.page("user-1", null, 10).cache();
+        first.subscribe();
+        service.invalidate("user-1");
+        gate.tryEmitEmpty();
+
+        assertThat(first.block().items()).hasSize(1);
+        service.page("user-1", null, 10).block();
+        service.page("user-1", null, 10).block();
+        // 1回目の結果は捨てられ、2回目で作り直して保持、3回目は保持したものを返す
+        verify(channelVideoRepository, times(2)).findByChannelIdInOrderByPublishedAtDesc(any());
+    }
+
+    private static ChannelSummary summary(String channelId) {
+        return new ChannelSummary("id-" + channelId, channelId, "title", null, false, null, null, null, null, null,
+                null, 0);
+    }
+
+    private static ChannelVideo video(String channelId, String videoId) {
+        ChannelVideo video = new ChannelVideo();
+        video.setVideoId(videoId);
+        video.setChannelId(channelId);
+        video.setPublishedAt(Instant.ofEpochSecond(100));
+        return video;
+    }
+
+    private static TimelineItem item(long millis, String videoId) {
+        return new TimelineItem(millis, videoId, null);
+    }
+}
@@ -0,0 +1,168 @@
+package com.charge0315.yt.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.charge0315.yt.mongo.CachedChannelRepository;
+import com.charge0315.yt.mongo.ChannelCatalogEntry;
+import com.charge0315.yt.mongo.ChannelCatalogRepository;
+import com.charge0315.yt.service.YouTubeDataApiService.VideoDetails;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * VideoEnrichmentService（動画詳細の裏での補完）のテスト。
+ */
+class VideoEnrichmentServiceTest {
+
+    private static final Duration DELAY = Duration.ofSeconds(2);
+
+    private final YouTubeDataApiService youTubeDataApiService = mock(YouTubeDataApiService.class);
+
+    private final ChannelCatalogRepository channelCatalogRepository = mock(ChannelCatalogRepository.class);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+    @Test
+    @DisplayName("同じ動画は1回だけ積まれ、トークンごとに1回の videos.list にまとめられること")
+    void enqueue_shouldDedupAndBatchPerToken() {
+        VideoEnrichmentService service = service(100);
+        when(youTubeDataApiService.getVideoDetailsBatch(anyString(), anyList())).thenReturn(Mono.just(Map.of()));
+
+        service.enqueue("user-a", "token-a", List.of("v1", "v2", "v1"));
+        service.enqueue("user-a", "token-a", List.of("v2", "v3"));
+        service.enqueue("user-b", "token-b", List.of("v4"));
+        scheduler.advanceTimeBy(DELAY);
+
+        verify(youTubeDataApiService).getVideoDetailsBatch("token-a", List.of("v1", "v2", "v3"));
+        verify(youTubeDataApiService).getVideoDetailsBatch("token-b", List.of("v4"));
+        assertThat(count("enqueued")).isEqualTo(4.0);
+    }
+
+    @Test
+    @DisplayName("取得を試みた動画は retry-after の間は積み直されないこと")
+    void enqueue_shouldSkipRecentlyAttempted() {
+        VideoEnrichmentService service = service(100);
+        when(youTubeDataApiService.getVideoDetailsBatch(anyString(), anyList()))
+                .thenReturn(Mono.just(Map.of("v1", new VideoDetails("PT1M", 1L))));
+
+        service.enqueue("user-a", "token-a", List.of("v1"));
+        scheduler.advanceTimeBy(DELAY);
+        service.enqueue("user-a", "token-a", List.of("v1"));
+        scheduler.advanceTimeBy(DELAY);
+
+        verify(youTubeDataApiService, times(1)).getVideoDetailsBatch(anyString(), anyList());
+        assertThat(count("enriched")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("max-pending を超えた分は破棄して数えること")
+    void enqueue_shouldDropBeyondMaxPending() {
+        VideoEnrichmentService service = service(2);
+
+        service.enqueue("user-a", "token-a", List.of("v1", "v2", "v3"));
+
+        assertThat(count("enqueued")).isEqualTo(2.0);
+        assertThat(count("dropped")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("一時的な失敗は数えたうえで次の読み取りで積み直せること")
+    void drain_transientFailure_shouldAllowRetry() {
+        VideoEnrichmentService service = service(100);
+        when(youTubeDataApiService.getVideoDetailsBatch(anyString(), anyList()))
+                .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "youtube_timeout")))
+                .thenReturn(Mono.just(Map.of()));
+
+        service.enqueue("user-a", "token-a", List.of("v1", "v2"));
+        scheduler.advanceTimeBy(DELAY);
+        service.enqueue("user-a", "token-a", List.of("v1"));
+        scheduler.advanceTimeBy(DELAY);
+
+        assertThat(count("failed")).isEqualTo(2.0);
+        verify(youTubeDataApiService).getVideoDetailsBatch("token-a", List.of("v1"));
+    }
+
+    @Test
+    @DisplayName("認証切れなどの失敗は retry-after まで積み直さないこと")
+    void drain_permanentFailure_shouldNotRetry() {
+        VideoEnrichmentService service = service(100);
+        when(youTubeDataApiService.getVideoDetailsBatch(anyString(), anyList()))
+                .thenReturn(Mono.error(WebClientResponseException.create(401, "Unauthorized", HttpHeaders.EMPTY, new byte[0], null)));
+
+        service.enqueue("user-a", "token-a", List.of("v1"));
+        scheduler.advanceTimeBy(DELAY);
+        service.enqueue("user-a", "token-a", List.of("v1"));
+        scheduler.advanceTimeBy(DELAY);
+
+        assertThat(count("failed")).isEqualTo(1.0);
+        verify(youTubeDataApiService, times(1)).getVideoDetailsBatch(eq("token-a"), anyList());
+    }
+
+    @Test
+    @DisplayName("カタログには補った尺/再生回数だけを latestVideoId 一致で書き込み、ドキュメント全体は保存しないこと")
+    @SuppressWarnings("unchecked")
+    void drain_shouldWriteOnlyFilledCatalogFields() {
+        VideoEnrichmentService service = service(100);
+        ChannelCatalogEntry entry = new ChannelCatalogEntry();
+        entry.setChannelId("UC_1");
+        entry.setLatestVideoId("v1");
+        when(channelCatalogRepository.findByLatestVideoIdIn(any())).thenReturn(Flux.just(entry));
+        when(channelCatalogRepository.setLatestVideoDetails(any())).thenReturn(Mono.just(1));
+        when(youTubeDataApiService.getVideoDetailsBatch(anyString(), anyList()))
+                .thenReturn(Mono.just(Map.of("v1", new VideoDetails("PT5M", 42L))));
+
+        service.enqueue("user-a", "token-a", List.of("v1"));
+        scheduler.advanceTimeBy(DELAY);
+
+        ArgumentCaptor<Collection<ChannelCatalogEntry>> written = ArgumentCaptor.forClass(Collection.class);
+        verify(channelCatalogRepository).setLatestVideoDetails(written.capture());
+        assertThat(written.getValue()).singleElement().satisfies(filled -> {
+            assertThat(filled.getLatestVideoId()).isEqualTo("v1");
+            assertThat(filled.getLatestVideoDuration()).isEqualTo("PT5M");
+            assertThat(filled.getLatestVideoViewCount()).isEqualTo(42L);
+        });
+        verify(channelCatalogRepository, never()).saveAll(any(Iterable.class));
+    }
+
+    private VideoEnrichmentService service(int maxPending) {
+        CachedChannelRepository cachedChannelRepository = mock(CachedChannelRepository.class);
+        ChannelVideoService channelVideoService = mock(ChannelVideoService.class);
+        when(cachedChannelRepository.findByLatestVideoIdIn(any())).thenReturn(Flux.empty());
+        when(channelCatalogRepository.findByLatestVideoIdIn(any())).thenReturn(Flux.empty());
+        when(channelVideoService.applyDetails(any())).thenReturn(Mono.empty());
+        return new VideoEnrichmentService(youTubeDataApiService, cachedChannelRepository, channelCatalogRepository,
+                channelVideoService, mock(NewReleasesService.class), registry, scheduler, true, DELAY, maxPending,
+                Duration.ofMinutes(10));
+    }
+
+    private double count(String result) {
+        return registry.get("youtube.enrichment.videos").tag("result", result).counter().count();
+    }
+}
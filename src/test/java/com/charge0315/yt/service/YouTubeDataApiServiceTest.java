@@ -0,0 +1,179 @@
+package com.charge0315.yt.service;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.charge0315.yt.client.YouTubeApiClient;
+import com.charge0315.yt.client.YouTubeItems;
+import com.charge0315.yt.client.YouTubeQuotaManager;
+import com.charge0315.yt.client.YouTubeResource;
+import com.charge0315.yt.service.YouTubeDataApiService.ChannelDetails;
+import com.charge0315.yt.service.YouTubeDataApiService.LatestVideo;
+import com.charge0315.yt.service.YouTubeDataApiService.VideoDetails;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * YouTubeDataApiService（アップロード再生リスト経由の取得と ID のまとめ取得）のテスト。
+ */
+class YouTubeDataApiServiceTest {
+
+    private final YouTubeApiClient youTubeApiClient = mock(YouTubeApiClient.class);
+
+    private final YouTubeDataApiService service = new YouTubeDataApiService(youTubeApiClient,
+            mock(PlaylistItemIndexService.class), mock(SearchResultCache.class), mock(YouTubeQuotaManager.class),
+            new SimpleMeterRegistry(), 5000, 4, Duration.ofMillis(5));
+
+    @Test
+    @DisplayName("アップロード再生リストが分かっていれば playlistItems.list だけで取得し、search.list は呼ばないこと")
+    void fetchRecentVideos_shouldUseUploadsPlaylist() {
+        when(youTubeApiClient.streamItems(anyString(), eq(YouTubeResource.PLAYLIST_ITEMS), any(), any(),
+                eq(YouTubeItems.PlaylistItem.class))).thenReturn(Flux.just(
+                        playlistItem("v2", "2024-02-01T00:00:00Z", "2024-02-02T00:00:00Z"),
+                        playlistItem("v1", null, "2024-01-01T00:00:00Z")));
+
+        List<LatestVideo> videos = service.fetchRecentVideosForChannel("token", "UC_1", "UU_1", 3).block();
+
+        // 公開日時は contentDetails.videoPublishedAt を優先し、無ければ snippet.publishedAt
+        assertThat(videos).containsExactly(
+                new LatestVideo("v2", "v2", "https://example.com/v2.jpg", "2024-02-01T00:00:00Z"),
+                new LatestVideo("v1", "v1", "https://example.com/v1.jpg", "2024-01-01T00:00:00Z"));
+        URI uri = capturedUri(YouTubeResource.PLAYLIST_ITEMS, YouTubeItems.PlaylistItem.class);
+        assertThat(query(uri)).containsEntry("playlistId", List.of("UU_1")).containsEntry("maxResults", List.of("3"));
+        verify(youTubeApiClient, never()).streamItems(anyString(), eq(YouTubeResource.SEARCH), any(), any(),
+                eq(YouTubeItems.SearchResult.class));
+    }
+
+    @Test
+    @DisplayName("アップロード再生リストが 404 なら search.list で最新1件にフォールバックすること")
+    void fetchRecentVideos_shouldFallBackToSearchOnNotFound() {
+        when(youTubeApiClient.streamItems(anyString(), eq(YouTubeResource.PLAYLIST_ITEMS), any(), any(),
+                eq(YouTubeItems.PlaylistItem.class))).thenReturn(Flux.error(notFound()));
+        when(youTubeApiClient.streamItems(anyString(), eq(YouTubeResource.SEARCH), any(), any(),
+                eq(YouTubeItems.SearchResult.class))).thenReturn(Flux.just(searchResult("v-latest")));
+
+        List<LatestVideo> videos = service.fetchRecentVideosForChannel("token", "UC_1", "UU_gone", 5).block();
+
+        assertThat(videos).extracting(LatestVideo::videoId).containsExactly("v-latest");
+        URI uri = capturedUri(YouTubeResource.SEARCH, YouTubeItems.SearchResult.class);
+        assertThat(query(uri)).containsEntry("channelId", List.of("UC_1")).containsEntry("maxResults", List.of("1"));
+    }
+
+    @Test
+    @DisplayName("アップロード再生リストが不明なら最初から search.list を使い、結果が無ければ空のリストを返すこと")
+    void fetchRecentVideos_shouldSearchWithoutUploadsPlaylist() {
+        when(youTubeApiClient.streamItems(anyString(), eq(YouTubeResource.SEARCH), any(), any(),
+                eq(YouTubeItems.SearchResult.class))).thenReturn(Flux.empty());
+
+        assertThat(service.fetchRecentVideosForChannel("token", "UC_1", null, 5).block()).isEmpty();
+        verify(youTubeApiClient, never()).streamItems(anyString(), eq(YouTubeResource.PLAYLIST_ITEMS), any(), any(),
+                eq(YouTubeItems.PlaylistItem.class));
+    }
+
+    @Test
+    @DisplayName("videos.list は重複と空文字を除いて50件ずつに分けて送ること")
+    void getVideoDetailsBatch_shouldPartitionDistinctIds() {
+        List<String> ids = new ArrayList<>(IntStream.range(0, 120).mapToObj(i -> "v" + i).toList());
+        ids.add("v0");
+        ids.add("");
+        when(youTubeApiClient.streamItems(anyString(), eq(YouTubeResource.VIDEOS), any(), any(),
+                eq(YouTubeItems.Video.class))).thenAnswer(invocation -> Flux.fromArray(
+                        query(invocation.getArgument(3)).get("id").get(0).split(","))
+                .map(id -> new YouTubeItems.Video(id, new YouTubeItems.VideoContentDetails("PT1M"),
+                        new YouTubeItems.VideoStatistics(1L))));
+
+        Map<String, VideoDetails> details = service.getVideoDetailsBatch("token", ids).block();
+
+        assertThat(details).hasSize(120).containsEntry("v119", new VideoDetails("PT1M", 1L));
+        ArgumentCaptor<URI> uris = ArgumentCaptor.forClass(URI.class);
+        verify(youTubeApiClient, times(3)).streamItems(anyString(), eq(YouTubeResource.VIDEOS), any(),
+                uris.capture(), eq(YouTubeItems.Video.class));
+        assertThat(uris.getAllValues())
+                .extracting(uri -> query(uri).get("id").get(0).split(",").length)
+                .containsExactly(50, 50, 20);
+    }
+
+    @Test
+    @DisplayName("同時期の1件取得は channels.list 1回にまとめ、見つからないチャンネルは 404 にすること")
+    void getChannelDetails_shouldCoalesceConcurrentLoads() {
+        when(youTubeApiClient.streamItems(anyString(), eq(YouTubeResource.CHANNELS), any(), any(),
+                eq(YouTubeItems.Channel.class))).thenReturn(Flux.just(channel("UC_a")));
+
+        List<Object> results = Flux.merge(
+                        service.getChannelDetails("token", "UC_a").cast(Object.class),
+                        service.getChannelDetails("token", "UC_missing").cast(Object.class)
+                                .onErrorResume(e -> Mono.just(e)))
+                .collectList()
+                .block();
+
+        assertThat(results).hasSize(2).anySatisfy(result -> assertThat(result)
+                .isInstanceOfSatisfying(ChannelDetails.class,
+                        details -> assertThat(details.uploadsPlaylistId()).isEqualTo("UU_a")));
+        assertThat(results).anySatisfy(result -> assertThat(result)
+                .isInstanceOf(ResponseStatusException.class));
+        URI uri = capturedUri(YouTubeResource.CHANNELS, YouTubeItems.Channel.class);
+        assertThat(query(uri).get("id").get(0).split(",")).containsExactlyInAnyOrder("UC_a", "UC_missing");
+    }
+
+    private <T> URI capturedUri(YouTubeResource resource, Class<T> itemType) {
+        ArgumentCaptor<URI> uri = ArgumentCaptor.forClass(URI.class);
+        verify(youTubeApiClient).streamItems(anyString(), eq(resource), any(), uri.capture(), eq(itemType));
+        return uri.getValue();
+    }
+
+    private static Map<String, List<String>> query(URI uri) {
+        return UriComponentsBuilder.fromUri(uri).build(true).getQueryParams();
+    }
+
+    private static WebClientResponseException notFound() {
+        return WebClientResponseException.create(404, "Not Found", HttpHeaders.EMPTY, new byte[0],
+                StandardCharsets.UTF_8);
+    }
+
+    private static YouTubeItems.Snippet snippet(String title, String publishedAt) {
+        YouTubeItems.Thumbnail thumbnail = new YouTubeItems.Thumbnail("https://example.com/" + title + ".jpg");
+        return new YouTubeItems.Snippet(title, null, null, null, null, publishedAt, null,
+                new YouTubeItems.Thumbnails(thumbnail, thumbnail, thumbnail));
+    }
+
+    private static YouTubeItems.PlaylistItem playlistItem(String videoId, String videoPublishedAt,
+            String snippetPublishedAt) {
+        return new YouTubeItems.PlaylistItem("item-" + videoId, snippet(videoId, snippetPublishedAt),
+                new YouTubeItems.PlaylistItemContentDetails(videoId, videoPublishedAt));
+    }
+
+    private static YouTubeItems.SearchResult searchResult(String videoId) {
+        return new YouTubeItems.SearchResult(new YouTubeItems.SearchId(videoId, null),
+                snippet(videoId, "2024-01-01T00:00:00Z"));
+    }
+
+    private static YouTubeItems.Channel channel(String channelId) {
+        return new YouTubeItems.Channel(channelId, snippet(channelId, null), new YouTubeItems.ChannelStatistics("10"),
+                new YouTubeItems.ChannelContentDetails(new YouTubeItems.RelatedPlaylists("UU" + channelId.substring(2))));
+    }
+}
@@ -0,0 +1,108 @@
+package com.charge0315.yt.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JsonStreamWriter（配列の逐次書き出し）のテスト。
+ */
+class JsonStreamWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("メタ情報と配列要素を1つの正しい JSON として書き出すこと")
+    void objectWithArray_shouldWriteValidJson() throws Exception {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", "テスト");
+        fields.put("thumbnail", null);
+
+        String json = join(JsonStreamWriter.objectWithArray(objectMapper, fields, "songs",
+                Flux.just(Map.of("videoId", "v1"), Map.of("videoId", "v2"))));
+
+        JsonNode node = objectMapper.readTree(json);
+        assertThat(node.path("name").asText()).isEqualTo("テスト");
+        assertThat(node.path("thumbnail").isNull()).isTrue();
+        assertThat(node.path("songs")).hasSize(2);
+        assertThat(node.path("songs").get(1).path("videoId").asText()).isEqualTo("v2");
+    }
+
+    @Test
+    @DisplayName("メタ情報・配列要素が空でも正しい JSON になること")
+    void objectWithArray_empty_shouldWriteValidJson() throws Exception {
+        String json = join(JsonStreamWriter.objectWithArray(objectMapper, Map.of(), "items", Flux.fromIterable(List.of())));
+
+        assertThat(objectMapper.readTree(json).path("items").isArray()).isTrue();
+        assertThat(json).isEqualTo("{\"items\":[]}");
+    }
+
+    @Test
+    @DisplayName("打ち切り対象のエラーではそこまでの要素で閉じて truncated=true を書き、完走すれば false になること")
+    void objectWithArray_truncateOn_shouldMarkTruncated() throws Exception {
+        Flux<Map<String, String>> cut = Flux.concat(Flux.just(Map.of("videoId", "v1")),
+                Flux.error(new IllegalStateException("deadline")));
+
+        JsonNode truncated = objectMapper.readTree(join(JsonStreamWriter.objectWithArray(objectMapper, Map.of(),
+                "songs", cut, IllegalStateException.class::isInstance)));
+        JsonNode complete = objectMapper.readTree(join(JsonStreamWriter.objectWithArray(objectMapper, Map.of(),
+                "songs", Flux.just(Map.of("videoId", "v1")), IllegalStateException.class::isInstance)));
+
+        assertThat(truncated.path("songs")).hasSize(1);
+        assertThat(truncated.path("truncated").asBoolean()).isTrue();
+        assertThat(complete.path("songs")).hasSize(1);
+        assertThat(complete.path("truncated").asBoolean(true)).isFalse();
+    }
+
+    @Test
+    @DisplayName("最初の要素より前のエラーは何も書かずにそのまま伝え、途中のエラーは配列を閉じて error を書くこと")
+    void objectWithArray_otherErrors_shouldFailBeforeHeadOrCloseWithError() throws Exception {
+        Flux<DataBuffer> beforeHead = JsonStreamWriter.objectWithArray(objectMapper, Map.of("name", "x"), "songs",
+                Flux.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "playlist_not_found")),
+                IllegalStateException.class::isInstance);
+        Flux<Map<String, String>> cut = Flux.concat(Flux.just(Map.of("videoId", "v1")),
+                Flux.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "youtube_circuit_open")));
+
+        StepVerifier.create(beforeHead)
+                .expectErrorMatches(e -> e instanceof ResponseStatusException rse
+                        && rse.getStatusCode().value() == 404)
+                .verify();
+        JsonNode afterHead = objectMapper.readTree(join(JsonStreamWriter.objectWithArray(objectMapper, Map.of(),
+                "songs", cut, IllegalStateException.class::isInstance)));
+        JsonNode export = objectMapper.readTree(join(JsonStreamWriter.objectWithArray(objectMapper, Map.of(),
+                "items", cut)));
+
+        assertThat(afterHead.path("songs")).hasSize(1);
+        assertThat(afterHead.path("truncated").asBoolean()).isTrue();
+        assertThat(afterHead.path("error").asText()).isEqualTo("youtube_circuit_open");
+        assertThat(export.path("items")).hasSize(1);
+        assertThat(export.path("error").asText()).isEqualTo("youtube_circuit_open");
+    }
+
+    private static String join(Flux<DataBuffer> buffers) {
+        return buffers
+                .map(buffer -> {
+                    String s = buffer.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(buffer);
+                    return s;
+                })
+                .reduce("", String::concat)
+                .block();
+    }
+}
@@ -0,0 +1,46 @@
+package com.charge0315.yt.util;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * RequestContext（リクエストの期限）のテスト。
+ */
+class RequestContextTest {
+
+    @Test
+    @DisplayName("期限を重ねて設定した場合は早い方が維持されること")
+    void withDeadline_shouldKeepEarlierDeadline() {
+        Context ctx = RequestContext.withDeadline(Context.empty(), Duration.ofSeconds(1));
+        ctx = RequestContext.withDeadline(ctx, Duration.ofMinutes(1));
+
+        assertThat(RequestContext.remaining(ctx)).isLessThanOrEqualTo(Duration.ofSeconds(1));
+        assertThat(RequestContext.remaining(Context.empty())).isNull();
+    }
+
+    @Test
+    @DisplayName("期限を過ぎた処理は deadline_exceeded で打ち切られること")
+    void withinDeadline_shouldFailAfterDeadline() {
+        Mono<String> slow = Mono.delay(Duration.ofSeconds(5)).thenReturn("late")
+                .transform(RequestContext::withinDeadline)
+                .contextWrite(ctx -> RequestContext.withDeadline(ctx, Duration.ofMillis(50)));
+
+        assertThatThrownBy(slow::block).satisfies(e -> assertThat(RequestContext.isDeadlineExceeded(e)).isTrue());
+    }
+
+    @Test
+    @DisplayName("期限が無い場合はそのまま流れること")
+    void withinDeadlineFlux_shouldPassThroughWithoutDeadline() {
+        assertThat(Flux.just(1, 2, 3).transform(RequestContext::withinDeadlineFlux).collectList().block())
+                .containsExactly(1, 2, 3);
+    }
+}